@@ -91,6 +91,7 @@ import org.artifactory.api.security.AuthorizationService;
 import org.artifactory.build.ArtifactoryBuildArtifact;
 import org.artifactory.build.BuildRun;
 import org.artifactory.common.ArtifactoryHome;
+import org.artifactory.common.ConstantValues;
 import org.artifactory.common.MutableStatusHolder;
 import org.artifactory.config.ConfigurationException;
 import org.artifactory.descriptor.config.CentralConfigDescriptor;
@@ -133,6 +134,7 @@ import org.artifactory.security.props.auth.TokenManager;
 import org.artifactory.storage.db.servers.model.ArtifactoryServer;
 import org.artifactory.storage.fs.lock.FsItemsVault;
 import org.artifactory.storage.fs.lock.FsItemsVaultCacheImpl;
+import org.artifactory.storage.fs.lock.StripedFsItemsVault;
 import org.artifactory.storage.fs.lock.map.JVMLockingMap;
 import org.artifactory.storage.fs.lock.map.LockingMap;
 import org.artifactory.storage.fs.lock.provider.JVMLockProvider;
@@ -856,6 +858,9 @@ public class CoreAddonsImpl implements WebstartAddon, LdapGroupAddon, LicensesAd
 
     @Override
     public FsItemsVault getFsItemVault() {
+        if (ConstantValues.locksStripedVault.getBoolean()) {
+            return new StripedFsItemsVault(ConstantValues.locksStripes.getInt());
+        }
         LockProvider lockProvider = new JVMLockProvider();
         return new FsItemsVaultCacheImpl(lockProvider);
     }
@@ -1,12 +1,16 @@
 package org.artifactory.download;
 
+import com.google.common.base.Splitter;
+import com.google.common.collect.Sets;
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.io.IOUtils;
 import org.artifactory.api.archive.ArchiveType;
 import org.artifactory.api.common.BasicStatusHolder;
 import org.artifactory.api.context.ContextHelper;
 import org.artifactory.api.download.FolderDownloadService;
+import org.artifactory.api.repo.RepositoryService;
 import org.artifactory.api.storage.StorageUnit;
 import org.artifactory.common.ConstantValues;
 import org.artifactory.fs.FileInfo;
@@ -29,13 +33,30 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
 
 /**
  * Traverses the tree under the requested path recursively and writes each file into the stream serially.
  * The stream itself is an {@link ArchiveOutputStream} based on the selected {@link ArchiveType}
+ * <p/>
+ * While an entry is written, the content of the next small files is read ahead in parallel into memory, so the
+ * latency of opening many small files is not paid one file after the other. Both the number of files read ahead and
+ * their size are bounded, as well as the number of reads in progress of all the folder downloads. A file whose read
+ * ahead did not start when it is written is streamed instead. Already compressed files which are read ahead are stored
+ * in zip archives without compression.
  *
  * @author Dan Feldman
  * @author Yossi Shaul
@@ -52,9 +73,22 @@ public class FolderArchiveStreamer {
     private ArchiveOutputStream archiveOutputStream = null;
     private long filesCount;
     private long totalSizeInBytes;
+    private final int readAheadFiles;
+    private final long readAheadMaxFileSize;
+    private final Set<String> storedExtensions;
+    private final Semaphore readAheadPermits;
+    private final Deque<PendingFile> pendingFiles = new ArrayDeque<>();
+    private CachedThreadPoolTaskExecutor executor;
+    private RepositoryService repositoryService;
+    private long writtenFiles;
+    private long writtenBytes;
 
+    /**
+     * @param readAheadPermits The reads ahead which can be in progress, shared by all the folder downloads
+     */
     public FolderArchiveStreamer(RepoPath pathToDownload, ArchiveType archiveType, int maxDownloadSizeMb,
-            long maxFiles, BasicStatusHolder status) {
+            long maxFiles, BasicStatusHolder status, Semaphore readAheadPermits) {
+        this.readAheadPermits = readAheadPermits;
         this.rootFolder = pathToDownload;
         this.archiveType = archiveType;
         this.status = status;
@@ -62,28 +96,27 @@ public class FolderArchiveStreamer {
         this.maxDownloadSizeInBytes = (long) StorageUnit.MB.toBytes(maxDownloadSizeMb);
         this.maxFiles = maxFiles;
         this.maxDownloadSizeInMB = maxDownloadSizeMb;
+        this.readAheadFiles = Math.max(ConstantValues.folderDownloadReadAheadFiles.getInt(), 0);
+        this.readAheadMaxFileSize =
+                (long) StorageUnit.KB.toBytes(ConstantValues.folderDownloadReadAheadMaxFileSizeKb.getInt());
+        this.storedExtensions = Sets.newHashSet(Splitter.on(',').trimResults().omitEmptyStrings()
+                .split(ConstantValues.folderDownloadStoredExtensions.getString().toLowerCase()));
     }
 
     public InputStream go() {
-        CachedThreadPoolTaskExecutor executor = ContextHelper.get().beanForType(CachedThreadPoolTaskExecutor.class);
+        executor = ContextHelper.get().beanForType(CachedThreadPoolTaskExecutor.class);
+        repositoryService = ContextHelper.get().getRepositoryService();
         return new OutputToInputStream(new DummyExecutorService(executor)) {
             @Override
             protected void write(OutputStream sink) throws IOException {
                 try {
-                    long start = System.currentTimeMillis();
-                    archiveOutputStream = ArchiveUtils.createArchiveOutputStream(sink, archiveType);
                     ItemTree tree = new ItemTree(rootFolder, new TreeBrowsingCriteriaBuilder()
                             .applyRepoIncludeExclude().applySecurity().cacheChildren(false).build());
-                    ItemNode rootNode = tree.getRootNode();
-                    writeRecursive(rootNode);
-                    archiveOutputStream.finish();
-                    log.trace("folder download finished successfully, took {} ms", System.currentTimeMillis() - start);
+                    writeArchive(sink, tree.getRootNode());
                 } catch (Exception e) {
                     status.error("Error executing folder download: " + e.getMessage(), log);
                     log.debug("Caught exception while executing folder download: ", e);
                 } finally {
-                    archiveOutputStream.flush();
-                    IOUtils.closeQuietly(archiveOutputStream);
                     IOUtils.closeQuietly(sink);
                     ContextHelper.get().beanForType(FolderDownloadService.class).releaseDownloadSlot();
                 }
@@ -91,6 +124,27 @@ public class FolderArchiveStreamer {
         };
     }
 
+    /**
+     * Writes the archive of the files under the root node, the pending reads ahead are cancelled if it fails
+     */
+    void writeArchive(OutputStream sink, ItemNode rootNode) throws IOException {
+        long start = System.currentTimeMillis();
+        archiveOutputStream = ArchiveUtils.createArchiveOutputStream(sink, archiveType);
+        try {
+            writeRecursive(rootNode);
+            writePendingFiles(0);
+            archiveOutputStream.finish();
+            long took = System.currentTimeMillis() - start;
+            log.debug("Folder download of '{}' finished successfully: {} files, {} in {} ms ({}/sec)",
+                    rootFolder, writtenFiles, StorageUnit.toReadableString(writtenBytes), took,
+                    StorageUnit.toReadableString(took > 0 ? writtenBytes * 1000 / took : writtenBytes));
+        } finally {
+            cancelPendingFiles();
+            archiveOutputStream.flush();
+            IOUtils.closeQuietly(archiveOutputStream);
+        }
+    }
+
     private void writeRecursive(ItemNode currentNode) throws IOException {
         if (limitsReached()) {
             return;
@@ -106,7 +160,7 @@ public class FolderArchiveStreamer {
             totalSizeInBytes += fileInfo.getSize();
             filesCount++;
             if (!limitsReached()) {
-                writeArtifactToStream(fileInfo.getRepoPath(), fileInfo.getSize());
+                readAhead(fileInfo);
             }
         }
     }
@@ -125,24 +179,91 @@ public class FolderArchiveStreamer {
     }
 
     /**
-     * Returns the size of downloaded file for the loop stop calculation
+     * Starts reading the content of a small file if a read ahead permit is available and writes the files which are
+     * out of the read ahead window
      */
-    private void writeArtifactToStream(RepoPath fileRepoPath, long size) throws IOException {
-        long start = System.currentTimeMillis();
-        String relativePath = PathUtils.getRelativePath(rootFolder.getPath(), fileRepoPath.getPath());
-        ArchiveEntry archiveEntry = ArchiveUtils.createArchiveEntry(relativePath, archiveType, size);
-        ResourceStreamHandle handle = ContextHelper.get().getRepositoryService().getResourceStreamHandle(fileRepoPath);
+    private void readAhead(FileInfo fileInfo) throws IOException {
+        PendingFile pendingFile = new PendingFile(fileInfo, System.currentTimeMillis());
+        if (readAheadFiles > 0 && fileInfo.getSize() <= readAheadMaxFileSize && readAheadPermits.tryAcquire()) {
+            try {
+                pendingFile.content = executor.submit(pendingFile::readAhead);
+            } catch (RejectedExecutionException e) {
+                readAheadPermits.release();
+                log.debug("Read ahead of {} rejected, reading it when written", fileInfo.getRepoPath());
+            }
+        }
+        pendingFiles.add(pendingFile);
+        writePendingFiles(readAheadFiles);
+    }
+
+    private void writePendingFiles(int maxPendingFiles) throws IOException {
+        while (pendingFiles.size() > maxPendingFiles) {
+            writeArtifactToStream(pendingFiles.poll());
+        }
+    }
+
+    private void cancelPendingFiles() {
+        for (PendingFile pendingFile : pendingFiles) {
+            pendingFile.cancel();
+        }
+        pendingFiles.clear();
+    }
+
+    private byte[] readContent(RepoPath fileRepoPath) throws IOException {
+        ResourceStreamHandle handle = repositoryService.getResourceStreamHandle(fileRepoPath);
         try {
-            InputStream artifactStream = handle.getInputStream();
-            archiveOutputStream.putArchiveEntry(archiveEntry);
-            log.debug("Writing path {} to output stream", fileRepoPath.toPath());
-            IOUtils.copy(artifactStream, archiveOutputStream);
+            return IOUtils.toByteArray(handle.getInputStream());
         } finally {
             IOUtils.closeQuietly(handle);
-            archiveOutputStream.closeArchiveEntry();
-            archiveOutputStream.flush();
         }
-        logAccessTrafficAndStatsForSinglePath(fileRepoPath, size, start);
+    }
+
+    private void writeArtifactToStream(PendingFile pendingFile) throws IOException {
+        RepoPath fileRepoPath = pendingFile.fileInfo.getRepoPath();
+        long size = pendingFile.fileInfo.getSize();
+        String relativePath = PathUtils.getRelativePath(rootFolder.getPath(), fileRepoPath.getPath());
+        ArchiveEntry archiveEntry = ArchiveUtils.createArchiveEntry(relativePath, archiveType, size);
+        byte[] content = pendingFile.getContent();
+        if (content != null) {
+            if (archiveEntry instanceof ZipArchiveEntry && isCompressed(relativePath)) {
+                // a stored entry must declare its size and crc before its content
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                ZipArchiveEntry zipEntry = (ZipArchiveEntry) archiveEntry;
+                zipEntry.setMethod(ZipArchiveEntry.STORED);
+                zipEntry.setSize(content.length);
+                zipEntry.setCompressedSize(content.length);
+                zipEntry.setCrc(crc.getValue());
+            }
+            try {
+                archiveOutputStream.putArchiveEntry(archiveEntry);
+                log.debug("Writing path {} to output stream", fileRepoPath.toPath());
+                archiveOutputStream.write(content);
+            } finally {
+                archiveOutputStream.closeArchiveEntry();
+                archiveOutputStream.flush();
+            }
+            writtenBytes += content.length;
+        } else {
+            ResourceStreamHandle handle = repositoryService.getResourceStreamHandle(fileRepoPath);
+            try {
+                InputStream artifactStream = handle.getInputStream();
+                archiveOutputStream.putArchiveEntry(archiveEntry);
+                log.debug("Writing path {} to output stream", fileRepoPath.toPath());
+                writtenBytes += IOUtils.copyLarge(artifactStream, archiveOutputStream);
+            } finally {
+                IOUtils.closeQuietly(handle);
+                archiveOutputStream.closeArchiveEntry();
+                archiveOutputStream.flush();
+            }
+        }
+        writtenFiles++;
+        logAccessTrafficAndStatsForSinglePath(fileRepoPath, size, pendingFile.start);
+    }
+
+    private boolean isCompressed(String path) {
+        String extension = PathUtils.getExtension(path);
+        return extension != null && storedExtensions.contains(extension.toLowerCase());
     }
 
     private void logAccessTrafficAndStatsForSinglePath(RepoPath path, long size, long start) {
@@ -155,4 +276,74 @@ public class FolderArchiveStreamer {
                     SecurityContextHolder.getContext().getAuthentication().getName(), System.currentTimeMillis(), false);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * A file of the read ahead window, with its content if it is read ahead. The read ahead is claimed either by the
+     * worker when it starts reading or by the writer when the file is written (or cancelled) before, whichever comes
+     * first, so a file is never read twice and the read ahead permit is released exactly once.
+     */
+    private class PendingFile {
+        private final FileInfo fileInfo;
+        private final long start;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private Future<byte[]> content;
+
+        private PendingFile(FileInfo fileInfo, long start) {
+            this.fileInfo = fileInfo;
+            this.start = start;
+        }
+
+        /**
+         * Reads the content on a worker, unless the file was already claimed by the writer
+         */
+        @Nullable
+        private byte[] readAhead() throws IOException {
+            if (!claimed.compareAndSet(false, true)) {
+                return null;
+            }
+            try {
+                return readContent(fileInfo.getRepoPath());
+            } finally {
+                readAheadPermits.release();
+            }
+        }
+
+        /**
+         * @return The content read ahead, null if the file should be streamed
+         */
+        @Nullable
+        private byte[] getContent() throws IOException {
+            if (content == null || claimWaiting()) {
+                // not read ahead or still waiting for a busy executor, streamed by the writing thread instead
+                return null;
+            }
+            try {
+                return content.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading " + fileInfo.getRepoPath());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw new IOException("Failed to read " + fileInfo.getRepoPath() + ": " + cause.getMessage(), cause);
+            }
+        }
+
+        private void cancel() {
+            if (content != null && !claimWaiting()) {
+                content.cancel(true);
+            }
+        }
+
+        /**
+         * @return True if the read ahead did not start and is now claimed by the writer
+         */
+        private boolean claimWaiting() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            content.cancel(false);
+            readAheadPermits.release();
+            return true;
+        }
+    }
+}
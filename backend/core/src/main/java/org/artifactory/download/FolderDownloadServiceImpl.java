@@ -10,6 +10,7 @@ import org.artifactory.api.repo.exception.ItemNotFoundRuntimeException;
 import org.artifactory.api.security.AuthorizationService;
 import org.artifactory.api.storage.StorageUnit;
 import org.artifactory.aql.AqlService;
+import org.artifactory.common.ConstantValues;
 import org.artifactory.descriptor.config.CentralConfigDescriptor;
 import org.artifactory.descriptor.download.FolderDownloadConfigDescriptor;
 import org.artifactory.fs.ItemInfo;
@@ -59,6 +60,8 @@ public class FolderDownloadServiceImpl implements InternalFolderDownloadService
     private long maxFiles;
     private boolean serviceEnabled;
     private ConcurrentDownloadCounter concurrentDownloadCounter;
+    // the files read ahead concurrently by all the downloads, so they don't saturate the shared executor
+    private Semaphore readAheadPermits;
 
     @Override
     public void init() {
@@ -67,6 +70,7 @@ public class FolderDownloadServiceImpl implements InternalFolderDownloadService
         this.maxFiles = config.getMaxFiles();
         this.serviceEnabled = config.isEnabled();
         this.concurrentDownloadCounter = new ConcurrentDownloadCounter(config.getMaxConcurrentRequests(), true);
+        this.readAheadPermits = new Semaphore(Math.max(ConstantValues.folderDownloadReadAheadMaxReads.getInt(), 0));
     }
 
     @Override
@@ -115,7 +119,7 @@ public class FolderDownloadServiceImpl implements InternalFolderDownloadService
                 return null;
             }
             FolderArchiveStreamer streamer = new FolderArchiveStreamer(pathToDownload, archiveType, maxDownloadSizeMb,
-                    maxFiles, status);
+                    maxFiles, status, readAheadPermits);
             return streamer.go();
         } catch (Exception e) {
             status.error("Error executing folder download: " + e.getMessage(), log);
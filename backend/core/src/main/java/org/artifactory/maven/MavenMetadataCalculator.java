@@ -266,15 +266,8 @@ public class MavenMetadataCalculator extends AbstractMetadataCalculator {
         for (ItemNode folderItem : folderItems) {
             String folderItemPath = folderItem.getItemInfo().getRelPath();
             if (MavenNaming.isUniqueSnapshot(folderItemPath)) {
-                ModuleInfo folderItemModuleInfo;
-                if (MavenNaming.isPom(folderItemPath)) {
-                    folderItemModuleInfo = ModuleInfoUtils.moduleInfoFromDescriptorPath(folderItemPath,
-                            RepoLayoutUtils.MAVEN_2_DEFAULT);
-                } else {
-                    folderItemModuleInfo = ModuleInfoUtils.moduleInfoFromArtifactPath(folderItemPath,
-                            RepoLayoutUtils.MAVEN_2_DEFAULT);
-                }
-                if (!folderItemModuleInfo.isValid() || !folderItemModuleInfo.isIntegration()) {
+                ModuleInfo folderItemModuleInfo = getSnapshotModuleInfo(folderItemPath);
+                if (folderItemModuleInfo == null) {
                     continue;
                 }
                 SnapshotVersionType folderItemSnapshotVersionType = new SnapshotVersionType(
@@ -292,19 +285,41 @@ public class MavenMetadataCalculator extends AbstractMetadataCalculator {
         }
 
         for (ModuleInfo latestSnapshotVersion : latestSnapshotVersions.values()) {
-            SnapshotVersion snapshotVersion = new SnapshotVersion();
-            snapshotVersion.setClassifier(latestSnapshotVersion.getClassifier());
-            snapshotVersion.setExtension(latestSnapshotVersion.getExt());
-
-            String fileItegRev = latestSnapshotVersion.getFileIntegrationRevision();
-            snapshotVersion.setVersion(latestSnapshotVersion.getBaseRevision() + "-" + fileItegRev);
-            snapshotVersion.setUpdated(StringUtils.remove(StringUtils.substringBefore(fileItegRev, "-"), '.'));
-            snapshotVersionsToReturn.add(snapshotVersion);
+            snapshotVersionsToReturn.add(toSnapshotVersion(latestSnapshotVersion));
         }
 
         return snapshotVersionsToReturn;
     }
 
+    /**
+     * @param path The repository relative path of a unique snapshot file
+     * @return The module info of the file or null if it is not a valid integration module
+     */
+    @Nullable
+    static ModuleInfo getSnapshotModuleInfo(String path) {
+        ModuleInfo moduleInfo;
+        if (MavenNaming.isPom(path)) {
+            moduleInfo = ModuleInfoUtils.moduleInfoFromDescriptorPath(path, RepoLayoutUtils.MAVEN_2_DEFAULT);
+        } else {
+            moduleInfo = ModuleInfoUtils.moduleInfoFromArtifactPath(path, RepoLayoutUtils.MAVEN_2_DEFAULT);
+        }
+        if (!moduleInfo.isValid() || !moduleInfo.isIntegration()) {
+            return null;
+        }
+        return moduleInfo;
+    }
+
+    static SnapshotVersion toSnapshotVersion(ModuleInfo snapshotModuleInfo) {
+        SnapshotVersion snapshotVersion = new SnapshotVersion();
+        snapshotVersion.setClassifier(snapshotModuleInfo.getClassifier());
+        snapshotVersion.setExtension(snapshotModuleInfo.getExt());
+
+        String fileItegRev = snapshotModuleInfo.getFileIntegrationRevision();
+        snapshotVersion.setVersion(snapshotModuleInfo.getBaseRevision() + "-" + fileItegRev);
+        snapshotVersion.setUpdated(StringUtils.remove(StringUtils.substringBefore(fileItegRev, "-"), '.'));
+        return snapshotVersion;
+    }
+
     private void createVersionsMetadata(RepoPath repoPath, List<ItemNode> versionNodes) {
         // get artifact info from the first pom
 
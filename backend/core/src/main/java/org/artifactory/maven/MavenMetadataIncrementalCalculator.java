@@ -0,0 +1,218 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.maven;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.Snapshot;
+import org.apache.maven.artifact.repository.metadata.SnapshotVersion;
+import org.apache.maven.artifact.repository.metadata.Versioning;
+import org.artifactory.api.maven.MavenArtifactInfo;
+import org.artifactory.api.module.ModuleInfo;
+import org.artifactory.common.ConstantValues;
+import org.artifactory.descriptor.repo.LocalRepoDescriptor;
+import org.artifactory.descriptor.repo.SnapshotVersionBehavior;
+import org.artifactory.maven.snapshot.SnapshotComparator;
+import org.artifactory.maven.versioning.MavenVersionComparator;
+import org.artifactory.maven.versioning.VersionNameMavenMetadataVersionComparator;
+import org.artifactory.mime.MavenNaming;
+import org.artifactory.model.common.RepoPathImpl;
+import org.artifactory.repo.RepoPath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies a single change (a new unique snapshot file, an added or removed version) to the stored maven metadata of a
+ * folder instead of calculating it from all the folder items like the {@link MavenMetadataCalculator}.
+ * <p/>
+ * Each update returns false if the stored metadata is missing or inconsistent with the change, in which case the
+ * caller should fall back to a full calculation.
+ */
+public class MavenMetadataIncrementalCalculator extends AbstractMetadataCalculator {
+    private static final Logger log = LoggerFactory.getLogger(MavenMetadataIncrementalCalculator.class);
+
+    /**
+     * Updates the snapshot metadata of the folder of a new unique snapshot file.
+     *
+     * @param uniqueSnapshotFile The newly created unique snapshot file
+     * @return True if the metadata is up to date, false if a full calculation is required
+     */
+    public boolean snapshotAdded(RepoPath uniqueSnapshotFile) {
+        String fileName = uniqueSnapshotFile.getName();
+        RepoPath snapshotFolder = uniqueSnapshotFile.getParent();
+        if (snapshotFolder == null || !MavenNaming.isUniqueSnapshotFileName(fileName)) {
+            return false;
+        }
+        LocalRepoDescriptor localRepoDescriptor =
+                getRepositoryService().localOrCachedRepoDescriptorByKey(uniqueSnapshotFile.getRepoKey());
+        if (localRepoDescriptor == null ||
+                !SnapshotVersionBehavior.UNIQUE.equals(localRepoDescriptor.getSnapshotVersionBehavior())) {
+            return false;
+        }
+        MavenArtifactInfo artifactInfo = MavenArtifactInfo.fromRepoPath(uniqueSnapshotFile);
+        if (!artifactInfo.isValid()) {
+            return false;
+        }
+
+        Metadata metadata = loadMetadata(snapshotFolder);
+        if (metadata == null || metadata.getVersioning() == null || metadata.getVersioning().getSnapshot() == null) {
+            return false;
+        }
+        String baseVersion = StringUtils.substringBefore(artifactInfo.getVersion(), "-");
+        if (!artifactInfo.getGroupId().equals(metadata.getGroupId()) ||
+                !artifactInfo.getArtifactId().equals(metadata.getArtifactId()) ||
+                !(baseVersion + MavenNaming.SNAPSHOT_SUFFIX).equals(metadata.getVersion())) {
+            log.debug("Snapshot metadata of '{}' doesn't match '{}'", snapshotFolder, fileName);
+            return false;
+        }
+
+        Versioning versioning = metadata.getVersioning();
+        SnapshotComparator comparator = MavenMetadataCalculator.createSnapshotComparator();
+        if (MavenNaming.isPom(fileName)) {
+            Snapshot snapshot = versioning.getSnapshot();
+            if (snapshot.getTimestamp() == null) {
+                // not calculated from a unique snapshot pom
+                return false;
+            }
+            Snapshot added = new Snapshot();
+            added.setBuildNumber(MavenNaming.getUniqueSnapshotVersionBuildNumber(fileName));
+            added.setTimestamp(MavenNaming.getUniqueSnapshotVersionTimestamp(fileName));
+            if (comparator.compare(added, snapshot) >= 0) {
+                versioning.setSnapshot(added);
+            }
+        }
+
+        if (ConstantValues.mvnMetadataVersion3Enabled.getBoolean()) {
+            ModuleInfo moduleInfo = MavenMetadataCalculator.getSnapshotModuleInfo(uniqueSnapshotFile.getPath());
+            if (moduleInfo != null) {
+                SnapshotVersion added = MavenMetadataCalculator.toSnapshotVersion(moduleInfo);
+                List<SnapshotVersion> snapshotVersions = Lists.newArrayList(versioning.getSnapshotVersions());
+                SnapshotVersion existing = findSnapshotVersion(snapshotVersions, added);
+                if (existing == null) {
+                    snapshotVersions.add(added);
+                } else if (comparator.compare(added, existing) >= 0) {
+                    snapshotVersions.set(snapshotVersions.indexOf(existing), added);
+                }
+                versioning.setSnapshotVersions(snapshotVersions);
+            }
+        } else if (!versioning.getSnapshotVersions().isEmpty()) {
+            return false;
+        }
+
+        versioning.setLastUpdatedTimestamp(new Date());
+        saveMetadata(snapshotFolder, metadata);
+        return true;
+    }
+
+    /**
+     * Updates the versions metadata of an artifact folder.
+     *
+     * @param artifactFolder The folder containing the version folders
+     * @param versions       The names of the changed version folders, true for added versions and false for removed
+     * @return True if the metadata is up to date, false if a full calculation is required
+     */
+    public boolean versionsChanged(RepoPath artifactFolder, Map<String, Boolean> versions) {
+        if (!(MavenMetadataCalculator.createVersionComparator() instanceof VersionNameMavenMetadataVersionComparator)) {
+            // other comparators need the version folders
+            return false;
+        }
+        Metadata metadata = loadMetadata(artifactFolder);
+        if (metadata == null || metadata.getVersioning() == null ||
+                !artifactFolder.getName().equals(metadata.getArtifactId())) {
+            return false;
+        }
+        Versioning versioning = metadata.getVersioning();
+        List<String> currentVersions = versioning.getVersions();
+        if (currentVersions.isEmpty()) {
+            return false;
+        }
+
+        // distinct by name like the version folders, versions equal by the comparator (1.0 and 1.0.0) are both kept
+        Set<String> distinctVersions = Sets.newLinkedHashSet(currentVersions);
+        for (Map.Entry<String, Boolean> version : versions.entrySet()) {
+            if (version.getValue()) {
+                distinctVersions.add(version.getKey());
+            } else {
+                distinctVersions.remove(version.getKey());
+            }
+        }
+        if (distinctVersions.isEmpty()) {
+            return false;
+        }
+        // same ordering as the version name comparator of the full calculation
+        List<String> updatedVersions = Lists.newArrayList(distinctVersions);
+        Collections.sort(updatedVersions, new MavenVersionComparator());
+        if (updatedVersions.equals(currentVersions)) {
+            log.debug("Versions metadata of '{}' is up to date", artifactFolder);
+            return true;
+        }
+
+        versioning.setVersions(updatedVersions);
+        // latest is simply the last (be it snapshot or release version)
+        versioning.setLatest(updatedVersions.get(updatedVersions.size() - 1));
+        // release is the latest non snapshot version
+        String release = null;
+        for (String version : updatedVersions) {
+            if (!MavenNaming.isSnapshot(version)) {
+                release = version;
+            }
+        }
+        versioning.setRelease(release);
+        versioning.setLastUpdatedTimestamp(new Date());
+        saveMetadata(artifactFolder, metadata);
+        return true;
+    }
+
+    @Nullable
+    private Metadata loadMetadata(RepoPath folder) {
+        RepoPathImpl mavenMetadataPath = new RepoPathImpl(folder, MavenNaming.MAVEN_METADATA_NAME);
+        if (!getRepositoryService().exists(mavenMetadataPath)) {
+            return null;
+        }
+        try {
+            return MavenModelUtils.toMavenMetadata(getRepositoryService().getStringContent(mavenMetadataPath));
+        } catch (IOException e) {
+            log.debug("Failed to read maven metadata of '{}': {}", folder, e.getMessage());
+            return null;
+        }
+    }
+
+    @Nullable
+    private SnapshotVersion findSnapshotVersion(List<SnapshotVersion> snapshotVersions, SnapshotVersion version) {
+        for (SnapshotVersion snapshotVersion : snapshotVersions) {
+            // the classifier of a parsed snapshot version is empty rather than null
+            if (StringUtils.equals(snapshotVersion.getExtension(), version.getExtension()) &&
+                    StringUtils.defaultString(snapshotVersion.getClassifier())
+                            .equals(StringUtils.defaultString(version.getClassifier()))) {
+                return snapshotVersion;
+            }
+        }
+        return null;
+    }
+}
@@ -16,9 +16,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Semaphore;
 
 /**
@@ -33,6 +37,10 @@ public class MavenMetadataServiceImpl implements MavenMetadataService {
     private final Semaphore pluginsMDSemaphore = new Semaphore(1);
     // queue of repository keys that requires maven metadata plugins calculation
     private final Queue<String> pluginsMDQueue = new ConcurrentLinkedQueue<>();
+    // changed versions (true if added) waiting for maven metadata calculation, by artifact folder
+    private final ConcurrentMap<RepoPath, Map<String, Boolean>> versionsMDQueue = new ConcurrentHashMap<>();
+    // artifact folders with a running versions maven metadata calculation
+    private final Set<RepoPath> versionsMDRunning = ConcurrentHashMap.newKeySet();
     @Autowired
     private InternalRepositoryService repoService;
     @Autowired
@@ -58,24 +66,8 @@ public class MavenMetadataServiceImpl implements MavenMetadataService {
 
     @Override
     public void calculateMavenMetadata(RepoPath baseFolderPath, boolean recursive) {
-        LocalRepo localRepo;
-        if (baseFolderPath == null) {
-            log.debug("Couldn't find repo for null repo path.");
-            return;
-        }
-        localRepo = repoService.localRepositoryByKey(baseFolderPath.getRepoKey());
+        LocalRepo localRepo = getMetadataLocalRepo(baseFolderPath);
         if (localRepo == null) {
-            log.debug("Couldn't find local non-cache repository for path '{}'.", baseFolderPath);
-            return;
-        }
-        log.trace("Calculate maven metadata on {}", baseFolderPath);
-        RepoLayout repoLayout = localRepo.getDescriptor().getRepoLayout();
-        RepoType type = localRepo.getDescriptor().getType();
-        // Do not calculate maven metadata if type == null or type doesn't belong to the maven group (Maven, Ivy, Gradle) or repoLayout not equals MAVEN_2_DEFAULT
-        if (type != null && !(type.isMavenGroup() || RepoLayoutUtils.MAVEN_2_DEFAULT.equals(repoLayout))) {
-            log.debug(
-                    "Skipping maven metadata calculation since repoType '{}' doesn't belong to neither Maven, Ivy, Gradle" +
-                            " repositories types.", baseFolderPath.getRepoKey());
             return;
         }
         if (!localRepo.itemExists(baseFolderPath.getPath())) {
@@ -88,6 +80,70 @@ public class MavenMetadataServiceImpl implements MavenMetadataService {
         getTransactionalMe().calculateMavenPluginsMetadataAsync(localRepo.getKey());
     }
 
+    @Override
+    public void calculateSnapshotMavenMetadata(RepoPath uniqueSnapshotFile) {
+        RepoPath snapshotFolder = uniqueSnapshotFile.getParent();
+        LocalRepo localRepo = getMetadataLocalRepo(snapshotFolder);
+        if (localRepo == null) {
+            return;
+        }
+        if (!new MavenMetadataIncrementalCalculator().snapshotAdded(uniqueSnapshotFile)) {
+            log.debug("Calculating snapshot maven metadata of '{}'", snapshotFolder);
+            calculateMavenMetadata(snapshotFolder, true);
+        }
+    }
+
+    @Override
+    public void calculateVersionsMavenMetadataAsync(RepoPath versionFolder, boolean added) {
+        RepoPath artifactFolder = versionFolder.getParent();
+        if (artifactFolder == null) {
+            return;
+        }
+        versionsMDQueue.compute(artifactFolder, (folder, versions) -> {
+            Map<String, Boolean> result = versions != null ? versions : new LinkedHashMap<>();
+            result.put(versionFolder.getName(), added);
+            return result;
+        });
+
+        // the thread running the calculation of the artifact folder also applies the versions queued meanwhile, so a
+        // burst of deployments to the same artifact is written at once
+        while (versionsMDQueue.containsKey(artifactFolder) && versionsMDRunning.add(artifactFolder)) {
+            try {
+                Map<String, Boolean> versions;
+                while ((versions = versionsMDQueue.remove(artifactFolder)) != null) {
+                    calculateVersionsMavenMetadata(artifactFolder, versions);
+                }
+            } finally {
+                versionsMDRunning.remove(artifactFolder);
+            }
+        }
+    }
+
+    private void calculateVersionsMavenMetadata(RepoPath artifactFolder, Map<String, Boolean> versions) {
+        LocalRepo localRepo = getMetadataLocalRepo(artifactFolder);
+        if (localRepo == null) {
+            return;
+        }
+        try {
+            // the version folders might have changed again since queued
+            versions.entrySet().removeIf(version ->
+                    version.getValue() != localRepo.itemExists(artifactFolder.getPath() + "/" + version.getKey()));
+            if (versions.isEmpty()) {
+                return;
+            }
+            log.debug("Updating versions {} in the maven metadata of '{}'", versions, artifactFolder);
+            if (!new MavenMetadataIncrementalCalculator().versionsChanged(artifactFolder, versions)) {
+                log.debug("Calculating versions maven metadata of '{}'", artifactFolder);
+                calculateMavenMetadata(artifactFolder, false);
+                return;
+            }
+            // Calculate maven plugins metadata asynchronously
+            getTransactionalMe().calculateMavenPluginsMetadataAsync(localRepo.getKey());
+        } catch (Exception e) {
+            log.error("Failed to calculate versions maven metadata of '" + artifactFolder + "':", e);
+        }
+    }
+
     // get all folders marked for maven metadata calculation and execute the metadata calculation
 
     @Override
@@ -129,6 +185,32 @@ public class MavenMetadataServiceImpl implements MavenMetadataService {
         }
     }
 
+    /**
+     * @return The local non-cache repository of the path if maven metadata should be calculated in it, null otherwise
+     */
+    private LocalRepo getMetadataLocalRepo(RepoPath repoPath) {
+        if (repoPath == null) {
+            log.debug("Couldn't find repo for null repo path.");
+            return null;
+        }
+        LocalRepo localRepo = repoService.localRepositoryByKey(repoPath.getRepoKey());
+        if (localRepo == null) {
+            log.debug("Couldn't find local non-cache repository for path '{}'.", repoPath);
+            return null;
+        }
+        log.trace("Calculate maven metadata on {}", repoPath);
+        RepoLayout repoLayout = localRepo.getDescriptor().getRepoLayout();
+        RepoType type = localRepo.getDescriptor().getType();
+        // Do not calculate maven metadata if type == null or type doesn't belong to the maven group (Maven, Ivy, Gradle) or repoLayout not equals MAVEN_2_DEFAULT
+        if (type != null && !(type.isMavenGroup() || RepoLayoutUtils.MAVEN_2_DEFAULT.equals(repoLayout))) {
+            log.debug(
+                    "Skipping maven metadata calculation since repoType '{}' doesn't belong to neither Maven, Ivy, Gradle" +
+                            " repositories types.", repoPath.getRepoKey());
+            return null;
+        }
+        return localRepo;
+    }
+
     private LocalRepo localRepositoryByKeyFailIfNull(RepoPath localRepoPath) {
         LocalRepo localRepo = repoService.localRepositoryByKey(localRepoPath.getRepoKey());
         if (localRepo == null) {
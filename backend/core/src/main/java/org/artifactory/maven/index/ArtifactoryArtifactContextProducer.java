@@ -35,6 +35,7 @@ import org.artifactory.sapi.common.RepositoryRuntimeException;
 import org.artifactory.storage.fs.tree.file.JavaIOFileAdapter;
 import org.codehaus.plexus.util.StringUtils;
 
+import javax.annotation.Nullable;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.InputStream;
@@ -132,6 +133,31 @@ public class ArtifactoryArtifactContextProducer implements ArtifactContextProduc
         return new ArtifactContext(pom, artifact, metadata, ai, gav);
     }
 
+    /**
+     * Get the unique info (uinfo) of the artifact context of the given pom or artifact, without reading the pom.
+     * The uinfo of a pom is the same as the one of its main artifact.
+     *
+     * @return The uinfo or null if the file is not an indexable artifact
+     */
+    @Nullable
+    public String getUinfo(IndexingContext context, File file) {
+        String repositoryPath = context.getRepository().getAbsolutePath();
+        String artifactPath = file.getAbsolutePath();
+        if (artifactPath.length() <= repositoryPath.length() || !isIndexable(file)) {
+            return null;
+        }
+        Gav gav = getGavFromPath(context, repositoryPath, artifactPath);
+        if (gav == null) {
+            return null;
+        }
+        ArtifactInfo ai = new ArtifactInfo(context.getRepositoryId(), gav.getGroupId(), gav.getArtifactId(),
+                gav.getBaseVersion(), gav.getClassifier());
+        if (!StringUtils.isEmpty(ai.classifier)) {
+            ai.packaging = gav.getExtension();
+        }
+        return ai.getUinfo();
+    }
+
     private boolean isIndexable(File file) {
         if (file == null) {
             return false;
@@ -21,11 +21,12 @@
 package org.artifactory.maven.index;
 
 import org.apache.maven.index.ArtifactContext;
-import org.apache.maven.index.ArtifactContextProducer;
 import org.apache.maven.index.Scanner;
 import org.apache.maven.index.ScanningRequest;
 import org.apache.maven.index.ScanningResult;
 import org.apache.maven.index.context.IndexingContext;
+import org.artifactory.schedule.TaskInterruptedException;
+import org.artifactory.storage.fs.tree.file.JavaIOFileAdapter;
 import org.artifactory.util.Files;
 import org.codehaus.plexus.logging.AbstractLogEnabled;
 import org.slf4j.Logger;
@@ -45,7 +46,7 @@ import java.util.TreeSet;
 public class ArtifactoryContentScanner extends AbstractLogEnabled implements Scanner {
     private static final Logger log = LoggerFactory.getLogger(ArtifactoryContentScanner.class);
 
-    private ArtifactContextProducer artifactContextProducer;
+    private ArtifactoryArtifactContextProducer artifactContextProducer;
 
     public ArtifactoryContentScanner(ArtifactoryArtifactContextProducer artifactContextProducer) {
         this.artifactContextProducer = artifactContextProducer;
@@ -57,14 +58,37 @@ public class ArtifactoryContentScanner extends AbstractLogEnabled implements Sca
 
         ScanningResult result = new ScanningResult(request);
 
-        scanDirectory(request.getStartingDirectory(), request);
+        scanDirectory(request.getStartingDirectory(), request, null, 0);
 
         request.getArtifactScanningListener().scanningFinished(request.getIndexingContext(), result);
 
         return result;
     }
 
-    private void scanDirectory(File dir, ScanningRequest request) {
+    /**
+     * Scans only the directories modified since the given time. The artifacts of the other directories are not read
+     * if the listener already indexed them.
+     *
+     * @param modifiedSince The time of the last scan of the indexing context
+     */
+    public ScanningResult scanModified(ScanningRequest request, long modifiedSince) {
+        if (!(request.getArtifactScanningListener() instanceof RepoIndexScannerListener)) {
+            throw new IllegalArgumentException("Scanning modified directories requires a repo index listener.");
+        }
+        RepoIndexScannerListener listener = (RepoIndexScannerListener) request.getArtifactScanningListener();
+        listener.scanningStarted(request.getIndexingContext());
+
+        ScanningResult result = new ScanningResult(request);
+
+        scanDirectory(request.getStartingDirectory(), request, listener, modifiedSince);
+
+        listener.scanningFinished(request.getIndexingContext(), result);
+
+        return result;
+    }
+
+    private void scanDirectory(File dir, ScanningRequest request, RepoIndexScannerListener listener,
+            long modifiedSince) {
         if (dir == null) {
             return;
         }
@@ -81,15 +105,48 @@ public class ArtifactoryContentScanner extends AbstractLogEnabled implements Sca
 
         files.addAll(Arrays.asList(fileArray));
 
+        // the pom and the artifacts of a version are in the same directory, any change requires to scan all of them
+        boolean modified = listener == null || isModified(dir, files, modifiedSince);
         for (File file : files) {
             if (file.isDirectory()) {
-                scanDirectory(file, request);
-            } else {
+                scanDirectory(file, request, listener, modifiedSince);
+            } else if (modified || !isIndexed(file, request, listener)) {
                 processFile(file, request);
             }
         }
     }
 
+    private boolean isModified(File dir, Set<File> files, long modifiedSince) {
+        if (getLastUpdated(dir) > modifiedSince) {
+            return true;
+        }
+        for (File file : files) {
+            if (!file.isDirectory() && getLastUpdated(file) > modifiedSince) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The time the item was last updated in the repository. The last modified time is set by the clients and
+     * kept by copy, import and replication, a redeployed artifact may have an older one.
+     */
+    static long getLastUpdated(File file) {
+        if (file instanceof JavaIOFileAdapter) {
+            return ((JavaIOFileAdapter) file).getInfo().getLastUpdated();
+        }
+        return file.lastModified();
+    }
+
+    private boolean isIndexed(File file, ScanningRequest request, RepoIndexScannerListener listener) {
+        if (file.getName().startsWith(".")) {
+            return true;
+        }
+        String uinfo = artifactContextProducer.getUinfo(request.getIndexingContext(), file);
+        return uinfo == null || listener.keepIndexed(uinfo, file.getName());
+    }
+
     private void processFile(File file, ScanningRequest request) {
         try {
             if (!file.getName().startsWith(".")) {
@@ -100,6 +157,8 @@ public class ArtifactoryContentScanner extends AbstractLogEnabled implements Sca
                     request.getArtifactScanningListener().artifactDiscovered(ac);
                 }
             }
+        } catch (TaskInterruptedException e) {
+            throw e;
         } catch (Throwable t) {
             log.info("Failed to add {} to the maven index: {}", file.getAbsolutePath(), t.getMessage());
             log.debug("Failed to add file to the maven index", t);
@@ -44,7 +44,9 @@ import org.artifactory.util.ExceptionUtils;
 import org.artifactory.util.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -59,6 +61,8 @@ public class MavenIndexManager {
     private static final Logger log = LoggerFactory.getLogger(MavenIndexManager.class);
 
     private final RealRepo indexedRepo;
+    private final String taskToken;
+    private final AsyncTaskExecutor workersExecutor;
     private StoringRepo indexStorageRepo;
     private ResourceStreamHandle indexHandle;
     private ResourceStreamHandle propertiesHandle;
@@ -68,11 +72,18 @@ public class MavenIndexManager {
         NOT_CREATED, NEEDS_SAVING, SKIP, ABORTED
     }
 
-    public MavenIndexManager(RealRepo indexedRepo) {
+    /**
+     * @param taskToken       The token of the indexing task to stop on demand, null if not running in a task
+     * @param workersExecutor The executor of the artifacts indexing workers, null to index in the scanning thread
+     */
+    public MavenIndexManager(RealRepo indexedRepo, @Nullable String taskToken,
+            @Nullable AsyncTaskExecutor workersExecutor) {
         if (indexedRepo == null) {
             throw new IllegalArgumentException("Repository for indexing cannot be null.");
         }
         this.indexedRepo = indexedRepo;
+        this.taskToken = taskToken;
+        this.workersExecutor = workersExecutor;
         if (indexedRepo.isLocal()) {
             indexStorageRepo = (LocalRepo) indexedRepo;
         }
@@ -88,6 +99,8 @@ public class MavenIndexManager {
         this.indexHandle = indexHandle;
         this.propertiesHandle = propertiesHandle;
         indexedRepo = null;
+        taskToken = null;
+        workersExecutor = null;
         indexStatus = IndexStatus.NEEDS_SAVING;
     }
 
@@ -228,7 +241,7 @@ public class MavenIndexManager {
         }
 
         log.debug("Creating index files for {}", indexedRepo);
-        RepoIndexer repoIndexer = new RepoIndexer(indexStorageRepo);
+        RepoIndexer repoIndexer = new RepoIndexer(indexStorageRepo, taskToken, workersExecutor);
         try {
             Pair<TempFileStreamHandle, TempFileStreamHandle> tempFileStreamHandlesPair = repoIndexer.index(fireTime);
             indexHandle = tempFileStreamHandlesPair.getFirst();
@@ -0,0 +1,124 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.maven.index;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Sets;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * The progress of an indexing run, saved after each indexed repository so that a run which did not complete (stopped,
+ * failed or interrupted by a restart) is resumed by the next run instead of indexing all the repositories again.
+ *
+ * @see MavenIndexerServiceImpl#index
+ */
+class MavenIndexerCheckpoint {
+    private static final Logger log = LoggerFactory.getLogger(MavenIndexerCheckpoint.class);
+
+    private static final String STARTED = "started";
+    private static final String INDEXED_REPOS = "indexedRepos";
+
+    private final File file;
+    private final long started;
+    private final Set<String> indexedRepoKeys;
+
+    private MavenIndexerCheckpoint(File file, long started, Set<String> indexedRepoKeys) {
+        this.file = file;
+        this.started = started;
+        this.indexedRepoKeys = indexedRepoKeys;
+    }
+
+    /**
+     * Resumes the run saved in the given checkpoint file or starts a new one if there is no valid checkpoint
+     *
+     * @param maxAgeMillis The maximum time since the start of a resumed run, older runs are not resumed to not keep
+     *                     their indexes for too long
+     */
+    static MavenIndexerCheckpoint resume(File file, long maxAgeMillis) {
+        long now = System.currentTimeMillis();
+        if (file.exists()) {
+            Properties properties = new Properties();
+            try (InputStream in = new FileInputStream(file)) {
+                properties.load(in);
+                long started = Long.parseLong(properties.getProperty(STARTED));
+                if (now - started <= maxAgeMillis) {
+                    Set<String> indexedRepoKeys = Sets.newHashSet(Splitter.on(',').omitEmptyStrings()
+                            .split(properties.getProperty(INDEXED_REPOS, "")));
+                    log.info("Resuming the Maven indexing started at {}: {} repositories already indexed",
+                            new Date(started), indexedRepoKeys.size());
+                    return new MavenIndexerCheckpoint(file, started, indexedRepoKeys);
+                }
+                log.debug("Ignoring expired Maven indexing checkpoint {}", file);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Ignoring invalid Maven indexing checkpoint {}: {}", file, e.getMessage());
+            }
+        }
+        MavenIndexerCheckpoint checkpoint = new MavenIndexerCheckpoint(file, now, Sets.<String>newHashSet());
+        checkpoint.save();
+        return checkpoint;
+    }
+
+    boolean isIndexed(String repoKey) {
+        synchronized (indexedRepoKeys) {
+            return indexedRepoKeys.contains(repoKey);
+        }
+    }
+
+    /**
+     * Saves the given repository as indexed by this run
+     */
+    void indexed(String repoKey) {
+        synchronized (indexedRepoKeys) {
+            indexedRepoKeys.add(repoKey);
+            save();
+        }
+    }
+
+    /**
+     * Removes the checkpoint once the run completed, the next run will index all the repositories
+     */
+    void complete() {
+        FileUtils.deleteQuietly(file);
+    }
+
+    private void save() {
+        Properties properties = new Properties();
+        properties.setProperty(STARTED, String.valueOf(started));
+        properties.setProperty(INDEXED_REPOS, Joiner.on(',').join(indexedRepoKeys));
+        try (OutputStream out = new FileOutputStream(file)) {
+            properties.store(out, "Maven indexing progress");
+        } catch (IOException e) {
+            // the run is just not resumable
+            log.warn("Could not save Maven indexing checkpoint {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -40,8 +40,11 @@ import org.artifactory.repo.service.InternalRepositoryService;
 import org.artifactory.repo.virtual.VirtualRepo;
 import org.artifactory.resource.ResourceStreamHandle;
 import org.artifactory.schedule.BaseTaskServiceDescriptorHandler;
+import org.artifactory.schedule.CachedThreadPoolTaskExecutor;
 import org.artifactory.schedule.Task;
 import org.artifactory.schedule.TaskBase;
+import org.artifactory.schedule.TaskCallback;
+import org.artifactory.schedule.TaskInterruptedException;
 import org.artifactory.schedule.TaskService;
 import org.artifactory.schedule.TaskUtils;
 import org.artifactory.spring.InternalContextHelper;
@@ -53,6 +56,7 @@ import org.artifactory.version.CompoundVersionDetails;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Nonnull;
@@ -66,6 +70,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -167,38 +175,123 @@ public class MavenIndexerServiceImpl implements InternalMavenIndexerService {
         log.info("Starting non virtual repositories indexing...");
         List<RealRepo> indexedRepos = getNonVirtualRepositoriesToIndex(includedRepositories);
         log.info("Non virtual repositories to index: {}", indexedRepos);
+        //Runs of the configured repositories resume the previous run if it did not complete
+        MavenIndexerCheckpoint checkpoint = null;
+        if ((repoKeys == null) || repoKeys.isEmpty()) {
+            checkpoint = MavenIndexerCheckpoint.resume(getCheckpointFile(),
+                    TimeUnit.HOURS.toMillis(ConstantValues.mvnIndexerCheckpointMaxAgeHours.getLong()));
+        }
         //Do the indexing work
-        for (RealRepo indexedRepo : indexedRepos) {
-            //Check if we need to stop/suspend
-            if (taskService.pauseOrBreak()) {
-                log.info("Stopped indexing on demand");
-                return;
-            }
-            MavenIndexManager mavenIndexManager = new MavenIndexManager(indexedRepo);
-            try {
-                boolean remoteIndexExists = mavenIndexManager.fetchRemoteIndex(settings.isForceRemoteDownload());
-                mavenIndexManager.createLocalIndex(settings.getFireTime(), remoteIndexExists);
+        if (!indexRealRepos(settings, indexedRepos, checkpoint) ||
+                !mergeVirtualRepoIndexes(includedRepositories, indexedRepos)) {
+            return;
+        }
+        if (checkpoint != null) {
+            checkpoint.complete();
+        }
+        log.info("Finished Maven indexing...");
+    }
 
-                //Check again if we need to stop/suspend
+    /**
+     * Indexes the given repositories in parallel, the artifacts of each repository are indexed by a shared pool of
+     * workers.
+     *
+     * @return False if the indexing was stopped on demand
+     */
+    private boolean indexRealRepos(MavenIndexerRunSettings settings, List<RealRepo> indexedRepos,
+            @Nullable MavenIndexerCheckpoint checkpoint) {
+        String taskToken = TaskCallback.currentTaskToken();
+        Semaphore parallelReposGate = new Semaphore(Math.max(ConstantValues.mvnIndexerMaxParallelRepos.getInt(), 1));
+        CachedThreadPoolTaskExecutor reposExecutor = new CachedThreadPoolTaskExecutor();
+        CachedThreadPoolTaskExecutor workersExecutor = new CachedThreadPoolTaskExecutor();
+        List<Future<Boolean>> repoFutures = new ArrayList<>(indexedRepos.size());
+        boolean completed = true;
+        try {
+            for (RealRepo indexedRepo : indexedRepos) {
+                if (checkpoint != null && checkpoint.isIndexed(indexedRepo.getKey())) {
+                    log.info("Skipping repository '{}': already indexed by the resumed run", indexedRepo.getKey());
+                    continue;
+                }
+                //Check if we need to stop/suspend
                 if (taskService.pauseOrBreak()) {
-                    log.info("Stopped indexing on demand");
-                    return;
+                    completed = false;
+                    break;
                 }
-                mavenIndexManager.saveIndexFiles();
-            } catch (Exception e) {
-                //If we failed to index because of a socket timeout, issue a terse warning instead of a complete stack
-                //trace
-                Throwable cause = ExceptionUtils.getCauseOfTypes(e, SocketTimeoutException.class);
-                if (cause != null) {
-                    log.warn("Indexing for repo '" + indexedRepo.getKey() + "' failed: " + e.getMessage() + ".");
-                } else {
-                    //Just report - don't stop indexing of other repos
-                    log.error("Indexing for repo '" + indexedRepo.getKey() + "' failed.", e);
+                // each indexing thread releases its permit when it ends
+                parallelReposGate.acquire();
+                try {
+                    repoFutures.add(reposExecutor.submit(() -> {
+                        try {
+                            return indexRealRepo(settings, indexedRepo, taskToken, workersExecutor, checkpoint);
+                        } finally {
+                            parallelReposGate.release();
+                        }
+                    }));
+                } catch (RuntimeException e) {
+                    parallelReposGate.release();
+                    throw e;
                 }
             }
+            //Wait for the running repositories, even when stopped, before removing their temp files
+            for (Future<Boolean> repoFuture : repoFutures) {
+                completed &= repoFuture.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completed = false;
+        } catch (ExecutionException e) {
+            log.error("Maven indexing failed.", e.getCause());
+            completed = false;
+        } finally {
+            reposExecutor.destroy();
+            workersExecutor.destroy();
         }
-        mergeVirtualRepoIndexes(includedRepositories, indexedRepos);
-        log.info("Finished Maven indexing...");
+        if (!completed) {
+            log.info("Stopped indexing on demand");
+        }
+        return completed;
+    }
+
+    /**
+     * @return False if the indexing was stopped on demand
+     */
+    private boolean indexRealRepo(MavenIndexerRunSettings settings, RealRepo indexedRepo, @Nullable String taskToken,
+            AsyncTaskExecutor workersExecutor, @Nullable MavenIndexerCheckpoint checkpoint) {
+        long start = System.currentTimeMillis();
+        MavenIndexManager mavenIndexManager = new MavenIndexManager(indexedRepo, taskToken, workersExecutor);
+        try {
+            boolean remoteIndexExists = mavenIndexManager.fetchRemoteIndex(settings.isForceRemoteDownload());
+            mavenIndexManager.createLocalIndex(settings.getFireTime(), remoteIndexExists);
+
+            //Check again if we need to stop/suspend
+            if (TaskUtils.pauseOrBreak(taskToken)) {
+                return false;
+            }
+            mavenIndexManager.saveIndexFiles();
+            if (checkpoint != null) {
+                checkpoint.indexed(indexedRepo.getKey());
+            }
+            log.info("Finished indexing repository '{}' in {} ms", indexedRepo.getKey(),
+                    System.currentTimeMillis() - start);
+        } catch (TaskInterruptedException e) {
+            log.debug("Indexing for repo '{}' stopped: {}", indexedRepo.getKey(), e.getMessage());
+            return false;
+        } catch (Exception e) {
+            //If we failed to index because of a socket timeout, issue a terse warning instead of a complete stack
+            //trace
+            Throwable cause = ExceptionUtils.getCauseOfTypes(e, SocketTimeoutException.class);
+            if (cause != null) {
+                log.warn("Indexing for repo '" + indexedRepo.getKey() + "' failed: " + e.getMessage() + ".");
+            } else {
+                //Just report - don't stop indexing of other repos
+                log.error("Indexing for repo '" + indexedRepo.getKey() + "' failed.", e);
+            }
+        }
+        return true;
+    }
+
+    private File getCheckpointFile() {
+        return new File(ContextHelper.get().getArtifactoryHome().getDataDir(), "maven-indexer.checkpoint");
     }
 
     private Set<? extends RepoDescriptor> calcSpecificReposForIndexing(List<String> repoKeys) {
@@ -219,7 +312,10 @@ public class MavenIndexerServiceImpl implements InternalMavenIndexerService {
         return indexedRepos;
     }
 
-    public void mergeVirtualRepoIndexes(@Nonnull Set<? extends RepoDescriptor> includedRepositories,
+    /**
+     * @return False if the merging was stopped on demand
+     */
+    public boolean mergeVirtualRepoIndexes(@Nonnull Set<? extends RepoDescriptor> includedRepositories,
             List<RealRepo> indexedRepos) {
         List<VirtualRepo> virtualRepos = getVirtualRepos(includedRepositories);
         log.info("Virtual repositories to index: {}", virtualRepos);
@@ -231,7 +327,7 @@ public class MavenIndexerServiceImpl implements InternalMavenIndexerService {
                 //Check if we need to stop/suspend
                 if (taskService.pauseOrBreak()) {
                     log.info("Stopped indexing on demand");
-                    return;
+                    return false;
                 }
                 Set<LocalRepo> localRepos = new HashSet<>();
                 localRepos.addAll(virtualRepo.getResolvedLocalRepos());
@@ -240,6 +336,7 @@ public class MavenIndexerServiceImpl implements InternalMavenIndexerService {
                 ArtifactoryHome artifactoryHome = ContextHelper.get().getArtifactoryHome();
                 File dir = Files.createRandomDir(artifactoryHome.getTempWorkDir(), "artifactory.merged-index");
                 RepoIndexer indexer = null;
+                long start = System.currentTimeMillis();
                 try {
                     indexer = new RepoIndexer(virtualRepo);
                     indexer.createContext(dir);
@@ -250,7 +347,7 @@ public class MavenIndexerServiceImpl implements InternalMavenIndexerService {
                         //Check if we need to stop/suspend
                         if (taskService.pauseOrBreak()) {
                             log.info("Stopped indexing on demand");
-                            return;
+                            return false;
                         }
                         LocalRepo localRepo = indexedRepo.isLocal() ? (LocalRepo) indexedRepo :
                                 ((RemoteRepo) indexedRepo).getLocalCacheRepo();
@@ -275,6 +372,8 @@ public class MavenIndexerServiceImpl implements InternalMavenIndexerService {
                     MavenIndexManager mavenIndexManager =
                             new MavenIndexManager(indexer.getRepo(), indexHandle, properties);
                     mavenIndexManager.saveIndexFiles();
+                    log.info("Finished indexing virtual repository '{}' in {} ms", virtualRepo.getKey(),
+                            System.currentTimeMillis() - start);
                 } finally {
                     if (indexer != null) {
                         indexer.removeTempIndexFiles(dir);
@@ -290,6 +389,7 @@ public class MavenIndexerServiceImpl implements InternalMavenIndexerService {
                 org.apache.commons.io.FileUtils.deleteQuietly(directory.getFile());
             }
         }
+        return true;
     }
 
     /**
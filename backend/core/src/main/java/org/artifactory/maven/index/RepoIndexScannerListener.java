@@ -0,0 +1,250 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.maven.index;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.commons.lang.StringUtils;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.MapFieldSelector;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.maven.index.ArtifactContext;
+import org.apache.maven.index.ArtifactInfo;
+import org.apache.maven.index.ArtifactScanningListener;
+import org.apache.maven.index.IndexerEngine;
+import org.apache.maven.index.ScanningResult;
+import org.apache.maven.index.context.IndexingContext;
+import org.artifactory.schedule.TaskInterruptedException;
+import org.artifactory.schedule.TaskUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Indexes the artifacts discovered by the {@link ArtifactoryContentScanner} into an indexing context which might
+ * already contain the previous index of the repository (based on: org.apache.maven.index.DefaultScannerListener).
+ * <p/>
+ * The artifacts are indexed by a bounded number of workers. The artifacts of the previous index which were neither
+ * discovered nor kept by the scanner are removed when the scanning is finished.
+ *
+ * @see ArtifactoryContentScanner#scanModified
+ */
+class RepoIndexScannerListener implements ArtifactScanningListener {
+    private static final Logger log = LoggerFactory.getLogger(RepoIndexScannerListener.class);
+
+    private final IndexingContext context;
+    private final IndexerEngine indexerEngine;
+    private final String taskToken;
+    private final AsyncTaskExecutor workersExecutor;
+    private final int maxWorkers;
+    private final Semaphore workers;
+    /**
+     * The artifacts of the previous index which were not discovered or kept yet, with their indexed file extension
+     */
+    private final Map<String, String> previousUinfos = Maps.newHashMap();
+    private final Set<String> processedUinfos = Sets.newHashSet();
+    private final Set<String> groups = Sets.newHashSet();
+    private final Set<String> allGroups = Sets.newHashSet();
+    private final AtomicInteger indexed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private int kept;
+    private int removed;
+    private Date scanStartTime;
+
+    /**
+     * @param taskToken       The token of the indexing task to stop on demand, null if not running in a task
+     * @param workersExecutor The executor of the indexing workers, null to index in the scanning thread
+     * @param maxWorkers      The maximum number of artifacts indexed concurrently
+     */
+    RepoIndexScannerListener(IndexingContext context, IndexerEngine indexerEngine, @Nullable String taskToken,
+            @Nullable AsyncTaskExecutor workersExecutor, int maxWorkers) {
+        this.context = context;
+        this.indexerEngine = indexerEngine;
+        this.taskToken = taskToken;
+        this.workersExecutor = maxWorkers > 1 ? workersExecutor : null;
+        this.maxWorkers = Math.max(maxWorkers, 1);
+        workers = new Semaphore(this.maxWorkers);
+    }
+
+    @Override
+    public void scanningStarted(IndexingContext ctx) {
+        scanStartTime = new Date();
+        try {
+            IndexSearcher indexSearcher = ctx.acquireIndexSearcher();
+            try {
+                IndexReader reader = indexSearcher.getIndexReader();
+                MapFieldSelector fieldSelector = new MapFieldSelector(ArtifactInfo.UINFO, ArtifactInfo.INFO);
+                for (int i = 0; i < reader.maxDoc(); i++) {
+                    if (!reader.isDeleted(i)) {
+                        Document document = reader.document(i, fieldSelector);
+                        String uinfo = document.get(ArtifactInfo.UINFO);
+                        if (uinfo != null) {
+                            // the file extension is the last field of the info
+                            String info = document.get(ArtifactInfo.INFO);
+                            previousUinfos.put(uinfo, info != null ? StringUtils.substringAfterLast(info,
+                                    ArtifactInfo.FS) : "");
+                            addGroup(uinfo.substring(0, uinfo.indexOf(ArtifactInfo.FS)));
+                        }
+                    }
+                }
+            } finally {
+                ctx.releaseIndexSearcher(indexSearcher);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read the previous index of '" + ctx.getRepositoryId() + "'.", e);
+        }
+    }
+
+    /**
+     * Keeps an artifact of an unmodified directory without reading it, if it is in the previous index. The pom and
+     * the artifact of a version share the same document, which is kept only by the file it was indexed from, e.g. the
+     * pom doesn't keep the document of a deleted jar.
+     *
+     * @param fileName The name of the file of the artifact
+     * @return False if the artifact is not indexed and should be discovered
+     */
+    boolean keepIndexed(String uinfo, String fileName) {
+        if (TaskUtils.pauseOrBreak(taskToken)) {
+            throw new TaskInterruptedException();
+        }
+        if (processedUinfos.contains(uinfo)) {
+            // individual snapshots and poms of processed artifacts
+            return true;
+        }
+        String extension = previousUinfos.get(uinfo);
+        if (StringUtils.isNotEmpty(extension) && fileName.endsWith("." + extension)) {
+            previousUinfos.remove(uinfo);
+            processedUinfos.add(uinfo);
+            kept++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void artifactDiscovered(ArtifactContext ac) {
+        if (TaskUtils.pauseOrBreak(taskToken)) {
+            throw new TaskInterruptedException();
+        }
+        String uinfo = ac.getArtifactInfo().getUinfo();
+        if (log.isTraceEnabled()) {
+            log.trace("Artifact discovered: '{}'", uinfo);
+        }
+        if (!processedUinfos.add(uinfo)) {
+            // skip individual snapshots
+            return;
+        }
+        boolean update = previousUinfos.remove(uinfo) != null;
+        addGroup(ac.getArtifactInfo().groupId);
+        if (workersExecutor == null) {
+            index(ac, update);
+            return;
+        }
+        try {
+            workers.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TaskInterruptedException();
+        }
+        try {
+            workersExecutor.execute(() -> {
+                try {
+                    index(ac, update);
+                } finally {
+                    workers.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            workers.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void artifactError(ArtifactContext ac, Exception e) {
+    }
+
+    @Override
+    public void scanningFinished(IndexingContext ctx, ScanningResult result) {
+        awaitWorkers();
+        try {
+            IndexWriter indexWriter = ctx.getIndexWriter();
+            for (String uinfo : previousUinfos.keySet()) {
+                indexWriter.deleteDocuments(new Term(ArtifactInfo.UINFO, uinfo));
+            }
+            removed = previousUinfos.size();
+            previousUinfos.clear();
+            ctx.setRootGroups(groups);
+            ctx.setAllGroups(allGroups);
+            // the next scan should include the items modified while scanning
+            ctx.updateTimestamp(true, scanStartTime);
+            ctx.optimize();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not update the index of '" + ctx.getRepositoryId() + "'.", e);
+        }
+    }
+
+    /**
+     * Waits for the artifacts being indexed by the workers
+     */
+    void awaitWorkers() {
+        if (workersExecutor == null) {
+            return;
+        }
+        workers.acquireUninterruptibly(maxWorkers);
+        workers.release(maxWorkers);
+    }
+
+    private void index(ArtifactContext ac, boolean update) {
+        try {
+            if (update) {
+                indexerEngine.update(context, ac);
+            } else {
+                indexerEngine.index(context, ac);
+            }
+            indexed.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.info("Failed to add {} to the maven index: {}", ac.getArtifact(), e.getMessage());
+            log.debug("Failed to add artifact to the maven index", e);
+        }
+    }
+
+    private void addGroup(String groupId) {
+        allGroups.add(groupId);
+        int rootGroupEnd = groupId.indexOf('.');
+        groups.add(rootGroupEnd == -1 ? groupId : groupId.substring(0, rootGroupEnd));
+    }
+
+    @Override
+    public String toString() {
+        return indexed.get() + " indexed, " + kept + " kept, " + removed + " removed, " + failed.get() + " failed";
+    }
+}
@@ -12,15 +12,11 @@
 package org.artifactory.maven.index;
 
 import org.apache.lucene.store.FSDirectory;
-import org.apache.maven.index.ArtifactContext;
-import org.apache.maven.index.ArtifactScanningListener;
 import org.apache.maven.index.DefaultIndexer;
 import org.apache.maven.index.DefaultIndexerEngine;
 import org.apache.maven.index.DefaultQueryCreator;
-import org.apache.maven.index.DefaultScannerListener;
 import org.apache.maven.index.DefaultSearchEngine;
 import org.apache.maven.index.ScanningRequest;
-import org.apache.maven.index.ScanningResult;
 import org.apache.maven.index.context.IndexCreator;
 import org.apache.maven.index.context.IndexingContext;
 import org.apache.maven.index.incremental.DefaultIncrementalHandler;
@@ -31,6 +27,7 @@ import org.apache.maven.index.packer.IndexPackingRequest;
 import org.apache.maven.index.updater.DefaultIndexUpdater;
 import org.artifactory.api.context.ContextHelper;
 import org.artifactory.common.ArtifactoryHome;
+import org.artifactory.common.ConstantValues;
 import org.artifactory.fs.RepoResource;
 import org.artifactory.io.TempFileStreamHandle;
 import org.artifactory.maven.index.creator.VfsJarFileContentsIndexCreator;
@@ -42,7 +39,6 @@ import org.artifactory.repo.StoringRepo;
 import org.artifactory.request.NullRequestContext;
 import org.artifactory.resource.ResourceStreamHandle;
 import org.artifactory.schedule.TaskInterruptedException;
-import org.artifactory.schedule.TaskUtils;
 import org.artifactory.storage.fs.tree.ItemTree;
 import org.artifactory.storage.fs.tree.file.JavaIOFileAdapter;
 import org.artifactory.util.Files;
@@ -50,8 +46,10 @@ import org.artifactory.util.Pair;
 import org.codehaus.plexus.logging.console.ConsoleLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.security.util.FieldUtils;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -65,20 +63,32 @@ import java.util.Map;
  * @author yoavl
  * @author yossis
  */
-public class RepoIndexer extends DefaultIndexer implements ArtifactScanningListener {
+public class RepoIndexer extends DefaultIndexer {
     private static final Logger log = LoggerFactory.getLogger(RepoIndexer.class);
 
     private final StoringRepo repo;
+    private final String taskToken;
+    private final AsyncTaskExecutor workersExecutor;
     private IndexingContext context;
     private IndexPacker packer;
     private final DefaultIndexerEngine defaultIndexerEngine;
     private final ArtifactoryContentScanner scanner;
 
     public RepoIndexer(StoringRepo repo) {
+        this(repo, null, null);
+    }
+
+    /**
+     * @param taskToken       The token of the indexing task to stop on demand, null if not running in a task
+     * @param workersExecutor The executor of the artifacts indexing workers, null to index in the scanning thread
+     */
+    public RepoIndexer(StoringRepo repo, @Nullable String taskToken, @Nullable AsyncTaskExecutor workersExecutor) {
         if (repo == null) {
             throw new IllegalArgumentException("Repo cannot be null");
         }
         this.repo = repo;
+        this.taskToken = taskToken;
+        this.workersExecutor = workersExecutor;
         //Unplexus
         defaultIndexerEngine = new DefaultIndexerEngine();
         FieldUtils.setProtectedFieldValue("indexerEngine", this, defaultIndexerEngine);
@@ -100,30 +110,6 @@ public class RepoIndexer extends DefaultIndexer implements ArtifactScanningListe
         scanner = new ArtifactoryContentScanner(artifactContextProducer);
     }
 
-    @Override
-    public void scanningStarted(IndexingContext ctx) {
-    }
-
-    @Override
-    public void scanningFinished(IndexingContext ctx, ScanningResult result) {
-    }
-
-    @Override
-    public void artifactError(ArtifactContext ac, Exception e) {
-    }
-
-    @Override
-    public void artifactDiscovered(ArtifactContext ac) {
-        if (log.isTraceEnabled()) {
-            log.trace("Artifact discovered: '{}'", ac.getArtifactInfo().getUinfo());
-        }
-        if (TaskUtils.pauseOrBreak()) {
-            throw new TaskInterruptedException();
-        }
-        //Be nice with other threads
-        Thread.yield();
-    }
-
     @SuppressWarnings({"UnusedDeclaration"})
     Pair<TempFileStreamHandle, TempFileStreamHandle> index(Date fireTime) throws Exception {
         //Use a file based dir with a temp file to conserve memory
@@ -132,7 +118,11 @@ public class RepoIndexer extends DefaultIndexer implements ArtifactScanningListe
         File dir = Files.createRandomDir(artifactoryHome.getTempWorkDir(), "artifactory.index." + repo.getKey());
         try {
             createContext(dir);
-            return createIndex(dir, true);
+            //Start from the last saved index and only scan what was modified since
+            long modifiedSince = ConstantValues.mvnIndexerIncremental.getBoolean() ? loadPreviousIndex() : 0;
+            return createIndex(dir, true, modifiedSince);
+        } catch (TaskInterruptedException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Indexing failed.", e);
         } finally {
@@ -142,12 +132,16 @@ public class RepoIndexer extends DefaultIndexer implements ArtifactScanningListe
     }
 
     Pair<TempFileStreamHandle, TempFileStreamHandle> createIndex(File indexDir, boolean scan) throws IOException {
+        return createIndex(indexDir, scan, 0);
+    }
+
+    private Pair<TempFileStreamHandle, TempFileStreamHandle> createIndex(File indexDir, boolean scan,
+            long modifiedSince) throws IOException {
         try {
             context.updateTimestamp();
             if (scan) {
                 //Update the dir content by scanning the repo
-                scanner.scan(new ScanningRequest(context,
-                        new DefaultScannerListener(context, defaultIndexerEngine, true, this), null));
+                scan(modifiedSince);
             }
 
             ArtifactoryHome artifactoryHome = ContextHelper.get().getArtifactoryHome();
@@ -169,11 +163,68 @@ public class RepoIndexer extends DefaultIndexer implements ArtifactScanningListe
             TempFileStreamHandle zipIndexHandle = new TempFileStreamHandle(tmpGz);
             TempFileStreamHandle propertiesHandle = new TempFileStreamHandle(propertiesFile);
             return new Pair<>(zipIndexHandle, propertiesHandle);
+        } catch (TaskInterruptedException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Index creation failed.", e);
         }
     }
 
+    private void scan(long modifiedSince) {
+        long start = System.currentTimeMillis();
+        RepoIndexScannerListener listener = new RepoIndexScannerListener(context, defaultIndexerEngine, taskToken,
+                workersExecutor, ConstantValues.mvnIndexerWorkers.getInt());
+        ScanningRequest request = new ScanningRequest(context, listener, null);
+        try {
+            if (modifiedSince > 0) {
+                scanner.scanModified(request, modifiedSince);
+            } else {
+                scanner.scan(request);
+            }
+        } finally {
+            //The context is closed once the index is created, including when the scanning was stopped
+            listener.awaitWorkers();
+        }
+        log.info("Scanned repository '{}' in {} ms{}: {}", repo.getKey(), System.currentTimeMillis() - start,
+                modifiedSince > 0 ? " (changes since " + new Date(modifiedSince) + ")" : "", listener);
+    }
+
+    /**
+     * Replaces the content of the indexing context with the last saved index of the repository
+     *
+     * @return The timestamp of the last saved index, 0 if there is no index to start from
+     */
+    private long loadPreviousIndex() throws Exception {
+        NullRequestContext requestContext = new NullRequestContext(repo.getRepoPath(MavenNaming.NEXUS_INDEX_GZ_PATH));
+        RepoResource indexRes = repo.getInfo(requestContext);
+        if (!indexRes.isFound()) {
+            log.debug("No previous index found for repository {}", repo);
+            return 0;
+        }
+        ArtifactoryHome artifactoryHome = ContextHelper.get().getArtifactoryHome();
+        File previousIndexDir = Files.createRandomDir(artifactoryHome.getTempWorkDir(),
+                "artifactory.previous-index." + repo.getKey());
+        FSDirectory previousIndex = FSDirectory.open(previousIndexDir);
+        try {
+            Date timestamp;
+            try (ResourceStreamHandle handle = repo.getResourceStreamHandle(requestContext, indexRes)) {
+                timestamp = DefaultIndexUpdater.unpackIndexData(handle.getInputStream(), previousIndex, context);
+            } catch (IOException e) {
+                log.warn("Could not read the previous index of repository '{}', indexing all the artifacts: {}",
+                        repo.getKey(), e.getMessage());
+                return 0;
+            }
+            if (timestamp == null) {
+                return 0;
+            }
+            context.replace(previousIndex);
+            return timestamp.getTime();
+        } finally {
+            previousIndex.close();
+            org.apache.commons.io.FileUtils.deleteQuietly(previousIndexDir);
+        }
+    }
+
     void mergeInto(StoringRepo localRepo, Map<StoringRepo, FSDirectory> extractedRepoIndexes) throws Exception {
         FSDirectory repoToMergeIndexDir = getIndexDir(localRepo, extractedRepoIndexes);
         if (repoToMergeIndexDir == null) {
@@ -64,6 +64,7 @@ import org.artifactory.mime.NamingUtils;
 import org.artifactory.repo.db.DbCacheRepo;
 import org.artifactory.repo.local.ValidDeployPathContext;
 import org.artifactory.repo.remote.browse.RemoteItem;
+import org.artifactory.repo.remote.download.InFlightDownload;
 import org.artifactory.repo.remote.interceptor.RemoteRepoInterceptor;
 import org.artifactory.repo.service.InternalRepositoryService;
 import org.artifactory.request.ArtifactoryRequest;
@@ -95,6 +96,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -105,6 +107,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -113,9 +117,16 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public abstract class RemoteRepoBase<T extends RemoteRepoDescriptor> extends RealRepoBase<T> implements RemoteRepo<T> {
     private static final Logger log = LoggerFactory.getLogger(RemoteRepoBase.class);
+    private static final long IN_FLIGHT_POLL_MILLIS = 1000;
     private final ChecksumPolicy checksumPolicy;
     private final LockingMap lockingMap;
 
+    /**
+     * Downloads currently streamed into the cache by this node, keyed by the cache path. Used by the stream-through
+     * mode to let concurrent requests tail-read the content instead of waiting for the download to complete.
+     */
+    private final ConcurrentMap<String, InFlightDownload> inFlightDownloads;
+
     /**
      * Flags this repository as assumed offline. The repository enters this state when a download request fails with
      * exception.
@@ -155,10 +166,12 @@ public abstract class RemoteRepoBase<T extends RemoteRepoDescriptor> extends Rea
             this.oldRemoteRepo = (RemoteRepoBase) oldRemoteRepo;
             // Always keep the in transit download map
             this.lockingMap = this.oldRemoteRepo.lockingMap;
+            this.inFlightDownloads = this.oldRemoteRepo.inFlightDownloads;
         } else {
             this.oldRemoteRepo = null;
             HaAddon haAddon = ContextHelper.get().beanForType(AddonsManager.class).addonByType(HaAddon.class);
             this.lockingMap = haAddon.getLockingMap();
+            this.inFlightDownloads = new ConcurrentHashMap<>();
         }
         if (isNonMavenRepo()) {
             excludes.addAll(Lists.newArrayList("**/*.pom", "**/*.jar", "**/maven-metadata.xml"));
@@ -577,10 +590,28 @@ public abstract class RemoteRepoBase<T extends RemoteRepoDescriptor> extends Rea
             String pathToLock = cachedResource.getRepoPath().toPath();
 
             boolean lockAcquired = false;
+            boolean streamThrough = ConstantValues.repoConcurrentDownloadStreamThrough.getBoolean();
             try {
                 try {
-                    lockAcquired = lockingMap.tryAddAndLock(pathToLock,
-                            ConstantValues.repoConcurrentDownloadSyncTimeoutSecs.getLong(), TimeUnit.SECONDS);
+                    if (streamThrough) {
+                        // Wait on the lock in slices, so we can join a download started on this node meanwhile
+                        long timeoutMillis = TimeUnit.SECONDS.toMillis(
+                                ConstantValues.repoConcurrentDownloadSyncTimeoutSecs.getLong());
+                        long deadline = System.currentTimeMillis() + timeoutMillis;
+                        long remaining = timeoutMillis;
+                        while (!lockAcquired && remaining > 0) {
+                            ResourceStreamHandle inFlightHandle = openInFlightDownloadHandle(pathToLock);
+                            if (inFlightHandle != null) {
+                                return inFlightHandle;
+                            }
+                            lockAcquired = lockingMap.tryAddAndLock(pathToLock,
+                                    Math.min(remaining, IN_FLIGHT_POLL_MILLIS), TimeUnit.MILLISECONDS);
+                            remaining = deadline - System.currentTimeMillis();
+                        }
+                    } else {
+                        lockAcquired = lockingMap.tryAddAndLock(pathToLock,
+                                ConstantValues.repoConcurrentDownloadSyncTimeoutSecs.getLong(), TimeUnit.SECONDS);
+                    }
                 } catch (InterruptedException e) {
                     log.info("Interrupted on concurrent download lock of '{}'", pathToLock);
                     RepoRequests.logToContext("Interrupted on concurrent download lock of '" + pathToLock + "'");
@@ -603,7 +634,23 @@ public abstract class RemoteRepoBase<T extends RemoteRepoDescriptor> extends Rea
                     return null;
                 }
                 RepoRequests.logToContext("Found no cached resource - starting download");
-                cachedResource = doDownloadAndSave(requestContext, remoteResource);
+                InFlightDownload inFlightDownload = streamThrough ?
+                        startInFlightDownload(pathToLock, remoteResource) : null;
+                try {
+                    cachedResource = doDownloadAndSave(requestContext, remoteResource, inFlightDownload);
+                    if (inFlightDownload != null) {
+                        inFlightDownload.complete();
+                    }
+                } catch (Throwable t) {
+                    if (inFlightDownload != null) {
+                        inFlightDownload.fail(t);
+                    }
+                    throw t;
+                } finally {
+                    if (inFlightDownload != null) {
+                        inFlightDownloads.remove(pathToLock, inFlightDownload);
+                    }
+                }
             } finally {
                 if (lockAcquired) {
                     lockingMap.removeAndUnlock(pathToLock);
@@ -625,6 +672,43 @@ public abstract class RemoteRepoBase<T extends RemoteRepoDescriptor> extends Rea
         return localCacheRepo.getResourceStreamHandle(requestContext, cachedResource);
     }
 
+    /**
+     * Registers a new in-flight download for the given path, backed by a temp file in the work dir.
+     *
+     * @return The in-flight download or null if the temp file could not be created (download will not be shared)
+     */
+    @Nullable
+    private InFlightDownload startInFlightDownload(String path, RepoResource remoteResource) {
+        try {
+            File tempFile = File.createTempFile("download-", ".tmp",
+                    ContextHelper.get().getArtifactoryHome().getTempWorkDir());
+            long stallTimeoutMillis = TimeUnit.SECONDS.toMillis(
+                    ConstantValues.repoConcurrentDownloadSyncTimeoutSecs.getLong());
+            InFlightDownload inFlightDownload = new InFlightDownload(path, tempFile, remoteResource.getSize(),
+                    stallTimeoutMillis);
+            inFlightDownloads.put(path, inFlightDownload);
+            RepoRequests.logToContext("Streaming download through '%s' for concurrent requests", tempFile.getName());
+            return inFlightDownload;
+        } catch (IOException e) {
+            log.warn("Could not create temp file for in-flight download of '{}': {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    @Nullable
+    private ResourceStreamHandle openInFlightDownloadHandle(String path) throws IOException {
+        InFlightDownload inFlightDownload = inFlightDownloads.get(path);
+        if (inFlightDownload == null) {
+            return null;
+        }
+        ResourceStreamHandle handle = inFlightDownload.openFollowerHandle();
+        if (handle != null) {
+            log.debug("Joining in-flight download of '{}' in '{}'.", path, this);
+            RepoRequests.logToContext("Found in-flight concurrent download - streaming its content");
+        }
+        return handle;
+    }
+
     private ResourceStreamHandle getHandleFromCache(InternalRequestContext requestContext, RepoResource remoteResource,
             RepoResource cachedResource, String message) throws IOException, RepoRejectException {
         ResourceStreamHandle cacheHandle = localCacheRepo.getResourceStreamHandle(requestContext, cachedResource);
@@ -674,11 +758,12 @@ public abstract class RemoteRepoBase<T extends RemoteRepoDescriptor> extends Rea
     }
 
     // this is the actual download of the resource
-    private RepoResource doDownloadAndSave(InternalRequestContext requestContext, RepoResource remoteResource)
-            throws RepoRejectException, IOException {
+    private RepoResource doDownloadAndSave(InternalRequestContext requestContext, RepoResource remoteResource,
+            @Nullable InFlightDownload inFlightDownload) throws RepoRejectException, IOException {
         RepoRequests.logToContext("Downloading and saving");
         RepoPath remoteRepoPath = remoteResource.getRepoPath();
         ResourceStreamHandle handle = null;
+        ResourceStreamHandle saveHandle = null;
         try {
             beforeResourceDownload(remoteResource, requestContext.getProperties(), requestContext.getRequest());
 
@@ -733,9 +818,12 @@ public abstract class RemoteRepoBase<T extends RemoteRepoDescriptor> extends Rea
             }
 
 
+            //Copy the content to the in-flight download file while saving, for concurrent requests to stream from
+            saveHandle = inFlightDownload != null ? inFlightDownload.tee(handle) : handle;
+
             //Create/override the resource in the storage cache
             RepoRequests.logToContext("Saving resource to " + localCacheRepo);
-            SaveResourceContext saveResourceContext = new SaveResourceContext.Builder(remoteResource, handle)
+            SaveResourceContext saveResourceContext = new SaveResourceContext.Builder(remoteResource, saveHandle)
                     .properties(properties).build();
             RepoResource cachedResource = getRepositoryService().saveResource(localCacheRepo, saveResourceContext);
             if (remoteRequestStartTime > 0) {
@@ -768,6 +856,9 @@ public abstract class RemoteRepoBase<T extends RemoteRepoDescriptor> extends Rea
             setExceptionOnHandle(handle, e);
             throw e;
         } finally {
+            if (saveHandle != null && saveHandle != handle) {
+                saveHandle.close();
+            }
             Closeables.close(handle, false);
         }
     }
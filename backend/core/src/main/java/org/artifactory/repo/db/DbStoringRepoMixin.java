@@ -690,11 +690,16 @@ public class DbStoringRepoMixin<T extends RepoBaseDescriptor> /*implements Stori
             // calculate maven metadata on the parent path
             RepoPath folderForMetadataCalculation = repoPath.getParent();
             if (folderForMetadataCalculation != null && !folderForMetadataCalculation.isRoot()) {
-                if (item.isFile()) {
+                if (item.isFolder()) {
+                    // only remove the version from the metadata of the artifactId node (if it is a version folder)
+                    mavenMetadataService.calculateVersionsMavenMetadataAsync(repoPath, false);
+                } else if (MavenNaming.isPom(repoPath.getPath())) {
                     // calculate maven metadata on the artifactId node
-                    folderForMetadataCalculation = folderForMetadataCalculation.getParent();
+                    mavenMetadataService.calculateMavenMetadataAsync(folderForMetadataCalculation.getParent(), true);
+                } else {
+                    // other files don't change the versions, only the snapshot metadata of their folder
+                    mavenMetadataService.calculateMavenMetadataAsync(folderForMetadataCalculation, false);
                 }
-                mavenMetadataService.calculateMavenMetadataAsync(folderForMetadataCalculation, true);
             }
         }
     }
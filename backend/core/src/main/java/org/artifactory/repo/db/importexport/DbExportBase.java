@@ -20,11 +20,11 @@ package org.artifactory.repo.db.importexport;
 
 import com.google.common.base.Charsets;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.artifactory.api.context.ContextHelper;
 import org.artifactory.backup.FileExportInfoImpl;
 import org.artifactory.checksum.ChecksumInfo;
+import org.artifactory.common.ConstantValues;
 import org.artifactory.common.Info;
 import org.artifactory.common.MutableStatusHolder;
 import org.artifactory.fs.FileInfo;
@@ -40,6 +40,8 @@ import org.artifactory.md.XmlMetadataProvider;
 import org.artifactory.sapi.common.ExportSettings;
 import org.artifactory.sapi.common.FileExportEvent;
 import org.artifactory.sapi.common.FileExportInfo;
+import org.artifactory.schedule.CachedThreadPoolTaskExecutor;
+import org.artifactory.storage.binstore.service.BinaryNotFoundException;
 import org.artifactory.storage.fs.VfsItemNotFoundException;
 import org.artifactory.storage.fs.service.ItemMetaInfo;
 import org.artifactory.storage.fs.service.NodeMetaInfoService;
@@ -50,14 +52,12 @@ import org.artifactory.storage.spring.StorageContextHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Base class for exporting repository content.
@@ -71,6 +71,11 @@ public abstract class DbExportBase extends DbRepoImportExportBase {
     protected ExportSettings settings;
     protected MutableStatusHolder status;
     protected final ImportExportAccumulator accumulator;
+    private ExportBinaryWriter binaryWriter;
+    private CachedThreadPoolTaskExecutor contentExecutor;
+    private Semaphore contentWorkersGate;
+    private int maxContentWorkers;
+    private final AtomicReference<Throwable> contentFailure = new AtomicReference<>();
 
     protected DbExportBase(ImportExportAccumulator accumulator) {
         this.accumulator = accumulator;
@@ -82,20 +87,73 @@ public abstract class DbExportBase extends DbRepoImportExportBase {
         this.status = settings.getStatusHolder();
     }
 
+    /**
+     * Starts the workers exporting the content of the files, must be followed by {@link #finishFilesExport()} once
+     * all the files were exported.
+     */
+    protected void startFilesExport() {
+        binaryWriter = new ExportBinaryWriter(getBinaryStore(), settings.getBaseDir(),
+                ConstantValues.exportHardLinkBinaries.getBoolean());
+        int contentWorkers = ConstantValues.exportContentWorkers.getInt();
+        if (contentWorkers > 1) {
+            maxContentWorkers = contentWorkers;
+            contentWorkersGate = new Semaphore(contentWorkers);
+            contentExecutor = new CachedThreadPoolTaskExecutor();
+        }
+    }
+
+    /**
+     * Waits for the content of the exported files to be written and stops the workers.
+     *
+     * @throws RuntimeException The failure of a worker if the status holder fails fast
+     */
+    protected void finishFilesExport() {
+        if (contentExecutor != null) {
+            contentWorkersGate.acquireUninterruptibly(maxContentWorkers);
+            contentWorkersGate.release(maxContentWorkers);
+            contentExecutor.destroy();
+            contentExecutor = null;
+        }
+        if (binaryWriter != null) {
+            accumulator.accumulateLinkedFiles(binaryWriter.getLinkedFiles());
+            log.debug("Exported binaries of {}: {} copied, {} linked", settings.getBaseDir(),
+                    binaryWriter.getCopiedFiles(), binaryWriter.getLinkedFiles());
+        }
+        rethrowContentFailure();
+    }
+
+    /**
+     * Rethrows on the exporting thread the first failure of the workers, which is only thrown by a fast fail status
+     * holder, so that the export stops as it does when the content is exported inline
+     */
+    private void rethrowContentFailure() {
+        Throwable failure = contentFailure.getAndSet(null);
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+    }
+
+    /**
+     * Whether to check that the file still exists before exporting it. Can be skipped by exporters which just loaded
+     * the files from the database.
+     */
+    protected boolean isVerifySourceExists() {
+        return true;
+    }
+
+    /**
+     * Exports the metadata of the file and submits the export of its content to the workers, if started.
+     */
     protected void exportFile(FileInfo sourceFile) {
+        rethrowContentFailure();
         status.debug("Exporting file '" + sourceFile.getRepoPath() + "'...", log);
 
-        File targetBase;
-        if (settings.isCreateArchive()) {
-            targetBase = settings.getBaseDir();
-        } else {
-            targetBase = settings.getBaseDir();
-        }
-        File targetFile = new File(targetBase, sourceFile.getRelPath());
+        File targetFile = new File(settings.getBaseDir(), sourceFile.getRelPath());
         try {
             // Insure that the source file still exists.
-            boolean sourceFileExists = getFileService().exists(sourceFile.getRepoPath());
-            if (!sourceFileExists) {
+            if (isVerifySourceExists() && !getFileService().exists(sourceFile.getRepoPath())) {
                 log.info("Skipping file export : '{}', the source file doesn't exists.", sourceFile.getRepoPath());
                 return;
             }
@@ -108,12 +166,46 @@ public abstract class DbExportBase extends DbRepoImportExportBase {
             if (!parentFile.exists()) {
                 FileUtils.forceMkdir(parentFile);
             }
+            if (settings.isIncludeMetadata()) {
+                exportMetadata(targetFile, sourceFile);
+            }
+        } catch (Exception e) {
+            status.error("Failed to export '" + targetFile.getAbsolutePath() + "' due to:" + e.getMessage(),
+                    e, log);
+            accumulator.accumulateSkippedFile();
+            return;
+        }
+
+        if (contentExecutor == null) {
+            exportFileContent(sourceFile, targetFile);
+            return;
+        }
+        contentWorkersGate.acquireUninterruptibly();
+        try {
+            contentExecutor.execute(() -> {
+                try {
+                    exportFileContent(sourceFile, targetFile);
+                } catch (RuntimeException | Error e) {
+                    contentFailure.compareAndSet(null, e);
+                } finally {
+                    contentWorkersGate.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            contentWorkersGate.release();
+            status.error("Failed to export '" + targetFile.getAbsolutePath() + "' due to:" + e.getMessage(),
+                    e, log);
+            accumulator.accumulateSkippedFile();
+        }
+    }
 
+    private void exportFileContent(FileInfo sourceFile, File targetFile) {
+        try {
             boolean fileContentExported = false;
             // Export file only if not "incremental export" and the file to export is newer than the target file.
             boolean skipFileContentExport = isSkipFileContentExport(sourceFile, targetFile);
             if (!skipFileContentExport) {
-                fileContentExported = exportFileContent(sourceFile, targetFile);
+                fileContentExported = writeFileContent(sourceFile, targetFile);
             }
 
             settings.executeCallbacks(new FileExportInfoImpl(sourceFile, targetFile,
@@ -121,9 +213,6 @@ public abstract class DbExportBase extends DbRepoImportExportBase {
                             FileExportInfo.FileExportStatus.SKIPPED),
                     FileExportEvent.AFTER_FILE_EXPORT);
 
-            if (settings.isIncludeMetadata()) {
-                exportMetadata(targetFile, sourceFile);
-            }
             if (settings.isM2Compatible()) {
                 writeChecksums(targetFile, sourceFile);
             }
@@ -156,27 +245,25 @@ public abstract class DbExportBase extends DbRepoImportExportBase {
         return false;
     }
 
-    private boolean exportFileContent(FileInfo sourceFile, File targetFile) throws IOException {
-
+    private boolean writeFileContent(FileInfo sourceFile, File targetFile) throws IOException {
         log.debug("Exporting file content to {}", targetFile.getAbsolutePath());
-        OutputStream os = null;
-        InputStream is = null;
+        if (binaryWriter == null) {
+            binaryWriter = new ExportBinaryWriter(getBinaryStore(), settings.getBaseDir(), false);
+        }
+        boolean copied;
         try {
-            // get the stream directly from the datastore (no fs item locks)
-            is = getBinaryStore().getBinary(sourceFile.getSha1());
-            os = new BufferedOutputStream(new FileOutputStream(targetFile));
-            IOUtils.copy(is, os);
-        } catch (VfsItemNotFoundException e) {
+            copied = binaryWriter.write(sourceFile.getSha1(), targetFile);
+        } catch (VfsItemNotFoundException | BinaryNotFoundException e) {
             // since we work with an unlocked items there's a small chance the binary doesn't exist anymore
             status.warn("Binary not found for item '" + sourceFile.getRepoPath() + "'"
                     + " with sha1 '" + sourceFile.getSha1() + "'", log);
             return false;
-        } finally {
-            IOUtils.closeQuietly(os);
-            IOUtils.closeQuietly(is);
         }
 
-        targetFile.setLastModified(sourceFile.getLastModified());
+        if (copied) {
+            accumulator.accumulateBytes(sourceFile.getSize());
+            targetFile.setLastModified(sourceFile.getLastModified());
+        }
         return true;
     }
 
@@ -81,15 +81,32 @@ public class DbRepoExportHandler extends DbExportBase {
         } catch (IOException e) {
             throw new RuntimeException("Failed to create export directory '" + targetExportFolder + "'.", e);
         }
+        accumulator.setExpectedItemsCount(nodeCount);
         ItemInfo rootFolder = getFileService().loadItem(new RepoPathImpl(repo.getKey(), ""));
-        exportRecursive(rootFolder);
+        startFilesExport();
+        try {
+            exportRecursive(rootFolder);
+        } finally {
+            finishFilesExport();
+        }
         accumulator.finished();
         status.status(String.format("%s export finished with: %s Items exported (%s files and %s folders), " +
-                "%s Item skipped: (%s files and %s folders).Duration: %s IPS: %s Target: '%s'",
+                "%s Item skipped: (%s files and %s folders).Duration: %s IPS: %s MB/s: %s Linked files: %s " +
+                "Target: '%s'",
                 repo.getKey(), accumulator.getSuccessfulItemsCount(), accumulator.getSuccessfulFilesCount(),
                 accumulator.getSuccessfulFoldersCount(), accumulator.getSkippedItemsCount(),
                 accumulator.getSkippedFilesCount(), accumulator.getSkippedFoldersCount(),
-                accumulator.getDurationString(), accumulator.getItemsPerSecond(), targetExportFolder), log);
+                accumulator.getDurationString(), accumulator.getItemsPerSecond(),
+                accumulator.getMegabytesPerSecond(), accumulator.getLinkedFilesCount(), targetExportFolder), log);
+    }
+
+    /**
+     * The exported items were just loaded as children of their folder, a deleted item is skipped when reading its
+     * binary or exported as it was before the deletion.
+     */
+    @Override
+    protected boolean isVerifySourceExists() {
+        return false;
     }
 
     private void exportRecursive(ItemInfo sourceItem) {
@@ -129,8 +146,7 @@ public class DbRepoExportHandler extends DbExportBase {
         File targetDir = new File(settings.getBaseDir(), sourceFolder.getRelPath());
         status.debug("Exporting directory '" + sourceFolder.getRepoPath() + "'...", log);
         // Insure that the source folder still exists.
-        boolean sourceFolderExists = getFileService().exists(sourceFolder.getRepoPath());
-        if (!sourceFolderExists) {
+        if (isVerifySourceExists() && !getFileService().exists(sourceFolder.getRepoPath())) {
             log.info("Skipping folder export : '{}', the source folder doesn't exists.", sourceFolder.getRepoPath());
             return;
         }
@@ -60,8 +60,13 @@ public class DbRepoExportSearchHandler extends DbExportBase {
             return status;
         }
 
-        for (org.artifactory.fs.FileInfo searchResult : searchResults.getResults()) {
-            exportFile(searchResult);
+        startFilesExport();
+        try {
+            for (org.artifactory.fs.FileInfo searchResult : searchResults.getResults()) {
+                exportFile(searchResult);
+            }
+        } finally {
+            finishFilesExport();
         }
 
         if (settings.isCreateArchive()) {
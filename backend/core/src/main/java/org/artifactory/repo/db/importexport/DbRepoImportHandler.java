@@ -23,11 +23,14 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.artifactory.addon.AddonsManager;
 import org.artifactory.addon.yum.YumAddon;
+import org.artifactory.api.common.BasicStatusHolder;
 import org.artifactory.api.config.ImportSettingsImpl;
 import org.artifactory.api.context.ContextHelper;
 import org.artifactory.api.maven.MavenMetadataService;
 import org.artifactory.api.repo.exception.RepoRejectException;
+import org.artifactory.binstore.BinaryInfo;
 import org.artifactory.checksum.ChecksumType;
+import org.artifactory.common.ConstantValues;
 import org.artifactory.common.MutableStatusHolder;
 import org.artifactory.descriptor.repo.LocalRepoDescriptor;
 import org.artifactory.descriptor.repo.RepoType;
@@ -76,6 +79,7 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.AbstractPlatformTransactionManager;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 
+import javax.annotation.Nullable;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -131,7 +135,12 @@ public class DbRepoImportHandler extends DbRepoImportExportBase {
             }
 
             progressAccumulator = new ImportExportAccumulator(repo.getKey(), IMPORT);
-            executeRecursiveImport(fileSystemBaseDir);
+            int binaryWorkers = ConstantValues.importBinaryWorkers.getInt();
+            if (binaryWorkers > 1 || settings.isDryRun()) {
+                executePipelinedImport(fileSystemBaseDir, binaryWorkers);
+            } else {
+                executeRecursiveImport(fileSystemBaseDir);
+            }
             if (hasRetries()) {
                 importFromRetryList();
             }
@@ -157,6 +166,10 @@ public class DbRepoImportHandler extends DbRepoImportExportBase {
 
     private void internalFinalizeImport() {
         progressAccumulator.finished();
+        if (settings.isDryRun()) {
+            reportEndOfDryRun(fileSystemBaseDir);
+            return;
+        }
         RepoPath rootRepoPath = InternalRepoPathFactory.repoRootPath(repo.getKey());
         runPostImportCalculations(rootRepoPath);
         reportEndOfImport(fileSystemBaseDir);
@@ -172,13 +185,111 @@ public class DbRepoImportHandler extends DbRepoImportExportBase {
         }
     }
 
+    /**
+     * Imports the items returned by the {@link ImportScanner}, which scans the source directory and loads the binaries
+     * of the files ahead of this thread. In dry run mode the items are only counted.
+     */
+    private void executePipelinedImport(File fileSystemBaseDir, int binaryWorkers) {
+        RepoPath rootRepoPath = InternalRepoPathFactory.repoRootPath(repo.getKey());
+        boolean dryRun = settings.isDryRun();
+        ImportScanner scanner = new ImportScanner(fileSystemBaseDir, rootRepoPath, this::collectFileNamesForImport,
+                this::readMetadataSha1, !settings.isExcludeContent(), dryRun, status, binaryWorkers,
+                ConstantValues.importMaxPendingItems.getInt());
+        scanner.start();
+        if (!dryRun) {
+            startTransaction();
+        }
+        try {
+            RepoPath skippedFolder = null;
+            ImportScanner.Item item;
+            while ((item = scanner.next()) != null) {
+                try {
+                    if (skippedFolder != null && isDescendant(skippedFolder, item.getTarget())) {
+                        continue;
+                    }
+                    skippedFolder = null;
+                    if (shouldPauseOrBreak()) {
+                        status.error("Import of " + repo.getKey() + " was stopped", log);
+                        break;
+                    }
+                    if (dryRun) {
+                        countDryRunItem(item);
+                        continue;
+                    }
+                    if (shouldStartNewTransaction()) {
+                        commitTransaction(transactionStatus);
+                        startTransaction();
+                    }
+                    if (item.isFolder()) {
+                        if (!importFolder(item.getSource(), item.getTarget())) {
+                            log.debug("Folder '{}' doesn't exist after import. Skipping import children of '{}'",
+                                    item.getTarget(), item.getSource());
+                            skippedFolder = item.getTarget();
+                        }
+                    } else {
+                        importFile(item.getSource(), item.getTarget(), item.getBinary());
+                    }
+                } finally {
+                    item.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status.error("Import of " + repo.getKey() + " was interrupted", log);
+        } finally {
+            scanner.stop();
+            if (!dryRun) {
+                commitTransaction(transactionStatus);
+            }
+        }
+    }
+
+    private boolean isDescendant(RepoPath folder, RepoPath item) {
+        return folder.isRoot() || item.getPath().startsWith(folder.getPath() + "/");
+    }
+
+    private void countDryRunItem(ImportScanner.Item item) {
+        if (item.isFolder()) {
+            progressAccumulator.accumulateSuccessfulFolder();
+            return;
+        }
+        BinaryInfo binary = item.getBinary();
+        if (binary == null && item.getSource().exists() && !settings.isExcludeContent()) {
+            addErrorMessage(item.getSource(), item.getTarget(), "Could not read file '" +
+                    item.getSource().getAbsolutePath() + "'.");
+            progressAccumulator.accumulateSkippedFile();
+            return;
+        }
+        if (binary != null) {
+            progressAccumulator.accumulateBytes(binary.getLength());
+        }
+        progressAccumulator.accumulateSuccessfulFile();
+    }
+
+    private void reportEndOfDryRun(File fileSystemBaseDir) {
+        status.status(String.format("%s import dry run finished with: %s Items to import: (%s files %s folders " +
+                                "%s MB), %s Items skipped. Duration: %s Projected IPS: %s MB/s: %s (without " +
+                                "storing the binaries and the nodes) Source: '%s'",
+                        repo.getKey(), progressAccumulator.getSuccessfulItemsCount(),
+                        progressAccumulator.getSuccessfulFilesCount(),
+                        progressAccumulator.getSuccessfulFoldersCount(),
+                        progressAccumulator.getBytesCount() / (1024 * 1024),
+                        progressAccumulator.getSkippedItemsCount(), progressAccumulator.getDurationString(),
+                        progressAccumulator.getItemsPerSecond(), progressAccumulator.getMegabytesPerSecond(),
+                        fileSystemBaseDir
+                ),
+                log
+        );
+    }
+
     private void reportEndOfImport(File fileSystemBaseDir) {
         status.status(String.format("%s import finished with: %s Items imported: (%s files %s folders). " +
-                                "Duration: %s IPS: %s Target: '%s'",
+                                "Duration: %s IPS: %s MB/s: %s Target: '%s'",
                         repo.getKey(), progressAccumulator.getSuccessfulItemsCount(),
                         progressAccumulator.getSuccessfulFilesCount(),
                         progressAccumulator.getSuccessfulFoldersCount(),
                         progressAccumulator.getDurationString(), progressAccumulator.getItemsPerSecond(),
+                        progressAccumulator.getMegabytesPerSecond(),
                         fileSystemBaseDir
                 ),
                 log
@@ -287,6 +398,13 @@ public class DbRepoImportHandler extends DbRepoImportExportBase {
     }
 
     private void importFile(final File fileToImport, final RepoPath target) {
+        importFile(fileToImport, target, null);
+    }
+
+    /**
+     * @param loadedBinary The binary of the file if already stored by the {@link ImportScanner}
+     */
+    private void importFile(File fileToImport, RepoPath target, @Nullable BinaryInfo loadedBinary) {
         log.debug("Importing '{}'.", target);
         if (!settings.isIncludeMetadata() && !fileToImport.exists()) {
             addErrorMessage(fileToImport, target, "Cannot import non existent file (metadata is excluded): " +
@@ -294,7 +412,7 @@ public class DbRepoImportHandler extends DbRepoImportExportBase {
             return;
         }
         if (isDeployPathValid(fileToImport, target)) {
-            deployImportedFile(fileToImport, target);
+            deployImportedFile(fileToImport, target, loadedBinary);
         }
     }
 
@@ -317,16 +435,17 @@ public class DbRepoImportHandler extends DbRepoImportExportBase {
         return true;
     }
 
-    private void deployImportedFile(File fileToImport, RepoPath target) {
+    private void deployImportedFile(File fileToImport, RepoPath target, @Nullable BinaryInfo loadedBinary) {
         ArtifactoryStorageContext context = StorageContextHelper.get();
         MutableVfsFile mutableFile = null;
         try {
             mutableFile = repo.createOrGetFile(target);
-            importFileFrom(fileToImport, mutableFile);
+            importFileFrom(fileToImport, mutableFile, loadedBinary);
 
             context.beanForType(ImportInterceptors.class).afterImport(mutableFile, status);
             log.debug("Imported '{}'.", target);
             AccessLogger.deployed(target);
+            progressAccumulator.accumulateBytes(mutableFile.length());
             progressAccumulator.accumulateSuccessfulFile();
         } catch (BinaryInsertRetryException e) {
             log.info("Import of {} will be retried", target);
@@ -356,7 +475,8 @@ public class DbRepoImportHandler extends DbRepoImportExportBase {
         }
     }
 
-    private void importFileFrom(File sourceFile, MutableVfsFile mutableFile) throws IOException, RepoRejectException {
+    private void importFileFrom(File sourceFile, MutableVfsFile mutableFile, @Nullable BinaryInfo loadedBinary)
+            throws IOException, RepoRejectException {
         updateMutableFileBasicData(sourceFile, mutableFile);
         FileInfo importedFileInfo = null;
         RepoPath targetRepoPath = mutableFile.getRepoPath();
@@ -379,6 +499,10 @@ public class DbRepoImportHandler extends DbRepoImportExportBase {
             }
             binaryInfoExists = tryUsingExistingBinary(sourceFile, mutableFile, importedFileInfo);
         }
+        if (!binaryInfoExists && loadedBinary != null) {
+            binaryInfoExists = mutableFile.tryUsingExistingBinary(loadedBinary.getSha1(), loadedBinary.getMd5(),
+                    loadedBinary.getLength());
+        }
         if (!binaryInfoExists) {
             fillBinaryDataFromFile(sourceFile, mutableFile);
         }
@@ -478,6 +602,39 @@ public class DbRepoImportHandler extends DbRepoImportExportBase {
         }
     }
 
+    /**
+     * Reads the sha1 of a file from its exported metadata, for the scanner to not load binaries which already exist.
+     * Called by the scanner thread, the metadata is read and its errors reported again when the file is imported.
+     *
+     * @return The sha1 of the file or null if it has no readable metadata
+     */
+    @Nullable
+    private String readMetadataSha1(File sourceFile) {
+        if (!settings.isIncludeMetadata()) {
+            return null;
+        }
+        File metadataFolder = getMetadataContainerFolder(sourceFile);
+        if (!metadataFolder.exists()) {
+            return null;
+        }
+        try {
+            MetadataReader metadataReader = findBestMatchMetadataReader(settings, metadataFolder);
+            for (MetadataEntryInfo entry : metadataReader.getMetadataEntries(metadataFolder,
+                    new BasicStatusHolder())) {
+                if (FileInfo.ROOT.equals(entry.getMetadataName())) {
+                    MetadataDefinition definition = getMetadataDefinitionService()
+                            .getMetadataDefinition(FileInfo.ROOT, true);
+                    FileInfo fileInfo = (FileInfo) definition.getXmlProvider().fromXml(entry.getXmlContent());
+                    return fileInfo != null && ChecksumType.sha1.isValid(fileInfo.getSha1()) ?
+                            fileInfo.getSha1() : null;
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Could not read the metadata checksum of '{}': {}", sourceFile, e.getMessage());
+        }
+        return null;
+    }
+
     private List<MetadataEntryInfo> getMetadataEntryInfos(File sourceFile) {
         File metadataFolder = getMetadataContainerFolder(sourceFile);
         if (!metadataFolder.exists()) {
@@ -604,7 +761,8 @@ public class DbRepoImportHandler extends DbRepoImportExportBase {
         }
     }
 
-    private MetadataReader findBestMatchMetadataReader(ImportSettings importSettings, File metadataFolder) {
+    private synchronized MetadataReader findBestMatchMetadataReader(ImportSettings importSettings,
+            File metadataFolder) {
         ImportSettingsImpl settings = (ImportSettingsImpl) importSettings;
         MetadataReader metadataReader = settings.getMetadataReader();
         if (metadataReader == null) {
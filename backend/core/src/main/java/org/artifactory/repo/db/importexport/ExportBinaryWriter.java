@@ -0,0 +1,159 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.repo.db.importexport;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import org.apache.commons.io.IOUtils;
+import org.artifactory.storage.binstore.service.BinaryStore;
+import org.artifactory.storage.binstore.service.FileBinaryProvider;
+import org.artifactory.storage.binstore.service.InternalBinaryStore;
+import org.artifactory.storage.binstore.service.providers.FileBinaryProviderImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes the binaries of the exported files. A binary is hard linked instead of copied when possible: to its filestore
+ * file if the export directory is on the same file system as the filestore, or to an already exported file with the
+ * same checksum.
+ * <p/>
+ * The target file is always replaced rather than overwritten, so a file written by an incremental export never changes
+ * the content of the file it was previously linked to.
+ *
+ * @see DbExportBase#exportFile
+ */
+class ExportBinaryWriter {
+    private static final Logger log = LoggerFactory.getLogger(ExportBinaryWriter.class);
+
+    private static final int MAX_EXPORTED_BINARIES = 100_000;
+
+    private final BinaryStore binaryStore;
+    private final List<FileBinaryProvider> linkedProviders = Lists.newArrayList();
+    private final Cache<String, File> exportedBinaries;
+    private volatile boolean linksSupported;
+    private final AtomicInteger linkedFiles = new AtomicInteger();
+    private final AtomicInteger copiedFiles = new AtomicInteger();
+
+    /**
+     * @param hardLinks False to always copy the binaries
+     */
+    ExportBinaryWriter(BinaryStore binaryStore, File exportDir, boolean hardLinks) {
+        this.binaryStore = binaryStore;
+        this.linksSupported = hardLinks;
+        exportedBinaries = CacheBuilder.newBuilder().maximumSize(MAX_EXPORTED_BINARIES).build();
+        if (hardLinks && binaryStore instanceof InternalBinaryStore) {
+            for (FileBinaryProvider provider : ((InternalBinaryStore) binaryStore).getBinariesDirs().keySet()) {
+                // cache providers evict and touch their files, only the filestore files never change
+                if (provider instanceof FileBinaryProviderImpl &&
+                        isSameFileStore(provider.getBinariesDir(), exportDir)) {
+                    linkedProviders.add(provider);
+                }
+            }
+        }
+        log.debug("Exporting binaries to '{}' with hard links: {}, linked filestores: {}", exportDir, hardLinks,
+                linkedProviders.size());
+    }
+
+    /**
+     * Writes the binary with the given checksum to the target file
+     *
+     * @return True if the binary was copied, false if it was linked. The last modified time of a linked file is shared
+     * with the file it is linked to and should not be changed.
+     * @throws org.artifactory.storage.binstore.service.BinaryNotFoundException If the binary doesn't exist
+     */
+    boolean write(String sha1, File targetFile) throws IOException {
+        Path target = targetFile.toPath();
+        Files.deleteIfExists(target);
+        if (linksSupported) {
+            File exported = exportedBinaries.getIfPresent(sha1);
+            if (exported != null && exported.isFile() && link(exported, target)) {
+                return false;
+            }
+            for (FileBinaryProvider provider : linkedProviders) {
+                File binaryFile = provider.getFile(sha1);
+                if (binaryFile.isFile() && link(binaryFile, target)) {
+                    exportedBinaries.put(sha1, targetFile);
+                    return false;
+                }
+            }
+        }
+
+        OutputStream os = null;
+        InputStream is = null;
+        try {
+            // get the stream directly from the datastore (no fs item locks)
+            is = binaryStore.getBinary(sha1);
+            os = new BufferedOutputStream(new FileOutputStream(targetFile));
+            IOUtils.copyLarge(is, os);
+        } finally {
+            IOUtils.closeQuietly(os);
+            IOUtils.closeQuietly(is);
+        }
+        copiedFiles.incrementAndGet();
+        if (linksSupported) {
+            exportedBinaries.put(sha1, targetFile);
+        }
+        return true;
+    }
+
+    int getLinkedFiles() {
+        return linkedFiles.get();
+    }
+
+    int getCopiedFiles() {
+        return copiedFiles.get();
+    }
+
+    private boolean link(File existing, Path target) {
+        try {
+            Files.createLink(target, existing.toPath());
+            linkedFiles.incrementAndGet();
+            return true;
+        } catch (UnsupportedOperationException e) {
+            log.info("Hard links are not supported by the export file system, copying the binaries instead");
+            linksSupported = false;
+        } catch (IOException e) {
+            // usually the maximum number of links to the same file, the binary is copied
+            log.debug("Could not link '{}' to '{}': {}", target, existing, e.getMessage());
+        }
+        return false;
+    }
+
+    private static boolean isSameFileStore(File binariesDir, File exportDir) {
+        try {
+            return Files.getFileStore(binariesDir.toPath()).equals(Files.getFileStore(exportDir.toPath()));
+        } catch (IOException e) {
+            log.debug("Could not compare the file stores of '{}' and '{}': {}", binariesDir, exportDir,
+                    e.getMessage());
+            return false;
+        }
+    }
+}
@@ -25,6 +25,8 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Progress notifier, logs out import export progress.
@@ -39,16 +41,18 @@ public class ImportExportAccumulator {
         IMPORT, EXPORT
     }
 
-    private final NumberFormat numberFormat = new DecimalFormat("###.##");
     private final String repositoryKey;
     private final ProgressAccumulatorType type;
     private final long startTime;
-    private long endTime;
+    private volatile long endTime;
 
-    private int skippedFilesCount = 0;
-    private int skippedFoldersCount = 0;
-    private int successfulFilesCount = 0;
-    private int successfulFoldersCount = 0;
+    private final AtomicInteger skippedFilesCount = new AtomicInteger();
+    private final AtomicInteger skippedFoldersCount = new AtomicInteger();
+    private final AtomicInteger successfulFilesCount = new AtomicInteger();
+    private final AtomicInteger successfulFoldersCount = new AtomicInteger();
+    private final AtomicLong bytesCount = new AtomicLong();
+    private final AtomicInteger linkedFilesCount = new AtomicInteger();
+    private volatile long expectedItemsCount;
 
     public ImportExportAccumulator(String repositoryKey, @Nonnull ProgressAccumulatorType type) {
         this.emitMessageValueEvery = ProgressAccumulatorType.EXPORT.equals(type) ? 3000 : 1000;
@@ -57,46 +61,63 @@ public class ImportExportAccumulator {
         this.startTime = System.nanoTime();
     }
 
+    /**
+     * Sets the number of items expected to be processed, used to estimate the remaining time
+     */
+    public void setExpectedItemsCount(long expectedItemsCount) {
+        this.expectedItemsCount = expectedItemsCount;
+    }
+
     public void accumulateSuccessfulFile() {
-        successfulFilesCount++;
+        successfulFilesCount.incrementAndGet();
         printProgress();
     }
 
     public void accumulateSkippedFile() {
-        skippedFilesCount++;
+        skippedFilesCount.incrementAndGet();
         printProgress();
     }
 
 
     public void accumulateSuccessfulFolder() {
-        successfulFoldersCount++;
+        successfulFoldersCount.incrementAndGet();
         printProgress();
     }
 
     public void accumulateSkippedFolder() {
-        skippedFoldersCount++;
+        skippedFoldersCount.incrementAndGet();
         printProgress();
     }
 
+    public void accumulateBytes(long bytes) {
+        bytesCount.addAndGet(bytes);
+    }
+
+    public void accumulateLinkedFiles(int linkedFiles) {
+        linkedFilesCount.addAndGet(linkedFiles);
+    }
+
     public void finished() {
         this.endTime = System.nanoTime();
     }
 
     private void printProgress() {
-        int totalSuccessfulItemsCount = successfulFilesCount + successfulFoldersCount;
-        int totalSkippedItemsCount = skippedFilesCount + skippedFoldersCount;
+        int totalSuccessfulItemsCount = getSuccessfulItemsCount();
+        int totalSkippedItemsCount = getSkippedItemsCount();
         if (totalSuccessfulItemsCount % emitMessageValueEvery == 0) {
             boolean exportProcess = ProgressAccumulatorType.EXPORT.equals(type);
             if (exportProcess) {
-                log.info("{} exported {} items ({} files {} folders {} ips) " +
-                        "{} skipped items ({} files {} folders)...", repositoryKey, totalSuccessfulItemsCount,
-                        successfulFilesCount, successfulFoldersCount, getItemsPerSecond(), totalSkippedItemsCount,
-                        skippedFilesCount, skippedFoldersCount);
+                log.info("{} exported {} items ({} files {} folders {} ips {} MB/s) " +
+                        "{} skipped items ({} files {} folders), ETA: {}...", repositoryKey,
+                        totalSuccessfulItemsCount, getSuccessfulFilesCount(), getSuccessfulFoldersCount(),
+                        getItemsPerSecond(), getMegabytesPerSecond(), totalSkippedItemsCount,
+                        getSkippedFilesCount(), getSkippedFoldersCount(), getEtaString());
             } else {
-                log.info("{} imported {} items ({} files {} folders {} ips) " +
+                log.info("{} imported {} items ({} files {} folders {} ips {} MB/s) " +
                         "{} skipped items ({} files {} folders)...", repositoryKey, totalSuccessfulItemsCount,
-                        successfulFilesCount, successfulFoldersCount, getItemsPerSecond(), totalSkippedItemsCount,
-                        skippedFilesCount, skippedFoldersCount);
+                        getSuccessfulFilesCount(), getSuccessfulFoldersCount(), getItemsPerSecond(),
+                        getMegabytesPerSecond(), totalSkippedItemsCount, getSkippedFilesCount(),
+                        getSkippedFoldersCount());
             }
         }
     }
@@ -110,19 +131,27 @@ public class ImportExportAccumulator {
     }
 
     public int getSkippedFilesCount() {
-        return skippedFilesCount;
+        return skippedFilesCount.get();
     }
 
     public int getSkippedFoldersCount() {
-        return skippedFoldersCount;
+        return skippedFoldersCount.get();
     }
 
     public int getSuccessfulFilesCount() {
-        return successfulFilesCount;
+        return successfulFilesCount.get();
     }
 
     public int getSuccessfulFoldersCount() {
-        return successfulFoldersCount;
+        return successfulFoldersCount.get();
+    }
+
+    public long getBytesCount() {
+        return bytesCount.get();
+    }
+
+    public int getLinkedFilesCount() {
+        return linkedFilesCount.get();
     }
 
     public String getDurationString() {
@@ -135,8 +164,37 @@ public class ImportExportAccumulator {
     public String getItemsPerSecond() {
         long duration = getDurationNanos();
         double durationSecs = duration / 1_000_000_000.0;
-        double itemsPerSecond = (successfulFilesCount + successfulFoldersCount) / durationSecs;
-        return numberFormat.format(itemsPerSecond);
+        double itemsPerSecond = getSuccessfulItemsCount() / durationSecs;
+        return formatRate(itemsPerSecond);
+    }
+
+    /**
+     * @return A string with the number of megabytes of content processed per second
+     */
+    public String getMegabytesPerSecond() {
+        double durationSecs = getDurationNanos() / 1_000_000_000.0;
+        double megabytesPerSecond = bytesCount.get() / (1024.0 * 1024.0) / durationSecs;
+        return formatRate(megabytesPerSecond);
+    }
+
+    /**
+     * @return A string with the estimated remaining time according to the expected items count, or "unknown"
+     */
+    public String getEtaString() {
+        long processedItems = getSuccessfulItemsCount() + getSkippedItemsCount();
+        long remainingItems = expectedItemsCount - processedItems;
+        if (processedItems == 0 || remainingItems <= 0) {
+            return "unknown";
+        }
+        return TimeUnitFormat.getTimeString(getDurationNanos() / processedItems * remainingItems);
+    }
+
+    /**
+     * Formats with a new format each time, the progress is printed concurrently and formats are not thread safe
+     */
+    private static String formatRate(double rate) {
+        NumberFormat numberFormat = new DecimalFormat("###.##");
+        return numberFormat.format(rate);
     }
 
     private long getDurationNanos() {
@@ -0,0 +1,287 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.repo.db.importexport;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.artifactory.binstore.BinaryInfo;
+import org.artifactory.checksum.ChecksumType;
+import org.artifactory.common.MutableStatusHolder;
+import org.artifactory.fs.FileInfo;
+import org.artifactory.io.checksum.Checksum;
+import org.artifactory.io.checksum.Checksums;
+import org.artifactory.model.common.RepoPathImpl;
+import org.artifactory.repo.RepoPath;
+import org.artifactory.schedule.CachedThreadPoolTaskExecutor;
+import org.artifactory.storage.binstore.service.BinaryInfoImpl;
+import org.artifactory.storage.binstore.service.InternalBinaryStore;
+import org.artifactory.storage.spring.StorageContextHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * The first stages of the repository import pipeline: scans the source directory on a dedicated thread and stores the
+ * binaries of the scanned files into the binary store on a bounded number of workers, while the import thread creates
+ * the nodes of the previously scanned items in batched transactions.
+ * <p/>
+ * The items are returned in the same depth first order as the serial import. Both the scanned items and the loaded
+ * binaries waiting for the import thread are bounded, so the scanner and the workers block when they are too far
+ * ahead. A loaded binary is protected from the garbage collection until it is {@link Item#release() released} by
+ * the import thread. The binary of a file whose exported metadata checksum is already in the binary store is not
+ * loaded, the import thread uses the existing binary.
+ * <p/>
+ * In dry run mode the binaries are only read and checksummed. A failure of the scanning is reported on the import
+ * thread, so it fails a fast fail import.
+ *
+ * @see DbRepoImportHandler
+ */
+class ImportScanner extends DbRepoImportExportBase {
+    private static final Logger log = LoggerFactory.getLogger(ImportScanner.class);
+
+    private final Item end = new Item(null, null, false, null);
+    private final File baseDir;
+    private final RepoPath rootRepoPath;
+    private final Function<File[], Set<String>> fileNamesCollector;
+    private final Function<File, String> metadataSha1Reader;
+    private final boolean loadBinaries;
+    private final boolean dryRun;
+    private final MutableStatusHolder status;
+    private final InternalBinaryStore binaryStore;
+    private final BlockingQueue<Item> items;
+    private final Semaphore binaryWorkers;
+    private final Semaphore pendingBinaries;
+    private final CachedThreadPoolTaskExecutor executor;
+    private volatile boolean stopped;
+    private volatile RuntimeException failure;
+
+    /**
+     * @param fileNamesCollector Returns the names of the items to import out of the children of a folder
+     * @param metadataSha1Reader Returns the sha1 of a file from its exported metadata, null if unknown
+     * @param loadBinaries       False to only scan the items, when the content of the files is not imported
+     * @param binaryWorkers      The maximum number of binaries loaded concurrently
+     * @param maxPendingItems    The maximum number of scanned items and of loaded binaries waiting for the import
+     */
+    ImportScanner(File baseDir, RepoPath rootRepoPath, Function<File[], Set<String>> fileNamesCollector,
+            Function<File, String> metadataSha1Reader, boolean loadBinaries, boolean dryRun,
+            MutableStatusHolder status, int binaryWorkers, int maxPendingItems) {
+        this.baseDir = baseDir;
+        this.rootRepoPath = rootRepoPath;
+        this.fileNamesCollector = fileNamesCollector;
+        this.metadataSha1Reader = metadataSha1Reader;
+        this.loadBinaries = loadBinaries;
+        this.dryRun = dryRun;
+        this.status = status;
+        binaryStore = StorageContextHelper.get().beanForType(InternalBinaryStore.class);
+        items = new ArrayBlockingQueue<>(Math.max(maxPendingItems, 1));
+        this.binaryWorkers = new Semaphore(Math.max(binaryWorkers, 1));
+        pendingBinaries = new Semaphore(Math.max(maxPendingItems, 1));
+        executor = new CachedThreadPoolTaskExecutor();
+    }
+
+    void start() {
+        executor.execute(() -> {
+            try {
+                scan(baseDir, rootRepoPath);
+            } catch (InterruptedException e) {
+                log.debug("Scanning of '{}' was interrupted", baseDir);
+            } catch (RuntimeException e) {
+                // reported by the import thread, a fast fail status holder would throw it on this thread
+                failure = e;
+            } finally {
+                Uninterruptibles.putUninterruptibly(items, end);
+            }
+        });
+    }
+
+    /**
+     * @return The next scanned item, null when all the items were returned
+     */
+    @Nullable
+    Item next() throws InterruptedException {
+        Item item = items.take();
+        if (item == end) {
+            // keep the end for the next calls
+            items.put(end);
+            RuntimeException scanFailure = failure;
+            if (scanFailure != null) {
+                failure = null;
+                status.error("Failed to scan '" + baseDir + "': " + scanFailure.getMessage(), scanFailure, log);
+            }
+            return null;
+        }
+        return item;
+    }
+
+    /**
+     * Stops the scanning and releases the binaries which were not imported.
+     */
+    void stop() {
+        stopped = true;
+        try {
+            Item item;
+            while ((item = items.take()) != end) {
+                item.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    private void scan(File fileToImport, RepoPath target) throws InterruptedException {
+        if (stopped) {
+            return;
+        }
+        if (!fileToImport.exists()) {
+            // skeleton import? looks for file metadata
+            File fileInfoMetadata = new File(
+                    fileToImport.getAbsolutePath() + METADATA_FOLDER + "/" + FileInfo.ROOT + ".xml");
+            if (fileInfoMetadata.exists() && isStorableFile(fileToImport.getName())) {
+                items.put(new Item(fileToImport, target, false, null));
+            } else {
+                status.warn("File/metadata not found: " + fileToImport.getAbsolutePath(), log);
+            }
+        } else if (fileToImport.isFile() && isStorableFile(fileToImport.getName())) {
+            Future<BinaryInfo> binary = null;
+            if (loadBinaries && !isStoredBinary(fileToImport)) {
+                pendingBinaries.acquire();
+                binaryWorkers.acquire();
+                binary = executor.submit(() -> {
+                    try {
+                        return load(fileToImport);
+                    } finally {
+                        binaryWorkers.release();
+                    }
+                });
+            }
+            items.put(new Item(fileToImport, target, false, binary));
+        } else if (isStorableFolder(fileToImport.getName())) {
+            items.put(new Item(fileToImport, target, true, null));
+            File[] filesToImport = fileToImport.listFiles();
+            if (filesToImport != null && filesToImport.length > 0) {
+                for (String fileName : fileNamesCollector.apply(filesToImport)) {
+                    scan(new File(fileToImport, fileName), new RepoPathImpl(target, fileName));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return True if the binary of the file is known from its metadata and already in the binary store
+     */
+    private boolean isStoredBinary(File file) {
+        if (dryRun) {
+            return false;
+        }
+        String sha1 = metadataSha1Reader.apply(file);
+        return sha1 != null && binaryStore.findBinary(sha1) != null;
+    }
+
+    private BinaryInfo load(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            if (dryRun) {
+                Checksum[] checksums = Checksums.calculate(in, ChecksumType.sha1, ChecksumType.md5);
+                return new BinaryInfoImpl(checksums[0].getChecksum(), checksums[1].getChecksum(), file.length());
+            }
+            BinaryInfo binaryInfo = binaryStore.addBinary(in);
+            binaryStore.incrementNoDeleteLock(binaryInfo.getSha1());
+            return binaryInfo;
+        }
+    }
+
+    /**
+     * A scanned file or folder, in the same order as the serial import
+     */
+    class Item {
+        private final File source;
+        private final RepoPath target;
+        private final boolean folder;
+        private final Future<BinaryInfo> binary;
+        private boolean released;
+
+        private Item(File source, RepoPath target, boolean folder, @Nullable Future<BinaryInfo> binary) {
+            this.source = source;
+            this.target = target;
+            this.folder = folder;
+            this.binary = binary;
+        }
+
+        File getSource() {
+            return source;
+        }
+
+        RepoPath getTarget() {
+            return target;
+        }
+
+        boolean isFolder() {
+            return folder;
+        }
+
+        /**
+         * Waits for the binary of the file to be loaded.
+         *
+         * @return The loaded binary, null if not loaded or failed to load, the file should then be read again
+         */
+        @Nullable
+        BinaryInfo getBinary() {
+            if (binary == null) {
+                return null;
+            }
+            try {
+                return binary.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                log.debug("Failed to load the binary of '{}': {}", source, e.getCause().getMessage());
+                return null;
+            }
+        }
+
+        /**
+         * Releases the loaded binary once it is used by the imported file or if the file is not imported
+         */
+        void release() {
+            if (binary == null || released) {
+                return;
+            }
+            released = true;
+            BinaryInfo binaryInfo = getBinary();
+            if (binaryInfo != null && !dryRun) {
+                binaryStore.decrementNoDeleteLock(binaryInfo.getSha1());
+            }
+            pendingBinaries.release();
+        }
+    }
+}
@@ -29,7 +29,6 @@ import org.artifactory.repo.interceptor.storage.StorageInterceptorAdapter;
 import org.artifactory.repo.service.InternalRepositoryService;
 import org.artifactory.sapi.fs.VfsItem;
 import org.artifactory.storage.fs.VfsItemFactory;
-import org.artifactory.util.RepoPathUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
@@ -59,16 +58,20 @@ public class MavenMetadataCalculationInterceptor extends StorageInterceptorAdapt
                 // unique snapshots require instant metadata calculation since it is used to calculate future snapshots
                 // this is also done for any kind of file to support classifier snapshot version introduced in Maven 3
                 // we also instantly calculate if non-unique pom is deployed for simplicity
-                RepoPath parentFolder = fsItem.getRepoPath().getParent();
-                mmService.calculateMavenMetadata(parentFolder, true);
+                if (MavenNaming.isUniqueSnapshot(fsItem.getPath())) {
+                    // only the new file is applied to the existing metadata
+                    mmService.calculateSnapshotMavenMetadata(fsItem.getRepoPath());
+                } else {
+                    RepoPath parentFolder = fsItem.getRepoPath().getParent();
+                    mmService.calculateMavenMetadata(parentFolder, true);
+                }
             }
 
             if (isPomFile(fsItem)) {
                 // for pom files we need to trigger metadata calculation on the grandparent non-recursively -
                 // potential new version and snapshot.
                 // this can be done asynchronously since it doesn't require instant update
-                RepoPath grandparentFolder = RepoPathUtils.getAncestor(fsItem.getRepoPath(), 2);
-                mmService.calculateMavenMetadataAsync(grandparentFolder, false);
+                mmService.calculateVersionsMavenMetadataAsync(fsItem.getRepoPath().getParent(), true);
             }
         }
     }
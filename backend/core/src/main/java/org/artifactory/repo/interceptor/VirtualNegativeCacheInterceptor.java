@@ -0,0 +1,150 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.repo.interceptor;
+
+import com.google.common.collect.Sets;
+import org.artifactory.addon.AddonsManager;
+import org.artifactory.addon.ha.HaCommonAddon;
+import org.artifactory.addon.ha.message.HaMessageTopic;
+import org.artifactory.addon.ha.message.VirtualNegativeCacheHaMessage;
+import org.artifactory.common.MutableStatusHolder;
+import org.artifactory.md.Properties;
+import org.artifactory.repo.interceptor.storage.StorageInterceptorAdapter;
+import org.artifactory.repo.service.InternalRepositoryService;
+import org.artifactory.repo.virtual.InternalVirtualNegativeCache;
+import org.artifactory.repo.virtual.VirtualRepo;
+import org.artifactory.repo.virtual.VirtualRepoNegativeCache;
+import org.artifactory.sapi.fs.VfsItem;
+import org.artifactory.storage.fs.session.StorageSession;
+import org.artifactory.storage.fs.session.StorageSessionHolder;
+import org.artifactory.storage.tx.SessionResource;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Invalidates the negative lookup caches of the virtual repositories when items are created, moved or copied into any
+ * repository (deployments, replication, imports and remote downloads alike).
+ * <p/>
+ * Repository membership is not checked - a path is invalidated in all the virtual repositories, which is cheap and
+ * covers virtual repositories aggregating other virtual repositories.
+ * <p/>
+ * A path is invalidated again once the transaction which created it is committed, since a lookup running before the
+ * commit can still cache it as missing, and the committed paths are sent to the other cluster members.
+ */
+public class VirtualNegativeCacheInterceptor extends StorageInterceptorAdapter implements InternalVirtualNegativeCache {
+
+    @Autowired
+    private InternalRepositoryService repositoryService;
+
+    @Autowired
+    private AddonsManager addonsManager;
+
+    @Override
+    public void afterCreate(VfsItem fsItem, MutableStatusHolder statusHolder) {
+        invalidate(fsItem);
+    }
+
+    @Override
+    public void afterMove(VfsItem sourceItem, VfsItem targetItem, MutableStatusHolder statusHolder,
+            Properties properties) {
+        invalidate(targetItem);
+    }
+
+    @Override
+    public void afterCopy(VfsItem sourceItem, VfsItem targetItem, MutableStatusHolder statusHolder,
+            Properties properties) {
+        invalidate(targetItem);
+    }
+
+    @Override
+    public void internalInvalidate(Collection<String> paths) {
+        for (String path : paths) {
+            invalidateLocally(path);
+        }
+    }
+
+    private void invalidate(VfsItem item) {
+        if (item == null) {
+            return;
+        }
+        String path = item.getRepoPath().getPath();
+        invalidateLocally(path);
+        StorageSession session = StorageSessionHolder.getSession();
+        if (session != null) {
+            NegativeCacheSessionResource resource = session.getOrCreateResource(NegativeCacheSessionResource.class);
+            resource.setInterceptor(this);
+            resource.paths.add(path);
+        } else {
+            notifyCluster(Sets.newHashSet(path));
+        }
+    }
+
+    private void invalidateLocally(String path) {
+        for (VirtualRepo virtualRepo : repositoryService.getVirtualRepositories()) {
+            VirtualRepoNegativeCache negativeCache = virtualRepo.getNegativeCache();
+            if (negativeCache != null) {
+                negativeCache.invalidate(path);
+            }
+        }
+    }
+
+    private void notifyCluster(Set<String> paths) {
+        HaCommonAddon haAddon = addonsManager.addonByType(HaCommonAddon.class);
+        if (haAddon.isHaEnabled()) {
+            haAddon.notify(HaMessageTopic.VIRTUAL_NEGATIVE_CACHE_TOPIC,
+                    new VirtualNegativeCacheHaMessage.Invalidate(paths));
+        }
+    }
+
+    /**
+     * Collects the paths created by a session to invalidate them after the transaction completed
+     */
+    public static class NegativeCacheSessionResource implements SessionResource {
+        private final Set<String> paths = Sets.newHashSet();
+        private VirtualNegativeCacheInterceptor interceptor;
+
+        void setInterceptor(VirtualNegativeCacheInterceptor interceptor) {
+            this.interceptor = interceptor;
+        }
+
+        @Override
+        public void afterCompletion(boolean commit) {
+            if (paths.isEmpty()) {
+                return;
+            }
+            Set<String> completedPaths = Sets.newHashSet(paths);
+            paths.clear();
+            interceptor.internalInvalidate(completedPaths);
+            if (commit) {
+                interceptor.notifyCluster(completedPaths);
+            }
+        }
+
+        @Override
+        public boolean hasPendingResources() {
+            return !paths.isEmpty();
+        }
+
+        @Override
+        public void onSessionSave() {
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.repo.mbean;
+
+import org.artifactory.repo.service.InternalRepositoryService;
+import org.artifactory.repo.virtual.VirtualRepo;
+import org.artifactory.repo.virtual.VirtualRepoNegativeCache;
+
+/**
+ * An MBean to expose virtual repository data. The repository is looked up on each call since virtual repositories are
+ * rebuilt on configuration changes.
+ */
+public class ManagedVirtualRepository implements ManagedVirtualRepositoryMBean {
+    private final String repoKey;
+    private final InternalRepositoryService repositoryService;
+
+    public ManagedVirtualRepository(String repoKey, InternalRepositoryService repositoryService) {
+        this.repoKey = repoKey;
+        this.repositoryService = repositoryService;
+    }
+
+    @Override
+    public String getRepositoryKey() {
+        return repoKey;
+    }
+
+    @Override
+    public long getNegativeCacheSize() {
+        VirtualRepoNegativeCache negativeCache = getNegativeCache();
+        return negativeCache != null ? negativeCache.size() : 0;
+    }
+
+    @Override
+    public long getNegativeCacheHits() {
+        VirtualRepoNegativeCache negativeCache = getNegativeCache();
+        return negativeCache != null ? negativeCache.getHitCount() : 0;
+    }
+
+    @Override
+    public long getNegativeCacheMisses() {
+        VirtualRepoNegativeCache negativeCache = getNegativeCache();
+        return negativeCache != null ? negativeCache.getMissCount() : 0;
+    }
+
+    private VirtualRepoNegativeCache getNegativeCache() {
+        VirtualRepo virtualRepo = repositoryService.virtualRepositoryByKey(repoKey);
+        return virtualRepo != null ? virtualRepo.getNegativeCache() : null;
+    }
+}
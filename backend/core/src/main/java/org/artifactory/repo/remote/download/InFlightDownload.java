@@ -0,0 +1,288 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.repo.remote.download;
+
+import org.apache.commons.io.IOUtils;
+import org.artifactory.resource.ResourceStreamHandle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A remote download that is currently being streamed from the remote repository into the cache.
+ * <p/>
+ * The downloading thread (the leader) reads the remote stream through {@link #tee(ResourceStreamHandle)}, which
+ * appends every chunk to a growing temp file. Concurrent requests for the same path (followers) open a handle with
+ * {@link #openFollowerHandle()} and tail-read that temp file while it is being written, instead of blocking on the
+ * download lock until the whole artifact is persisted.
+ * <p/>
+ * Followers only see the end of the stream after the leader called {@link #complete()}, i.e. after the resource was
+ * successfully saved (and checksum verified) in the cache. If the leader fails, followers get an {@link IOException}.
+ * The temp file is deleted once the leader and all the followers released it.
+ */
+public class InFlightDownload {
+    private static final Logger log = LoggerFactory.getLogger(InFlightDownload.class);
+
+    private final String path;
+    private final File tempFile;
+    private final long size;
+    private final long stallTimeoutMillis;
+
+    private long written;
+    private boolean completed;
+    private Throwable failure;
+    /**
+     * The leader and each open follower hold a reference, the temp file is deleted when the count drops to zero
+     */
+    private int references = 1;
+
+    /**
+     * @param path               The path being downloaded (used for logging)
+     * @param tempFile           The file to write the downloaded content to
+     * @param size               The expected size of the content or -1 if unknown
+     * @param stallTimeoutMillis Max time a follower waits for new bytes before giving up
+     */
+    public InFlightDownload(String path, File tempFile, long size, long stallTimeoutMillis) {
+        this.path = path;
+        this.tempFile = tempFile;
+        this.size = size;
+        this.stallTimeoutMillis = stallTimeoutMillis;
+    }
+
+    /**
+     * Wraps the remote handle so that every byte read from it is also appended to the temp file. Closing the returned
+     * handle does not close the remote handle - it remains the responsibility of the caller.
+     */
+    public ResourceStreamHandle tee(final ResourceStreamHandle remoteHandle) throws IOException {
+        final TeeInputStream teeStream = new TeeInputStream(remoteHandle.getInputStream(),
+                new FileOutputStream(tempFile));
+        return new ResourceStreamHandle() {
+            @Override
+            public InputStream getInputStream() {
+                return teeStream;
+            }
+
+            @Override
+            public long getSize() {
+                return remoteHandle.getSize();
+            }
+
+            @Override
+            public void close() {
+                IOUtils.closeQuietly(teeStream.out);
+            }
+        };
+    }
+
+    /**
+     * @return A handle streaming the content as it is downloaded or null if the download already failed or finished
+     */
+    @Nullable
+    public synchronized ResourceStreamHandle openFollowerHandle() throws IOException {
+        if (failure != null || references == 0) {
+            return null;
+        }
+        FollowerInputStream followerStream = new FollowerInputStream(new FileInputStream(tempFile));
+        references++;
+        log.debug("Streaming in-flight download of '{}' to a concurrent request", path);
+        return new FollowerHandle(followerStream);
+    }
+
+    /**
+     * Marks the download as successfully completed and releases the leader reference
+     */
+    public synchronized void complete() {
+        completed = true;
+        notifyAll();
+        release();
+    }
+
+    /**
+     * Marks the download as failed and releases the leader reference
+     */
+    public synchronized void fail(Throwable cause) {
+        failure = cause;
+        notifyAll();
+        release();
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    private synchronized void bytesWritten(int count) {
+        written += count;
+        notifyAll();
+    }
+
+    /**
+     * Blocks until there is content to read after the given position or until the download is done.
+     *
+     * @return The number of bytes available after the position, or -1 when the download is completed and the
+     * position reached the end of the content
+     */
+    private synchronized long awaitAvailable(long position) throws IOException {
+        long deadline = System.currentTimeMillis() + stallTimeoutMillis;
+        while (true) {
+            if (failure != null) {
+                throw new IOException("Concurrent download of '" + path + "' failed: " + failure.getMessage(),
+                        failure);
+            }
+            if (written > position) {
+                return written - position;
+            }
+            if (completed) {
+                return -1;
+            }
+            long waitMillis = deadline - System.currentTimeMillis();
+            if (waitMillis <= 0) {
+                throw new IOException("Timed-out waiting on concurrent download of '" + path + "'");
+            }
+            try {
+                wait(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting on concurrent download of '" + path + "'", e);
+            }
+        }
+    }
+
+    private synchronized void release() {
+        references--;
+        if (references == 0 && !tempFile.delete() && tempFile.exists()) {
+            log.warn("Failed to delete in-flight download temp file '{}'", tempFile.getAbsolutePath());
+        }
+    }
+
+    private class TeeInputStream extends InputStream {
+        private final InputStream in;
+        private final OutputStream out;
+
+        private TeeInputStream(InputStream in, OutputStream out) {
+            this.in = in;
+            this.out = out;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                out.write(b);
+                out.flush();
+                bytesWritten(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = in.read(b, off, len);
+            if (count > 0) {
+                out.write(b, off, count);
+                out.flush();
+                bytesWritten(count);
+            }
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return in.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private class FollowerInputStream extends InputStream {
+        private final InputStream in;
+        private long position;
+
+        private FollowerInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int count = read(single, 0, 1);
+            return count == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            long available = awaitAvailable(position);
+            if (available == -1) {
+                return -1;
+            }
+            int count = in.read(b, off, (int) Math.min(len, available));
+            if (count > 0) {
+                position += count;
+            }
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private class FollowerHandle implements ResourceStreamHandle {
+        private final FollowerInputStream stream;
+        private boolean closed;
+
+        private FollowerHandle(FollowerInputStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return stream;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public void close() {
+            IOUtils.closeQuietly(stream);
+            synchronized (InFlightDownload.this) {
+                if (!closed) {
+                    closed = true;
+                    release();
+                }
+            }
+        }
+    }
+}
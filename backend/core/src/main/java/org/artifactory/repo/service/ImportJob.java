@@ -119,7 +119,9 @@ public class ImportJob extends QuartzCommand {
     protected void onExecute(JobExecutionContext callbackContext) {
         try {
             initializeFromContext(callbackContext);
-            deleteRepositories();
+            if (!importSettings.isDryRun()) {
+                deleteRepositories();
+            }
             List<Callable<DbRepoImportHandler>> importers = prepareImportHandlerCallables();
             List<Future<DbRepoImportHandler>> handlerFutures = new ArrayList<>(importers.size());
             for (Callable<DbRepoImportHandler> importer : importers) {
@@ -30,15 +30,18 @@ import org.artifactory.api.security.AuthorizationService;
 import org.artifactory.checksum.ChecksumInfo;
 import org.artifactory.checksum.ChecksumType;
 import org.artifactory.checksum.ChecksumsInfo;
+import org.artifactory.common.ConstantValues;
 import org.artifactory.fs.FileInfo;
 import org.artifactory.fs.ItemInfo;
 import org.artifactory.md.Properties;
 import org.artifactory.mime.MavenNaming;
+import org.artifactory.model.xstream.fs.PropertiesImpl;
 import org.artifactory.repo.*;
 import org.artifactory.repo.remote.browse.RemoteItem;
 import org.artifactory.repo.virtual.VirtualRepo;
 import org.artifactory.sapi.common.RepositoryRuntimeException;
 import org.artifactory.storage.fs.service.PropertiesService;
+import org.artifactory.storage.fs.tree.FolderNode;
 import org.artifactory.storage.fs.tree.ItemNode;
 import org.artifactory.storage.fs.tree.ItemTree;
 import org.artifactory.storage.fs.tree.TreeBrowsingCriteriaBuilder;
@@ -123,7 +126,47 @@ public class RepositoryBrowsingServiceImpl implements RepositoryBrowsingService
 
     private List<BaseBrowsableItem> getLocalRepoBrowsableChildrenData(BrowsableItemCriteria criteria,
             boolean updateRootNodesFilterFlag,RootNodesFilterResult browsableItemAccept) {
-        RepoPath repoPath = criteria.getRepoPath();
+        LocalRepo repo = getBrowsableLocalRepo(criteria.getRepoPath());
+        if (repo == null) {
+            return Lists.newArrayListWithCapacity(0);
+        }
+        ItemNode rootNode = getBrowsableRootNode(criteria.getRepoPath());
+        List<ItemNode> children = getRootNodeChildren(updateRootNodesFilterFlag,browsableItemAccept,rootNode);
+        if (children.isEmpty()) {
+            return Lists.newArrayListWithCapacity(0);
+        }
+
+        List<BaseBrowsableItem> repoPathChildren = getBrowsableItems(repo, criteria, children);
+        Collections.sort(repoPathChildren);
+        return repoPathChildren;
+    }
+
+    @Override
+    @Nonnull
+    public BrowsableItemsPage getLocalRepoBrowsableChildrenPage(@Nonnull BrowsableItemCriteria criteria,
+            @Nullable RootNodesFilterResult rootNodesFilterResult) {
+        LocalRepo repo = getBrowsableLocalRepo(criteria.getRepoPath());
+        if (repo == null) {
+            return new BrowsableItemsPage(Lists.<BaseBrowsableItem>newArrayListWithCapacity(0), null);
+        }
+        FolderNode rootNode = (FolderNode) getBrowsableRootNode(criteria.getRepoPath());
+        int limit = Math.min(criteria.getLimit(), ConstantValues.browsingMaxPageSize.getInt());
+        // one more child tells if there is a next page
+        List<ItemNode> children = rootNode.getChildren(criteria.getContinueAfter(), limit + 1, rootNodesFilterResult);
+        String continueAfter = null;
+        if (children.size() > limit) {
+            children = children.subList(0, limit);
+            continueAfter = FolderNode.getContinuation(children.get(limit - 1));
+        }
+        // keep the order of the database, a resorted page could overlap the next one
+        return new BrowsableItemsPage(getBrowsableItems(repo, criteria, children), continueAfter);
+    }
+
+    /**
+     * @return The local or cache repo of the repo path, null if it is blacked out or doesn't accept the path
+     */
+    @Nullable
+    private LocalRepo getBrowsableLocalRepo(RepoPath repoPath) {
         LocalRepo repo = repoService.localOrCachedRepositoryByKey(repoPath.getRepoKey());
         if (repo == null) {
             log.trace("No local or cache repo found:'{}'", repoPath.getRepoKey());
@@ -131,10 +174,13 @@ public class RepositoryBrowsingServiceImpl implements RepositoryBrowsingService
         }
 
         if (repo.isBlackedOut() || !repo.accepts(repoPath)) {
-            return Lists.newArrayListWithCapacity(0);
+            return null;
         }
+        return repo;
+    }
 
-        ItemTree tree = new ItemTree(criteria.getRepoPath(), new TreeBrowsingCriteriaBuilder()
+    private ItemNode getBrowsableRootNode(RepoPath repoPath) {
+        ItemTree tree = new ItemTree(repoPath, new TreeBrowsingCriteriaBuilder()
                 .applyRepoIncludeExclude().applySecurity().cacheChildren(false).build());
         ItemNode rootNode = tree.getRootNode();
         if (rootNode == null) {
@@ -145,9 +191,25 @@ public class RepositoryBrowsingServiceImpl implements RepositoryBrowsingService
             log.trace("repo '{}' root node is not folder", repoPath.getRepoKey());
             throw new FolderExpectedException(repoPath);
         }
-        List<ItemNode> children = getRootNodeChildren(updateRootNodesFilterFlag,browsableItemAccept,rootNode);
-        if (children.isEmpty()) {
-            return Lists.newArrayListWithCapacity(0);
+        return rootNode;
+    }
+
+    /**
+     * Returns the browsable items of the folders and of the files matching the request properties, the properties of
+     * the files being loaded in batches
+     */
+    private List<BaseBrowsableItem> getBrowsableItems(LocalRepo repo, BrowsableItemCriteria criteria,
+            List<ItemNode> children) {
+        Properties requestProps = criteria.getRequestProperties();
+        Map<String, Properties> childrenProps = null;
+        if (requestProps != null && !requestProps.isEmpty()) {
+            List<String> fileNames = Lists.newArrayList();
+            for (ItemNode child : children) {
+                if (!child.isFolder()) {
+                    fileNames.add(child.getName());
+                }
+            }
+            childrenProps = propertiesService.getChildrenProperties(criteria.getRepoPath(), fileNames);
         }
 
         List<BaseBrowsableItem> repoPathChildren = Lists.newArrayList();
@@ -157,7 +219,8 @@ public class RepositoryBrowsingServiceImpl implements RepositoryBrowsingService
             BrowsableItem browsableItem = BrowsableItem.getItem(childItemInfo);
             if (child.isFolder()) {
                 repoPathChildren.add(browsableItem);
-            } else if (isPropertiesMatch(childItemInfo, criteria.getRequestProperties())) {   // match props for files
+            } else if (childrenProps == null || isPropertiesMatch(childrenProps.get(child.getName()), requestProps)) {
+                // match props for files
                 repoPathChildren.add(browsableItem);
                 if (criteria.isIncludeChecksums()) {
                     repoPathChildren.addAll(getBrowsableItemChecksumItems(repo,
@@ -165,8 +228,6 @@ public class RepositoryBrowsingServiceImpl implements RepositoryBrowsingService
                 }
             }
         }
-
-        Collections.sort(repoPathChildren);
         return repoPathChildren;
     }
 
@@ -195,11 +256,10 @@ public class RepositoryBrowsingServiceImpl implements RepositoryBrowsingService
         return authService.canRead(childRepoPath) && repo.accepts(childRepoPath);
     }
 
-    private boolean isPropertiesMatch(ItemInfo itemInfo, Properties requestProps) {
-        if (requestProps == null || requestProps.isEmpty()) {
-            return true;
+    private boolean isPropertiesMatch(@Nullable Properties nodeProps, Properties requestProps) {
+        if (nodeProps == null) {
+            nodeProps = new PropertiesImpl();
         }
-        Properties nodeProps = propertiesService.getProperties(itemInfo.getRepoPath());
         Properties.MatchResult result = nodeProps.matchQuery(requestProps);
         return !Properties.MatchResult.CONFLICT.equals(result);
     }
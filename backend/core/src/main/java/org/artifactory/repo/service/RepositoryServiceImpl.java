@@ -89,6 +89,7 @@ import org.artifactory.repo.interceptor.StorageInterceptors;
 import org.artifactory.repo.local.PathDeletionContext;
 import org.artifactory.repo.local.ValidDeployPathContext;
 import org.artifactory.repo.mbean.ManagedRepository;
+import org.artifactory.repo.mbean.ManagedVirtualRepository;
 import org.artifactory.repo.service.mover.*;
 import org.artifactory.repo.trash.TrashService;
 import org.artifactory.repo.virtual.VirtualRepo;
@@ -2240,5 +2241,9 @@ public class RepositoryServiceImpl implements InternalRepositoryService ,Lockabl
             registrationService.register(new ManagedRepository(descriptor), REPOSITORIES_MBEAN_TYPE,
                     descriptor.getKey());
         }
+        for (VirtualRepoDescriptor descriptor : getVirtualRepoDescriptors()) {
+            registrationService.register(new ManagedVirtualRepository(descriptor.getKey(), this),
+                    REPOSITORIES_MBEAN_TYPE, descriptor.getKey());
+        }
     }
 }
@@ -24,6 +24,7 @@ import org.artifactory.api.context.ContextHelper;
 import org.artifactory.api.repo.VirtualRepoItem;
 import org.artifactory.api.repo.exception.FileExpectedException;
 import org.artifactory.api.repo.exception.RepoRejectException;
+import org.artifactory.common.ConstantValues;
 import org.artifactory.descriptor.repo.PomCleanupPolicy;
 import org.artifactory.descriptor.repo.RepoDescriptor;
 import org.artifactory.descriptor.repo.VirtualRepoDescriptor;
@@ -76,9 +77,19 @@ public class VirtualRepo extends RepoBase<VirtualRepoDescriptor> implements Stor
     // List of interceptors for various download resolution points
     private Collection<VirtualRepoInterceptor> interceptors;
 
+    // Paths not found in any of the aggregated repositories, null if disabled
+    private final VirtualRepoNegativeCache negativeCache;
+
     public VirtualRepo(VirtualRepoDescriptor descriptor, InternalRepositoryService repositoryService) {
         super(descriptor, repositoryService);
         dbStorageMixin = new DbStoringRepoMixin<>(descriptor, null);
+        long negativeCacheSecs = ConstantValues.virtualNegativeCacheSecs.getLong();
+        if (negativeCacheSecs > 0) {
+            negativeCache = new VirtualRepoNegativeCache(negativeCacheSecs,
+                    ConstantValues.virtualNegativeCacheMaxEntries.getLong());
+        } else {
+            negativeCache = null;
+        }
     }
 
     /**
@@ -147,6 +158,11 @@ public class VirtualRepo extends RepoBase<VirtualRepoDescriptor> implements Stor
         return getDescriptor().isArtifactoryRequestsCanRetrieveRemoteArtifacts();
     }
 
+    @Nullable
+    public VirtualRepoNegativeCache getNegativeCache() {
+        return negativeCache;
+    }
+
     public VirtualRepoDownloadStrategy getDownloadStrategy() {
         return downloadStrategy;
     }
@@ -18,7 +18,9 @@
 
 package org.artifactory.repo.virtual;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpStatus;
 import org.artifactory.addon.AddonsManager;
@@ -30,6 +32,7 @@ import org.artifactory.api.module.ModuleInfo;
 import org.artifactory.api.repo.exception.FileExpectedException;
 import org.artifactory.api.repo.exception.RepoRejectException;
 import org.artifactory.api.request.TranslatedArtifactoryRequest;
+import org.artifactory.common.ConstantValues;
 import org.artifactory.descriptor.repo.LocalRepoDescriptor;
 import org.artifactory.descriptor.repo.RemoteRepoDescriptor;
 import org.artifactory.descriptor.repo.RepoLayout;
@@ -53,12 +56,18 @@ import org.artifactory.request.RepoRequests;
 import org.artifactory.request.RequestContext;
 import org.artifactory.resource.ResourceStreamHandle;
 import org.artifactory.resource.UnfoundRepoResource;
+import org.artifactory.resource.UnfoundRepoResourceReason;
 import org.artifactory.util.PathUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Default download strategy of a virtual repository.
@@ -74,6 +83,8 @@ public class VirtualRepoDownloadStrategy {
 
     private final VirtualRepo virtualRepo;
     private LayoutsCoreAddon layoutsCoreAddon;
+    private volatile VirtualRepoResolutionExecutor resolutionExecutor;
+    private volatile Boolean uniformLayout;
 
     public VirtualRepoDownloadStrategy(VirtualRepo virtualRepo) {
         this.virtualRepo = virtualRepo;
@@ -108,7 +119,23 @@ public class VirtualRepoDownloadStrategy {
         RepoPath localCacheRepoPath = InternalRepoPathFactory.create(virtualRepo.getKey(), context.getResourcePath());
 
         // not found in local virtual repository storage, look in configured repositories
-        RepoResource searchableResource = getInfoFromSearchableRepositories(context);
+        RepoResource searchableResource;
+        VirtualRepoNegativeCache negativeCache = virtualRepo.getNegativeCache();
+        if (negativeCache != null && !cachedResource.isFound()) {
+            String missDetail = negativeCache.getMissDetail(path);
+            if (missDetail != null) {
+                RepoRequests.logToContext("Resource is cached as not found in the aggregated repositories");
+                return new UnfoundRepoResource(localCacheRepoPath, missDetail);
+            }
+            long invalidationStamp = negativeCache.getInvalidationStamp();
+            searchableResource = getInfoFromSearchableRepositories(context);
+            if (isCacheableMiss(context, searchableResource)) {
+                negativeCache.cacheMiss(path, ((UnfoundRepoResource) searchableResource).getDetail(),
+                        invalidationStamp);
+            }
+        } else {
+            searchableResource = getInfoFromSearchableRepositories(context);
+        }
         if (!cachedResource.isFound() && !searchableResource.isFound()) {
             // not found
             return searchableResource;
@@ -147,6 +174,49 @@ public class VirtualRepoDownloadStrategy {
         return virtualRepo.interceptBeforeReturn(context, searchableResource);
     }
 
+    /**
+     * A miss is cached only if it is a plain "not found" of a request that searched all the aggregated repositories,
+     * and if the request path can't be translated to a different path in any of them (deployments are invalidated by
+     * the path they were deployed to).
+     */
+    private boolean isCacheableMiss(InternalRequestContext context, RepoResource resource) {
+        if (!(resource instanceof UnfoundRepoResource)) {
+            return false;
+        }
+        UnfoundRepoResource unfound = (UnfoundRepoResource) resource;
+        if (unfound.getStatusCode() != HttpStatus.SC_NOT_FOUND ||
+                unfound.getReason() != UnfoundRepoResourceReason.Reason.UNDEFINED) {
+            return false;
+        }
+        if (context.getProperties() != null && !context.getProperties().isEmpty()) {
+            // matrix params may affect the resolution
+            return false;
+        }
+        if (context.isFromAnotherArtifactory() && !virtualRepo.isArtifactoryRequestsCanRetrieveRemoteArtifacts()) {
+            // remote repositories were not searched
+            return false;
+        }
+        return isUniformLayout();
+    }
+
+    private boolean isUniformLayout() {
+        Boolean uniform = uniformLayout;
+        if (uniform == null) {
+            RepoLayout virtualLayout = virtualRepo.getDescriptor().getRepoLayout();
+            uniform = true;
+            for (Repo repo : Iterables.concat(virtualRepo.getResolvedLocalAndCachedRepos(),
+                    virtualRepo.getResolvedRemoteRepos())) {
+                RepoLayout layout = repo.getDescriptor().getRepoLayout();
+                if (virtualLayout != null && layout != null && !virtualLayout.equals(layout)) {
+                    uniform = false;
+                    break;
+                }
+            }
+            uniformLayout = uniform;
+        }
+        return uniform;
+    }
+
     private RepoResource getInfoFromLocalStorage(InternalRequestContext context) {
         try {
             RepoRequests.logToContext("Trying to retrieve resource info from the local storage");
@@ -275,53 +345,60 @@ public class VirtualRepoDownloadStrategy {
         UnfoundRepoResource forbidden = null;
         //Locate the resource matching the request
         RepoResource closestMatch = null;
+        Map<String, Future<RepoResource>> remoteLookups = null;
 
-        for (RealRepo repo : repositories) {
-            RepoRequests.logToContext("Searching for the resource within %s", repo.getKey());
-            // Since we are in process standard, repositories that does not process releases should be skipped.
-            // Now, checksums are always considered standard, even if executed against a snapshot repository.
-            // So, we should not skip snapshots repositories for checksums.
-            String path = repoPath.getPath();
-            if (validModuleInfo && !repo.isHandleReleases() && !NamingUtils.isChecksum(path)) {
-                RepoRequests.logToContext("Skipping %s - doesn't handle releases", repo.getKey());
-                continue;
-            }
+        try {
+            for (int i = 0; i < repositories.size(); i++) {
+                RealRepo repo = repositories.get(i);
+                RepoRequests.logToContext("Searching for the resource within %s", repo.getKey());
+                // Since we are in process standard, repositories that does not process releases should be skipped.
+                // Now, checksums are always considered standard, even if executed against a snapshot repository.
+                // So, we should not skip snapshots repositories for checksums.
+                if (isSkippedAsRelease(repo, repoPath, validModuleInfo)) {
+                    RepoRequests.logToContext("Skipping %s - doesn't handle releases", repo.getKey());
+                    continue;
+                }
 
-            if (closestMatch != null && isNotSynchronizeProperties(repo)) {
-                continue;
-            }
+                if (closestMatch != null && isNotSynchronizeProperties(repo)) {
+                    continue;
+                }
 
-            InternalRequestContext translatedContext = translateRepoRequestContext(virtualRepo, repo, context);
-            if (translatedContext instanceof TranslatedArtifactoryRequest) {
-                RepoRequests.logToContext("Request path was translated to %s due to repository layout differences",
-                        translatedContext.getResourcePath());
-            }
-            RepoResource res = repo.getInfo(translatedContext);
+                if (remoteLookups == null && !repo.isLocal()) {
+                    List<RealRepo> remoteCandidates = Lists.newArrayList();
+                    for (RealRepo candidate : repositories.subList(i, repositories.size())) {
+                        if (!candidate.isLocal() && !isSkippedAsRelease(candidate, repoPath, validModuleInfo) &&
+                                !(closestMatch != null && isNotSynchronizeProperties(candidate))) {
+                            remoteCandidates.add(candidate);
+                        }
+                    }
+                    remoteLookups = startRemoteLookups(context, remoteCandidates, true);
+                }
 
-            //Retry the original path if the path was translated and failed (RTFACT-4329)
-            if (!res.isFound() && !translatedContext.getResourcePath().equals(context.getResourcePath())) {
-                RepoRequests.logToContext("Unable to find the resource in the translated path - " +
-                        "retrying with the original");
-                res = repo.getInfo(context);
-            }
+                Future<RepoResource> remoteLookup = remoteLookups != null ? remoteLookups.get(repo.getKey()) : null;
+                RepoResource res = remoteLookup != null ? awaitLookup(repo, remoteLookup) :
+                        getInfoFromRepo(repo, context, true);
 
-            if (res.isFound()) {
-                RepoRequests.logToContext("Resource was found in %s", repo.getKey());
-                updateResponseRepoPath(repo, res);
-                if (res.isExactQueryMatch()) {
-                    //return the exact match
-                    RepoRequests.logToContext("Resource is an exact match - returning");
-                    return res;
-                } else {
-                    RepoRequests.logToContext("Resource is not an exact match - keeping as closest match");
-                    closestMatch = res;
-                }
-            } else if (forbidden == null) {
-                forbidden = checkIfForbidden(res);
-                if (forbidden != null) {
-                    RepoRequests.logToContext("Request is forbidden by %s", repo.getKey());
+                if (res.isFound()) {
+                    RepoRequests.logToContext("Resource was found in %s", repo.getKey());
+                    updateResponseRepoPath(repo, res);
+                    if (res.isExactQueryMatch()) {
+                        //return the exact match
+                        RepoRequests.logToContext("Resource is an exact match - returning");
+                        return res;
+                    } else {
+                        RepoRequests.logToContext("Resource is not an exact match - keeping as closest match");
+                        closestMatch = res;
+                    }
+                } else if (forbidden == null) {
+                    forbidden = checkIfForbidden(res);
+                    if (forbidden != null) {
+                        RepoRequests.logToContext("Request is forbidden by %s", repo.getKey());
+                    }
                 }
             }
+        } finally {
+            // a higher priority repository already decided the result, no need to wait for the rest
+            cancelLookups(remoteLookups);
         }
 
         //If we didn't find an exact match return the first found resource (closest match)
@@ -340,6 +417,103 @@ public class VirtualRepoDownloadStrategy {
         }
     }
 
+    private boolean isSkippedAsRelease(RealRepo repo, RepoPath repoPath, boolean validModuleInfo) {
+        return validModuleInfo && !repo.isHandleReleases() && !NamingUtils.isChecksum(repoPath.getPath());
+    }
+
+    /**
+     * Gets the resource info from an aggregated repository, translating the request path to the repository layout
+     *
+     * @param retryOriginalPath Whether to retry the original path if the translated one wasn't found (RTFACT-4329)
+     */
+    private RepoResource getInfoFromRepo(RealRepo repo, InternalRequestContext context, boolean retryOriginalPath) {
+        InternalRequestContext translatedContext = translateRepoRequestContext(virtualRepo, repo, context);
+        if (translatedContext instanceof TranslatedArtifactoryRequest) {
+            RepoRequests.logToContext("Request path was translated to %s due to repository layout differences",
+                    translatedContext.getResourcePath());
+        }
+        RepoResource res = repo.getInfo(translatedContext);
+
+        //Retry the original path if the path was translated and failed (RTFACT-4329)
+        if (retryOriginalPath && !res.isFound() &&
+                !translatedContext.getResourcePath().equals(context.getResourcePath())) {
+            RepoRequests.logToContext("Unable to find the resource in the translated path - " +
+                    "retrying with the original");
+            res = repo.getInfo(context);
+        }
+        return res;
+    }
+
+    /**
+     * Starts looking up the resource in the given remote repositories concurrently, if parallel resolution is enabled
+     * and there is more than one of them. The results are still consumed in the declared resolution order.
+     *
+     * @return The pending lookups by repository key or null if the repositories should be queried sequentially
+     */
+    @Nullable
+    private Map<String, Future<RepoResource>> startRemoteLookups(final InternalRequestContext context,
+            List<RealRepo> remoteRepos, final boolean retryOriginalPath) {
+        if (!ConstantValues.virtualParallelResolution.getBoolean() || remoteRepos.size() < 2) {
+            return null;
+        }
+        RepoRequests.logToContext("Querying %s remote repositories concurrently", remoteRepos.size());
+        VirtualRepoResolutionExecutor executor = getResolutionExecutor();
+        Map<String, Future<RepoResource>> lookups = Maps.newHashMap();
+        for (final RealRepo remoteRepo : remoteRepos) {
+            lookups.put(remoteRepo.getKey(), executor.submit(new Callable<RepoResource>() {
+                @Override
+                public RepoResource call() throws Exception {
+                    return getInfoFromRepo(remoteRepo, context, retryOriginalPath);
+                }
+            }));
+        }
+        return lookups;
+    }
+
+    private RepoResource awaitLookup(RealRepo repo, Future<RepoResource> lookup) throws IOException {
+        try {
+            return lookup.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while searching for the resource within " + repo.getKey(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Failed to search for the resource within " + repo.getKey(), cause);
+        }
+    }
+
+    /**
+     * Cancels lookups that didn't start yet. Running lookups are left to complete since interrupting a remote request
+     * in the middle may mark the remote repository as offline.
+     */
+    private void cancelLookups(@Nullable Map<String, Future<RepoResource>> lookups) {
+        if (lookups != null) {
+            for (Future<RepoResource> lookup : lookups.values()) {
+                lookup.cancel(false);
+            }
+        }
+    }
+
+    private VirtualRepoResolutionExecutor getResolutionExecutor() {
+        VirtualRepoResolutionExecutor executor = resolutionExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = resolutionExecutor;
+                if (executor == null) {
+                    executor = new VirtualRepoResolutionExecutor(virtualRepo.getKey(),
+                            Math.max(1, ConstantValues.virtualParallelResolutionMaxThreads.getInt()));
+                    resolutionExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
     /**
      * Iterate over the repos and return the latest resource found (content or just head information) on the response.
      */
@@ -353,53 +527,66 @@ public class VirtualRepoDownloadStrategy {
         //Traverse the local, caches and remote repositories and search for the newest snapshot
         //Make sure local repos are always searched first
 
-        for (RealRepo repo : repositories) {
-            RepoRequests.logToContext("Searching for the resource within %s", repo.getKey());
-            if (shouldSkipSnapshotRepo(repo)) {
-                RepoRequests.logToContext("Skipping %s", repo.getKey());
-                continue;
-            }
-            InternalRequestContext translatedContext = translateRepoRequestContext(virtualRepo, repo, context);
-            String translatedPath = translatedContext.getResourcePath();
-            if (translatedContext instanceof TranslatedArtifactoryRequest) {
-                RepoRequests.logToContext("Request path was translated to %s due to repository layout differences",
-                        translatedPath);
-            }
-
-            final RepoResource res = repo.getInfo(translatedContext);
-            if (res.isFound()) {
-                RepoRequests.logToContext("Resource last modified time - %s",
-                        centralConfig.format(res.getLastModified()));
-
-                boolean firstFoundResource = latestRes == null;
-                boolean currentResourceIsAnExactMatchAndLatterFoundIsNot = !firstFoundResource &&
-                        !latestRes.isExactQueryMatch() && res.isExactQueryMatch();
-                boolean currentResourceWasModifiedLater = !firstFoundResource &&
-                        (res.getLastModified() > latestRes.getLastModified());
-
-                RepoRequests.logToContext("Current found resource is the first candidate = %s, is an exact match " +
-                                "query while the former candidate isn't = %s, has later modified time than former = %s",
-                        firstFoundResource, currentResourceIsAnExactMatchAndLatterFoundIsNot,
-                        currentResourceWasModifiedLater
-                );
+        Map<String, Future<RepoResource>> remoteLookups = null;
+        try {
+            for (int i = 0; i < repositories.size(); i++) {
+                RealRepo repo = repositories.get(i);
+                RepoRequests.logToContext("Searching for the resource within %s", repo.getKey());
+                if (shouldSkipSnapshotRepo(repo)) {
+                    RepoRequests.logToContext("Skipping %s", repo.getKey());
+                    continue;
+                }
 
-                //If we haven't found one yet
-                if (firstFoundResource ||
-                        //or this one is a better match
-                        currentResourceIsAnExactMatchAndLatterFoundIsNot
-                        //or newer than the one found
-                        || currentResourceWasModifiedLater) {
-                    RepoRequests.logToContext("Selecting current found resource as best candidate");
-                    //take it
-                    updateResponseRepoPath(repo, res);
-                    latestRes = res;
+                if (remoteLookups == null && !repo.isLocal()) {
+                    List<RealRepo> remoteCandidates = Lists.newArrayList();
+                    for (RealRepo candidate : repositories.subList(i, repositories.size())) {
+                        if (!candidate.isLocal() && candidate.isHandleSnapshots()) {
+                            remoteCandidates.add(candidate);
+                        }
+                    }
+                    remoteLookups = startRemoteLookups(context, remoteCandidates, false);
                 }
-            } else if (forbidden == null) {
-                forbidden = checkIfForbidden(res);
-                if (forbidden != null) {
-                    RepoRequests.logToContext("Request is forbidden by %s", repo.getKey());
+
+                Future<RepoResource> remoteLookup = remoteLookups != null ? remoteLookups.get(repo.getKey()) : null;
+                final RepoResource res = remoteLookup != null ? awaitLookup(repo, remoteLookup) :
+                        getInfoFromRepo(repo, context, false);
+                if (res.isFound()) {
+                    RepoRequests.logToContext("Resource last modified time - %s",
+                            centralConfig.format(res.getLastModified()));
+
+                    boolean firstFoundResource = latestRes == null;
+                    boolean currentResourceIsAnExactMatchAndLatterFoundIsNot = !firstFoundResource &&
+                            !latestRes.isExactQueryMatch() && res.isExactQueryMatch();
+                    boolean currentResourceWasModifiedLater = !firstFoundResource &&
+                            (res.getLastModified() > latestRes.getLastModified());
+
+                    RepoRequests.logToContext("Current found resource is the first candidate = %s, is an exact " +
+                                    "match query while the former candidate isn't = %s, has later modified time " +
+                                    "than former = %s",
+                            firstFoundResource, currentResourceIsAnExactMatchAndLatterFoundIsNot,
+                            currentResourceWasModifiedLater
+                    );
+
+                    //If we haven't found one yet
+                    if (firstFoundResource ||
+                            //or this one is a better match
+                            currentResourceIsAnExactMatchAndLatterFoundIsNot
+                            //or newer than the one found
+                            || currentResourceWasModifiedLater) {
+                        RepoRequests.logToContext("Selecting current found resource as best candidate");
+                        //take it
+                        updateResponseRepoPath(repo, res);
+                        latestRes = res;
+                    }
+                } else if (forbidden == null) {
+                    forbidden = checkIfForbidden(res);
+                    if (forbidden != null) {
+                        RepoRequests.logToContext("Request is forbidden by %s", repo.getKey());
+                    }
                 }
             }
+        } finally {
+            cancelLookups(remoteLookups);
         }
 
         String resourcePath = repoPath.getPath();
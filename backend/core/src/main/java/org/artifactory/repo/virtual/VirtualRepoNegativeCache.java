@@ -0,0 +1,114 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.repo.virtual;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.artifactory.util.PathUtils;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers resource paths that were not found in any of the repositories aggregated by a virtual repository, so that
+ * repeated requests for missing paths don't consult every local repository and remote repository again.
+ * <p/>
+ * Entries expire after a fixed period and are invalidated whenever an item is created in a path (or under a path)
+ * that was cached as missing. To avoid caching a miss that raced with a deployment, a miss is only cached if no
+ * invalidation happened since the lookup started (see {@link #getInvalidationStamp()}).
+ */
+public class VirtualRepoNegativeCache {
+
+    private final Cache<String, String> misses;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public VirtualRepoNegativeCache(long expirationSecs, long maxEntries) {
+        misses = CacheBuilder.newBuilder().expireAfterWrite(expirationSecs, TimeUnit.SECONDS)
+                .maximumSize(maxEntries).build();
+    }
+
+    /**
+     * @return The reason the path was not found if it is cached as missing, null otherwise
+     */
+    @Nullable
+    public String getMissDetail(String path) {
+        String detail = misses.getIfPresent(path);
+        if (detail != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return detail;
+    }
+
+    /**
+     * @return A stamp to pass to {@link #cacheMiss(String, String, long)} once the lookup of a path completes
+     */
+    public long getInvalidationStamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Caches the path as missing, unless an invalidation happened after the given stamp was taken
+     */
+    public void cacheMiss(String path, String detail, long invalidationStamp) {
+        if (invalidations.get() == invalidationStamp) {
+            misses.put(path, detail);
+            if (invalidations.get() != invalidationStamp) {
+                // lost a race with an invalidation
+                misses.invalidate(path);
+            }
+        }
+    }
+
+    /**
+     * Invalidates the given path and all its ancestors (e.g., package metadata paths of a newly deployed artifact)
+     */
+    public void invalidate(String path) {
+        invalidations.incrementAndGet();
+        if (misses.size() == 0) {
+            return;
+        }
+        String current = PathUtils.trimSlashes(path).toString();
+        while (current != null && !current.isEmpty()) {
+            misses.invalidate(current);
+            current = PathUtils.getParent(current);
+        }
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        misses.invalidateAll();
+    }
+
+    public long size() {
+        return misses.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.repo.virtual;
+
+import org.artifactory.api.context.ArtifactoryContext;
+import org.artifactory.api.context.ArtifactoryContextThreadBinder;
+import org.artifactory.api.context.ContextHelper;
+import org.artifactory.common.ArtifactoryHome;
+import org.artifactory.request.RepoRequestContext;
+import org.artifactory.request.RepoRequests;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded executor used by a single virtual repository to query its aggregated repositories concurrently.
+ * <p/>
+ * Each virtual repository gets its own pool so that a slow set of remotes behind one virtual cannot starve the
+ * resolution of the others (or the shared async executor). Idle threads time out, so an unused pool costs nothing.
+ * Tasks run with the Artifactory context, the authentication and the repo request context of the submitting thread.
+ */
+class VirtualRepoResolutionExecutor {
+
+    private static final int IDLE_TIMEOUT_SECS = 60;
+
+    private final ThreadPoolExecutor executor;
+
+    VirtualRepoResolutionExecutor(String virtualRepoKey, int maxThreads) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("virtual-resolve-" + virtualRepoKey +
+                "-");
+        threadFactory.setDaemon(true);
+        executor = new ThreadPoolExecutor(maxThreads, maxThreads, IDLE_TIMEOUT_SECS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    <T> Future<T> submit(final Callable<T> task) {
+        final ArtifactoryContext artifactoryContext = ContextHelper.get();
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        final RepoRequestContext repoRequestContext = RepoRequests.get();
+        return executor.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                try {
+                    ArtifactoryContextThreadBinder.bind(artifactoryContext);
+                    ArtifactoryHome.bind(artifactoryContext.getArtifactoryHome());
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    RepoRequests.bind(repoRequestContext);
+                    return task.call();
+                } finally {
+                    RepoRequests.unbind();
+                    SecurityContextHolder.clearContext();
+                    ArtifactoryContextThreadBinder.unbind();
+                    ArtifactoryHome.unbind();
+                }
+            }
+        });
+    }
+}
@@ -3,6 +3,7 @@ package org.artifactory.request.range;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.HttpStatus;
+import org.artifactory.common.ConstantValues;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -106,15 +107,16 @@ public class Range implements Comparable<Range> {
     }
 
     /**
-     * The class merges continues ranges
+     * The class merges continues ranges, and ranges separated by a gap smaller than the configured coalesce gap
      */
     private static void mergeRanges(ArrayList<Range> result) {
         if (result.size() > 1) {
             Collections.sort(result);
+            long coalesceGap = Math.max(0, ConstantValues.httpRangeCoalesceGap.getLong());
             for (int i = 0; i < result.size() - 1; i++) {
                 Range first = result.get(i);
                 Range second = result.get(i + 1);
-                if (first.getEnd() + 1 >= second.getStart()) {
+                if (first.getEnd() + 1 + coalesceGap >= second.getStart()) {
                     if (log.isDebugEnabled()) {
                         log.debug("Merging byte range: " + first + " with " + second);
                     }
@@ -153,12 +155,12 @@ public class Range implements Comparable<Range> {
     /**
      * Return the length in bytes of the byte range content including the header bytes
      */
-    public int getLength() {
+    public long getLength() {
         // length in bytes of range plus it's header plus section marker and line feed bytes
         return MULTIPART_BYTERANGES_BOUNDRY_SEP.length() + 2 +
                 this.contentType.length() + 2 +
                 getContentRange().length() + 4 +
-                (int) (this.end - this.start) + 2;
+                (this.end - this.start) + 2;
     }
 
     /**
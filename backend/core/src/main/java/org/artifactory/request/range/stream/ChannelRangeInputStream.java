@@ -0,0 +1,61 @@
+package org.artifactory.request.range.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a range of a file with positional reads, so the bytes before the range are never read. The channel is owned
+ * by the caller and is not closed by this stream.
+ */
+public class ChannelRangeInputStream extends InputStream {
+    private final FileChannel channel;
+    private long position;
+    private long left;
+
+    public ChannelRangeInputStream(FileChannel channel, long start, long length) {
+        this.channel = channel;
+        this.position = start;
+        this.left = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int count = read(b, 0, 1);
+        return count == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (left <= 0) {
+            return -1;
+        }
+        int count = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, left)), position);
+        if (count == -1) {
+            // The file is shorter than expected
+            left = 0;
+            return -1;
+        }
+        position += count;
+        left -= count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = Math.max(0, Math.min(n, left));
+        position += skipped;
+        left -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(left, Integer.MAX_VALUE);
+    }
+}
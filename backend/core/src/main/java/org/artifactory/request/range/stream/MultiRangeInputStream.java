@@ -1,99 +1,161 @@
 package org.artifactory.request.range.stream;
 
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
 import org.apache.commons.io.IOUtils;
+import org.artifactory.io.FileRegionInputStream;
 import org.artifactory.request.range.Range;
+import org.artifactory.storage.binstore.service.SkippableInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.util.List;
 
 import static org.artifactory.request.range.ResponseWithRangeSupportHelper.MULTIPART_BYTERANGES_BOUNDRY_END;
 
 /**
- * Returns multi sub-streams by wrapping the stream and skipping irrelevant bytes
+ * Returns multi sub-streams by wrapping the stream and skipping irrelevant bytes.
+ * <p/>
+ * The ranges (sorted and merged by {@link Range#constructRange}) are served in a single pass over the stream. If the
+ * stream is backed by a file each range is read with positional reads, otherwise the bytes between the ranges are
+ * skipped, and only read if the stream is not skippable.
  *
  * @author Gidi Shabat
  */
 public class MultiRangeInputStream extends InputStream {
     public static final Logger log = LoggerFactory.getLogger(MultiRangeInputStream.class);
-    private final int numberOfRanges;
-    private List<Range> ranges;
-    private InputStream inputStream;
+    private final InputStream inputStream;
+    private final FileRegionInputStream region;
+    private final FileChannel channel;
+    private final boolean skippable;
+    private final List<Range> ranges;
+    private final List<byte[]> headers;
     private long streamPointer = 0;
-    private byte[] buffer;
-    private int bufferPointer = 0;
-    private Range currentRange;
-    private boolean end;
+    private int partIndex = 0;
+    private InputStream currentPart;
 
-    public MultiRangeInputStream(List<Range> ranges, InputStream inputStream) {
-        this.ranges = ranges;
-        numberOfRanges = ranges.size();
+    public MultiRangeInputStream(List<Range> ranges, InputStream inputStream) throws IOException {
         if (ranges.size() < 2) {
             throw new RuntimeException(
                     "unsupported number of ranges: " + ranges.size() + ". The minimum number of ranges is " + 2 + ".");
         }
         this.inputStream = inputStream;
-        // calculate response content length
+        this.ranges = ranges;
+        this.headers = Lists.newArrayListWithCapacity(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            headers.add(ranges.get(i).outputHeader(i == 0));
+        }
+        this.region = inputStream instanceof FileRegionInputStream ? (FileRegionInputStream) inputStream : null;
+        this.channel = region != null ? region.getRegionChannel() : null;
+        this.skippable = !(inputStream instanceof SkippableInputStream) ||
+                ((SkippableInputStream) inputStream).isSkippable();
     }
 
     @Override
     public int read() throws IOException {
-        Range range = tryToPromoteRange();
-        if (buffer != null) {
-            byte result = buffer[bufferPointer];
-            bufferPointer++;
-            if (bufferPointer >= buffer.length) {
-                buffer = null;
-            }
-            return result;
+        byte[] b = new byte[1];
+        int count = read(b, 0, 1);
+        return count == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
         }
-        if (range == null) {
-            // Make sure to read the file until EOF
-            int result=inputStream.read();
-            while (result>=0){
-                result=inputStream.read();
+        while (true) {
+            if (currentPart == null) {
+                currentPart = nextPart();
+                if (currentPart == null) {
+                    return -1;
+                }
+            }
+            int count = currentPart.read(b, off, len);
+            if (count != -1) {
+                return count;
             }
-            return -1;
+            currentPart = null;
         }
-        streamPointer++;
-        return inputStream.read();
     }
 
-    private Range tryToPromoteRange() throws IOException {
-        // Need to skip bytes in stream
-        if (currentRange != null && streamPointer < currentRange.getStart()) {
-            while (currentRange != null && streamPointer < currentRange.getStart()) {
-                inputStream.read();
-                streamPointer++;
-            }
-            return currentRange;
+    @Override
+    public void close() {
+        IOUtils.closeQuietly(inputStream);
+    }
+
+    /**
+     * @return The next part of the multipart body: for each range its header then its content, and finally the end
+     * boundary. Null after the end boundary.
+     */
+    private InputStream nextPart() throws IOException {
+        int rangeIndex = partIndex / 2;
+        boolean header = partIndex % 2 == 0;
+        partIndex++;
+        if (rangeIndex < ranges.size()) {
+            return header ? new ByteArrayInputStream(headers.get(rangeIndex)) : rangeContent(ranges.get(rangeIndex));
         }
-        // Need to streaming range
-        if (currentRange != null && streamPointer >= currentRange.getStart() && streamPointer <= currentRange.getEnd()) {
-            return currentRange;
+        if (rangeIndex == ranges.size() && header) {
+            if (channel == null && !skippable) {
+                // Make sure to read the stream until EOF
+                SingleRangeInputStream.discard(inputStream, Long.MAX_VALUE);
+            }
+            return new ByteArrayInputStream((MULTIPART_BYTERANGES_BOUNDRY_END + "\r\n").getBytes());
         }
-        // Need to promote range
-        if (ranges.size() > 0 && (currentRange == null || streamPointer > currentRange.getEnd())) {
-            currentRange = ranges.remove(0);
-            buffer = currentRange.outputHeader(ranges.size() + 1 == numberOfRanges);
-            bufferPointer = 0;
-            return currentRange;
+        return null;
+    }
+
+    private InputStream rangeContent(Range range) throws IOException {
+        long length = range.getEnd() - range.getStart() + 1;
+        if (channel != null) {
+            // Positional reads, the bytes between the ranges are never read
+            return new ChannelRangeInputStream(channel, region.getRegionStart() + range.getStart(), length);
         }
-        // Need to promote stream
-        if (!end) {
-            buffer = (MULTIPART_BYTERANGES_BOUNDRY_END + "\r\n").getBytes();
-            bufferPointer = 0;
-            end = true;
-            currentRange = null;
-            return null;
+        long toSkip = range.getStart() - streamPointer;
+        if (skippable) {
+            ByteStreams.skipFully(inputStream, toSkip);
+        } else {
+            SingleRangeInputStream.discard(inputStream, toSkip);
         }
-        return null;
+        streamPointer = range.getEnd() + 1;
+        return new RangeContentInputStream(length);
     }
 
-    @Override
-    public void close() {
-        IOUtils.closeQuietly(inputStream);
+    /**
+     * Reads the content of the current range from the wrapped stream
+     */
+    private class RangeContentInputStream extends InputStream {
+        private long left;
+
+        RangeContentInputStream(long length) {
+            this.left = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (left <= 0) {
+                return -1;
+            }
+            int result = inputStream.read();
+            if (result != -1) {
+                left--;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (left <= 0) {
+                return -1;
+            }
+            int count = inputStream.read(b, off, (int) Math.min(len, left));
+            if (count != -1) {
+                left -= count;
+            }
+            return count;
+        }
     }
 }
@@ -17,12 +17,8 @@ public class SingleRangeInputStream extends InputStream {
     private InputStream inputStream;
 
     public SingleRangeInputStream(Range range, InputStream inputStream) throws IOException {
-        // Skip unwanted bites
-        for (int i = 0; i < range.getStart(); i++) {
-            // Skipping single byte;
-            // noinspection ResultOfMethodCallIgnored
-            inputStream.read();
-        }
+        // Skip unwanted bytes
+        discard(inputStream, range.getStart());
         // Limit the stream
         left = range.getEnd() - range.getStart() + 1;
         this.inputStream =inputStream;
@@ -30,14 +26,10 @@ public class SingleRangeInputStream extends InputStream {
 
     @Override
     public int read() throws IOException {
-
         if (left == 0) {
             // Make sure to read the file until EOF
-            int result=inputStream.read();
-            while (result>=0){
-                result=inputStream.read();
-            }
-            return result;
+            discard(inputStream, Long.MAX_VALUE);
+            return -1;
         }
         int result = inputStream.read();
         if (result != -1) {
@@ -46,6 +38,37 @@ public class SingleRangeInputStream extends InputStream {
         return result;
     }
 
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (left == 0) {
+            // Make sure to read the file until EOF
+            discard(inputStream, Long.MAX_VALUE);
+            return -1;
+        }
+        int count = inputStream.read(b, off, (int) Math.min(len, left));
+        if (count != -1) {
+            left -= count;
+        }
+        return count;
+    }
+
+    /**
+     * Reads and drops bytes, the stream cannot be skipped
+     */
+    static void discard(InputStream inputStream, long count) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (count > 0) {
+            int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, count));
+            if (read == -1) {
+                return;
+            }
+            count -= read;
+        }
+    }
+
     @Override
     public void close() {
         IOUtils.closeQuietly(inputStream);
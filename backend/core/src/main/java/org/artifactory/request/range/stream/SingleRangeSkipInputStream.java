@@ -2,37 +2,110 @@ package org.artifactory.request.range.stream;
 
 import com.google.common.io.ByteStreams;
 import org.apache.commons.io.IOUtils;
+import org.artifactory.io.FileRegionInputStream;
 import org.artifactory.request.range.Range;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 /**
- * Returns single sub-stream by wrapping the stream and skipping irrelevant bytes
+ * Returns single sub-stream by wrapping the stream and skipping irrelevant bytes.
+ * <p/>
+ * If the wrapped stream is backed by a file the range is exposed as a region of that file, and it is read with
+ * positional reads instead of skipping through the stream.
  *
  * @author Gidi Shabat
  */
-public class SingleRangeSkipInputStream extends InputStream {
+public class SingleRangeSkipInputStream extends InputStream implements FileRegionInputStream {
     public static final Logger log = LoggerFactory.getLogger(SingleRangeSkipInputStream.class);
+    private final Range range;
+    private final InputStream source;
     private InputStream inputStream;
 
     public SingleRangeSkipInputStream(Range range, InputStream inputStream) throws IOException {
-        // Skip irrelevant bytes
-        ByteStreams.skipFully(inputStream, range.getStart());
-        // Limit the stream
-        this.inputStream = ByteStreams.limit(inputStream, range.getEnd() - range.getStart() + 1);
+        this.range = range;
+        this.source = inputStream;
+        if (getSourceRegion() == null) {
+            limitSource();
+        }
     }
 
     @Override
     public int read() throws IOException {
-        return inputStream.read();
+        return limitedStream().read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return limitedStream().read(b, off, len);
     }
 
     @Override
     public void close() {
-        IOUtils.closeQuietly(inputStream);
+        IOUtils.closeQuietly(source);
+    }
+
+    @Nullable
+    @Override
+    public File getRegionFile() {
+        FileRegionInputStream region = getSourceRegion();
+        return inputStream == null && region != null ? region.getRegionFile() : null;
+    }
+
+    @Nullable
+    @Override
+    public FileChannel getRegionChannel() {
+        FileRegionInputStream region = getSourceRegion();
+        return inputStream == null && region != null ? region.getRegionChannel() : null;
+    }
+
+    @Override
+    public long getRegionStart() {
+        return ((FileRegionInputStream) source).getRegionStart() + range.getStart();
+    }
+
+    @Override
+    public long getRegionLength() {
+        return range.getEnd() - range.getStart() + 1;
+    }
+
+    /**
+     * @return The wrapped stream if its bytes can still be read from its file
+     */
+    @Nullable
+    private FileRegionInputStream getSourceRegion() {
+        if (source instanceof FileRegionInputStream) {
+            FileRegionInputStream region = (FileRegionInputStream) source;
+            if (region.getRegionFile() != null || region.getRegionChannel() != null) {
+                return region;
+            }
+        }
+        return null;
+    }
+
+    private InputStream limitedStream() throws IOException {
+        if (inputStream == null) {
+            limitSource();
+        }
+        return inputStream;
     }
 
+    private void limitSource() throws IOException {
+        FileRegionInputStream region = getSourceRegion();
+        FileChannel channel = region != null ? region.getRegionChannel() : null;
+        if (channel != null) {
+            // Positional reads, the bytes before the range are never read
+            this.inputStream = new ChannelRangeInputStream(channel, getRegionStart(), getRegionLength());
+            return;
+        }
+        // Skip irrelevant bytes
+        ByteStreams.skipFully(source, range.getStart());
+        // Limit the stream
+        this.inputStream = ByteStreams.limit(source, range.getEnd() - range.getStart() + 1);
+    }
 }
@@ -34,6 +34,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -195,6 +196,20 @@ public abstract class TaskUtils {
         return context != null && context.getTaskService().pauseOrBreak();
     }
 
+    /**
+     * Same as {@link #pauseOrBreak()} for a task executed by other threads than its own, like the workers of a task
+     *
+     * @param taskToken The token of the task to check, null if not running in a task
+     */
+    public static boolean pauseOrBreak(@Nullable String taskToken) {
+        InternalArtifactoryContext context = InternalContextHelper.get();
+        if (context == null || taskToken == null) {
+            return false;
+        }
+        TaskBase task = context.getTaskService().getInternalActiveTask(taskToken, false);
+        return task != null && task.blockIfPausedAndShouldBreak();
+    }
+
     public static long copyLarge(InputStream input, OutputStream output) throws IOException {
         byte[] buffer = new byte[1024 * 8];
         long count = 0;
@@ -18,14 +18,22 @@
 
 package org.artifactory.search.archive;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.artifactory.addon.AddonsManager;
 import org.artifactory.addon.HaAddon;
 import org.artifactory.addon.ha.HaCommonAddon;
 import org.artifactory.addon.ha.semaphore.SemaphoreWrapper;
+import org.artifactory.api.context.ArtifactoryContext;
+import org.artifactory.api.context.ArtifactoryContextThreadBinder;
 import org.artifactory.api.context.ContextHelper;
+import org.artifactory.api.storage.StorageUnit;
+import org.artifactory.common.ArtifactoryHome;
 import org.artifactory.common.ConstantValues;
 import org.artifactory.descriptor.repo.LocalRepoDescriptor;
 import org.artifactory.fs.ItemInfo;
@@ -58,13 +66,23 @@ import org.quartz.JobExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import static org.artifactory.schedule.StopStrategy.IMPOSSIBLE;
@@ -113,26 +131,11 @@ public class ArchiveIndexerImpl implements InternalArchiveIndexer {
     @Override
     public boolean index(RepoPath archiveRepoPath) {
         try {
-            // check the repo path is eligible for archive indexing
-            if (!isIndexSupported(archiveRepoPath)) {
-                log.trace("Indexing of '{}' not active.", archiveRepoPath);
+            VfsFile vfsFile = getArchiveToIndex(archiveRepoPath);
+            if (vfsFile == null) {
                 return false;
             }
 
-            // get the fs item and make sure it is a file
-            LocalRepo localRepo = repoService.localOrCachedRepositoryByKey(archiveRepoPath.getRepoKey());
-            if (localRepo == null) {
-                log.debug("Skipping archive indexing for {} - repo not found", archiveRepoPath);
-                return false;
-            }
-            VfsItem immutableItem = localRepo.getImmutableFsItem(archiveRepoPath);
-            if (immutableItem == null || !immutableItem.isFile()) {
-                log.debug("Skipping archive indexing for {} - item does not exist or not a file.", archiveRepoPath);
-                return false;
-            }
-
-            VfsFile vfsFile = (VfsFile) immutableItem;
-
             // check if the checksum is already indexed
             if (archiveEntriesService.isIndexed(vfsFile.getSha1())) {
                 log.debug("Archive '{}' with checksum '{}' is already indexed", archiveRepoPath, vfsFile.getSha1());
@@ -140,19 +143,9 @@ public class ArchiveIndexerImpl implements InternalArchiveIndexer {
             }
 
             // start indexing ...
-            log.info("Indexing archive: {}", vfsFile);
-            try (VfsArchiveFile archive = new VfsArchiveFile(vfsFile)) {
-                List<? extends ArchiveEntry> entries = archive.entries();
-                Set<ZipEntryInfo> zipEntryInfos = Sets.newHashSet();
-                for (ArchiveEntry zipEntry : entries) {
-                    if (!zipEntry.isDirectory()) {
-                        zipEntryInfos.add(new ArchiveEntryImpl(zipEntry));
-                    }
-                }
-
-                ArchiveEntriesService archiveEntriesService = ContextHelper.get().beanForType(
-                        ArchiveEntriesService.class);
-                archiveEntriesService.addArchiveEntries(vfsFile.getSha1(), zipEntryInfos);
+            log.debug("Indexing archive: {}", vfsFile);
+            try {
+                archiveEntriesService.addArchiveEntries(vfsFile.getSha1(), readArchiveEntries(vfsFile));
                 log.debug("Indexed archive: {}", vfsFile);
                 return true;
             } catch (IOException e) {
@@ -166,6 +159,30 @@ public class ArchiveIndexerImpl implements InternalArchiveIndexer {
         }
     }
 
+    @Override
+    public boolean addArchiveEntries(String sha1, Set<ZipEntryInfo> entries, Collection<RepoPath> archiveRepoPaths) {
+        try {
+            // the checksum might have been indexed since the queue was read
+            if (archiveEntriesService.isIndexed(sha1)) {
+                log.debug("Archive with checksum '{}' is already indexed", sha1);
+                return false;
+            }
+            archiveEntriesService.addArchiveEntries(sha1, entries);
+            log.debug("Indexed archive with checksum '{}' of {}", sha1, archiveRepoPaths);
+            return true;
+        } finally {
+            // remove the tasks in any case if they exist
+            removeIndexTasks(archiveRepoPaths);
+        }
+    }
+
+    @Override
+    public void removeIndexTasks(Collection<RepoPath> archiveRepoPaths) {
+        for (RepoPath archiveRepoPath : archiveRepoPaths) {
+            tasksService.removeIndexTask(archiveRepoPath);
+        }
+    }
+
     @Override
     public void triggerQueueIndexing() {
         if (shouldStop()) {
@@ -181,26 +198,153 @@ public class ArchiveIndexerImpl implements InternalArchiveIndexer {
             if (indexingQueue.isEmpty()) {
                 return;
             }
-            log.debug("Indexing {} queued items", indexingQueue.size());
-
-            final InternalArchiveIndexer advisedMe = getAdvisedMe();
-            for (RepoPath repoPath : indexingQueue) {
-                try {
+            log.info("Indexing {} queued archives", indexingQueue.size());
+
+            // archives are read by a bounded pool of workers while their entries are written to the database by
+            // this thread, one archive per transaction (archive paths and names are shared by all the archives)
+            int workers = Math.max(ConstantValues.archiveIndexerWorkers.getInt(), 1);
+            int batchSize = Math.max(ConstantValues.archiveIndexerBatchSize.getInt(), 1);
+            long maxBytesPerSec = ConstantValues.archiveIndexerMaxBytesPerSec.getLong();
+            RateLimiter bytesLimiter = maxBytesPerSec > 0 ? RateLimiter.create(maxBytesPerSec) : null;
+            IndexingProgress progress = new IndexingProgress(indexingQueue.size());
+            ExecutorService readers = Executors.newFixedThreadPool(workers,
+                    new ThreadFactoryBuilder().setNameFormat("art-archive-indexer-%s").setDaemon(true).build());
+            try {
+                for (List<RepoPath> batch : Iterables.partition(indexingQueue, batchSize)) {
                     if (shouldStop()) {
                         break;  // stop execution if the context is not ready (shutting down, refreshing conf etc.)
                     }
-                    advisedMe.index(repoPath);
-                } catch (Exception e) {
-                    log.error("Exception indexing " + repoPath, e);
-                    forceArchiveIndexerTaskDeletion(repoPath);
+                    indexBatch(batch, readers, workers * 2, bytesLimiter, progress);
+                    log.debug("Archive indexing progress: {}", progress);
                 }
+            } catch (InterruptedException e) {
+                log.warn("Archive indexing interrupted");
+                Thread.currentThread().interrupt();
+            } finally {
+                readers.shutdownNow();
             }
-            log.debug("Finished indexing {} queued items", indexingQueue.size());
+            log.info("Finished indexing queued archives: {}", progress);
         } finally {
             getIndexingSemaphore().release();
         }
     }
 
+    /**
+     * Indexes a batch of queued paths. The paths are grouped by checksum so each archive content is read at most once
+     * and only if it is not indexed yet.
+     */
+    private void indexBatch(List<RepoPath> batch, ExecutorService readers, int maxPendingReads,
+            @Nullable RateLimiter bytesLimiter, IndexingProgress progress) throws InterruptedException {
+        Map<String, List<RepoPath>> pathsBySha1 = Maps.newLinkedHashMap();
+        Map<String, VfsFile> archives = Maps.newHashMap();
+        List<RepoPath> skipped = Lists.newArrayList();
+        for (RepoPath repoPath : batch) {
+            try {
+                VfsFile vfsFile = getArchiveToIndex(repoPath);
+                if (vfsFile == null) {
+                    skipped.add(repoPath);
+                } else if (archives.containsKey(vfsFile.getSha1())) {
+                    pathsBySha1.get(vfsFile.getSha1()).add(repoPath);
+                } else if (archiveEntriesService.isIndexed(vfsFile.getSha1())) {
+                    log.debug("Archive '{}' with checksum '{}' is already indexed", repoPath, vfsFile.getSha1());
+                    skipped.add(repoPath);
+                } else {
+                    archives.put(vfsFile.getSha1(), vfsFile);
+                    pathsBySha1.put(vfsFile.getSha1(), Lists.newArrayList(repoPath));
+                }
+            } catch (Exception e) {
+                log.error("Exception indexing " + repoPath, e);
+                forceArchiveIndexerTaskDeletion(repoPath);
+            }
+        }
+        if (!skipped.isEmpty()) {
+            getAdvisedMe().removeIndexTasks(skipped);
+        }
+
+        CompletionService<ArchiveEntriesReader> completionService = new ExecutorCompletionService<>(readers);
+        Map<Future<ArchiveEntriesReader>, ArchiveEntriesReader> pendingReads = Maps.newHashMap();
+        for (Map.Entry<String, List<RepoPath>> archivePaths : pathsBySha1.entrySet()) {
+            if (shouldStop()) {
+                break;
+            }
+            if (pendingReads.size() >= maxPendingReads) {
+                writeArchiveEntries(pendingReads.remove(completionService.take()), progress);
+            }
+            VfsFile vfsFile = archives.get(archivePaths.getKey());
+            if (bytesLimiter != null && vfsFile.length() > 0) {
+                bytesLimiter.acquire((int) Math.min(vfsFile.length(), Integer.MAX_VALUE));
+            }
+            ArchiveEntriesReader reader = new ArchiveEntriesReader(vfsFile, archivePaths.getValue());
+            pendingReads.put(completionService.submit(reader), reader);
+        }
+        // the entries already read are written even if the indexing is stopped
+        while (!pendingReads.isEmpty()) {
+            writeArchiveEntries(pendingReads.remove(completionService.take()), progress);
+        }
+        progress.processed(batch.size());
+    }
+
+    /**
+     * Writes the entries of a read archive, or removes its tasks if it failed to be read so that a broken archive or
+     * a missing binary is not retried by every run
+     */
+    private void writeArchiveEntries(ArchiveEntriesReader reader, IndexingProgress progress) {
+        VfsFile vfsFile = reader.vfsFile;
+        try {
+            if (reader.failure != null) {
+                log.error("Failed to index '{}': {}", vfsFile.getRepoPath(), reader.failure.getMessage());
+                log.debug("Failed to index:", reader.failure);
+                getAdvisedMe().removeIndexTasks(reader.archiveRepoPaths);
+            } else if (getAdvisedMe().addArchiveEntries(vfsFile.getSha1(), reader.entries,
+                    reader.archiveRepoPaths)) {
+                progress.indexed(vfsFile.length());
+            }
+        } catch (Exception e) {
+            log.error("Exception indexing " + vfsFile.getRepoPath(), e);
+            for (RepoPath repoPath : reader.archiveRepoPaths) {
+                forceArchiveIndexerTaskDeletion(repoPath);
+            }
+        }
+    }
+
+    /**
+     * @return The file to index in this path or null if it is not eligible for archive indexing
+     */
+    @Nullable
+    private VfsFile getArchiveToIndex(RepoPath archiveRepoPath) {
+        // check the repo path is eligible for archive indexing
+        if (!isIndexSupported(archiveRepoPath)) {
+            log.trace("Indexing of '{}' not active.", archiveRepoPath);
+            return null;
+        }
+
+        // get the fs item and make sure it is a file
+        LocalRepo localRepo = repoService.localOrCachedRepositoryByKey(archiveRepoPath.getRepoKey());
+        if (localRepo == null) {
+            log.debug("Skipping archive indexing for {} - repo not found", archiveRepoPath);
+            return null;
+        }
+        VfsItem immutableItem = localRepo.getImmutableFsItem(archiveRepoPath);
+        if (immutableItem == null || !immutableItem.isFile()) {
+            log.debug("Skipping archive indexing for {} - item does not exist or not a file.", archiveRepoPath);
+            return null;
+        }
+        return (VfsFile) immutableItem;
+    }
+
+    private static Set<ZipEntryInfo> readArchiveEntries(VfsFile vfsFile) throws IOException {
+        try (VfsArchiveFile archive = new VfsArchiveFile(vfsFile)) {
+            List<? extends ArchiveEntry> entries = archive.entries();
+            Set<ZipEntryInfo> zipEntryInfos = Sets.newHashSet();
+            for (ArchiveEntry zipEntry : entries) {
+                if (!zipEntry.isDirectory()) {
+                    zipEntryInfos.add(new ArchiveEntryImpl(zipEntry));
+                }
+            }
+            return zipEntryInfos;
+        }
+    }
+
     private boolean shouldStop() {
         return !InternalContextHelper.get().isReady() || taskService.pauseOrBreak();
     }
@@ -309,6 +453,75 @@ public class ArchiveIndexerImpl implements InternalArchiveIndexer {
         return indexingSemaphore;
     }
 
+    /**
+     * Reads the entries of an archive in a worker thread
+     */
+    private static class ArchiveEntriesReader implements Callable<ArchiveEntriesReader> {
+        private final VfsFile vfsFile;
+        private final List<RepoPath> archiveRepoPaths;
+        private final ArtifactoryContext context;
+        private final Authentication authentication;
+        private Set<ZipEntryInfo> entries;
+        private Throwable failure;
+
+        private ArchiveEntriesReader(VfsFile vfsFile, List<RepoPath> archiveRepoPaths) {
+            this.vfsFile = vfsFile;
+            this.archiveRepoPaths = archiveRepoPaths;
+            this.context = ContextHelper.get();
+            this.authentication = SecurityContextHolder.getContext().getAuthentication();
+        }
+
+        @Override
+        public ArchiveEntriesReader call() {
+            ArtifactoryContextThreadBinder.bind(context);
+            ArtifactoryHome.bind(context.getArtifactoryHome());
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+            try {
+                entries = readArchiveEntries(vfsFile);
+            } catch (Throwable e) {
+                // any failure is reported to the indexing thread, which removes the tasks of the archive
+                failure = e;
+            } finally {
+                SecurityContextHolder.clearContext();
+                ArtifactoryContextThreadBinder.unbind();
+                ArtifactoryHome.unbind();
+            }
+            return this;
+        }
+    }
+
+    /**
+     * The backlog and throughput of an indexing run
+     */
+    private static class IndexingProgress {
+        private final long startTime = System.currentTimeMillis();
+        private final int queued;
+        private int processed;
+        private int indexed;
+        private long indexedBytes;
+
+        private IndexingProgress(int queued) {
+            this.queued = queued;
+        }
+
+        private void processed(int paths) {
+            processed += paths;
+        }
+
+        private void indexed(long bytes) {
+            indexed++;
+            indexedBytes += bytes;
+        }
+
+        @Override
+        public String toString() {
+            long elapsedMillis = Math.max(System.currentTimeMillis() - startTime, 1);
+            return String.format("indexed %d archives (%s) in %d ms, %.2f archives/sec, %d of %d queued paths left",
+                    indexed, StorageUnit.toReadableString(indexedBytes), elapsedMillis,
+                    indexed * 1000.0 / elapsedMillis, queued - processed, queued);
+        }
+    }
+
     @JobCommand(description = "Archive Files Indexer",
             singleton = true, schedulerUser = TaskUser.SYSTEM, manualUser = TaskUser.SYSTEM,
             commandsToStop = {
@@ -19,9 +19,13 @@
 package org.artifactory.search.archive;
 
 import org.artifactory.api.search.ArchiveIndexer;
+import org.artifactory.fs.ZipEntryInfo;
 import org.artifactory.repo.RepoPath;
 import org.artifactory.sapi.common.Lock;
 
+import java.util.Collection;
+import java.util.Set;
+
 /**
  * Internal interface for transaction management.
  *
@@ -38,5 +42,23 @@ public interface InternalArchiveIndexer extends ArchiveIndexer {
     @Lock
     boolean index(RepoPath archiveRepoPath);
 
+    /**
+     * Adds the entries read from an archive to the index unless its checksum is already indexed and removes the
+     * indexing tasks of the paths of this archive.
+     *
+     * @param sha1             The checksum of the archive
+     * @param entries          The archive entries
+     * @param archiveRepoPaths The queued paths with this checksum
+     * @return True if the entries were added
+     */
+    @Lock
+    boolean addArchiveEntries(String sha1, Set<ZipEntryInfo> entries, Collection<RepoPath> archiveRepoPaths);
+
+    /**
+     * Removes the indexing tasks of paths that should not (or could not) be indexed.
+     */
+    @Lock
+    void removeIndexTasks(Collection<RepoPath> archiveRepoPaths);
+
     void triggerQueueIndexing();
 }
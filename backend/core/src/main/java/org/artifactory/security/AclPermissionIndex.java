@@ -0,0 +1,218 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.artifactory.model.xstream.security.ImmutableAclInfo;
+import org.artifactory.util.CollectionUtils;
+import org.artifactory.util.PathMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An index of the ACLs used to answer repository path permission checks without walking all the ACLs.
+ * <p/>
+ * The ACEs are indexed by security identity and then by the repository keys (including the logical keys like "ANY")
+ * of their permission target. The include/exclude patterns are matched with the {@link PathMatcher}, skipping the
+ * match for permission targets that include all the paths. Decisions are cached per security identities, repository
+ * path and permission.
+ * <p/>
+ * An index is immutable and built from one version of the ACLs, it is replaced (with its decisions) when the ACLs
+ * version changes (see {@link #getAclsVersion()}).
+ */
+public class AclPermissionIndex {
+    private static final Logger log = LoggerFactory.getLogger(AclPermissionIndex.class);
+
+    private final int aclsVersion;
+    private final Map<ArtifactorySid, Map<String, List<IndexedAce>>> sidsIndex = Maps.newHashMap();
+    private final Cache<DecisionKey, Boolean> decisions;
+
+    public AclPermissionIndex(Collection<AclInfo> acls, int aclsVersion, long maxDecisions, long decisionsExpirySecs) {
+        this.aclsVersion = aclsVersion;
+        this.decisions = CacheBuilder.newBuilder().maximumSize(maxDecisions)
+                .expireAfterWrite(decisionsExpirySecs, TimeUnit.SECONDS).build();
+        for (AclInfo acl : acls) {
+            if (!(acl instanceof ImmutableAclInfo)) {
+                RuntimeException runtimeException = new RuntimeException(
+                        "Checking for permission on " + acl
+                                + " should use only immutable security objects not " + acl.getClass());
+                log.error(runtimeException.getMessage(), runtimeException);
+            }
+            PermissionTargetInfo permissionTarget = acl.getPermissionTarget();
+            List<String> includes = permissionTarget.getIncludes();
+            List<String> excludes = permissionTarget.getExcludes();
+            boolean matchesAll = CollectionUtils.isNullOrEmpty(excludes) && (CollectionUtils.isNullOrEmpty(includes)
+                    || includes.contains("**") || includes.contains("**/*"));
+            for (AceInfo ace : acl.getAces()) {
+                ArtifactorySid sid = new ArtifactorySid(ace.getPrincipal(), ace.isGroup());
+                IndexedAce indexedAce = new IndexedAce(includes, excludes, matchesAll, ace.getMask());
+                Map<String, List<IndexedAce>> repoKeysIndex = sidsIndex.computeIfAbsent(sid, k -> Maps.newHashMap());
+                for (String repoKey : permissionTarget.getRepoKeys()) {
+                    repoKeysIndex.computeIfAbsent(repoKey, k -> Lists.newArrayListWithCapacity(1))
+                            .add(indexedAce);
+                }
+            }
+        }
+        log.debug("Indexed {} ACLs for {} security identities", acls.size(), sidsIndex.size());
+    }
+
+    /**
+     * @return The version of the ACLs this index was built from (see {@link
+     * org.artifactory.storage.security.service.AclStoreService#getAclsVersion()})
+     */
+    public int getAclsVersion() {
+        return aclsVersion;
+    }
+
+    /**
+     * @return True if any of the security identities has an ACE
+     */
+    public boolean hasAces(Set<ArtifactorySid> sids) {
+        for (ArtifactorySid sid : sids) {
+            if (sidsIndex.containsKey(sid)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return True if any of the security identities has an ACE on a permission target of all the local or all the
+     * remote repositories
+     */
+    public boolean hasAnyLocalOrRemoteAces(Set<ArtifactorySid> sids) {
+        for (ArtifactorySid sid : sids) {
+            Map<String, List<IndexedAce>> repoKeysIndex = sidsIndex.get(sid);
+            if (repoKeysIndex != null && (repoKeysIndex.containsKey(PermissionTargetInfo.ANY_LOCAL_REPO)
+                    || repoKeysIndex.containsKey(PermissionTargetInfo.ANY_REMOTE_REPO))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return True if any of the security identities has an ACE granting any of the permissions in the mask on a
+     * permission target of one of the given repository keys matching the path
+     */
+    public boolean isGranted(Set<ArtifactorySid> sids, Collection<String> repoKeys, String path, boolean folder,
+            int mask) {
+        for (ArtifactorySid sid : sids) {
+            Map<String, List<IndexedAce>> repoKeysIndex = sidsIndex.get(sid);
+            if (repoKeysIndex == null) {
+                continue;
+            }
+            for (String repoKey : repoKeys) {
+                List<IndexedAce> aces = repoKeysIndex.get(repoKey);
+                if (aces == null) {
+                    continue;
+                }
+                for (IndexedAce ace : aces) {
+                    //Any of the permissions is enough for granting
+                    if ((ace.mask & mask) != 0 && ace.matches(path, folder)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The cached decision or null if the permission was not checked yet
+     */
+    @Nullable
+    public Boolean getDecision(Set<ArtifactorySid> sids, String repoKey, String path, boolean folder, int mask) {
+        return decisions.getIfPresent(new DecisionKey(sids, repoKey, path, folder, mask));
+    }
+
+    public void putDecision(Set<ArtifactorySid> sids, String repoKey, String path, boolean folder, int mask,
+            boolean granted) {
+        decisions.put(new DecisionKey(sids, repoKey, path, folder, mask), granted);
+    }
+
+    private static class IndexedAce {
+        private final List<String> includes;
+        private final List<String> excludes;
+        private final boolean matchesAll;
+        private final int mask;
+
+        private IndexedAce(List<String> includes, List<String> excludes, boolean matchesAll, int mask) {
+            this.includes = includes;
+            this.excludes = excludes;
+            this.matchesAll = matchesAll;
+            this.mask = mask;
+        }
+
+        private boolean matches(String path, boolean folder) {
+            return matchesAll || PathMatcher.matches(path, includes, excludes, folder);
+        }
+    }
+
+    private static class DecisionKey {
+        private final Set<ArtifactorySid> sids;
+        private final String repoKey;
+        private final String path;
+        private final boolean folder;
+        private final int mask;
+        private final int hashCode;
+
+        private DecisionKey(Set<ArtifactorySid> sids, String repoKey, String path, boolean folder, int mask) {
+            this.sids = sids;
+            this.repoKey = repoKey;
+            this.path = path;
+            this.folder = folder;
+            this.mask = mask;
+            int result = sids.hashCode();
+            result = 31 * result + repoKey.hashCode();
+            result = 31 * result + path.hashCode();
+            result = 31 * result + (folder ? 1 : 0);
+            result = 31 * result + mask;
+            this.hashCode = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            DecisionKey that = (DecisionKey) o;
+            return folder == that.folder && mask == that.mask && repoKey.equals(that.repoKey)
+                    && path.equals(that.path) && sids.equals(that.sids);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
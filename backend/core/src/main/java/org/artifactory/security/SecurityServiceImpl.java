@@ -104,7 +104,6 @@ import org.artifactory.update.security.SecurityVersion;
 import org.artifactory.util.EmailException;
 import org.artifactory.util.Files;
 import org.artifactory.util.NameValidator;
-import org.artifactory.util.PathMatcher;
 import org.artifactory.util.SerializablePair;
 import org.artifactory.util.Strings;
 import org.artifactory.version.CompoundVersionDetails;
@@ -192,6 +191,8 @@ public class SecurityServiceImpl implements InternalSecurityService {
 
     private TreeSet<SecurityListener> securityListeners = new TreeSet<>();
 
+    private volatile AclPermissionIndex aclPermissionIndex;
+
     /**
      * @param user The authentication token.
      * @return An array of sids of the current user and all it's groups.
@@ -220,10 +221,6 @@ public class SecurityServiceImpl implements InternalSecurityService {
         return (SimpleUser) authentication.getPrincipal();
     }
 
-    private static boolean matches(PermissionTargetInfo aclPermissionTarget, String path, boolean folder) {
-        return PathMatcher.matches(path, aclPermissionTarget.getIncludes(), aclPermissionTarget.getExcludes(), folder);
-    }
-
     private static XStream getXstream() {
         return InfoFactoryHolder.get().getSecurityXStream();
     }
@@ -1858,29 +1855,6 @@ public class SecurityServiceImpl implements InternalSecurityService {
         return isGranted(repoPath, permission, sid);
     }
 
-    private boolean isPermissionTargetIncludesRepoKey(String repoKey, PermissionTargetInfo permissionTarget) {
-        // checks if repo key is part of the permission target repository keys taking into account
-        // the special logical repo keys of a permission target like "Any", "All Local" etc.
-        List<String> repoKeys = permissionTarget.getRepoKeys();
-        if (repoKeys.contains(PermissionTargetInfo.ANY_REPO)) {
-            return true;
-        }
-
-        if (repoKeys.contains(repoKey)) {
-            return true;
-        }
-
-        LocalRepo localRepo = repositoryService.localOrCachedRepositoryByKey(repoKey);
-        if (localRepo != null) {
-            if (!localRepo.isCache() && repoKeys.contains(PermissionTargetInfo.ANY_LOCAL_REPO)) {
-                return true;
-            } else if (localRepo.isCache() && repoKeys.contains(PermissionTargetInfo.ANY_REMOTE_REPO)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private boolean hasPermissionOnPermissionTarget(PermissionTargetInfo permTarget, ArtifactoryPermission permission) {
         AclInfo acl = aclStoreService.getAcl(permTarget.getName());
         return hasPermissionOnAcl(acl, permission);
@@ -1929,36 +1903,59 @@ public class SecurityServiceImpl implements InternalSecurityService {
 
     private boolean isGranted(
             RepoPath repoPath, ArtifactoryPermission permission, Set<ArtifactorySid> sids) {
-        Collection<AclInfo> acls = aclStoreService.getAllAcls();
-        for (AclInfo acl : acls) {
-            if (!(acl instanceof ImmutableAclInfo)) {
-                RuntimeException runtimeException = new RuntimeException(
-                        "Checking for permission on " + acl
-                                + " should use only immutable security objects not " + acl.getClass());
-                log.error(runtimeException.getMessage(), runtimeException);
-            }
-            if (!hasAceInAcl(acl, sids)) {
-                // If no ACE skip path analysis
-                continue;
-            }
-            String repoKey = repoPath.getRepoKey();
+        AclPermissionIndex index = getAclPermissionIndex();
+        String repoKey = repoPath.getRepoKey();
+        String path = repoPath.getPath();
+        boolean checkPartialPath = (permission.getMask() & (ArtifactoryPermission.READ.getMask() | ArtifactoryPermission.DEPLOY.getMask())) != 0;
+        boolean behaveAsFolder = repoPath.isFolder() && checkPartialPath;
+        Boolean decision = index.getDecision(sids, repoKey, path, behaveAsFolder, permission.getMask());
+        if (decision != null) {
+            return decision;
+        }
+        boolean granted = false;
+        // If no ACE skip path analysis
+        if (index.hasAces(sids)) {
             String aclCompatibleRepoKey = makeRemoteRepoKeyAclCompatible(repoKey);  //acl compatible key for remotes
-            String path = repoPath.getPath();
-            boolean folder = repoPath.isFolder();
-            PermissionTargetInfo aclPermissionTarget = acl.getPermissionTarget();
-            if (isPermissionTargetIncludesRepoKey(repoKey, aclPermissionTarget)
-                    || isPermissionTargetIncludesRepoKey(aclCompatibleRepoKey, aclPermissionTarget)) {
-                boolean checkPartialPath = (permission.getMask() & (ArtifactoryPermission.READ.getMask() | ArtifactoryPermission.DEPLOY.getMask())) != 0;
-                boolean behaveAsFolder = folder && checkPartialPath;
-                boolean match = matches(aclPermissionTarget, path, behaveAsFolder);
-                if (match) {
-                    if (isGranted(acl, permission, sids)) {
-                        return true;
-                    }
-                }
+            List<String> aclRepoKeys = Lists.newArrayList(repoKey, aclCompatibleRepoKey, PermissionTargetInfo.ANY_REPO);
+            granted = index.isGranted(sids, aclRepoKeys, path, behaveAsFolder, permission.getMask());
+            if (!granted && index.hasAnyLocalOrRemoteAces(sids)) {
+                List<String> anyRepoKeys = Lists.newArrayListWithCapacity(2);
+                addAnyLocalOrRemoteRepoKey(repoKey, anyRepoKeys);
+                addAnyLocalOrRemoteRepoKey(aclCompatibleRepoKey, anyRepoKeys);
+                granted = index.isGranted(sids, anyRepoKeys, path, behaveAsFolder, permission.getMask());
             }
         }
-        return false;
+        index.putDecision(sids, repoKey, path, behaveAsFolder, permission.getMask(), granted);
+        return granted;
+    }
+
+    /**
+     * @return The permission index of the current ACLs, rebuilt if the ACLs were reloaded since it was built
+     */
+    private AclPermissionIndex getAclPermissionIndex() {
+        // Read the version before the ACLs: if they are newer the index is rebuilt on the next check
+        int aclsVersion = aclStoreService.getAclsVersion();
+        // Always get the ACLs, it triggers their reload after a change
+        Collection<AclInfo> acls = aclStoreService.getAllAcls();
+        AclPermissionIndex index = aclPermissionIndex;
+        if (index == null || index.getAclsVersion() != aclsVersion) {
+            index = new AclPermissionIndex(acls, aclsVersion,
+                    ConstantValues.securityAuthorizationCacheMaxEntries.getLong(),
+                    ConstantValues.securityAuthorizationCacheSecs.getLong());
+            aclPermissionIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Adds the logical key of all the local or all the remote repositories if the repository key is of such repository
+     */
+    private void addAnyLocalOrRemoteRepoKey(String repoKey, List<String> anyRepoKeys) {
+        LocalRepo localRepo = repositoryService.localOrCachedRepositoryByKey(repoKey);
+        if (localRepo != null) {
+            anyRepoKeys.add(localRepo.isCache() ? PermissionTargetInfo.ANY_REMOTE_REPO :
+                    PermissionTargetInfo.ANY_LOCAL_REPO);
+        }
     }
 
     private boolean hasAceInAcl(AclInfo acl, Set<ArtifactorySid> sids) {
@@ -0,0 +1,102 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.mbean;
+
+import org.artifactory.storage.binstore.service.providers.FileCacheBinaryProviderImpl;
+import org.artifactory.storage.binstore.service.providers.eviction.CacheEvictionStats;
+
+/**
+ * CacheFsMBean implementation.
+ */
+public class ManagedCacheFs implements ManagedCacheFsMBean {
+    private final FileCacheBinaryProviderImpl cacheProvider;
+
+    public ManagedCacheFs(FileCacheBinaryProviderImpl cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+
+    @Override
+    public String getEvictionPolicy() {
+        return cacheProvider.getEvictionPolicyType().name();
+    }
+
+    @Override
+    public long getCacheSize() {
+        return cacheProvider.getCacheSize();
+    }
+
+    @Override
+    public long getMaxCacheSize() {
+        return cacheProvider.getMaxCacheSize();
+    }
+
+    @Override
+    public long getCachedFilesCount() {
+        return cacheProvider.getCachedFilesCount();
+    }
+
+    @Override
+    public long getHits() {
+        return stats().getHits();
+    }
+
+    @Override
+    public long getMisses() {
+        return stats().getMisses();
+    }
+
+    @Override
+    public double getHitRatio() {
+        return stats().getHitRatio();
+    }
+
+    @Override
+    public long getRejectedFiles() {
+        return stats().getRejected();
+    }
+
+    @Override
+    public long getEvictedFiles() {
+        return stats().getEvictedFiles();
+    }
+
+    @Override
+    public long getEvictedBytes() {
+        return stats().getEvictedBytes();
+    }
+
+    @Override
+    public long getEvictionRuns() {
+        return stats().getEvictionRuns();
+    }
+
+    @Override
+    public long getEvictionTimeMillis() {
+        return stats().getEvictionTimeMillis();
+    }
+
+    @Override
+    public long getMaxEvictionTimeMillis() {
+        return stats().getMaxEvictionTimeMillis();
+    }
+
+    private CacheEvictionStats stats() {
+        return cacheProvider.getEvictionStats();
+    }
+}
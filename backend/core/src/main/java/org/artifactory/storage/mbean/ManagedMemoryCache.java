@@ -0,0 +1,87 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.mbean;
+
+import org.artifactory.storage.binstore.service.providers.MemoryBlobCache;
+import org.artifactory.storage.binstore.service.providers.MemoryCacheBinaryProviderImpl;
+
+/**
+ * MemoryCacheMBean implementation.
+ */
+public class ManagedMemoryCache implements ManagedMemoryCacheMBean {
+    private final MemoryCacheBinaryProviderImpl memoryProvider;
+
+    public ManagedMemoryCache(MemoryCacheBinaryProviderImpl memoryProvider) {
+        this.memoryProvider = memoryProvider;
+    }
+
+    @Override
+    public String getEvictionPolicy() {
+        return cache().getEvictionPolicyType().name();
+    }
+
+    @Override
+    public long getCacheSize() {
+        return cache().getSize();
+    }
+
+    @Override
+    public long getMaxCacheSize() {
+        return cache().getMaxSize();
+    }
+
+    @Override
+    public long getMaxEntrySize() {
+        return cache().getMaxEntrySize();
+    }
+
+    @Override
+    public long getCachedBinariesCount() {
+        return cache().getCount();
+    }
+
+    @Override
+    public long getHits() {
+        return cache().getStats().getHits();
+    }
+
+    @Override
+    public long getMisses() {
+        return cache().getStats().getMisses();
+    }
+
+    @Override
+    public double getHitRatio() {
+        return cache().getStats().getHitRatio();
+    }
+
+    @Override
+    public long getEvictedBinaries() {
+        return cache().getStats().getEvictedFiles();
+    }
+
+    @Override
+    public long getEvictedBytes() {
+        return cache().getStats().getEvictedBytes();
+    }
+
+    private MemoryBlobCache cache() {
+        return memoryProvider.getCache();
+    }
+}
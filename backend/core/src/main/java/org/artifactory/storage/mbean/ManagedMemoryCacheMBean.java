@@ -0,0 +1,60 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.mbean;
+
+/**
+ * In-memory binary provider metrics.
+ */
+public interface ManagedMemoryCacheMBean {
+
+    /**
+     * @return The name of the configured eviction policy
+     */
+    String getEvictionPolicy();
+
+    /**
+     * @return The total size in bytes of the cached binaries
+     */
+    long getCacheSize();
+
+    /**
+     * @return The configured max size in bytes of the cache
+     */
+    long getMaxCacheSize();
+
+    /**
+     * @return The size in bytes of the biggest binary that can be cached
+     */
+    long getMaxEntrySize();
+
+    long getCachedBinariesCount();
+
+    long getHits();
+
+    long getMisses();
+
+    /**
+     * @return The ratio of reads served from memory, between 0 and 1
+     */
+    double getHitRatio();
+
+    long getEvictedBinaries();
+
+    long getEvictedBytes();
+}
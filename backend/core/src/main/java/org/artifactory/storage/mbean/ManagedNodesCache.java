@@ -0,0 +1,69 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.mbean;
+
+import org.artifactory.storage.db.fs.service.NodesCache;
+
+/**
+ * NodesCacheMBean implementation.
+ */
+public class ManagedNodesCache implements ManagedNodesCacheMBean {
+    private final NodesCache nodesCache;
+
+    public ManagedNodesCache(NodesCache nodesCache) {
+        this.nodesCache = nodesCache;
+    }
+
+    @Override
+    public long getCachedNodesCount() {
+        return nodesCache.getSize();
+    }
+
+    @Override
+    public long getMaxCachedNodesCount() {
+        return nodesCache.getMaxSize();
+    }
+
+    @Override
+    public long getHits() {
+        return nodesCache.getHits();
+    }
+
+    @Override
+    public long getMisses() {
+        return nodesCache.getMisses();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hits = nodesCache.getHits();
+        long total = hits + nodesCache.getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public long getInvalidations() {
+        return nodesCache.getInvalidations();
+    }
+
+    @Override
+    public long getClusterInvalidations() {
+        return nodesCache.getClusterInvalidations();
+    }
+}
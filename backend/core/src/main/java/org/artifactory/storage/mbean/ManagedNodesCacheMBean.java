@@ -0,0 +1,54 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.mbean;
+
+/**
+ * Nodes cache metrics.
+ */
+public interface ManagedNodesCacheMBean {
+
+    /**
+     * @return The number of cached nodes
+     */
+    long getCachedNodesCount();
+
+    /**
+     * @return The configured max number of cached nodes, 0 if the cache is disabled
+     */
+    long getMaxCachedNodesCount();
+
+    long getHits();
+
+    long getMisses();
+
+    /**
+     * @return The ratio of node lookups served from memory, between 0 and 1
+     */
+    double getHitRatio();
+
+    /**
+     * @return The number of nodes invalidated by writes of this server
+     */
+    long getInvalidations();
+
+    /**
+     * @return The number of nodes invalidated by writes of other cluster members
+     */
+    long getClusterInvalidations();
+}
@@ -0,0 +1,57 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.mbean;
+
+import org.artifactory.storage.db.fs.service.AbstractStatsService;
+
+/**
+ * StatsMBean implementation.
+ */
+public class ManagedStats implements ManagedStatsMBean {
+    private final AbstractStatsService statsService;
+
+    public ManagedStats(AbstractStatsService statsService) {
+        this.statsService = statsService;
+    }
+
+    @Override
+    public int getQueuedEvents() {
+        return statsService.getQueuedEventsCount();
+    }
+
+    @Override
+    public long getDroppedEvents() {
+        return statsService.getDroppedEventsCount();
+    }
+
+    @Override
+    public long getFlushedEvents() {
+        return statsService.getFlushedEventsCount();
+    }
+
+    @Override
+    public long getLastFlushMillis() {
+        return statsService.getLastFlushMillis();
+    }
+
+    @Override
+    public long getMaxFlushMillis() {
+        return statsService.getMaxFlushMillis();
+    }
+}
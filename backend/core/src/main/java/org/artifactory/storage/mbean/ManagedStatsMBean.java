@@ -0,0 +1,47 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.mbean;
+
+/**
+ * Download statistics queue and flush metrics.
+ */
+public interface ManagedStatsMBean {
+
+    /**
+     * @return The number of events (distinct paths) waiting to be flushed
+     */
+    int getQueuedEvents();
+
+    /**
+     * @return The number of download events dropped since the queue reached its max size
+     */
+    long getDroppedEvents();
+
+    long getFlushedEvents();
+
+    /**
+     * @return The duration in millis of the last flush
+     */
+    long getLastFlushMillis();
+
+    /**
+     * @return The longest duration in millis of a single flush
+     */
+    long getMaxFlushMillis();
+}
@@ -56,10 +56,18 @@ import org.artifactory.storage.binstore.service.BinaryStoreGarbageCollectorJob;
 import org.artifactory.storage.binstore.service.FileBinaryProvider;
 import org.artifactory.storage.binstore.service.InternalBinaryStore;
 import org.artifactory.storage.binstore.service.providers.FileCacheBinaryProviderImpl;
+import org.artifactory.storage.binstore.service.providers.MemoryCacheBinaryProviderImpl;
 import org.artifactory.storage.db.DbService;
 import org.artifactory.storage.db.DbType;
+import org.artifactory.storage.db.fs.service.AbstractStatsService;
+import org.artifactory.storage.db.fs.service.NodesCache;
+import org.artifactory.storage.db.fs.service.StatsPersistingService;
 import org.artifactory.storage.fs.repo.RepoStorageSummary;
 import org.artifactory.storage.fs.service.FileService;
+import org.artifactory.storage.mbean.ManagedCacheFs;
+import org.artifactory.storage.mbean.ManagedMemoryCache;
+import org.artifactory.storage.mbean.ManagedNodesCache;
+import org.artifactory.storage.mbean.ManagedStats;
 import org.artifactory.storage.mbean.ManagedStorage;
 import org.artifactory.version.CompoundVersionDetails;
 import org.slf4j.Logger;
@@ -270,13 +278,36 @@ public class StorageServiceImpl implements InternalStorageService {
     public void init() {
         derbyUsed = dbService.getDatabaseType() == DbType.DERBY;
 
-        ContextHelper.get().beanForType(MBeanRegistrationService.class).
-                register(new ManagedStorage(binaryStore), "Storage", "Binary Storage");
+        MBeanRegistrationService mBeanRegistrationService =
+                ContextHelper.get().beanForType(MBeanRegistrationService.class);
+        mBeanRegistrationService.register(new ManagedStorage(binaryStore), "Storage", "Binary Storage");
+        for (Map.Entry<FileBinaryProvider, File> entry : binaryStore.getBinariesDirs().entrySet()) {
+            if (entry.getKey() instanceof FileCacheBinaryProviderImpl) {
+                mBeanRegistrationService.register(new ManagedCacheFs((FileCacheBinaryProviderImpl) entry.getKey()),
+                        "Storage", "Cache FS " + entry.getValue().getName());
+            }
+        }
+        for (MemoryCacheBinaryProviderImpl memoryProvider : binaryStore.getMemoryCacheProviders()) {
+            mBeanRegistrationService.register(new ManagedMemoryCache(memoryProvider),
+                    "Storage", "Memory Cache " + memoryProvider.getProviderMetaData().getId());
+        }
+        registerStatsMBean(mBeanRegistrationService, StatsPersistingService.class, "Download Stats");
+        registerStatsMBean(mBeanRegistrationService, StatsDelegatingService.class, "Download Stats Delegation");
+        mBeanRegistrationService.register(new ManagedNodesCache(ContextHelper.get().beanForType(NodesCache.class)),
+                "Storage", "Nodes Cache");
 
         CentralConfigDescriptor descriptor = centralConfigService.getDescriptor();
         new GcSchedulerHandler(descriptor.getGcConfig(), null).reschedule();
     }
 
+    private void registerStatsMBean(MBeanRegistrationService mBeanRegistrationService, Class<?> statsServiceType,
+            String name) {
+        Object statsService = ContextHelper.get().beanForType(statsServiceType);
+        if (statsService instanceof AbstractStatsService) {
+            mBeanRegistrationService.register(new ManagedStats((AbstractStatsService) statsService), "Storage", name);
+        }
+    }
+
     @Override
     public void reload(CentralConfigDescriptor oldDescriptor) {
         CentralConfigDescriptor descriptor = centralConfigService.getDescriptor();
@@ -0,0 +1,271 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.download;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.io.IOUtils;
+import org.artifactory.api.archive.ArchiveType;
+import org.artifactory.api.common.BasicStatusHolder;
+import org.artifactory.api.context.ArtifactoryContextThreadBinder;
+import org.artifactory.api.repo.RepositoryService;
+import org.artifactory.api.repo.RootNodesFilterResult;
+import org.artifactory.common.ConstantValues;
+import org.artifactory.fs.ItemInfo;
+import org.artifactory.io.SimpleResourceStreamHandle;
+import org.artifactory.model.xstream.fs.FileInfoImpl;
+import org.artifactory.model.xstream.fs.FolderInfoImpl;
+import org.artifactory.repo.RepoPath;
+import org.artifactory.repo.RepoPathFactory;
+import org.artifactory.resource.ResourceStreamHandle;
+import org.artifactory.schedule.CachedThreadPoolTaskExecutor;
+import org.artifactory.spring.InternalArtifactoryContext;
+import org.artifactory.storage.fs.tree.FileNode;
+import org.artifactory.storage.fs.tree.ItemNode;
+import org.artifactory.test.ArtifactoryHomeBoundTest;
+import org.artifactory.test.mock.MockUtils;
+import org.artifactory.traffic.TrafficService;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.easymock.EasyMock.*;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the read ahead of the files of folder downloads by the {@link FolderArchiveStreamer}.
+ */
+@Test
+public class FolderArchiveStreamerTest extends ArtifactoryHomeBoundTest {
+    private static final int MAX_READS = 4;
+
+    private InternalArtifactoryContext context;
+    private RepositoryService repositoryService;
+    private CachedThreadPoolTaskExecutor executor;
+    private Semaphore readAheadPermits;
+    private FolderArchiveStreamer streamer;
+
+    @BeforeMethod
+    public void setUp() {
+        getBound().setProperty(ConstantValues.folderDownloadReadAheadMaxFileSizeKb, "1");
+        getBound().setProperty(ConstantValues.downloadStatsEnabled, "false");
+        context = MockUtils.getThreadBoundedMockContext();
+        expect(context.getArtifactoryHome()).andReturn(getBound()).anyTimes();
+        expect(context.beanForType(TrafficService.class)).andReturn(createNiceMock(TrafficService.class)).anyTimes();
+        replay(context);
+        repositoryService = createMock(RepositoryService.class);
+        executor = new CachedThreadPoolTaskExecutor();
+        readAheadPermits = new Semaphore(MAX_READS);
+        streamer = new FolderArchiveStreamer(RepoPathFactory.create("libs", "root"), ArchiveType.ZIP, 100, 100,
+                new BasicStatusHolder(), readAheadPermits);
+        ReflectionTestUtils.setField(streamer, "executor", executor);
+        ReflectionTestUtils.setField(streamer, "repositoryService", repositoryService);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.destroy();
+        ArtifactoryContextThreadBinder.unbind();
+    }
+
+    public void readAheadCompressedFileStored() throws Exception {
+        byte[] jar = content(600);
+        byte[] text = content(300);
+        ItemNode root = folder(file("lib.jar", jar), file("readme.txt", text));
+        replay(repositoryService);
+
+        Map<String, ZipEntry> entries = Maps.newHashMap();
+        Map<String, byte[]> contents = Maps.newHashMap();
+        readZip(writeArchive(root), entries, contents);
+
+        ZipEntry jarEntry = entries.get("lib.jar");
+        assertEquals(jarEntry.getMethod(), ZipEntry.STORED);
+        assertEquals(jarEntry.getSize(), jar.length);
+        assertEquals(jarEntry.getCrc(), crc(jar));
+        assertEquals(contents.get("lib.jar"), jar);
+        assertEquals(entries.get("readme.txt").getMethod(), ZipEntry.DEFLATED);
+        assertEquals(contents.get("readme.txt"), text);
+        // each file is read once
+        verify(repositoryService);
+        assertEquals(readAheadPermits.availablePermits(), MAX_READS);
+    }
+
+    public void fileAboveSizeLimitStreamed() throws Exception {
+        byte[] big = content(4096);
+        byte[] small = content(100);
+        ItemNode root = folder(file("big.jar", big), file("small.jar", small));
+        replay(repositoryService);
+
+        Map<String, ZipEntry> entries = Maps.newHashMap();
+        Map<String, byte[]> contents = Maps.newHashMap();
+        readZip(writeArchive(root), entries, contents);
+
+        assertEquals(entries.get("big.jar").getMethod(), ZipEntry.DEFLATED, "Streamed files are not stored");
+        assertEquals(contents.get("big.jar"), big);
+        assertEquals(entries.get("small.jar").getMethod(), ZipEntry.STORED);
+        assertEquals(contents.get("small.jar"), small);
+        verify(repositoryService);
+        assertEquals(readAheadPermits.availablePermits(), MAX_READS);
+    }
+
+    public void pendingReadsCancelledOnError() throws Exception {
+        RepoPath brokenPath = RepoPathFactory.create("libs", "root/broken.bin");
+        FileInfoImpl broken = new FileInfoImpl(brokenPath);
+        broken.setSize(4096);
+        expect(repositoryService.getResourceStreamHandle(brokenPath)).andThrow(new RuntimeException("Broken"));
+        List<ItemNode> files = Lists.newArrayList(new FileNode(broken));
+        AtomicInteger startedReads = new AtomicInteger();
+        AtomicInteger interruptedReads = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            FileInfoImpl blocked = new FileInfoImpl(RepoPathFactory.create("libs", "root/blocked" + i + ".bin"));
+            blocked.setSize(10);
+            expect(repositoryService.getResourceStreamHandle(blocked.getRepoPath()))
+                    .andAnswer(() -> blockingHandle(startedReads, interruptedReads)).times(0, 1);
+            files.add(new FileNode(blocked));
+        }
+        replay(repositoryService);
+
+        try {
+            writeArchive(folder(files.toArray(new ItemNode[files.size()])));
+            fail("Expected the broken file to fail the download");
+        } catch (RuntimeException e) {
+            assertEquals(e.getMessage(), "Broken");
+        }
+
+        // the reads which did not start are dropped and the blocked reads are interrupted
+        long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (readAheadPermits.availablePermits() < MAX_READS && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertEquals(readAheadPermits.availablePermits(), MAX_READS);
+        assertEquals(interruptedReads.get(), startedReads.get());
+    }
+
+    private byte[] writeArchive(ItemNode root) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamer.writeArchive(out, root);
+        return out.toByteArray();
+    }
+
+    private FileNode file(String name, byte[] content) {
+        FileInfoImpl fileInfo = new FileInfoImpl(RepoPathFactory.create("libs", "root/" + name));
+        fileInfo.setSize(content.length);
+        expect(repositoryService.getResourceStreamHandle(fileInfo.getRepoPath()))
+                .andReturn(new SimpleResourceStreamHandle(new ByteArrayInputStream(content), content.length));
+        return new FileNode(fileInfo);
+    }
+
+    private static ItemNode folder(ItemNode... children) {
+        return new TestFolderNode(Lists.newArrayList(children));
+    }
+
+    private static ResourceStreamHandle blockingHandle(AtomicInteger startedReads, AtomicInteger interruptedReads) {
+        startedReads.incrementAndGet();
+        CountDownLatch never = new CountDownLatch(1);
+        return new SimpleResourceStreamHandle(new InputStream() {
+            @Override
+            public int read() throws IOException {
+                try {
+                    never.await();
+                    return -1;
+                } catch (InterruptedException e) {
+                    interruptedReads.incrementAndGet();
+                    throw new InterruptedIOException();
+                }
+            }
+        });
+    }
+
+    private static void readZip(byte[] zip, Map<String, ZipEntry> entries, Map<String, byte[]> contents)
+            throws IOException {
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                contents.put(entry.getName(), IOUtils.toByteArray(in));
+                entries.put(entry.getName(), entry);
+            }
+        }
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i % 31);
+        }
+        return content;
+    }
+
+    private static long crc(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    /**
+     * A folder node with fixed children
+     */
+    private static class TestFolderNode extends ItemNode {
+        private final List<ItemNode> children;
+
+        private TestFolderNode(List<ItemNode> children) {
+            super(new FolderInfoImpl(RepoPathFactory.create("libs", "root")));
+            this.children = children;
+        }
+
+        @Override
+        public List<ItemNode> getChildren() {
+            return children;
+        }
+
+        @Override
+        public List<ItemNode> getChildren(boolean returnAcceptedNode, RootNodesFilterResult browsableItemAccept) {
+            return children;
+        }
+
+        @Override
+        public List<ItemInfo> getChildrenInfo() {
+            List<ItemInfo> childrenInfo = Lists.newArrayList();
+            for (ItemNode child : children) {
+                childrenInfo.add(child.getItemInfo());
+            }
+            return childrenInfo;
+        }
+
+        @Override
+        public boolean hasChildren() {
+            return !children.isEmpty();
+        }
+    }
+}
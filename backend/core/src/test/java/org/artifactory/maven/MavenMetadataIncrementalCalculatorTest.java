@@ -0,0 +1,213 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.maven;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.Snapshot;
+import org.apache.maven.artifact.repository.metadata.SnapshotVersion;
+import org.apache.maven.artifact.repository.metadata.Versioning;
+import org.artifactory.descriptor.repo.LocalRepoDescriptor;
+import org.artifactory.descriptor.repo.SnapshotVersionBehavior;
+import org.artifactory.model.common.RepoPathImpl;
+import org.artifactory.repo.RepoPath;
+import org.artifactory.repo.service.InternalRepositoryService;
+import org.artifactory.test.ArtifactoryHomeBoundTest;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.easymock.EasyMock.*;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the versions and the snapshot metadata updates of the {@link MavenMetadataIncrementalCalculator}.
+ */
+@Test
+public class MavenMetadataIncrementalCalculatorTest extends ArtifactoryHomeBoundTest {
+    private static final RepoPath ARTIFACT_FOLDER = new RepoPathImpl("libs", "org/acme/acme-core");
+    private static final RepoPath SNAPSHOT_FOLDER = new RepoPathImpl(ARTIFACT_FOLDER, "1.0-SNAPSHOT");
+
+    public void addVersion() throws Exception {
+        TestCalculator calculator = new TestCalculator(metadata("acme-core", "1.0", "1.2", "2.0-SNAPSHOT"));
+        assertTrue(calculator.versionsChanged(ARTIFACT_FOLDER, ImmutableMap.of("1.1", true)));
+
+        Versioning versioning = calculator.saved.getVersioning();
+        assertEquals(versioning.getVersions(), Arrays.asList("1.0", "1.1", "1.2", "2.0-SNAPSHOT"));
+        assertEquals(versioning.getLatest(), "2.0-SNAPSHOT");
+        assertEquals(versioning.getRelease(), "1.2");
+    }
+
+    public void removeVersions() throws Exception {
+        TestCalculator calculator = new TestCalculator(metadata("acme-core", "1.0", "1.2", "2.0-SNAPSHOT"));
+        assertTrue(calculator.versionsChanged(ARTIFACT_FOLDER, ImmutableMap.of("1.2", false, "2.0-SNAPSHOT", false)));
+
+        Versioning versioning = calculator.saved.getVersioning();
+        assertEquals(versioning.getVersions(), Arrays.asList("1.0"));
+        assertEquals(versioning.getLatest(), "1.0");
+        assertEquals(versioning.getRelease(), "1.0");
+    }
+
+    public void comparatorEqualVersionsKept() throws Exception {
+        TestCalculator calculator = new TestCalculator(metadata("acme-core", "1.0", "1.1"));
+        assertTrue(calculator.versionsChanged(ARTIFACT_FOLDER, ImmutableMap.of("1.0.0", true)));
+
+        assertEquals(calculator.saved.getVersioning().getVersions(), Arrays.asList("1.0", "1.0.0", "1.1"));
+    }
+
+    public void unchangedVersionsNotSaved() throws Exception {
+        TestCalculator calculator = new TestCalculator(metadata("acme-core", "1.0", "1.2"));
+        assertTrue(calculator.versionsChanged(ARTIFACT_FOLDER, ImmutableMap.of("1.2", true, "1.3", false)));
+        assertNull(calculator.saved);
+    }
+
+    public void missingMetadataRequiresFullCalculation() {
+        TestCalculator calculator = new TestCalculator(null);
+        assertFalse(calculator.versionsChanged(ARTIFACT_FOLDER, ImmutableMap.of("1.0", true)));
+        assertNull(calculator.saved);
+    }
+
+    public void removingLastVersionRequiresFullCalculation() throws Exception {
+        TestCalculator calculator = new TestCalculator(metadata("acme-core", "1.0"));
+        assertFalse(calculator.versionsChanged(ARTIFACT_FOLDER, ImmutableMap.of("1.0", false)));
+        assertNull(calculator.saved);
+    }
+
+    public void otherArtifactRequiresFullCalculation() throws Exception {
+        TestCalculator calculator = new TestCalculator(metadata("acme-api", "1.0"));
+        assertFalse(calculator.versionsChanged(ARTIFACT_FOLDER, ImmutableMap.of("1.1", true)));
+        assertNull(calculator.saved);
+    }
+
+    public void snapshotPomAdded() throws Exception {
+        TestCalculator calculator = new TestCalculator(SNAPSHOT_FOLDER, snapshotMetadata(),
+                SnapshotVersionBehavior.UNIQUE);
+        assertTrue(calculator.snapshotAdded(new RepoPathImpl(SNAPSHOT_FOLDER, "acme-core-1.0-20261018.101010-3.pom")));
+
+        Versioning versioning = calculator.saved.getVersioning();
+        assertEquals(versioning.getSnapshot().getTimestamp(), "20261018.101010");
+        assertEquals(versioning.getSnapshot().getBuildNumber(), 3);
+        List<SnapshotVersion> snapshotVersions = versioning.getSnapshotVersions();
+        assertEquals(snapshotVersions.size(), 2);
+        assertEquals(snapshotVersions.get(0).getVersion(), "1.0-20261017.090000-2", "The jar is not changed");
+        assertEquals(snapshotVersions.get(1).getExtension(), "pom");
+        assertEquals(snapshotVersions.get(1).getVersion(), "1.0-20261018.101010-3");
+    }
+
+    public void snapshotClassifierAdded() throws Exception {
+        TestCalculator calculator = new TestCalculator(SNAPSHOT_FOLDER, snapshotMetadata(),
+                SnapshotVersionBehavior.UNIQUE);
+        assertTrue(calculator.snapshotAdded(
+                new RepoPathImpl(SNAPSHOT_FOLDER, "acme-core-1.0-20261017.090000-2-sources.jar")));
+
+        Versioning versioning = calculator.saved.getVersioning();
+        assertEquals(versioning.getSnapshot().getBuildNumber(), 2, "Only a pom changes the snapshot");
+        List<SnapshotVersion> snapshotVersions = versioning.getSnapshotVersions();
+        assertEquals(snapshotVersions.size(), 3);
+        assertEquals(snapshotVersions.get(2).getClassifier(), "sources");
+        assertEquals(snapshotVersions.get(2).getVersion(), "1.0-20261017.090000-2");
+    }
+
+    public void olderSnapshotPomDoesNotReplaceLatest() throws Exception {
+        TestCalculator calculator = new TestCalculator(SNAPSHOT_FOLDER, snapshotMetadata(),
+                SnapshotVersionBehavior.UNIQUE);
+        assertTrue(calculator.snapshotAdded(new RepoPathImpl(SNAPSHOT_FOLDER, "acme-core-1.0-20261016.080000-1.pom")));
+
+        Versioning versioning = calculator.saved.getVersioning();
+        assertEquals(versioning.getSnapshot().getBuildNumber(), 2);
+        assertEquals(versioning.getSnapshotVersions().get(1).getVersion(), "1.0-20261017.090000-2");
+    }
+
+    public void nonUniqueSnapshotRepoRequiresFullCalculation() throws Exception {
+        TestCalculator calculator = new TestCalculator(SNAPSHOT_FOLDER, snapshotMetadata(),
+                SnapshotVersionBehavior.NONUNIQUE);
+        assertFalse(calculator.snapshotAdded(new RepoPathImpl(SNAPSHOT_FOLDER, "acme-core-1.0-20261018.101010-3.pom")));
+        assertNull(calculator.saved);
+    }
+
+    private static String snapshotMetadata() throws Exception {
+        Metadata metadata = new Metadata();
+        metadata.setGroupId("org.acme");
+        metadata.setArtifactId("acme-core");
+        metadata.setVersion("1.0-SNAPSHOT");
+        Versioning versioning = new Versioning();
+        Snapshot snapshot = new Snapshot();
+        snapshot.setTimestamp("20261017.090000");
+        snapshot.setBuildNumber(2);
+        versioning.setSnapshot(snapshot);
+        versioning.addSnapshotVersion(snapshotVersion("jar"));
+        versioning.addSnapshotVersion(snapshotVersion("pom"));
+        metadata.setVersioning(versioning);
+        return MavenModelUtils.mavenMetadataToString(metadata);
+    }
+
+    private static SnapshotVersion snapshotVersion(String extension) {
+        SnapshotVersion snapshotVersion = new SnapshotVersion();
+        snapshotVersion.setExtension(extension);
+        snapshotVersion.setVersion("1.0-20261017.090000-2");
+        snapshotVersion.setUpdated("20261017090000");
+        return snapshotVersion;
+    }
+
+    private static String metadata(String artifactId, String... versions) throws Exception {
+        Metadata metadata = new Metadata();
+        metadata.setGroupId("org.acme");
+        metadata.setArtifactId(artifactId);
+        Versioning versioning = new Versioning();
+        versioning.setVersions(Arrays.asList(versions));
+        versioning.setLatest(versions[versions.length - 1]);
+        metadata.setVersioning(versioning);
+        return MavenModelUtils.mavenMetadataToString(metadata);
+    }
+
+    private static class TestCalculator extends MavenMetadataIncrementalCalculator {
+        private final InternalRepositoryService repositoryService = createMock(InternalRepositoryService.class);
+        private final RepoPath folder;
+        private Metadata saved;
+
+        private TestCalculator(String storedMetadata) {
+            this(ARTIFACT_FOLDER, storedMetadata, SnapshotVersionBehavior.UNIQUE);
+        }
+
+        private TestCalculator(RepoPath folder, String storedMetadata, SnapshotVersionBehavior snapshotBehavior) {
+            this.folder = folder;
+            RepoPath metadataPath = new RepoPathImpl(folder, "maven-metadata.xml");
+            LocalRepoDescriptor repoDescriptor = new LocalRepoDescriptor();
+            repoDescriptor.setKey(folder.getRepoKey());
+            repoDescriptor.setSnapshotVersionBehavior(snapshotBehavior);
+            expect(repositoryService.exists(metadataPath)).andReturn(storedMetadata != null).anyTimes();
+            expect(repositoryService.getStringContent(metadataPath)).andReturn(storedMetadata).anyTimes();
+            expect(repositoryService.localOrCachedRepoDescriptorByKey(folder.getRepoKey()))
+                    .andReturn(repoDescriptor).anyTimes();
+            replay(repositoryService);
+        }
+
+        @Override
+        protected InternalRepositoryService getRepositoryService() {
+            return repositoryService;
+        }
+
+        @Override
+        protected void saveMetadata(RepoPath repoPath, Metadata metadata) {
+            assertEquals(repoPath, folder);
+            saved = metadata;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.maven.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.apache.commons.io.FileUtils;
+import org.apache.lucene.analysis.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Version;
+import org.apache.maven.index.ArtifactContext;
+import org.apache.maven.index.ArtifactInfo;
+import org.apache.maven.index.IndexerEngine;
+import org.apache.maven.index.ScanningRequest;
+import org.apache.maven.index.artifact.Gav;
+import org.apache.maven.index.artifact.M2GavCalculator;
+import org.apache.maven.index.context.IndexingContext;
+import org.artifactory.fs.FileInfo;
+import org.artifactory.repo.RepoPathFactory;
+import org.artifactory.storage.fs.tree.FileNode;
+import org.artifactory.storage.fs.tree.file.JavaIOFileAdapter;
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.easymock.EasyMock.*;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the incremental scanning of the {@link ArtifactoryContentScanner} with the {@link RepoIndexScannerListener}.
+ */
+@Test
+public class ArtifactoryContentScannerTest {
+    private static final String CORE = "org.acme|core|1.0|NA";
+    private static final String LIB = "org.acme|lib|1.0|NA";
+    private static final String PARENT = "org.acme|parent|1.0|NA";
+    private static final String GONE = "org.acme|gone|1.0|NA";
+    private static final String ADDED = "org.acme|added|2.0|NA";
+
+    private File repoDir;
+    private long modifiedSince;
+    private RAMDirectory indexDirectory;
+    private IndexWriter indexWriter;
+    private IndexingContext context;
+    private List<String> readFiles;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        repoDir = File.createTempFile("maven-index", "repo");
+        assertTrue(repoDir.delete() && repoDir.mkdirs());
+        // unmodified version folder, kept without being read
+        createFile("org/acme/core/1.0/core-1.0.jar");
+        createFile("org/acme/core/1.0/core-1.0.pom");
+        // unmodified folder whose jar was deleted, the pom must not keep the jar document
+        createFile("org/acme/lib/1.0/lib-1.0.pom");
+        // unmodified pom only artifact
+        createFile("org/acme/parent/1.0/parent-1.0.pom");
+        modifiedSince = System.currentTimeMillis() - 60000;
+        setLastModified(repoDir, modifiedSince - 60000);
+        // files added since the last scan
+        createFile("org/acme/added/2.0/added-2.0.jar").setLastModified(modifiedSince + 1000);
+        createFile("org/acme/added/2.0/added-2.0.pom").setLastModified(modifiedSince + 1000);
+
+        indexDirectory = new RAMDirectory();
+        indexWriter = new IndexWriter(indexDirectory,
+                new IndexWriterConfig(Version.LUCENE_CURRENT, new KeywordAnalyzer()));
+        addDocument(CORE, "jar");
+        addDocument(LIB, "jar");
+        addDocument(PARENT, "pom");
+        addDocument(GONE, "jar");
+        indexWriter.commit();
+
+        context = createNiceMock(IndexingContext.class);
+        expect(context.getRepository()).andReturn(repoDir).anyTimes();
+        expect(context.getRepositoryId()).andReturn("libs").anyTimes();
+        expect(context.getGavCalculator()).andReturn(new M2GavCalculator()).anyTimes();
+        expect(context.acquireIndexSearcher()).andReturn(new IndexSearcher(IndexReader.open(indexDirectory)));
+        expect(context.getIndexWriter()).andReturn(indexWriter).anyTimes();
+        replay(context);
+        readFiles = Collections.synchronizedList(Lists.<String>newArrayList());
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        indexWriter.close();
+        FileUtils.deleteQuietly(repoDir);
+    }
+
+    public void scanModified() throws Exception {
+        IndexerEngine indexerEngine = createNiceMock(IndexerEngine.class);
+        Capture<ArtifactContext> indexed = new Capture<>(CaptureType.ALL);
+        indexerEngine.index(same(context), capture(indexed));
+        expectLastCall().anyTimes();
+        Capture<ArtifactContext> updated = new Capture<>(CaptureType.ALL);
+        indexerEngine.update(same(context), capture(updated));
+        expectLastCall().anyTimes();
+        replay(indexerEngine);
+        RepoIndexScannerListener listener = new RepoIndexScannerListener(context, indexerEngine, null, null, 1);
+
+        createScanner().scanModified(new ScanningRequest(context, listener, null), modifiedSince);
+
+        assertEquals(uinfos(indexed.getValues()), Sets.newHashSet(ADDED));
+        assertEquals(uinfos(updated.getValues()), Sets.newHashSet(LIB), "The pom should replace the jar document");
+        assertEquals(Sets.newHashSet(readFiles),
+                Sets.newHashSet("added-2.0.jar", "added-2.0.pom", "lib-1.0.pom"),
+                "Only the modified folders and the not indexed files should be read");
+        indexWriter.commit();
+        assertEquals(indexedUinfos(), Sets.newHashSet(CORE, LIB, PARENT), "The vanished artifact should be removed");
+        assertEquals(listener.toString(), "2 indexed, 2 kept, 1 removed, 0 failed");
+    }
+
+    public void fullScanReadsAllFiles() throws Exception {
+        IndexerEngine indexerEngine = createNiceMock(IndexerEngine.class);
+        replay(indexerEngine);
+        RepoIndexScannerListener listener = new RepoIndexScannerListener(context, indexerEngine, null, null, 1);
+
+        createScanner().scan(new ScanningRequest(context, listener, null));
+
+        assertEquals(readFiles.size(), 6);
+        indexWriter.commit();
+        assertEquals(indexedUinfos(), Sets.newHashSet(CORE, LIB, PARENT));
+    }
+
+    public void redeployedWithOlderLastModifiedIsModified() {
+        FileInfo info = createNiceMock(FileInfo.class);
+        expect(info.getRepoPath()).andReturn(RepoPathFactory.create("libs", "org/acme/core/1.0/core-1.0.jar"))
+                .anyTimes();
+        expect(info.getLastModified()).andReturn(modifiedSince - 60000).anyTimes();
+        expect(info.getLastUpdated()).andReturn(modifiedSince + 1000).anyTimes();
+        replay(info);
+
+        JavaIOFileAdapter file = new JavaIOFileAdapter(new FileNode(info));
+        assertEquals(ArtifactoryContentScanner.getLastUpdated(file), modifiedSince + 1000,
+                "The client provided last modified time should be ignored");
+    }
+
+    private ArtifactoryContentScanner createScanner() {
+        return new ArtifactoryContentScanner(new ArtifactoryArtifactContextProducer() {
+            @Override
+            public ArtifactContext getArtifactContext(IndexingContext indexingContext, File file) {
+                readFiles.add(file.getName());
+                String path = file.getAbsolutePath().substring(repoDir.getAbsolutePath().length() + 1);
+                Gav gav = indexingContext.getGavCalculator().pathToGav(path.replace('\\', '/'));
+                ArtifactInfo ai = new ArtifactInfo(indexingContext.getRepositoryId(), gav.getGroupId(),
+                        gav.getArtifactId(), gav.getBaseVersion(), gav.getClassifier());
+                boolean pom = file.getName().endsWith(".pom");
+                return new ArtifactContext(pom ? file : null, pom ? null : file, null, ai, gav);
+            }
+        });
+    }
+
+    private File createFile(String path) throws IOException {
+        File file = new File(repoDir, path);
+        FileUtils.writeStringToFile(file, path);
+        return file;
+    }
+
+    private static void setLastModified(File file, long lastModified) {
+        if (file.isDirectory()) {
+            for (File child : file.listFiles()) {
+                setLastModified(child, lastModified);
+            }
+        }
+        assertTrue(file.setLastModified(lastModified));
+    }
+
+    private void addDocument(String uinfo, String extension) throws IOException {
+        Document document = new Document();
+        document.add(new Field(ArtifactInfo.UINFO, uinfo, Field.Store.YES, Field.Index.NOT_ANALYZED));
+        document.add(new Field(ArtifactInfo.INFO, "jar|1000|10|0|0|0|" + extension, Field.Store.YES,
+                Field.Index.NO));
+        indexWriter.addDocument(document);
+    }
+
+    private Set<String> indexedUinfos() throws IOException {
+        Set<String> uinfos = Sets.newHashSet();
+        try (IndexReader reader = IndexReader.open(indexDirectory)) {
+            for (int i = 0; i < reader.maxDoc(); i++) {
+                if (!reader.isDeleted(i)) {
+                    uinfos.add(reader.document(i).get(ArtifactInfo.UINFO));
+                }
+            }
+        }
+        return uinfos;
+    }
+
+    private static Set<String> uinfos(List<ArtifactContext> artifactContexts) {
+        Set<String> uinfos = Sets.newHashSet();
+        for (ArtifactContext artifactContext : artifactContexts) {
+            uinfos.add(artifactContext.getArtifactInfo().getUinfo());
+        }
+        return uinfos;
+    }
+}
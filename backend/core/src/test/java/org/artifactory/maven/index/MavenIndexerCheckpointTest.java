@@ -0,0 +1,89 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.maven.index;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the resuming of Maven indexing runs by the {@link MavenIndexerCheckpoint}.
+ */
+@Test
+public class MavenIndexerCheckpointTest {
+    private static final long MAX_AGE = TimeUnit.HOURS.toMillis(1);
+
+    private File file;
+
+    @BeforeMethod
+    public void createFile() throws IOException {
+        file = File.createTempFile("maven-indexer", ".checkpoint");
+        assertTrue(file.delete());
+    }
+
+    @AfterMethod
+    public void deleteFile() {
+        FileUtils.deleteQuietly(file);
+    }
+
+    public void resumeIndexedRepos() {
+        MavenIndexerCheckpoint checkpoint = MavenIndexerCheckpoint.resume(file, MAX_AGE);
+        assertTrue(file.exists());
+        assertFalse(checkpoint.isIndexed("libs-release-local"));
+        checkpoint.indexed("libs-release-local");
+        checkpoint.indexed("repo1-cache");
+
+        MavenIndexerCheckpoint resumed = MavenIndexerCheckpoint.resume(file, MAX_AGE);
+        assertTrue(resumed.isIndexed("libs-release-local"));
+        assertTrue(resumed.isIndexed("repo1-cache"));
+        assertFalse(resumed.isIndexed("libs-snapshot-local"));
+    }
+
+    public void completedRunNotResumed() {
+        MavenIndexerCheckpoint checkpoint = MavenIndexerCheckpoint.resume(file, MAX_AGE);
+        checkpoint.indexed("libs-release-local");
+        checkpoint.complete();
+        assertFalse(file.exists());
+
+        assertFalse(MavenIndexerCheckpoint.resume(file, MAX_AGE).isIndexed("libs-release-local"));
+    }
+
+    public void expiredRunNotResumed() throws Exception {
+        MavenIndexerCheckpoint.resume(file, MAX_AGE).indexed("libs-release-local");
+        Thread.sleep(5);
+
+        assertFalse(MavenIndexerCheckpoint.resume(file, 1).isIndexed("libs-release-local"));
+    }
+
+    public void invalidCheckpointIgnored() throws Exception {
+        FileUtils.writeStringToFile(file, "started=yesterday");
+
+        MavenIndexerCheckpoint checkpoint = MavenIndexerCheckpoint.resume(file, MAX_AGE);
+        assertFalse(checkpoint.isIndexed("libs-release-local"));
+        checkpoint.indexed("libs-release-local");
+        assertTrue(MavenIndexerCheckpoint.resume(file, MAX_AGE).isIndexed("libs-release-local"));
+    }
+}
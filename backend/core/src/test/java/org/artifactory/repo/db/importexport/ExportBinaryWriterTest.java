@@ -0,0 +1,168 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.repo.db.importexport;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.io.FileUtils;
+import org.artifactory.storage.binstore.service.BinaryStore;
+import org.artifactory.storage.binstore.service.FileBinaryProvider;
+import org.artifactory.storage.binstore.service.InternalBinaryStore;
+import org.artifactory.storage.binstore.service.providers.FileBinaryProviderImpl;
+import org.easymock.IExpectationSetters;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import static org.easymock.EasyMock.*;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the linking and copying of the exported binaries by the {@link ExportBinaryWriter}.
+ */
+@Test
+public class ExportBinaryWriterTest {
+    private static final String SHA1 = "ad2b5a3e5ee6d1ab5c5c2c8c7ec8bbd3ba5c0b1f";
+    private static final String OTHER_SHA1 = "b5fd8e3c0c6d6f7f7a7ae2c6d52ff3be11c4b2f7";
+
+    private File baseDir;
+    private File exportDir;
+
+    @BeforeMethod
+    public void createDirs() throws IOException {
+        baseDir = Files.createTempDirectory("export-binary-writer").toFile();
+        exportDir = new File(baseDir, "export");
+        FileUtils.forceMkdir(exportDir);
+    }
+
+    @AfterMethod
+    public void deleteDirs() {
+        FileUtils.deleteQuietly(baseDir);
+    }
+
+    public void copyWhenLinksDisabled() throws IOException {
+        BinaryStore binaryStore = createMock(BinaryStore.class);
+        expectBinary(binaryStore, SHA1, "content").times(2);
+        replay(binaryStore);
+        ExportBinaryWriter writer = new ExportBinaryWriter(binaryStore, exportDir, false);
+
+        File first = new File(exportDir, "first.jar");
+        File second = new File(exportDir, "second.jar");
+        assertTrue(writer.write(SHA1, first));
+        assertTrue(writer.write(SHA1, second));
+
+        assertEquals(FileUtils.readFileToString(second), "content");
+        assertFalse(Files.isSameFile(first.toPath(), second.toPath()));
+        assertEquals(writer.getCopiedFiles(), 2);
+        assertEquals(writer.getLinkedFiles(), 0);
+        verify(binaryStore);
+    }
+
+    public void linkToFileExportedWithSameChecksum() throws IOException {
+        BinaryStore binaryStore = createMock(BinaryStore.class);
+        expectBinary(binaryStore, SHA1, "content").once();
+        replay(binaryStore);
+        ExportBinaryWriter writer = new ExportBinaryWriter(binaryStore, exportDir, true);
+
+        File first = new File(exportDir, "first.jar");
+        File second = new File(exportDir, "second.jar");
+        assertTrue(writer.write(SHA1, first));
+        assertFalse(writer.write(SHA1, second), "Expected the second file to be linked");
+
+        assertTrue(Files.isSameFile(first.toPath(), second.toPath()));
+        assertEquals(writer.getCopiedFiles(), 1);
+        assertEquals(writer.getLinkedFiles(), 1);
+        verify(binaryStore);
+    }
+
+    public void linkToFilestoreFile() throws IOException {
+        File binariesDir = new File(baseDir, "filestore");
+        File binaryFile = new File(binariesDir, SHA1.substring(0, 2) + "/" + SHA1);
+        FileUtils.writeStringToFile(binaryFile, "content");
+        InternalBinaryStore binaryStore = createFilestore(binariesDir, binaryFile);
+        replay(binaryStore);
+
+        File target = new File(exportDir, "lib.jar");
+        ExportBinaryWriter writer = new ExportBinaryWriter(binaryStore, exportDir, true);
+        assertFalse(writer.write(SHA1, target), "Expected the filestore file to be linked");
+
+        assertTrue(Files.isSameFile(binaryFile.toPath(), target.toPath()));
+        assertEquals(writer.getLinkedFiles(), 1);
+        verify(binaryStore);
+    }
+
+    public void copyWhenMissingFromFilestore() throws IOException {
+        File binariesDir = new File(baseDir, "filestore");
+        FileUtils.forceMkdir(binariesDir);
+        InternalBinaryStore binaryStore = createFilestore(binariesDir, new File(binariesDir, SHA1));
+        expectBinary(binaryStore, SHA1, "content").once();
+        replay(binaryStore);
+
+        File target = new File(exportDir, "lib.jar");
+        ExportBinaryWriter writer = new ExportBinaryWriter(binaryStore, exportDir, true);
+        assertTrue(writer.write(SHA1, target));
+
+        assertEquals(FileUtils.readFileToString(target), "content");
+        assertEquals(writer.getCopiedFiles(), 1);
+        verify(binaryStore);
+    }
+
+    public void replaceLinkedFileInsteadOfOverwriting() throws IOException {
+        BinaryStore binaryStore = createMock(BinaryStore.class);
+        expectBinary(binaryStore, SHA1, "content").once();
+        expectBinary(binaryStore, OTHER_SHA1, "modified content").once();
+        replay(binaryStore);
+        ExportBinaryWriter writer = new ExportBinaryWriter(binaryStore, exportDir, true);
+
+        File first = new File(exportDir, "first.jar");
+        File second = new File(exportDir, "second.jar");
+        writer.write(SHA1, first);
+        writer.write(SHA1, second);
+        // an incremental export of a modified second file
+        assertTrue(writer.write(OTHER_SHA1, second));
+
+        assertEquals(FileUtils.readFileToString(second), "modified content");
+        assertEquals(FileUtils.readFileToString(first), "content", "The linked file should not change");
+        verify(binaryStore);
+    }
+
+    /**
+     * @return A binary store with a single filestore which returns the given file for the {@link #SHA1} checksum
+     */
+    private InternalBinaryStore createFilestore(File binariesDir, File binaryFile) {
+        FileBinaryProviderImpl provider = createMock(FileBinaryProviderImpl.class);
+        expect(provider.getBinariesDir()).andReturn(binariesDir).anyTimes();
+        expect(provider.getFile(SHA1)).andReturn(binaryFile).anyTimes();
+        replay(provider);
+        InternalBinaryStore binaryStore = createMock(InternalBinaryStore.class);
+        expect(binaryStore.getBinariesDirs())
+                .andReturn(ImmutableMap.<FileBinaryProvider, File>of(provider, binariesDir)).anyTimes();
+        return binaryStore;
+    }
+
+    private static IExpectationSetters<InputStream> expectBinary(BinaryStore binaryStore, String sha1,
+            String content) {
+        return expect(binaryStore.getBinary(sha1)).andAnswer(() -> new ByteArrayInputStream(content.getBytes()));
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.repo.db.importexport;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.apache.commons.io.FileUtils;
+import org.artifactory.api.common.BasicStatusHolder;
+import org.artifactory.api.context.ArtifactoryContextThreadBinder;
+import org.artifactory.binstore.BinaryInfo;
+import org.artifactory.repo.RepoPath;
+import org.artifactory.repo.RepoPathFactory;
+import org.artifactory.spring.InternalArtifactoryContext;
+import org.artifactory.storage.binstore.service.BinaryInfoImpl;
+import org.artifactory.storage.binstore.service.InternalBinaryStore;
+import org.artifactory.test.ArtifactoryHomeBoundTest;
+import org.artifactory.test.mock.MockUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.easymock.EasyMock.*;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the scanning and the binaries loading stages of the repository import by the {@link ImportScanner}.
+ */
+@Test
+public class ImportScannerTest extends ArtifactoryHomeBoundTest {
+    private static final String ABC_SHA1 = "a9993e364706816aba3e25717850c26c9cd0d89d";
+    private static final String ABC_MD5 = "900150983cd24fb0d6963f7d28e17f72";
+
+    private File baseDir;
+    private InternalArtifactoryContext context;
+    private InternalBinaryStore binaryStore;
+    private BasicStatusHolder status;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        baseDir = Files.createTempDirectory("import-scanner").toFile();
+        FileUtils.writeStringToFile(new File(baseDir, "a/x.jar"), "abc");
+        FileUtils.writeStringToFile(new File(baseDir, "a/x.jar.sha1"), ABC_SHA1);
+        FileUtils.writeStringToFile(new File(baseDir, "b.txt"), "abc");
+        binaryStore = createMock(InternalBinaryStore.class);
+        context = MockUtils.getThreadBoundedMockContext();
+        expect(context.getArtifactoryHome()).andReturn(getBound()).anyTimes();
+        expect(context.beanForType(InternalBinaryStore.class)).andReturn(binaryStore).anyTimes();
+        replay(context);
+        status = new BasicStatusHolder();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        FileUtils.deleteQuietly(baseDir);
+        ArtifactoryContextThreadBinder.unbind();
+    }
+
+    public void scanInImportOrderAndLoadBinaries() throws Exception {
+        expect(binaryStore.addBinary(anyObject(InputStream.class)))
+                .andReturn(new BinaryInfoImpl(ABC_SHA1, ABC_MD5, 3)).times(2);
+        expect(binaryStore.incrementNoDeleteLock(ABC_SHA1)).andReturn(1).times(2);
+        binaryStore.decrementNoDeleteLock(ABC_SHA1);
+        expectLastCall().times(2);
+        replay(binaryStore);
+
+        ImportScanner scanner = createScanner(file -> null, false);
+        scanner.start();
+        List<String> paths = Lists.newArrayList();
+        ImportScanner.Item item;
+        while ((item = scanner.next()) != null) {
+            paths.add(item.getTarget().getPath() + (item.isFolder() ? "/" : ""));
+            if (item.getTarget().getPath().equals("a/x.jar")) {
+                BinaryInfo binary = item.getBinary();
+                assertNotNull(binary);
+                assertEquals(binary.getSha1(), ABC_SHA1);
+                // released once
+                item.release();
+            }
+            item.release();
+        }
+        assertEquals(paths, Lists.newArrayList("/", "a/", "a/x.jar", "b.txt"), "Checksum files are not scanned");
+        scanner.stop();
+        verify(binaryStore);
+    }
+
+    public void existingBinaryNotLoaded() throws Exception {
+        File existing = new File(baseDir, "a/x.jar");
+        expect(binaryStore.findBinary(ABC_SHA1)).andReturn(new BinaryInfoImpl(ABC_SHA1, ABC_MD5, 3));
+        expect(binaryStore.addBinary(anyObject(InputStream.class)))
+                .andReturn(new BinaryInfoImpl(ABC_SHA1, ABC_MD5, 3)).once();
+        expect(binaryStore.incrementNoDeleteLock(ABC_SHA1)).andReturn(1).once();
+        binaryStore.decrementNoDeleteLock(ABC_SHA1);
+        expectLastCall().once();
+        replay(binaryStore);
+
+        ImportScanner scanner = createScanner(file -> file.equals(existing) ? ABC_SHA1 : null, false);
+        scanner.start();
+        ImportScanner.Item item;
+        while ((item = scanner.next()) != null) {
+            if (item.getSource().equals(existing)) {
+                assertNull(item.getBinary(), "The existing binary should not be loaded");
+            } else if (!item.isFolder()) {
+                assertNotNull(item.getBinary());
+            }
+            item.release();
+        }
+        scanner.stop();
+        verify(binaryStore);
+    }
+
+    public void dryRunOnlyChecksums() throws Exception {
+        replay(binaryStore);
+
+        ImportScanner scanner = createScanner(file -> ABC_SHA1, true);
+        scanner.start();
+        int files = 0;
+        ImportScanner.Item item;
+        while ((item = scanner.next()) != null) {
+            if (!item.isFolder()) {
+                BinaryInfo binary = item.getBinary();
+                assertEquals(binary.getSha1(), ABC_SHA1);
+                assertEquals(binary.getMd5(), ABC_MD5);
+                assertEquals(binary.getLength(), 3);
+                files++;
+            }
+            item.release();
+        }
+        scanner.stop();
+        assertEquals(files, 2);
+        // nothing is stored in dry run
+        verify(binaryStore);
+    }
+
+    public void scanFailureReportedOnImportThread() throws Exception {
+        replay(binaryStore);
+        status.setFastFail(true);
+        Function<File[], Set<String>> failingCollector = files -> {
+            throw new IllegalStateException("Cannot list");
+        };
+        ImportScanner scanner = new ImportScanner(baseDir, RepoPathFactory.create("libs", ""), failingCollector,
+                file -> null, true, false, status, 2, 10);
+        scanner.start();
+        try {
+            //noinspection StatementWithEmptyBody
+            while (scanner.next() != null) {
+            }
+            fail("Expected the scanning failure to fail the import");
+        } catch (IllegalStateException e) {
+            assertEquals(e.getMessage(), "Cannot list");
+        } finally {
+            scanner.stop();
+        }
+        assertTrue(status.isError());
+    }
+
+    private ImportScanner createScanner(Function<File, String> metadataSha1Reader, boolean dryRun) {
+        RepoPath root = RepoPathFactory.create("libs", "");
+        Function<File[], Set<String>> fileNamesCollector = files -> {
+            Set<String> names = Sets.newTreeSet();
+            for (File file : files) {
+                names.add(file.getName());
+            }
+            return names;
+        };
+        return new ImportScanner(baseDir, root, fileNamesCollector, metadataSha1Reader, true, dryRun, status, 2, 10);
+    }
+}
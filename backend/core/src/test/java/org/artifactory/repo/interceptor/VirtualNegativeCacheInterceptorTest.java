@@ -0,0 +1,149 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.repo.interceptor;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.artifactory.addon.AddonsManager;
+import org.artifactory.addon.ha.HaCommonAddon;
+import org.artifactory.addon.ha.message.HaMessage;
+import org.artifactory.addon.ha.message.HaMessageTopic;
+import org.artifactory.addon.ha.message.VirtualNegativeCacheHaMessage;
+import org.artifactory.repo.RepoPathFactory;
+import org.artifactory.repo.service.InternalRepositoryService;
+import org.artifactory.repo.virtual.VirtualRepo;
+import org.artifactory.repo.virtual.VirtualRepoNegativeCache;
+import org.artifactory.sapi.fs.VfsFile;
+import org.artifactory.storage.fs.session.StorageSession;
+import org.artifactory.storage.fs.session.StorageSessionHolder;
+import org.easymock.Capture;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.easymock.EasyMock.*;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the local and the cluster invalidations of the {@link VirtualNegativeCacheInterceptor}.
+ */
+@Test
+public class VirtualNegativeCacheInterceptorTest {
+    private static final String PATH = "org/foo/foo-1.0.jar";
+
+    private VirtualNegativeCacheInterceptor interceptor;
+    private VirtualRepoNegativeCache negativeCache;
+    private HaCommonAddon haAddon;
+    private VfsFile created;
+
+    @BeforeMethod
+    public void setUp() {
+        negativeCache = new VirtualRepoNegativeCache(60, 100);
+        VirtualRepo virtualRepo = createMock(VirtualRepo.class);
+        expect(virtualRepo.getNegativeCache()).andReturn(negativeCache).anyTimes();
+        InternalRepositoryService repositoryService = createMock(InternalRepositoryService.class);
+        expect(repositoryService.getVirtualRepositories()).andReturn(Lists.newArrayList(virtualRepo)).anyTimes();
+        haAddon = createMock(HaCommonAddon.class);
+        expect(haAddon.isHaEnabled()).andReturn(true).anyTimes();
+        AddonsManager addonsManager = createMock(AddonsManager.class);
+        expect(addonsManager.addonByType(HaCommonAddon.class)).andReturn(haAddon).anyTimes();
+        created = createMock(VfsFile.class);
+        expect(created.getRepoPath()).andReturn(RepoPathFactory.create("libs-release-local", PATH)).anyTimes();
+        replay(virtualRepo, repositoryService, addonsManager, created);
+
+        interceptor = new VirtualNegativeCacheInterceptor();
+        ReflectionTestUtils.setField(interceptor, "repositoryService", repositoryService);
+        ReflectionTestUtils.setField(interceptor, "addonsManager", addonsManager);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        StorageSessionHolder.removeSession();
+    }
+
+    public void invalidateWithoutSession() {
+        Capture<HaMessage> message = new Capture<>();
+        haAddon.notify(eq(HaMessageTopic.VIRTUAL_NEGATIVE_CACHE_TOPIC), capture(message));
+        replay(haAddon);
+        cacheMiss("org/foo");
+
+        interceptor.afterCreate(created, null);
+
+        assertNull(negativeCache.getMissDetail("org/foo"));
+        assertEquals(((VirtualNegativeCacheHaMessage.Invalidate) message.getValue()).paths, Sets.newHashSet(PATH));
+        verify(haAddon);
+    }
+
+    public void invalidateAgainAndNotifyAfterCommit() {
+        VirtualNegativeCacheInterceptor.NegativeCacheSessionResource resource = bindSession();
+        Capture<HaMessage> message = new Capture<>();
+        haAddon.notify(eq(HaMessageTopic.VIRTUAL_NEGATIVE_CACHE_TOPIC), capture(message));
+        replay(haAddon);
+
+        interceptor.afterCreate(created, null);
+        // a lookup running before the commit doesn't see the created item
+        cacheMiss(PATH);
+        assertTrue(resource.hasPendingResources());
+        resource.afterCompletion(true);
+
+        assertNull(negativeCache.getMissDetail(PATH));
+        assertFalse(resource.hasPendingResources());
+        assertEquals(((VirtualNegativeCacheHaMessage.Invalidate) message.getValue()).paths, Sets.newHashSet(PATH));
+        verify(haAddon);
+    }
+
+    public void noClusterNotificationOnRollback() {
+        VirtualNegativeCacheInterceptor.NegativeCacheSessionResource resource = bindSession();
+        replay(haAddon);
+
+        interceptor.afterCreate(created, null);
+        cacheMiss(PATH);
+        resource.afterCompletion(false);
+
+        assertNull(negativeCache.getMissDetail(PATH));
+        verify(haAddon);
+    }
+
+    public void internalInvalidateDoesNotNotify() {
+        replay(haAddon);
+        cacheMiss(PATH);
+
+        interceptor.internalInvalidate(Lists.newArrayList(PATH));
+
+        assertNull(negativeCache.getMissDetail(PATH));
+        verify(haAddon);
+    }
+
+    private VirtualNegativeCacheInterceptor.NegativeCacheSessionResource bindSession() {
+        VirtualNegativeCacheInterceptor.NegativeCacheSessionResource resource =
+                new VirtualNegativeCacheInterceptor.NegativeCacheSessionResource();
+        StorageSession session = createMock(StorageSession.class);
+        expect(session.getOrCreateResource(VirtualNegativeCacheInterceptor.NegativeCacheSessionResource.class))
+                .andReturn(resource).anyTimes();
+        replay(session);
+        StorageSessionHolder.setSession(session);
+        return resource;
+    }
+
+    private void cacheMiss(String path) {
+        negativeCache.cacheMiss(path, "not found", negativeCache.getInvalidationStamp());
+        assertNotNull(negativeCache.getMissDetail(path));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.repo.remote.download;
+
+import org.apache.commons.io.IOUtils;
+import org.artifactory.io.SimpleResourceStreamHandle;
+import org.artifactory.resource.ResourceStreamHandle;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the {@link InFlightDownload}.
+ */
+@Test
+public class InFlightDownloadTest {
+
+    public void followerReadsContentWrittenByLeader() throws Exception {
+        byte[] content = randomContent(256 * 1024);
+        File tempFile = File.createTempFile("inflight", ".tmp");
+        InFlightDownload download = new InFlightDownload("a/b/c.jar", tempFile, content.length, 10000);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final ResourceStreamHandle follower = download.openFollowerHandle();
+            assertNotNull(follower);
+            assertEquals(follower.getSize(), content.length);
+            Future<byte[]> followerContent = executor.submit(new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws Exception {
+                    return IOUtils.toByteArray(follower.getInputStream());
+                }
+            });
+
+            ResourceStreamHandle leader = download.tee(
+                    new SimpleResourceStreamHandle(new ByteArrayInputStream(content)));
+            byte[] leaderContent = IOUtils.toByteArray(leader.getInputStream());
+            leader.close();
+            assertFalse(followerContent.isDone(), "Follower should not reach EOF before the download completes");
+            download.complete();
+
+            assertTrue(Arrays.equals(leaderContent, content));
+            assertTrue(Arrays.equals(followerContent.get(10, TimeUnit.SECONDS), content));
+            follower.close();
+            assertFalse(tempFile.exists(), "Temp file should be deleted once all readers released it");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void followerFailsWhenLeaderFails() throws Exception {
+        File tempFile = File.createTempFile("inflight", ".tmp");
+        InFlightDownload download = new InFlightDownload("a/b/c.jar", tempFile, -1, 10000);
+        ResourceStreamHandle follower = download.openFollowerHandle();
+        assertNotNull(follower);
+        download.fail(new IOException("Connection reset"));
+        try {
+            IOUtils.toByteArray(follower.getInputStream());
+            fail("Expected the follower stream to fail");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("Connection reset"));
+        } finally {
+            follower.close();
+        }
+        assertNull(download.openFollowerHandle(), "Failed download should not accept new followers");
+        assertFalse(tempFile.exists());
+    }
+
+    public void followerTimesOutOnStalledDownload() throws Exception {
+        File tempFile = File.createTempFile("inflight", ".tmp");
+        InFlightDownload download = new InFlightDownload("a/b/c.jar", tempFile, -1, 50);
+        ResourceStreamHandle follower = download.openFollowerHandle();
+        try {
+            follower.getInputStream().read();
+            fail("Expected the follower to time out");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Timed-out"));
+        } finally {
+            follower.close();
+            download.fail(new IOException("test done"));
+        }
+    }
+
+    private byte[] randomContent(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        return content;
+    }
+}
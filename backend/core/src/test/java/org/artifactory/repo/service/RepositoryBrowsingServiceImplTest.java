@@ -0,0 +1,214 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.repo.service;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.artifactory.api.context.ArtifactoryContextThreadBinder;
+import org.artifactory.api.repo.BaseBrowsableItem;
+import org.artifactory.api.repo.BrowsableItemCriteria;
+import org.artifactory.api.repo.BrowsableItemsPage;
+import org.artifactory.api.repo.RootNodesFilterResult;
+import org.artifactory.api.security.AuthorizationService;
+import org.artifactory.common.ConstantValues;
+import org.artifactory.fs.ItemInfo;
+import org.artifactory.model.xstream.fs.FileInfoImpl;
+import org.artifactory.model.xstream.fs.FolderInfoImpl;
+import org.artifactory.repo.LocalRepo;
+import org.artifactory.repo.RepoPath;
+import org.artifactory.repo.RepoPathFactory;
+import org.artifactory.spring.InternalArtifactoryContext;
+import org.artifactory.storage.fs.service.FileService;
+import org.artifactory.test.ArtifactoryHomeBoundTest;
+import org.artifactory.test.mock.MockUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.easymock.EasyMock.*;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the paginated listing of local folders by the {@link RepositoryBrowsingServiceImpl}.
+ */
+@Test
+public class RepositoryBrowsingServiceImplTest extends ArtifactoryHomeBoundTest {
+    private static final String REPO_KEY = "libs";
+
+    private final Map<String, List<ItemInfo>> foldersChildren = Maps.newHashMap();
+    private RepositoryBrowsingServiceImpl service;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        getBound().setProperty(ConstantValues.browsingMaxPageSize, ConstantValues.browsingMaxPageSize.getDefValue());
+        foldersChildren.clear();
+        // the folder names are greater than the file names, the files must be listed from the first one
+        addChildren("root", true, "dir0", "dir1", "dir2-secret", "dir3-secret", "dir4", "dir5-excluded", "dir6");
+        addChildren("root", false, "a0.jar", "a1-secret.jar", "a2-secret.jar", "a3-secret.jar", "a4.jar",
+                "a5.jar", "a6-excluded.jar", "a7.jar", "a8.jar", "a9-secret.jar");
+        addChildren("private", false, "a-secret.jar", "b-secret.jar");
+
+        FileService fileService = createMock(FileService.class);
+        expect(fileService.loadItem(anyObject(RepoPath.class)))
+                .andAnswer(() -> new FolderInfoImpl((RepoPath) getCurrentArguments()[0])).anyTimes();
+        expect(fileService.loadChildren(anyObject(RepoPath.class), anyBoolean(), anyObject(String.class), anyInt()))
+                .andAnswer(() -> {
+                    Object[] args = getCurrentArguments();
+                    return loadChildren((RepoPath) args[0], (Boolean) args[1], (String) args[2], (Integer) args[3]);
+                }).anyTimes();
+        AuthorizationService authService = createMock(AuthorizationService.class);
+        expect(authService.canRead(anyObject(RepoPath.class)))
+                .andAnswer(() -> !((RepoPath) getCurrentArguments()[0]).getName().contains("secret")).anyTimes();
+        InternalRepositoryService repoService = createMock(InternalRepositoryService.class);
+        expect(repoService.isRepoPathAccepted(anyObject(RepoPath.class)))
+                .andAnswer(() -> !((RepoPath) getCurrentArguments()[0]).getName().contains("excluded")).anyTimes();
+        LocalRepo localRepo = createMock(LocalRepo.class);
+        expect(localRepo.isBlackedOut()).andReturn(false).anyTimes();
+        expect(localRepo.accepts(anyObject(RepoPath.class))).andReturn(true).anyTimes();
+        expect(repoService.localOrCachedRepositoryByKey(REPO_KEY)).andReturn(localRepo).anyTimes();
+
+        InternalArtifactoryContext context = MockUtils.getThreadBoundedMockContext();
+        expect(context.getArtifactoryHome()).andReturn(getBound()).anyTimes();
+        expect(context.beanForType(FileService.class)).andReturn(fileService).anyTimes();
+        expect(context.getAuthorizationService()).andReturn(authService).anyTimes();
+        expect(context.getRepositoryService()).andReturn(repoService).anyTimes();
+        replay(context, fileService, authService, repoService, localRepo);
+
+        service = new RepositoryBrowsingServiceImpl();
+        ReflectionTestUtils.setField(service, "authService", authService);
+        ReflectionTestUtils.setField(service, "repoService", repoService);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        ArtifactoryContextThreadBinder.unbind();
+    }
+
+    public void pagesNeitherOverlapNorLeaveGaps() {
+        List<String> expected = Arrays.asList("dir0", "dir1", "dir4", "dir6", "a0.jar", "a4.jar", "a5.jar",
+                "a7.jar", "a8.jar");
+        for (int limit = 1; limit <= expected.size() + 1; limit++) {
+            List<List<String>> pages = listPages("root", limit);
+            List<String> listed = Lists.newArrayList();
+            for (int i = 0; i < pages.size(); i++) {
+                List<String> page = pages.get(i);
+                if (i < pages.size() - 1) {
+                    assertEquals(page.size(), limit, "Only the last page may be partial with limit " + limit);
+                }
+                listed.addAll(page);
+            }
+            assertEquals(listed, expected, "Unexpected listing with limit " + limit);
+            // a last full page is detected with the extra child, without an empty next page
+            assertEquals(pages.size(), (expected.size() + limit - 1) / limit, "Unexpected pages with limit " + limit);
+        }
+    }
+
+    public void folderContinuationSwitchesToFiles() {
+        BrowsableItemsPage folders = getPage("root", null, 4, null);
+        assertEquals(names(folders), Arrays.asList("dir0", "dir1", "dir4", "dir6"));
+        assertEquals(folders.getContinueAfter(), "dir6/");
+
+        BrowsableItemsPage files = getPage("root", folders.getContinueAfter(), 4, null);
+        assertEquals(names(files), Arrays.asList("a0.jar", "a4.jar", "a5.jar", "a7.jar"));
+        assertEquals(files.getContinueAfter(), "a7.jar");
+
+        BrowsableItemsPage last = getPage("root", files.getContinueAfter(), 4, null);
+        assertEquals(names(last), Arrays.asList("a8.jar"));
+        assertNull(last.getContinueAfter());
+    }
+
+    public void rejectedChildrenRefillPage() {
+        // the first files query returns 3 children, 2 of them rejected
+        BrowsableItemsPage page = getPage("root", "dir6/", 2, null);
+        assertEquals(names(page), Arrays.asList("a0.jar", "a4.jar"));
+        assertEquals(page.getContinueAfter(), "a4.jar");
+
+        page = getPage("root", "a5.jar", 1, null);
+        assertEquals(names(page), Arrays.asList("a7.jar"), "The excluded child should be skipped");
+        assertEquals(page.getContinueAfter(), "a7.jar");
+    }
+
+    public void pageSizeCapped() {
+        getBound().setProperty(ConstantValues.browsingMaxPageSize, "3");
+        BrowsableItemsPage page = getPage("root", null, 100, null);
+        assertEquals(names(page), Arrays.asList("dir0", "dir1", "dir4"));
+        assertEquals(page.getContinueAfter(), "dir4/");
+    }
+
+    public void unreadableChildren() {
+        RootNodesFilterResult filterResult = new RootNodesFilterResult();
+        BrowsableItemsPage page = getPage("private", null, 10, filterResult);
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getContinueAfter());
+        assertFalse(filterResult.isAllItemNodesCanRead(), "Empty page because the children can't be read");
+    }
+
+    private List<List<String>> listPages(String folder, int limit) {
+        List<List<String>> pages = Lists.newArrayList();
+        String continueAfter = null;
+        do {
+            BrowsableItemsPage page = getPage(folder, continueAfter, limit, null);
+            pages.add(names(page));
+            continueAfter = page.getContinueAfter();
+        } while (continueAfter != null);
+        return pages;
+    }
+
+    private BrowsableItemsPage getPage(String folder, String continueAfter, int limit,
+            RootNodesFilterResult filterResult) {
+        BrowsableItemCriteria criteria = new BrowsableItemCriteria.Builder(RepoPathFactory.create(REPO_KEY, folder))
+                .includeChecksums(false).continueAfter(continueAfter).limit(limit).build();
+        return service.getLocalRepoBrowsableChildrenPage(criteria, filterResult);
+    }
+
+    private List<String> names(BrowsableItemsPage page) {
+        List<String> names = Lists.newArrayList();
+        for (BaseBrowsableItem item : page.getItems()) {
+            names.add(item.getName());
+        }
+        return names;
+    }
+
+    private void addChildren(String folder, boolean folders, String... names) {
+        List<ItemInfo> children = foldersChildren.computeIfAbsent(folder, k -> Lists.newArrayList());
+        for (String name : names) {
+            RepoPath childPath = RepoPathFactory.create(REPO_KEY, folder + "/" + name);
+            children.add(folders ? new FolderInfoImpl(childPath) : new FileInfoImpl(childPath));
+        }
+    }
+
+    /**
+     * Returns the children like the database: of the given type, after the given name and ordered by name
+     */
+    private List<ItemInfo> loadChildren(RepoPath folder, boolean folders, String afterName, int limit) {
+        List<ItemInfo> children = Lists.newArrayList();
+        for (ItemInfo child : foldersChildren.get(folder.getPath())) {
+            if (child.isFolder() == folders && (afterName == null || child.getName().compareTo(afterName) > 0)) {
+                children.add(child);
+            }
+        }
+        children.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return children.subList(0, Math.min(limit, children.size()));
+    }
+}
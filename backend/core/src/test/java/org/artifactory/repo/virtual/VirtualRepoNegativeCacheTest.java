@@ -0,0 +1,58 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.repo.virtual;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the {@link VirtualRepoNegativeCache}.
+ */
+@Test
+public class VirtualRepoNegativeCacheTest {
+
+    public void cacheMissAndCountHits() {
+        VirtualRepoNegativeCache cache = new VirtualRepoNegativeCache(60, 100);
+        assertNull(cache.getMissDetail("a/b/c.jar"));
+        cache.cacheMiss("a/b/c.jar", "Could not find resource", cache.getInvalidationStamp());
+        assertEquals(cache.getMissDetail("a/b/c.jar"), "Could not find resource");
+        assertEquals(cache.size(), 1);
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 1);
+    }
+
+    public void invalidateAncestors() {
+        VirtualRepoNegativeCache cache = new VirtualRepoNegativeCache(60, 100);
+        long stamp = cache.getInvalidationStamp();
+        cache.cacheMiss("@scope/pkg", "not found", stamp);
+        cache.cacheMiss("@scope/other", "not found", stamp);
+        cache.invalidate("@scope/pkg/-/pkg-1.0.0.tgz");
+        assertNull(cache.getMissDetail("@scope/pkg"));
+        assertEquals(cache.getMissDetail("@scope/other"), "not found");
+    }
+
+    public void missRacingWithInvalidationIsNotCached() {
+        VirtualRepoNegativeCache cache = new VirtualRepoNegativeCache(60, 100);
+        long stamp = cache.getInvalidationStamp();
+        cache.invalidate("org/foo/maven-metadata.xml");
+        cache.cacheMiss("org/foo/maven-metadata.xml", "not found", stamp);
+        assertNull(cache.getMissDetail("org/foo/maven-metadata.xml"));
+    }
+}
@@ -2,6 +2,7 @@ package org.artifactory.request;
 
 import org.apache.commons.io.IOUtils;
 import org.artifactory.common.ArtifactoryHome;
+import org.artifactory.io.FileRegionInputStream;
 import org.artifactory.request.range.RangeAwareContext;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
@@ -9,7 +10,11 @@ import org.testng.annotations.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 
 import static org.artifactory.request.range.ResponseWithRangeSupportHelper.createRangeAwareContext;
 
@@ -249,4 +254,110 @@ public class ResponseWithHttpRangeSupportHelperTest {
         Assert.assertEquals(context.getContentRange(), "bytes 1-10/18", "Expecting no change in the content type");
     }
 
+    @Test
+    public void singleRangeOfFileRegionRequest() throws IOException {
+        File file = new File("content.bin");
+        FileRegionStream inputStream = new FileRegionStream(content, file);
+        String range = "bytes=1-10";
+        RangeAwareContext context = createRangeAwareContext(inputStream, content.length, range, null, "pdf",
+                -1, null);
+        // Assert the range is exposed as a file region without reading the stream
+        Assert.assertTrue(context.getInputStream() instanceof FileRegionInputStream, "Expecting a file region");
+        FileRegionInputStream region = (FileRegionInputStream) context.getInputStream();
+        Assert.assertEquals(region.getRegionFile(), file, "Expecting the file of the wrapped stream");
+        Assert.assertEquals(region.getRegionStart(), 1, "Expecting the range start");
+        Assert.assertEquals(region.getRegionLength(), 10, "Expecting the range length");
+        Assert.assertEquals(inputStream.available(), content.length, "Expecting the stream not to be skipped");
+        // Assert content is still available from the stream
+        byte[] resultContent = IOUtils.toByteArray(context.getInputStream());
+        Assert.assertEquals(resultContent, "123456789A".getBytes(), "Expecting the range content");
+        Assert.assertNull(region.getRegionFile(), "Expecting no file region once the stream was read");
+    }
+
+    @Test
+    public void multiRangeOfFileChannelRequest() throws IOException {
+        File file = File.createTempFile("range", ".bin");
+        file.deleteOnExit();
+        Files.write(file.toPath(), content);
+        try (FileInputStream fileStream = new FileInputStream(file)) {
+            FileChannelStream inputStream = new FileChannelStream(fileStream, content.length);
+            String range = "bytes=7-10,1-3";
+            RangeAwareContext context = createRangeAwareContext(inputStream, content.length, range, null, "pdf",
+                    -1, null);
+            // Assert content
+            byte[] resultContent = IOUtils.toByteArray(context.getInputStream());
+            String expectedResult = "--BCD64322345343217845286A\r\n" +
+                    "Content-Type: pdf\r\n" +
+                    "Content-Range: bytes 1-3/18\r\n" +
+                    "\r\n" +
+                    "123\r\n" +
+                    "--BCD64322345343217845286A\r\n" +
+                    "Content-Type: pdf\r\n" +
+                    "Content-Range: bytes 7-10/18\r\n" +
+                    "\r\n" +
+                    "789A--BCD64322345343217845286A--\r\n";
+            Assert.assertEquals(resultContent, expectedResult.getBytes(), "Expecting the ranges content");
+            Assert.assertEquals(context.getContentLength(), resultContent.length, "Expecting matching length");
+            // Assert the ranges were read with positional reads
+            Assert.assertEquals(fileStream.getChannel().position(), 0, "Expecting the stream not to be read");
+        }
+    }
+
+    private static class FileChannelStream extends FilterInputStream implements FileRegionInputStream {
+        private final long length;
+
+        FileChannelStream(FileInputStream in, long length) {
+            super(in);
+            this.length = length;
+        }
+
+        @Override
+        public File getRegionFile() {
+            return null;
+        }
+
+        @Override
+        public FileChannel getRegionChannel() {
+            return ((FileInputStream) in).getChannel();
+        }
+
+        @Override
+        public long getRegionStart() {
+            return 0;
+        }
+
+        @Override
+        public long getRegionLength() {
+            return length;
+        }
+    }
+
+    private static class FileRegionStream extends ByteArrayInputStream implements FileRegionInputStream {
+        private final File file;
+
+        FileRegionStream(byte[] buf, File file) {
+            super(buf);
+            this.file = file;
+        }
+
+        @Override
+        public File getRegionFile() {
+            return pos == 0 ? file : null;
+        }
+
+        @Override
+        public FileChannel getRegionChannel() {
+            return null;
+        }
+
+        @Override
+        public long getRegionStart() {
+            return 0;
+        }
+
+        @Override
+        public long getRegionLength() {
+            return buf.length;
+        }
+    }
 }
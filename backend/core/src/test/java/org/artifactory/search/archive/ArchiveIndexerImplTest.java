@@ -0,0 +1,151 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.search.archive;
+
+import com.google.common.collect.ImmutableSet;
+import org.artifactory.addon.ha.semaphore.SemaphoreWrapper;
+import org.artifactory.api.context.ArtifactoryContextThreadBinder;
+import org.artifactory.fs.ZipEntryInfo;
+import org.artifactory.repo.LocalRepo;
+import org.artifactory.repo.RepoPath;
+import org.artifactory.repo.RepoPathFactory;
+import org.artifactory.repo.service.InternalRepositoryService;
+import org.artifactory.sapi.fs.VfsFile;
+import org.artifactory.schedule.TaskService;
+import org.artifactory.spring.InternalArtifactoryContext;
+import org.artifactory.storage.binstore.service.BinaryNotFoundException;
+import org.artifactory.storage.db.DbService;
+import org.artifactory.storage.fs.service.ArchiveEntriesService;
+import org.artifactory.storage.fs.service.TasksService;
+import org.artifactory.test.ArtifactoryHomeBoundTest;
+import org.artifactory.test.mock.MockUtils;
+import org.easymock.EasyMock;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.easymock.EasyMock.*;
+
+/**
+ * Tests the queued archives indexing of the {@link ArchiveIndexerImpl}.
+ */
+@Test
+public class ArchiveIndexerImplTest extends ArtifactoryHomeBoundTest {
+
+    private ArchiveIndexerImpl indexer;
+    private InternalArtifactoryContext context;
+    private TasksService tasksService;
+    private ArchiveEntriesService archiveEntriesService;
+    private InternalRepositoryService repoService;
+    private LocalRepo localRepo;
+    private TaskService taskService;
+    private DbService dbService;
+    private SemaphoreWrapper semaphore;
+
+    @BeforeMethod
+    public void setUp() {
+        indexer = new ArchiveIndexerImpl();
+        context = MockUtils.getThreadBoundedMockContext();
+        expect(context.beanForType(InternalArchiveIndexer.class)).andReturn(indexer).anyTimes();
+        expect(context.getArtifactoryHome()).andReturn(getBound()).anyTimes();
+        tasksService = createMock(TasksService.class);
+        archiveEntriesService = createMock(ArchiveEntriesService.class);
+        repoService = createMock(InternalRepositoryService.class);
+        localRepo = createMock(LocalRepo.class);
+        expect(repoService.localOrCachedRepositoryByKey("libs")).andReturn(localRepo).anyTimes();
+        taskService = createMock(TaskService.class);
+        expect(taskService.pauseOrBreak()).andReturn(false).anyTimes();
+        semaphore = createMock(SemaphoreWrapper.class);
+        expect(semaphore.tryAcquire()).andReturn(true);
+        semaphore.release();
+        ReflectionTestUtils.setField(indexer, "tasksService", tasksService);
+        ReflectionTestUtils.setField(indexer, "archiveEntriesService", archiveEntriesService);
+        ReflectionTestUtils.setField(indexer, "repoService", repoService);
+        dbService = createMock(DbService.class);
+        ReflectionTestUtils.setField(indexer, "dbService", dbService);
+        ReflectionTestUtils.setField(indexer, "taskService", taskService);
+        ReflectionTestUtils.setField(indexer, "indexingSemaphore", semaphore);
+    }
+
+    @AfterMethod
+    public void unbindContext() {
+        ArtifactoryContextThreadBinder.unbind();
+    }
+
+    public void failedArchiveRemovedWithTheOthersIndexed() throws IOException {
+        RepoPath first = RepoPathFactory.create("libs", "a/first.jar");
+        RepoPath missing = RepoPathFactory.create("libs", "a/missing.jar");
+        RepoPath last = RepoPathFactory.create("libs", "a/last.jar");
+        expect(tasksService.getIndexTasks()).andReturn(ImmutableSet.of(first, missing, last));
+        VfsFile firstFile = archive(first, "1111", createZip("first.txt"));
+        VfsFile missingFile = createNiceMock(VfsFile.class);
+        expectArchive(missingFile, missing, "2222");
+        expect(missingFile.getStream()).andThrow(new BinaryNotFoundException("No binary 2222")).anyTimes();
+        VfsFile lastFile = archive(last, "3333", createZip("last.txt", "last.properties"));
+        expect(archiveEntriesService.isIndexed(anyObject(String.class))).andReturn(false).anyTimes();
+        archiveEntriesService.addArchiveEntries(eq("1111"), EasyMock.<Set<ZipEntryInfo>>anyObject());
+        archiveEntriesService.addArchiveEntries(eq("3333"), EasyMock.<Set<ZipEntryInfo>>anyObject());
+        // all the tasks are removed, including the one of the archive which failed to be read
+        expect(tasksService.removeIndexTask(first)).andReturn(true);
+        expect(tasksService.removeIndexTask(missing)).andReturn(true);
+        expect(tasksService.removeIndexTask(last)).andReturn(true);
+        replay(context, tasksService, archiveEntriesService, repoService, localRepo, taskService, dbService,
+                semaphore, firstFile, missingFile, lastFile);
+
+        indexer.triggerQueueIndexing();
+
+        verify(tasksService, archiveEntriesService, semaphore);
+    }
+
+    private VfsFile archive(RepoPath repoPath, String sha1, byte[] content) {
+        VfsFile vfsFile = createNiceMock(VfsFile.class);
+        expectArchive(vfsFile, repoPath, sha1);
+        expect(vfsFile.length()).andReturn((long) content.length).anyTimes();
+        expect(vfsFile.getStream()).andAnswer(() -> new ByteArrayInputStream(content)).anyTimes();
+        return vfsFile;
+    }
+
+    private void expectArchive(VfsFile vfsFile, RepoPath repoPath, String sha1) {
+        expect(vfsFile.isFile()).andReturn(true).anyTimes();
+        expect(vfsFile.getRepoPath()).andReturn(repoPath).anyTimes();
+        expect(vfsFile.getPath()).andReturn(repoPath.getPath()).anyTimes();
+        expect(vfsFile.getSha1()).andReturn(sha1).anyTimes();
+        expect(localRepo.getImmutableFsItem(repoPath)).andReturn(vfsFile).anyTimes();
+    }
+
+    private static byte[] createZip(String... entryNames) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (String entryName : entryNames) {
+                zip.putNextEntry(new ZipEntry(entryName));
+                zip.write(entryName.getBytes("UTF-8"));
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+}
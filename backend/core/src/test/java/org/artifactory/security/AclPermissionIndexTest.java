@@ -0,0 +1,138 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.security;
+
+import com.google.common.collect.Sets;
+import org.artifactory.factory.InfoFactory;
+import org.artifactory.factory.InfoFactoryHolder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the {@link AclPermissionIndex}.
+ */
+@Test
+public class AclPermissionIndexTest {
+    private static final int READ = ArtifactoryPermission.READ.getMask();
+    private static final int DEPLOY = ArtifactoryPermission.DEPLOY.getMask();
+
+    private final InfoFactory factory = InfoFactoryHolder.get();
+    private List<AclInfo> acls;
+    private AclPermissionIndex index;
+
+    @BeforeMethod
+    public void setUp() {
+        MutablePermissionTargetInfo acmeTarget = factory.createPermissionTarget("acme",
+                Arrays.asList("libs-release", "libs-snapshot"));
+        acmeTarget.setIncludes(Arrays.asList("com/acme/**"));
+        acmeTarget.setExcludes(Arrays.asList("**/*-sources.jar"));
+        AclInfo acmeAcl = factory.createAcl(acmeTarget, Sets.<AceInfo>newHashSet(
+                factory.createAce("deployers", true, READ | DEPLOY),
+                factory.createAce("yossis", false, READ)), "me");
+
+        PermissionTargetInfo anyLocalTarget = factory.createPermissionTarget("anyLocal",
+                Arrays.asList(PermissionTargetInfo.ANY_LOCAL_REPO));
+        AclInfo anyLocalAcl = factory.createAcl(anyLocalTarget, Sets.<AceInfo>newHashSet(
+                factory.createAce("readers", true, READ)), "me");
+
+        acls = Arrays.asList(acmeAcl, anyLocalAcl);
+        index = new AclPermissionIndex(acls, 3, 100, 60);
+    }
+
+    public void grantedByUserAce() {
+        Set<ArtifactorySid> sids = sids(new ArtifactorySid("yossis", false));
+        assertTrue(index.isGranted(sids, repoKeys("libs-release"), "com/acme/a/1.0/a-1.0.jar", false, READ));
+        assertFalse(index.isGranted(sids, repoKeys("libs-release"), "com/acme/a/1.0/a-1.0.jar", false, DEPLOY),
+                "User has no deploy permission");
+        assertFalse(index.isGranted(sids, repoKeys("other-repo"), "com/acme/a/1.0/a-1.0.jar", false, READ),
+                "Repository is not in the permission target");
+    }
+
+    public void grantedByGroupAce() {
+        Set<ArtifactorySid> sids = sids(new ArtifactorySid("shay", false), new ArtifactorySid("deployers", true));
+        assertTrue(index.isGranted(sids, repoKeys("libs-snapshot"), "com/acme/a/1.0/a-1.0.jar", false, DEPLOY));
+        assertFalse(index.isGranted(sids(new ArtifactorySid("deployers", false)), repoKeys("libs-snapshot"),
+                "com/acme/a/1.0/a-1.0.jar", false, DEPLOY), "User with the group name should not be granted");
+    }
+
+    public void includesAndExcludes() {
+        Set<ArtifactorySid> sids = sids(new ArtifactorySid("yossis", false));
+        assertFalse(index.isGranted(sids, repoKeys("libs-release"), "org/other/a/1.0/a-1.0.jar", false, READ),
+                "Path is not included");
+        assertFalse(index.isGranted(sids, repoKeys("libs-release"), "com/acme/a/1.0/a-1.0-sources.jar", false,
+                READ), "Path is excluded");
+        assertTrue(index.isGranted(sids, repoKeys("libs-release"), "com", true, READ),
+                "Folder should match the start of the include pattern");
+    }
+
+    public void logicalRepoKeys() {
+        Set<ArtifactorySid> sids = sids(new ArtifactorySid("readers", true));
+        assertTrue(index.hasAnyLocalOrRemoteAces(sids));
+        assertFalse(index.hasAnyLocalOrRemoteAces(sids(new ArtifactorySid("yossis", false))));
+        assertFalse(index.isGranted(sids, repoKeys("libs-release", PermissionTargetInfo.ANY_REPO), "a/b", false,
+                READ));
+        assertTrue(index.isGranted(sids, repoKeys(PermissionTargetInfo.ANY_LOCAL_REPO), "a/b", false, READ));
+    }
+
+    public void noAces() {
+        Set<ArtifactorySid> sids = sids(new ArtifactorySid("nobody", false));
+        assertFalse(index.hasAces(sids));
+        assertTrue(index.hasAces(sids(new ArtifactorySid("nobody", false), new ArtifactorySid("readers", true))));
+    }
+
+    public void decisions() {
+        Set<ArtifactorySid> sids = sids(new ArtifactorySid("yossis", false));
+        assertNull(index.getDecision(sids, "libs-release", "com/acme", true, READ));
+        index.putDecision(sids, "libs-release", "com/acme", true, READ, true);
+        assertEquals(index.getDecision(sids(new ArtifactorySid("yossis", false)), "libs-release", "com/acme", true,
+                READ), Boolean.TRUE);
+        assertNull(index.getDecision(sids, "libs-release", "com/acme", false, READ));
+        assertNull(index.getDecision(sids, "libs-release", "com/acme", true, DEPLOY));
+        assertNull(index.getDecision(sids(new ArtifactorySid("yossis", false), new ArtifactorySid("readers", true)),
+                "libs-release", "com/acme", true, READ));
+    }
+
+    public void aclsVersion() {
+        assertEquals(index.getAclsVersion(), 3);
+    }
+
+    public void matchAllTarget() {
+        PermissionTargetInfo allTarget = factory.createPermissionTarget("all", Arrays.asList("libs-release"));
+        AclInfo allAcl = factory.createAcl(allTarget, Sets.<AceInfo>newHashSet(
+                factory.createAce("yossis", false, READ)), "me");
+        AclPermissionIndex allIndex = new AclPermissionIndex(Arrays.asList(allAcl), 1, 100, 60);
+        Set<ArtifactorySid> sids = sids(new ArtifactorySid("yossis", false));
+        assertTrue(allIndex.isGranted(sids, repoKeys("libs-release"), "org/other/a/1.0/a-1.0-sources.jar", false,
+                READ));
+    }
+
+    private static Set<ArtifactorySid> sids(ArtifactorySid... sids) {
+        return Sets.newHashSet(sids);
+    }
+
+    private static List<String> repoKeys(String... repoKeys) {
+        return Arrays.asList(repoKeys);
+    }
+}
@@ -645,6 +645,8 @@ public class SecurityServiceImplTest extends ArtifactoryHomeBoundTest {
                 .andReturn(cacheRepoMock).anyTimes();
         expect(repositoryServiceMock.remoteRepoDescriptorByKey("repo1-cache")).andReturn(null).anyTimes();
         expect(aclStoreServiceMock.getAllAcls()).andReturn(createAnyRemotelAcl());
+        // a version other than the test ACLs one
+        expect(aclStoreServiceMock.getAclsVersion()).andReturn(2).anyTimes();
 
         verifyAnyRemoteOrAnyLocal(authentication, securedPath);
     }
@@ -659,6 +661,8 @@ public class SecurityServiceImplTest extends ArtifactoryHomeBoundTest {
         expect(repositoryServiceMock.remoteRepoDescriptorByKey("local-repo")).andReturn(null).anyTimes();
         expect(repositoryServiceMock.remoteRepoDescriptorByKey("testRepo1")).andReturn(null).anyTimes();
         expect(aclStoreServiceMock.getAllAcls()).andReturn(createAnyLocalAcl());
+        // a version other than the test ACLs one
+        expect(aclStoreServiceMock.getAclsVersion()).andReturn(2).anyTimes();
 
         verifyAnyRemoteOrAnyLocal(authentication, securedPath);
     }
@@ -793,6 +797,7 @@ public class SecurityServiceImplTest extends ArtifactoryHomeBoundTest {
 
     private void expectAclScan() {
         expect(aclStoreServiceMock.getAllAcls()).andReturn(testAcls).anyTimes();
+        expect(aclStoreServiceMock.getAclsVersion()).andReturn(1).anyTimes();
         /*
         expect(aclStoreServiceMock.getAcl(permissionTargets.get(0).getName())).andReturn(testAcls.get(0));
         expect(aclStoreServiceMock.getAcl(permissionTargets.get(1).getName())).andReturn(testAcls.get(1));
@@ -805,10 +810,12 @@ public class SecurityServiceImplTest extends ArtifactoryHomeBoundTest {
 
     private void expectGetAllAclsCall(Authentication authentication) {
         expect(aclStoreServiceMock.getAllAcls()).andReturn(testAcls).anyTimes();
+        expect(aclStoreServiceMock.getAclsVersion()).andReturn(1).anyTimes();
     }
 
     private void expectGetAllAclsCallWithAnyArray() {
         expect(aclStoreServiceMock.getAllAcls()).andReturn(testAcls);
+        expect(aclStoreServiceMock.getAclsVersion()).andReturn(1).anyTimes();
     }
 
     private List<AclInfo> createTestAcls() {
@@ -45,6 +45,7 @@ public class ImportSettingsImpl extends ImportExportSettingsImpl implements Impo
 
         private MetadataReader metadataReader;
         private boolean indexMarkedArchives;
+        private boolean dryRun;
 
     }
 
@@ -104,4 +105,14 @@ public class ImportSettingsImpl extends ImportExportSettingsImpl implements Impo
         info.indexMarkedArchives = indexMarkedArchives;
     }
 
+    @Override
+    public boolean isDryRun() {
+        return info.dryRun;
+    }
+
+    @Override
+    public void setDryRun(boolean dryRun) {
+        info.dryRun = dryRun;
+    }
+
 }
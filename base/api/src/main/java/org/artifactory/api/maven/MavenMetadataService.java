@@ -40,6 +40,25 @@ public interface MavenMetadataService {
      */
     void calculateMavenMetadata(RepoPath baseFolderPath, boolean recursive);
 
+    /**
+     * Applies a newly created unique snapshot file to the maven metadata of its folder, without reading all the files
+     * of the folder. Falls back to a full calculation of the folder if the stored metadata is missing or inconsistent.
+     *
+     * @param uniqueSnapshotFile The created unique snapshot file
+     */
+    void calculateSnapshotMavenMetadata(RepoPath uniqueSnapshotFile);
+
+    /**
+     * Adds or removes a version in the maven metadata of the artifact folder (the parent of the version folder),
+     * without reading all the version folders. Falls back to a full calculation of the artifact folder if the stored
+     * metadata is missing or inconsistent. Concurrent updates of the same artifact folder are written together.
+     *
+     * @param versionFolder The created or deleted version folder
+     * @param added         True if a version pom was created in the folder, false if the folder was deleted
+     */
+    @Async(delayUntilAfterCommit = true, transactional = false)
+    void calculateVersionsMavenMetadataAsync(RepoPath versionFolder, boolean added);
+
     /**
      * Calculate the maven plugins metadata asynchronously after the current transaction is committed. The reason is the
      * metadata calculator uses xpath queries for its job and since the move is not committed yet, the xpath query
@@ -30,7 +30,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Noam Y. Tenne
@@ -39,6 +42,15 @@ public abstract class ModuleInfoUtils {
 
     private static final Logger log = LoggerFactory.getLogger(ModuleInfoUtils.class);
 
+    private static final int MAX_CACHED_PATTERNS = 1000;
+
+    /**
+     * The compiled item path patterns of the layouts. The key holds all the layout values the pattern is generated
+     * from, so a layout changed by a configuration reload is simply compiled again.
+     */
+    private static final ConcurrentMap<ItemPathPatternKey, NamedPattern> itemPathPatterns =
+            new ConcurrentHashMap<>();
+
     private ModuleInfoUtils() {
     }
 
@@ -331,10 +343,7 @@ public abstract class ModuleInfoUtils {
 
     private static ModuleInfo moduleInfoFromPattern(String itemPath, RepoLayout repoLayout, String pattern,
             boolean supportVersionsTokens) {
-        String itemPathPatternRegExp = RepoLayoutUtils.generateRegExpFromPattern(repoLayout, pattern, false,
-                supportVersionsTokens);
-        //TODO: [by yl] Cache the patterns
-        NamedPattern itemPathRegExPattern = NamedPattern.compile(itemPathPatternRegExp);
+        NamedPattern itemPathRegExPattern = getItemPathPattern(repoLayout, pattern, supportVersionsTokens);
         NamedMatcher itemPathMatcher = itemPathRegExPattern.matcher(itemPath);
         ModuleInfo moduleInfo;
         if (!itemPathMatcher.matches()) {
@@ -348,6 +357,23 @@ public abstract class ModuleInfoUtils {
         return moduleInfo;
     }
 
+    private static NamedPattern getItemPathPattern(RepoLayout repoLayout, String pattern,
+            boolean supportVersionsTokens) {
+        ItemPathPatternKey key = new ItemPathPatternKey(repoLayout, pattern, supportVersionsTokens);
+        NamedPattern itemPathPattern = itemPathPatterns.get(key);
+        if (itemPathPattern == null) {
+            if (itemPathPatterns.size() >= MAX_CACHED_PATTERNS) {
+                // only reached after many layout changes, keep the patterns of the current layouts
+                itemPathPatterns.clear();
+            }
+            String itemPathPatternRegExp = RepoLayoutUtils.generateRegExpFromPattern(repoLayout, pattern, false,
+                    supportVersionsTokens);
+            itemPathPattern = NamedPattern.compile(itemPathPatternRegExp);
+            itemPathPatterns.putIfAbsent(key, itemPathPattern);
+        }
+        return itemPathPattern;
+    }
+
     private static ModuleInfo createModuleInfo(NamedMatcher itemPathMatcher) {
         Map<String, String> namedGroups = itemPathMatcher.namedGroups();
         ModuleInfoBuilder moduleInfoBuilder = new ModuleInfoBuilder();
@@ -394,4 +420,39 @@ public abstract class ModuleInfoUtils {
             moduleInfoBuilder.customField(tokenName, tokenValue);
         }
     }
+
+    private static final class ItemPathPatternKey {
+        private final String pattern;
+        private final String folderIntegrationRevisionRegExp;
+        private final String fileIntegrationRevisionRegExp;
+        private final boolean supportVersionsTokens;
+
+        private ItemPathPatternKey(RepoLayout repoLayout, String pattern, boolean supportVersionsTokens) {
+            this.pattern = pattern;
+            this.folderIntegrationRevisionRegExp = repoLayout.getFolderIntegrationRevisionRegExp();
+            this.fileIntegrationRevisionRegExp = repoLayout.getFileIntegrationRevisionRegExp();
+            this.supportVersionsTokens = supportVersionsTokens;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ItemPathPatternKey that = (ItemPathPatternKey) o;
+            return supportVersionsTokens == that.supportVersionsTokens &&
+                    Objects.equals(pattern, that.pattern) &&
+                    Objects.equals(folderIntegrationRevisionRegExp, that.folderIntegrationRevisionRegExp) &&
+                    Objects.equals(fileIntegrationRevisionRegExp, that.fileIntegrationRevisionRegExp);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pattern, folderIntegrationRevisionRegExp, fileIntegrationRevisionRegExp,
+                    supportVersionsTokens);
+        }
+    }
 }
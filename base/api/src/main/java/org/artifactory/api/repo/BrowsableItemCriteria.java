@@ -21,6 +21,8 @@ package org.artifactory.api.repo;
 import org.artifactory.md.Properties;
 import org.artifactory.repo.RepoPath;
 
+import javax.annotation.Nullable;
+
 /**
  * @author Noam Y. Tenne
  */
@@ -30,13 +32,17 @@ public class BrowsableItemCriteria {
     private final boolean includeChecksums;
     private final boolean includeRemoteResources;
     private final Properties requestProperties;
+    private final String continueAfter;
+    private final int limit;
 
     private BrowsableItemCriteria(RepoPath repoPath, boolean includeChecksums,
-            boolean includeRemoteResources, Properties requestProperties) {
+            boolean includeRemoteResources, Properties requestProperties, String continueAfter, int limit) {
         this.repoPath = repoPath;
         this.includeChecksums = includeChecksums;
         this.includeRemoteResources = includeRemoteResources;
         this.requestProperties = requestProperties;
+        this.continueAfter = continueAfter;
+        this.limit = limit;
     }
 
     public RepoPath getRepoPath() {
@@ -55,12 +61,30 @@ public class BrowsableItemCriteria {
         return requestProperties;
     }
 
+    /**
+     * @return The continuation returned with the previous page of a paginated listing, null for the first page
+     * @see BrowsableItemsPage#getContinueAfter()
+     */
+    @Nullable
+    public String getContinueAfter() {
+        return continueAfter;
+    }
+
+    /**
+     * @return The maximum number of items of a paginated listing
+     */
+    public int getLimit() {
+        return limit;
+    }
+
     public static class Builder {
 
         private RepoPath repoPath;
         private boolean includeChecksums = true;
         private boolean includeRemoteResources = true;
         private Properties requestProperties;
+        private String continueAfter;
+        private int limit = Integer.MAX_VALUE;
 
         public Builder(RepoPath repoPath) {
             this.repoPath = repoPath;
@@ -71,6 +95,8 @@ public class BrowsableItemCriteria {
             this.includeChecksums = copy.isIncludeChecksums();
             this.includeRemoteResources = copy.isIncludeRemoteResources();
             this.requestProperties = copy.getRequestProperties();
+            this.continueAfter = copy.getContinueAfter();
+            this.limit = copy.getLimit();
         }
 
         public Builder repoPath(RepoPath repoPath) {
@@ -93,12 +119,26 @@ public class BrowsableItemCriteria {
             return this;
         }
 
+        public Builder continueAfter(@Nullable String continueAfter) {
+            this.continueAfter = continueAfter;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
         public BrowsableItemCriteria build() {
             if (repoPath == null) {
                 throw new IllegalArgumentException("Please provide a repo path.");
             }
+            if (limit <= 0) {
+                throw new IllegalArgumentException("The limit must be positive.");
+            }
 
-            return new BrowsableItemCriteria(repoPath, includeChecksums, includeRemoteResources, requestProperties);
+            return new BrowsableItemCriteria(repoPath, includeChecksums, includeRemoteResources, requestProperties,
+                    continueAfter, limit);
         }
     }
 }
@@ -0,0 +1,57 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.api.repo;
+
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A page of the browsable children of a folder
+ *
+ * @see RepositoryBrowsingService#getLocalRepoBrowsableChildrenPage
+ */
+public class BrowsableItemsPage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<BaseBrowsableItem> items;
+    private final String continueAfter;
+
+    public BrowsableItemsPage(List<BaseBrowsableItem> items, @Nullable String continueAfter) {
+        this.items = items;
+        this.continueAfter = continueAfter;
+    }
+
+    /**
+     * @return The items of the page, the folders first and then the files
+     */
+    public List<BaseBrowsableItem> getItems() {
+        return items;
+    }
+
+    /**
+     * @return The continuation to pass in the criteria of the next page, null if this is the last page
+     * @see BrowsableItemCriteria.Builder#continueAfter(String)
+     */
+    @Nullable
+    public String getContinueAfter() {
+        return continueAfter;
+    }
+}
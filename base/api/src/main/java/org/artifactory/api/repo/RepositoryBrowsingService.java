@@ -56,6 +56,20 @@ public interface RepositoryBrowsingService {
     @Nonnull
     List<BaseBrowsableItem> getLocalRepoBrowsableChildren(@Nonnull BrowsableItemCriteria criteria);
 
+    /**
+     * Returns a page of the local and cached repo children items, to list large folders. Only the children of the page
+     * are loaded, ordered by the database: the folders first and then the files, each by name. The properties of the
+     * files are loaded in batches when the criteria has request properties.
+     *
+     * @param criteria              Browsable item conditions, including the limit and continuation of the page
+     * @param rootNodesFilterResult If not null, updated when the page is empty because the children can't be read
+     * @return The page of children, empty if the repository is blacked out or doesn't accept the path
+     * @throws ItemNotFoundRuntimeException if the folder is not found
+     */
+    @Nonnull
+    BrowsableItemsPage getLocalRepoBrowsableChildrenPage(@Nonnull BrowsableItemCriteria criteria,
+            @Nullable RootNodesFilterResult rootNodesFilterResult);
+
     /**
      * Get external browsable children from a remote repo. Using {@link org.apache.ivy.util.url.ApacheURLLister#listAll}
      * of Ivy in order to get a remote listing.
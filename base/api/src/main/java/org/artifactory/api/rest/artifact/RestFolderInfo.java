@@ -26,6 +26,10 @@ import java.util.List;
 public class RestFolderInfo extends RestBaseStorageInfo {
 
     public List<DirItem> children;
+    /**
+     * The continuation of the next page of children when the children are paginated, null for the last page
+     */
+    public String continueAfter;
 
     public static class DirItem {
         public String uri;
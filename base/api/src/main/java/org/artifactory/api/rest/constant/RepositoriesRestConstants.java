@@ -40,5 +40,6 @@ public interface RepositoriesRestConstants {
     String EXCLUDE_CONTENT = "content";
     String INCLUDE_METADATA = "metadata";
     String VERBOSE = "verbose";
+    String DRY_RUN = "dryRun";
     String POSITION = "pos";
 }
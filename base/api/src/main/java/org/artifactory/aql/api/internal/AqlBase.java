@@ -26,6 +26,7 @@ public class AqlBase<T extends AqlBase, Y extends AqlRowResult> implements AqlAp
     protected SortApiElement sortApiElement = new SortApiElement();
     protected LimitApiElement limit = new LimitApiElement();
     protected OffsetApiElement offset = new OffsetApiElement();
+    protected CursorApiElement cursor = new CursorApiElement();
     protected FilterApiElement filter = new FilterApiElement();
     protected DomainApiElement domain = new DomainApiElement();
     protected IncludeApiElement include = new IncludeApiElement();
@@ -77,6 +78,7 @@ public class AqlBase<T extends AqlBase, Y extends AqlRowResult> implements AqlAp
         elements.add(filter);
         elements.add(limit);
         elements.add(offset);
+        elements.add(cursor);
         elements.add(include);
         return elements;
     }
@@ -107,6 +109,9 @@ public class AqlBase<T extends AqlBase, Y extends AqlRowResult> implements AqlAp
             if(sortApiElement != null && ! sortApiElement.isEmpty()){
                 builder.append(".\n").append(sortApiElement.toNative(dept+1));
             }
+            if(cursor != null && ! cursor.isEmpty()){
+                builder.append(".\n").append(cursor.toNative(dept+1));
+            }
             if(offset != null && ! offset.isEmpty()){
                 builder.append(".\n").append(offset.toNative(dept+1));
             }
@@ -142,6 +147,16 @@ public class AqlBase<T extends AqlBase, Y extends AqlRowResult> implements AqlAp
         return (T) this;
     }
 
+    /**
+     * Pages the query by cursor (keyset pagination), supported only by items queries.
+     *
+     * @param cursor The cursor returned with the previous page or an empty string for the first page
+     */
+    public T cursor(String cursor) {
+        this.cursor.setCursor(cursor);
+        return (T) this;
+    }
+
     public T include(AqlApiDynamicFieldsDomains.AqlApiComparator... comparator) {
         for (AqlApiDynamicFieldsDomains.AqlApiComparator aqlApiComparator : comparator) {
             include.getIncludeFields().add(new DomainSensitiveField(aqlApiComparator.fieldEnum, aqlApiComparator.domains));
@@ -318,6 +333,37 @@ public class AqlBase<T extends AqlBase, Y extends AqlRowResult> implements AqlAp
             return builder.toString();
         }
 
+    }
+    public static class CursorApiElement implements AqlApiElement {
+
+        private String cursor;
+        public String getCursor() {
+            return cursor;
+        }
+
+        public void setCursor(String cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public List<AqlApiElement> get() {
+            return Lists.newArrayList();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return cursor == null;
+        }
+
+        @Override
+        public String toNative(int dept) {
+            StringBuilder builder=new StringBuilder();
+            builder.append("cursor(\"");
+            builder.append(cursor);
+            builder.append("\")");
+            return builder.toString();
+        }
+
     }
     public static class SortApiElement implements AqlApiElement {
 
@@ -2,6 +2,8 @@ package org.artifactory.aql.model;
 
 import org.artifactory.repo.RepoPath;
 
+import javax.annotation.Nullable;
+
 /**
  * @author Gidi Shabat
  */
@@ -11,4 +13,11 @@ public interface AqlPermissionProvider {
     boolean isAdmin();
 
     boolean isOss();
+
+    /**
+     * @return The repositories the user may read items from or null if they are unknown and only the read permission
+     * of each item should be checked
+     */
+    @Nullable
+    AqlRepoReadPermissions getRepoReadPermissions();
 }
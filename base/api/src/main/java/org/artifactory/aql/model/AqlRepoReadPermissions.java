@@ -0,0 +1,47 @@
+package org.artifactory.aql.model;
+
+import com.google.common.collect.Sets;
+
+import java.util.Set;
+
+/**
+ * The repositories a user may read items from, used to filter AQL items queries in the database instead of checking
+ * the read permission of each row.
+ */
+public class AqlRepoReadPermissions {
+    private final Set<String> allPathsRepoKeys;
+    private final Set<String> somePathsRepoKeys;
+
+    public AqlRepoReadPermissions(Set<String> allPathsRepoKeys, Set<String> somePathsRepoKeys) {
+        this.allPathsRepoKeys = allPathsRepoKeys;
+        this.somePathsRepoKeys = somePathsRepoKeys;
+    }
+
+    /**
+     * @return The keys of the repositories the user may read any path of
+     */
+    public Set<String> getAllPathsRepoKeys() {
+        return allPathsRepoKeys;
+    }
+
+    /**
+     * @return The keys of the repositories the user may read only some of the paths of (include/exclude patterns)
+     */
+    public Set<String> getSomePathsRepoKeys() {
+        return somePathsRepoKeys;
+    }
+
+    /**
+     * @return The keys of all the repositories the user may read any item from
+     */
+    public Set<String> getReadableRepoKeys() {
+        return Sets.union(allPathsRepoKeys, somePathsRepoKeys);
+    }
+
+    /**
+     * @return True if the read permission of the items must still be checked path by path
+     */
+    public boolean isPathCheckNeeded() {
+        return !somePathsRepoKeys.isEmpty();
+    }
+}
@@ -7,6 +7,7 @@ import org.artifactory.aql.model.AqlFieldEnum;
 import org.artifactory.aql.model.AqlItemTypeEnum;
 import org.artifactory.aql.model.DomainSensitiveField;
 import org.artifactory.aql.result.rows.InflatableRow;
+import org.artifactory.aql.util.AqlCursor;
 import org.artifactory.aql.util.AqlUtils;
 import org.codehaus.jackson.annotate.JsonAutoDetect;
 import org.codehaus.jackson.annotate.JsonMethod;
@@ -37,7 +38,11 @@ public class AqlJsonStreamer extends AqlRestResult implements Cloneable {
     private final Map<AqlFieldEnum, String> dbFieldNames;
     private final long limit;
     private final long offset;
+    private final boolean readPermissionsFiltered;
+    private final boolean cursorPagination;
     private long rowsCount;
+    private long scannedRowsCount;
+    private long lastItemId;
     private Buffer buffer = new Buffer();
     private boolean ended;
     private String mainId = null;
@@ -52,6 +57,8 @@ public class AqlJsonStreamer extends AqlRestResult implements Cloneable {
         this.limit = lazyResult.getLimit();
         this.offset = lazyResult.getOffset();
         this.domain = lazyResult.getDomain();
+        this.readPermissionsFiltered = lazyResult.isReadPermissionsFiltered();
+        this.cursorPagination = lazyResult.isCursorPagination();
         buffer.push(QUERY_PREFIX.getBytes());
     }
 
@@ -98,7 +105,12 @@ public class AqlJsonStreamer extends AqlRestResult implements Cloneable {
                         }
                     }
                 }
-                if (!canRead(domain, resultSet)) {
+                if (cursorPagination) {
+                    // The next page continues after the last item fetched, even if the user may not read it
+                    lastItemId = resultSet.getLong(dbFieldNames.get(AqlFieldEnum.itemId));
+                    scannedRowsCount++;
+                }
+                if (!readPermissionsFiltered && !canRead(domain, resultSet)) {
                     continue;
                 }
                 Map<String, Row> map = row.inflate();
@@ -173,6 +185,10 @@ public class AqlJsonStreamer extends AqlRestResult implements Cloneable {
 
     private String generateRangeJson() throws IOException {
         Range range = new Range(offset, rowsCount, rowsCount, limit);
+        if (cursorPagination && limit != Long.MAX_VALUE && scannedRowsCount >= limit) {
+            // A full page was fetched, more items might follow it
+            range.cursor = AqlCursor.encode(lastItemId);
+        }
         ObjectMapper mapper = new ObjectMapper();
         mapper.getSerializationConfig().withSerializationInclusion(JsonSerialize.Inclusion.NON_NULL);
         mapper.setVisibility(JsonMethod.ALL, JsonAutoDetect.Visibility.NONE);
@@ -27,4 +27,14 @@ public interface AqlLazyResult <T extends AqlRowResult> {
     Map<AqlFieldEnum, String> getDbFieldNames();
 
     AqlDomainEnum getDomain();
+
+    /**
+     * @return True if the query already filtered out the items the user may not read
+     */
+    boolean isReadPermissionsFiltered();
+
+    /**
+     * @return True if the query is paged by cursor, the items are ordered by id and the id is part of the result
+     */
+    boolean isCursorPagination();
 }
@@ -378,6 +378,8 @@ public abstract class AqlRestResult implements Closeable {
         protected Long total;
         @JsonProperty("limit")
         protected Long limited;
+        @JsonProperty("cursor")
+        protected String cursor;
 
         public Range(long start, long end, long limited) {
             this.start = start;
@@ -0,0 +1,41 @@
+package org.artifactory.aql.util;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.BaseEncoding;
+import org.artifactory.aql.AqlException;
+
+/**
+ * Encodes and decodes the opaque cursors used to continue AQL items queries (keyset pagination).
+ * A cursor holds the id of the last item of the previous page, the next page starts after it.
+ */
+public abstract class AqlCursor {
+    private static final String PREFIX = "item:";
+
+    private AqlCursor() {
+        // utility class
+    }
+
+    /**
+     * @param itemId The id of the last item of a page (see {@link org.artifactory.aql.result.rows.AqlItem#getNodeId()})
+     * @return The cursor of the next page
+     */
+    public static String encode(long itemId) {
+        return BaseEncoding.base64Url().omitPadding().encode((PREFIX + itemId).getBytes(Charsets.UTF_8));
+    }
+
+    /**
+     * @return The id of the last item of the previous page
+     * @throws AqlException If the cursor is not a valid cursor
+     */
+    public static long decode(String cursor) {
+        try {
+            String decoded = new String(BaseEncoding.base64Url().omitPadding().decode(cursor), Charsets.UTF_8);
+            if (decoded.startsWith(PREFIX)) {
+                return Long.parseLong(decoded.substring(PREFIX.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new AqlException("Invalid AQL cursor: " + cursor, e);
+        }
+        throw new AqlException("Invalid AQL cursor: " + cursor);
+    }
+}
@@ -18,9 +18,13 @@
 
 package org.artifactory.api.module;
 
+import org.artifactory.descriptor.repo.RepoLayout;
+import org.artifactory.util.RepoLayoutUtils;
 import org.testng.annotations.Test;
 
 import static org.artifactory.api.module.ModuleInfoUtils.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
 
 /**
  * @author Noam Y. Tenne
@@ -94,4 +98,16 @@ public class ModuleInfoUtilsTest {
     public void moduleInfoFromDescriptorPathWithNullRepoLayout() {
         moduleInfoFromDescriptorPath("org/meow", null);
     }
+
+    public void moduleInfoFromArtifactPathWithChangedRepoLayout() {
+        String artifactPath = "org/acme/acme-core/1.0-SNAPSHOT/acme-core-1.0-20120101.120000-1.jar";
+        RepoLayout repoLayout = new RepoLayout(RepoLayoutUtils.MAVEN_2_DEFAULT);
+        assertEquals(moduleInfoFromArtifactPath(artifactPath, repoLayout).getFileIntegrationRevision(),
+                "20120101.120000-1");
+
+        // the same layout changed by a configuration reload
+        repoLayout.setFileIntegrationRevisionRegExp("SNAPSHOT");
+        assertNotEquals(moduleInfoFromArtifactPath(artifactPath, repoLayout).getFileIntegrationRevision(),
+                "20120101.120000-1");
+    }
 }
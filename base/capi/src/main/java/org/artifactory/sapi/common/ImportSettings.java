@@ -35,4 +35,12 @@ public interface ImportSettings extends BaseSettings {
     boolean isIndexMarkedArchives();
 
     void setIndexMarkedArchives(boolean indexMarkedArchives);
+
+    /**
+     * @return Whether to only scan and checksum the files to import and report the projected throughput, without
+     * storing anything
+     */
+    boolean isDryRun();
+
+    void setDryRun(boolean dryRun);
 }
@@ -11,7 +11,9 @@ public enum HaMessageTopic {
     ACL_CHANGE_TOPIC("aclChange"),
     LICENSES_CHANGE_TOPIC("licensesChange"),
     NUPKG_TOPIC("nuPkgChange"),
-    WATCHES_TOPIC("watchesChange");
+    WATCHES_TOPIC("watchesChange"),
+    NODES_CACHE_TOPIC("nodesCacheChange"),
+    VIRTUAL_NEGATIVE_CACHE_TOPIC("virtualNegativeCacheChange");
 
     private final String topicName;
 
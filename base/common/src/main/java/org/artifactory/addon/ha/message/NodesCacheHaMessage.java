@@ -0,0 +1,19 @@
+package org.artifactory.addon.ha.message;
+
+import org.artifactory.repo.RepoPath;
+
+import java.util.Set;
+
+/**
+ * Messages of the nodes cache of the storage
+ */
+public interface NodesCacheHaMessage extends HaMessage {
+
+    public class Invalidate implements NodesCacheHaMessage {
+        public final Set<RepoPath> repoPaths;
+
+        public Invalidate(Set<RepoPath> repoPaths) {
+            this.repoPaths = repoPaths;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.artifactory.addon.ha.message;
+
+import java.util.Set;
+
+/**
+ * Messages of the negative lookup caches of the virtual repositories
+ */
+public interface VirtualNegativeCacheHaMessage extends HaMessage {
+
+    public class Invalidate implements VirtualNegativeCacheHaMessage {
+        public final Set<String> paths;
+
+        public Invalidate(Set<String> paths) {
+            this.paths = paths;
+        }
+    }
+}
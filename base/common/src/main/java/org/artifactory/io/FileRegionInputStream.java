@@ -0,0 +1,57 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.io;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.nio.channels.FileChannel;
+
+/**
+ * An input stream whose bytes are a region of a file on the local filesystem. A response may send the region directly
+ * from the file (e.g. with the container sendfile support) instead of copying the stream, and parts of the region may
+ * be read with positional reads instead of skipping through the stream.
+ * <p/>
+ * The stream must still be closed by the caller, even if it was never read.
+ */
+public interface FileRegionInputStream {
+
+    /**
+     * @return The file holding the bytes of this stream, or null if the bytes can only be read from the stream (for
+     * example if the stream was already partially read)
+     */
+    @Nullable
+    File getRegionFile();
+
+    /**
+     * @return An open channel of the file holding the bytes of this stream, or null if the bytes can only be read from
+     * the stream. Reads from the channel must be positional, the channel is closed with the stream.
+     */
+    @Nullable
+    FileChannel getRegionChannel();
+
+    /**
+     * @return The offset in the file of the first byte of this stream
+     */
+    long getRegionStart();
+
+    /**
+     * @return The number of bytes of this stream
+     */
+    long getRegionLength();
+}
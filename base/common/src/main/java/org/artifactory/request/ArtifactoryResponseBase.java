@@ -22,6 +22,7 @@ import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpStatus;
 import org.artifactory.api.request.ArtifactoryResponse;
 import org.artifactory.common.StatusHolder;
+import org.artifactory.io.FileRegionInputStream;
 import org.artifactory.util.ExceptionUtils;
 import org.artifactory.util.HttpClientUtils;
 import org.artifactory.util.HttpUtils;
@@ -50,6 +51,10 @@ public abstract class ArtifactoryResponseBase implements ArtifactoryResponse {
 
     @Override
     public void sendStream(InputStream is) throws IOException {
+        if (is instanceof FileRegionInputStream && sendFileRegion((FileRegionInputStream) is)) {
+            IOUtils.closeQuietly(is);
+            return;
+        }
         OutputStream os = getOutputStream();
         setStatus(status);
         try {
@@ -74,6 +79,15 @@ public abstract class ArtifactoryResponseBase implements ArtifactoryResponse {
         }
     }
 
+    /**
+     * Sends the file region backing the stream without reading the stream, when the response supports it.
+     *
+     * @return True if the region was sent, false if the stream should be copied to the output stream
+     */
+    protected boolean sendFileRegion(FileRegionInputStream in) throws IOException {
+        return false;
+    }
+
     @Override
     public int getStatus() {
         return status;
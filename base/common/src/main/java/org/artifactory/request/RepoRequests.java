@@ -21,6 +21,7 @@ package org.artifactory.request;
 import com.google.common.collect.Sets;
 import org.artifactory.api.request.ArtifactoryResponse;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.Set;
 
@@ -50,6 +51,29 @@ public abstract class RepoRequests {
         }
     }
 
+    /**
+     * @return The request context bound to the current thread, if any. Used to propagate the context to worker threads
+     * serving the same request
+     */
+    @Nullable
+    public static RepoRequestContext get() {
+        return context.get();
+    }
+
+    /**
+     * Binds an existing request context to the current (worker) thread. Unlike {@link #destroy()}, {@link #unbind()}
+     * does not destroy the bound context since it is owned by the request thread.
+     */
+    public static void bind(@Nullable RepoRequestContext repoRequestContext) {
+        if (repoRequestContext != null) {
+            context.set(repoRequestContext);
+        }
+    }
+
+    public static void unbind() {
+        context.remove();
+    }
+
     public static void logToContext(String format, Object... params) {
         RepoRequestContext repoRequestContext = context.get();
         if (repoRequestContext != null) {
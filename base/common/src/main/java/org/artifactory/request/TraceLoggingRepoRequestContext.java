@@ -41,7 +41,7 @@ public class TraceLoggingRepoRequestContext extends RepoRequestContext {
     }
 
     @Override
-    public void log(String message) {
+    public synchronized void log(String message) {
         super.log(message);
         ((TraceLoggingResponse) getArtifactoryResponse()).log(
                 ISODateTimeFormat.dateTime().print(System.currentTimeMillis()) + " " + message);
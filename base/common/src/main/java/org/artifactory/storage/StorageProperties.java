@@ -45,6 +45,8 @@ public class StorageProperties {
     protected static final int DEFAULT_MAX_IDLE_CONNECTIONS = 10;
     private static final Logger log = LoggerFactory.getLogger(StorageProperties.class);
     private static final String DEFAULT_MAX_CACHE_SIZE = "5GB";
+    private static final String DEFAULT_MAX_MEMORY_CACHE_SIZE = "0";
+    private static final String DEFAULT_MAX_MEMORY_CACHE_ENTRY_SIZE = "64KB";
 
     private LinkedProperties props = null;
     private DbType dbType = null;
@@ -233,6 +235,19 @@ public class StorageProperties {
         return StorageUnit.fromReadableString(getProperty(Key.binaryProviderCacheMaxSize, DEFAULT_MAX_CACHE_SIZE));
     }
 
+    /**
+     * @return The max size of the in-memory binaries cache, 0 if the memory binary provider should not be added
+     */
+    public long getBinaryProviderMemoryMaxSize() {
+        return StorageUnit.fromReadableString(
+                getProperty(Key.binaryProviderMemoryMaxSize, DEFAULT_MAX_MEMORY_CACHE_SIZE));
+    }
+
+    public long getBinaryProviderMemoryMaxEntrySize() {
+        return StorageUnit.fromReadableString(
+                getProperty(Key.binaryProviderMemoryMaxEntrySize, DEFAULT_MAX_MEMORY_CACHE_ENTRY_SIZE));
+    }
+
     public String getS3EndPoint() {
         return getProperty(Key.binaryProviderS3Endpoint);
     }
@@ -352,6 +367,8 @@ public class StorageProperties {
         binaryProviderType("binary.provider.type"),  // see BinaryProviderType
         binaryProviderCacheMaxSize("binary.provider.cache.maxSize"),
         binaryProviderCacheDir("binary.provider.cache.dir"),
+        binaryProviderMemoryMaxSize("binary.provider.memory.maxSize"),
+        binaryProviderMemoryMaxEntrySize("binary.provider.memory.maxEntrySize"),
         binaryProviderFilesystemDir("binary.provider.filesystem.dir"),
         binaryProviderFilesystemSecondDir("binary.provider.filesystem2.dir"),
         binaryProviderFilesystemSecondCheckPeriod("binary.provider.filesystem2.checkPeriod"),
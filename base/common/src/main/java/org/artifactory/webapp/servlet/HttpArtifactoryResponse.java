@@ -21,6 +21,7 @@ package org.artifactory.webapp.servlet;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.artifactory.common.ConstantValues;
+import org.artifactory.io.FileRegionInputStream;
 import org.artifactory.request.ArtifactoryRequest;
 import org.artifactory.request.ArtifactoryResponseBase;
 import org.artifactory.util.HttpUtils;
@@ -28,7 +29,12 @@ import org.codehaus.plexus.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
@@ -36,10 +42,27 @@ import java.io.PrintWriter;
 public class HttpArtifactoryResponse extends ArtifactoryResponseBase {
     private static final Logger log = LoggerFactory.getLogger(HttpArtifactoryResponse.class);
 
+    /**
+     * Request attributes of the Tomcat sendfile support
+     */
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
     private final HttpServletResponse response;
+    private final HttpServletRequest request;
 
     public HttpArtifactoryResponse(HttpServletResponse response) {
+        this(response, null);
+    }
+
+    /**
+     * @param request The request of this response, required to send files with the container sendfile support
+     */
+    public HttpArtifactoryResponse(HttpServletResponse response, @Nullable HttpServletRequest request) {
         this.response = response;
+        this.request = request;
     }
 
     @Override
@@ -152,6 +175,53 @@ public class HttpArtifactoryResponse extends ArtifactoryResponseBase {
         }
     }
 
+    /**
+     * Lets the container send the file region with sendfile once the response is committed, so the bytes are never
+     * copied in the JVM.
+     */
+    @Override
+    protected boolean sendFileRegion(FileRegionInputStream in) throws IOException {
+        File file = in.getRegionFile();
+        long length = in.getRegionLength();
+        if (file == null || !isSendfileSupported() || length < ConstantValues.httpSendfileMinSize.getLong()
+                || length != getContentLength()) {
+            return false;
+        }
+        long start = in.getRegionStart();
+        long end = start + length;
+        if (end > file.length()) {
+            log.debug("File '{}' is shorter than the requested region end {}", file, end);
+            return false;
+        }
+        request.setAttribute(SENDFILE_FILENAME_ATTR, file.getCanonicalPath());
+        request.setAttribute(SENDFILE_START_ATTR, start);
+        request.setAttribute(SENDFILE_END_ATTR, end);
+        log.debug("Sending bytes {}-{} of '{}' with sendfile", start, end, file);
+        setStatus(getStatus());
+        sendSuccess();
+        return true;
+    }
+
+    private boolean isSendfileSupported() {
+        return request != null && ConstantValues.httpSendfileEnabled.getBoolean() && isBodyPassedThrough()
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR));
+    }
+
+    /**
+     * @return False if a filter wrapped the response in a way that may process the body (e.g. compression), the bytes
+     * must then go through the output stream
+     */
+    private boolean isBodyPassedThrough() {
+        ServletResponse current = response;
+        while (current instanceof ServletResponseWrapper) {
+            if (!(current instanceof BodyPassThroughWrapper)) {
+                return false;
+            }
+            current = ((ServletResponseWrapper) current).getResponse();
+        }
+        return true;
+    }
+
     @Override
     public OutputStream getOutputStream() throws IOException {
         return response.getOutputStream();
@@ -193,4 +263,10 @@ public class HttpArtifactoryResponse extends ArtifactoryResponseBase {
     public boolean isCommitted() {
         return response.isCommitted();
     }
-}
\ No newline at end of file
+
+    /**
+     * Marks a response wrapper that never touches the response body, so files can still be sent by the container
+     */
+    public interface BodyPassThroughWrapper {
+    }
+}
@@ -46,10 +46,21 @@ public enum ConstantValues {
     logsViewRefreshRateSecs("logs.viewRefreshRateSecs", 10),
     locksTimeoutSecs("locks.timeoutSecs", 120),
     locksDebugTimeouts("locks.debugTimeouts", FALSE),
+    locksStripes("locks.stripes", 64),
+    locksStripedVault("locks.stripedVault", FALSE),
+    storageSessionBatchSize("storage.session.batchSize", 1000), // 0 saves the session items one by one
+    nodesCacheSize("storage.nodesCache.size", 10000), // 0 disables the nodes cache
+    nodesCacheExpirySecs("storage.nodesCache.expirySecs", 60), // bounds the staleness of nodes changed elsewhere
     taskCompletionLockTimeoutRetries("task.completionLockTimeoutRetries", 100),
     substituteRepoKeys("repo.key.subst."),
     repoConcurrentDownloadSyncTimeoutSecs("repo.concurrentDownloadSyncTimeoutSecs", Seconds.MINUTE * 15),
+    repoConcurrentDownloadStreamThrough("repo.concurrentDownloadStreamThrough", FALSE),
     downloadStatsEnabled("repo.downloadStatsEnabled", TRUE),
+    folderDownloadReadAheadFiles("folderDownload.readAheadFiles", 8), // 0 reads the files one by one
+    folderDownloadReadAheadMaxFileSizeKb("folderDownload.readAheadMaxFileSizeKb", 1024),
+    folderDownloadReadAheadMaxReads("folderDownload.readAheadMaxReads", 32), // of all the folder downloads
+    folderDownloadStoredExtensions("folderDownload.storedExtensions",
+            "zip,jar,war,ear,gz,tgz,bz2,xz,7z,nupkg,whl,gem,rpm,deb,png,jpg,jpeg,gif"),
     disableGlobalRepoAccess("repo.global.disabled", FALSE),
     fsItemCacheIdleTimeSecs("fsitem.cache.idleTimeSecs", Seconds.MINUTE * 20),
     dockerTokensCacheIdleTimeSecs("docker.tokens.cache.idleTimeSecs", Seconds.MINUTE * 4),
@@ -70,9 +81,16 @@ public enum ConstantValues {
     gcFileScanSleepIterationMillis("gc.fileScanSleepIterationMillis", 1000),
     gcFileScanSleepMillis("gc.fileScanSleepMillis", 250),
     gcMaxCacheEntries("gc.maxCacheEntries", 10000),
+    gcScanPrefixLength("gc.scanPrefixLength", 2), // candidates are scanned per sha1 prefix of this length
+    gcBatchSize("gc.batchSize", 100),
+    gcDeleteThreads("gc.deleteThreads", 4),
+    gcMaxBytesPerSec("gc.maxBytesPerSec", 0), // 0 is unlimited
+    gcMaxDbOpsPerSec("gc.maxDbOpsPerSec", 0), // 0 is unlimited
     trafficCollectionActive("traffic.collectionActive", FALSE),
     securityAuthenticationCacheInitSize("security.authentication.cache.initSize", 100),
     securityAuthenticationCacheIdleTimeSecs("security.authentication.cache.idleTimeSecs", Seconds.MINUTE * 5),
+    securityAuthorizationCacheSecs("security.authorization.cache.expirySecs", Seconds.MINUTE),
+    securityAuthorizationCacheMaxEntries("security.authorization.cache.maxEntries", 100000),
     userLastAccessUpdatesResolutionSecs("security.userLastAccessUpdatesResolutionSecs", 5),
     securityAuthenticationEncryptedPasswordSurroundChars(
             "security.authentication.encryptedPassword.surroundChars", "{}"),
@@ -81,8 +99,13 @@ public enum ConstantValues {
     securityDisableRememberMe("security.disableRememberMe", FALSE),
     ldapForceGroupMemberAttFullDN("security.ldap.forceGroupMemberAttFullDN", FALSE),
     enableAqlReadCommitted("enable.aql.read.committed", FALSE),
+    aqlPlanCacheSize("aql.planCache.size", 1000), // 0 disables the cache
     mvnCentralHostPattern("mvn.central.hostPattern", ".maven.org"),
     mvnCentralIndexerMaxQueryIntervalSecs("mvn.central.indexerMaxQueryIntervalSecs", Seconds.DAY),
+    mvnIndexerMaxParallelRepos("mvn.indexer.maxParallelRepos", 2),
+    mvnIndexerWorkers("mvn.indexer.workers", 2), // parallel artifact indexing workers of each repository
+    mvnIndexerIncremental("mvn.indexer.incremental", TRUE), // only index the folders changed since the last index
+    mvnIndexerCheckpointMaxAgeHours("mvn.indexer.checkpointMaxAgeHours", 24),
     mvnMetadataVersionsComparator("mvn.metadataVersionsComparatorFqn"),
     mvnMetadataSnapshotComparator("mvn.metadataSnapshotComparatorFqn"),
     mvnDynamicMetadataCacheRetentionSecs("mvn.dynamicMetadata.cacheRetentionSecs", 10),
@@ -106,6 +129,8 @@ public enum ConstantValues {
     fileRollerMaxFilesToRetain("file.roller.maxFileToRetain", 10),
     backupFileExportSleepIterationMillis("backup.fileExportSleepIterationMillis", 2000),
     backupFileExportSleepMillis("backup.fileExportSleepMillis", 250),
+    exportContentWorkers("export.contentWorkers", 4),
+    exportHardLinkBinaries("export.hardLinkBinaries", TRUE),
     s3backupBucket("backup.s3.bucket"),
     s3backupFolder("backup.s3.folder"),
     s3backupAccountId("backup.s3.accountId"),
@@ -126,6 +151,7 @@ public enum ConstantValues {
     globalExcludes("repo.includeExclude.globalExcludes"),
     archiveLicenseFileNames("archive.licenseFile.names", "license,LICENSE,license.txt,LICENSE.txt,LICENSE.TXT"),
     uiSearchMaxRowsPerPage("ui.search.maxRowsPerPage", 20),
+    browsingMaxPageSize("browsing.maxPageSize", 1000),
     replicationChecksumDeployMinSizeKb("replication.checksumDeploy.minSizeKb", 10),
     replicationConsumerQueueSize("replication.consumer.queueSize", 1),
     replicationLocalIterationSleepThresholdMillis("replication.local.iteration.sleepThresholdMillis", 1000),
@@ -149,10 +175,16 @@ public enum ConstantValues {
     statsFlushIntervalSecs("stats.flushIntervalSecs", 30),
     statsRemoteFlushIntervalSecs("stats.remote.flushIntervalSecs", 35),
     statsFlushTimeoutSecs("stats.flushTimeoutSecs", 120),
+    statsFlushBatchSize("stats.flushBatchSize", 500),
+    statsMaxQueuedEvents("stats.maxQueuedEvents", 1000000),
     integrationCleanupIntervalSecs("integrationCleanup.intervalSecs", 300),
     integrationCleanupQuietPeriodSecs("integrationCleanup.quietPeriodSecs", 60),
     folderPruningIntervalSecs("folderPruning.intervalSecs", 300),
     folderPruningQuietPeriodSecs("folderPruning.quietPeriodSecs", 60),
+    virtualParallelResolution("repo.virtual.parallelResolution", FALSE),
+    virtualParallelResolutionMaxThreads("repo.virtual.parallelResolution.maxThreads", 4),
+    virtualNegativeCacheSecs("repo.virtual.negativeCacheSecs", 0),
+    virtualNegativeCacheMaxEntries("repo.virtual.negativeCacheMaxEntries", 10000),
     virtualCleanupMaxAgeHours("repo.virtualCacheCleanup.maxAgeHours", 168),
     virtualCleanupNamePattern("repo.virtualCacheCleanup.pattern", "*.pom"),
     defaultSaltValue("security.authentication.password.salt", "CAFEBABEEBABEFAC"),
@@ -166,6 +198,9 @@ public enum ConstantValues {
     securityCrowdMaxGroupResults("security.authentication.crowd.group.maxResults", 9999),
     uiHideChecksums("ui.hideChecksums", FALSE),
     archiveIndexerTaskIntervalSecs("archive.indexer.intervalSecs", 60),
+    archiveIndexerWorkers("archive.indexer.workers", 2),
+    archiveIndexerBatchSize("archive.indexer.batchSize", 500),
+    archiveIndexerMaxBytesPerSec("archive.indexer.maxBytesPerSec", 0), // 0 is unlimited
     inMemoryNuGetRemoteCaches("nuget.inMemoryRemoteCaches", TRUE),
     nuGetRequireAuthentication("nuget.forceAuthentication", FALSE),
     nuGetAllowRootGetWithAnon("nuget.allowRootGetWithAnon", FALSE),
@@ -177,6 +212,8 @@ public enum ConstantValues {
     npmIndexQuietPeriodSecs("npm.index.quietPeriodSecs", 60),
     npmIndexCycleSecs("npm.index.cycleSecs", 60),
     importMaxParallelRepos("import.max.parallelRepos", Runtime.getRuntime().availableProcessors() - 1),
+    importBinaryWorkers("import.binaryWorkers", 4),
+    importMaxPendingItems("import.maxPendingItems", 1000),
     debianDistributionPath("debian.distribution.path", "dists"),
     debianIndexQuietPeriodSecs("debian.index.quietPeriodSecs", 60),
     debianIndexCycleSecs("debian.index.cycleSecs", 2),
@@ -187,6 +224,9 @@ public enum ConstantValues {
     pypiIndexSleepSecs("pypi.index.sleepMilliSecs", 60),
     dockerCleanupMaxAgeMillis("docker.cleanup.maxAgeMillis", Seconds.DAY * 1000),
     httpRangeSupport("http.range.support", true),
+    httpRangeCoalesceGap("http.range.coalesceGap", 0), // in bytes
+    httpSendfileEnabled("http.sendfile.enabled", TRUE),
+    httpSendfileMinSize("http.sendfile.minSize", 48 * 1024),
     aclDirtyReadsTimeout("acl.dirty.read.timeout", 20000),
     allowUnauthenticatedPing("ping.allowUnauthenticated", FALSE), // in milliseconds
     idleConnectionMonitorInterval("repo.http.idleConnectionMonitorInterval", 10),
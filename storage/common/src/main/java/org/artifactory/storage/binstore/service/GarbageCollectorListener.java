@@ -17,13 +17,20 @@ public interface GarbageCollectorListener {
     void start();
 
     /**
-     * Once the list of potential checksums unreferenced is done, this method is called
-     * with the collection of binaries to delete.
+     * The potential unreferenced checksums are scanned in chunks, this method is called
+     * with each chunk of binaries to delete before it is deleted.
      * Every delete event is ending as a delete(sha1) call on the binary providers.
-     * @param binsToDelete all binary data entries that GC will try to delete
+     * @param binsToDelete the binary data entries of the chunk that GC will try to delete
      */
     void toDelete(Collection<BinaryData> binsToDelete);
 
+    /**
+     * Called after each chunk of binaries was deleted with the information collected so far.
+     * @param result Information struct about what happened during GC until now
+     */
+    default void progress(GarbageCollectorInfo result) {
+    }
+
     /**
      * Once all deletion was done this is called with result data object.
      * @param result Information struct about what happened during GC
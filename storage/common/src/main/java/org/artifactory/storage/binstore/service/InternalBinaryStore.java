@@ -23,6 +23,7 @@ import org.artifactory.binstore.BinaryInfo;
 import org.artifactory.storage.StorageException;
 import org.artifactory.storage.binstore.BinaryStoreInputStream;
 import org.artifactory.storage.binstore.GarbageCollectorInfo;
+import org.artifactory.storage.binstore.service.providers.MemoryCacheBinaryProviderImpl;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,6 +31,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -114,6 +116,11 @@ public interface InternalBinaryStore extends BinaryStore,BinaryStoreServices {
      */
     Map<FileBinaryProvider, File> getBinariesDirs();
 
+    /**
+     * @return The in-memory binary providers of the chain
+     */
+    List<MemoryCacheBinaryProviderImpl> getMemoryCacheProviders();
+
     /**
      * Add an external checksum filestore that can be used in read only mode.
      * This will create an external filestore binary provider
@@ -42,6 +42,12 @@ public abstract class BinaryProviderBase implements BinaryProvider {
         mutableBinaryProvider.initialize();
     }
 
+    /**
+     * Called when the binary store is destroyed, releases the resources of the provider
+     */
+    public void destroy() {
+    }
+
     public BinaryProviderBase next() {
         return mutableBinaryProvider.next();
     }
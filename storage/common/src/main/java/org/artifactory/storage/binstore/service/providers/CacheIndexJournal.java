@@ -0,0 +1,421 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.binstore.service.providers;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.io.IOUtils;
+import org.artifactory.checksum.ChecksumType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the cache-fs entries (sha1, size and last access time), replayed on startup instead of
+ * walking the whole cache directory.
+ * <p/>
+ * Request threads only enqueue records, a single background thread appends them to the journal file and compacts it
+ * (rewrites only the live entries) once it holds much more records than live entries. Accesses to existing entries
+ * are not queued, only the last access of each entry is kept in memory and written periodically. Every record has a
+ * CRC, a torn record at the end of the file is ignored. The journal is considered complete only if it ends with the
+ * clean shutdown marker written by {@link #close()}; otherwise the cache provider still runs the directory scan to
+ * find entries the journal might have missed.
+ */
+public class CacheIndexJournal {
+    private static final Logger log = LoggerFactory.getLogger(CacheIndexJournal.class);
+
+    private static final int MAGIC = 0x43464a31; // CFJ1
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte CLEAN_SHUTDOWN = 3;
+    private static final int SHA1_BYTES = 20;
+    private static final int MIN_RECORDS_TO_COMPACT = 100000;
+    private static final int MAX_PENDING_RECORDS = 100000;
+    private static final long ACCESSES_FLUSH_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final File journalFile;
+    private final BlockingQueue<Record> pendingRecords = new LinkedBlockingQueue<>(MAX_PENDING_RECORDS);
+    private final ConcurrentMap<String, Record> pendingAccesses = new ConcurrentHashMap<>();
+    private final AtomicLong liveEntries = new AtomicLong();
+    private volatile boolean running;
+    private volatile boolean recordsLost;
+    private Thread writerThread;
+
+    // Accessed only by the writer thread
+    private DataOutputStream out;
+    private long recordsSinceCompaction;
+
+    public CacheIndexJournal(File journalFile) {
+        this.journalFile = journalFile;
+    }
+
+    /**
+     * Reads the journal file.
+     *
+     * @return The journal content or null if the journal doesn't exist or is corrupted
+     */
+    @Nullable
+    public ReplayResult replay() {
+        if (!journalFile.exists()) {
+            log.info("Cache index journal '{}' not found", journalFile.getAbsolutePath());
+            return null;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            ReplayResult result = readJournal();
+            log.info("Replayed {} cache entries from journal '{}' in {}ms", result.getEntries().size(),
+                    journalFile.getAbsolutePath(), System.currentTimeMillis() - start);
+            return result;
+        } catch (IOException e) {
+            log.warn("Could not replay cache index journal '{}': {}", journalFile.getAbsolutePath(), e.getMessage());
+            log.debug("Could not replay cache index journal", e);
+            return null;
+        }
+    }
+
+    /**
+     * Starts the background writer. The journal is first rewritten with the given entries, which should be all the
+     * entries known at this point (e.g. the replayed ones).
+     */
+    public synchronized void start(final Collection<Entry> knownEntries) {
+        liveEntries.set(knownEntries.size());
+        running = true;
+        writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop(knownEntries);
+            }
+        }, "cachefs-journal");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public void recordAdded(String sha1, long size) {
+        pendingAccesses.remove(sha1);
+        if (enqueue(new Record(ADD, sha1, size, System.currentTimeMillis()))) {
+            liveEntries.incrementAndGet();
+        }
+    }
+
+    /**
+     * Keeps the last access time of an existing entry, written with the next periodic flush of the accesses
+     */
+    public void recordAccessed(String sha1, long size) {
+        if (running && ChecksumType.sha1.isValid(sha1)) {
+            pendingAccesses.put(sha1, new Record(ADD, sha1, size, System.currentTimeMillis()));
+        }
+    }
+
+    public void recordRemoved(String sha1) {
+        pendingAccesses.remove(sha1);
+        if (enqueue(new Record(REMOVE, sha1, 0, 0))) {
+            liveEntries.decrementAndGet();
+        }
+    }
+
+    /**
+     * Stops the writer after flushing all the pending records, and marks the journal as complete unless records
+     * were lost.
+     */
+    public synchronized void close() {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+    }
+
+    private boolean enqueue(Record record) {
+        if (!running || !ChecksumType.sha1.isValid(record.sha1)) {
+            return false;
+        }
+        if (!pendingRecords.offer(record)) {
+            if (!recordsLost) {
+                log.warn("Cache index journal queue is full, the journal will be rebuilt on next startup");
+            }
+            recordsLost = true;
+            return false;
+        }
+        return true;
+    }
+
+    private void writeLoop(Collection<Entry> knownEntries) {
+        try {
+            compact(knownEntries);
+            List<Record> batch = Lists.newArrayList();
+            long lastAccessesFlush = System.currentTimeMillis();
+            while (running || !pendingRecords.isEmpty()) {
+                Record record = pendingRecords.poll(1, TimeUnit.SECONDS);
+                if (record != null) {
+                    batch.add(record);
+                    pendingRecords.drainTo(batch);
+                }
+                if (System.currentTimeMillis() - lastAccessesFlush >= ACCESSES_FLUSH_INTERVAL_MILLIS) {
+                    drainAccesses(batch);
+                    lastAccessesFlush = System.currentTimeMillis();
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                writeBatch(batch);
+                if (recordsSinceCompaction > MIN_RECORDS_TO_COMPACT + 2 * liveEntries.get()) {
+                    out.close();
+                    compact(readJournal().getEntries());
+                }
+            }
+            drainAccesses(batch);
+            writeBatch(batch);
+            if (!recordsLost) {
+                writeRecord(out, CLEAN_SHUTDOWN, null, 0, 0);
+            }
+        } catch (InterruptedException e) {
+            log.debug("Cache index journal writer interrupted");
+        } catch (Exception e) {
+            log.error("Cache index journal writer failed, the journal will be rebuilt on next startup", e);
+            recordsLost = true;
+            running = false;
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    private void writeBatch(List<Record> batch) throws IOException {
+        for (Record pending : batch) {
+            writeRecord(out, pending.type, pending.sha1, pending.size, pending.lastAccess);
+        }
+        recordsSinceCompaction += batch.size();
+        batch.clear();
+        out.flush();
+    }
+
+    /**
+     * Moves the accesses recorded since the last flush to the batch, an access recorded meanwhile is kept for the
+     * next flush
+     */
+    private void drainAccesses(List<Record> batch) {
+        for (Record access : pendingAccesses.values()) {
+            if (pendingAccesses.remove(access.sha1, access)) {
+                batch.add(access);
+            }
+        }
+    }
+
+    /**
+     * Rewrites the journal with the given entries only and reopens it for append
+     */
+    private void compact(Collection<Entry> entries) throws IOException {
+        long start = System.currentTimeMillis();
+        File compactedFile = new File(journalFile.getPath() + ".compact");
+        try (DataOutputStream compacted = openForWrite(compactedFile, false)) {
+            compacted.writeInt(MAGIC);
+            for (Entry entry : entries) {
+                writeRecord(compacted, ADD, entry.getSha1(), entry.getSize(), entry.getLastAccess());
+            }
+        }
+        java.nio.file.Files.move(compactedFile.toPath(), journalFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        out = openForWrite(journalFile, true);
+        recordsSinceCompaction = 0;
+        log.debug("Compacted cache index journal to {} entries in {}ms", entries.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    private ReplayResult readJournal() throws IOException {
+        Map<String, Entry> entries = Maps.newHashMap();
+        boolean clean = false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a cache index journal");
+            }
+            byte[] sha1Bytes = new byte[SHA1_BYTES];
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte type;
+                long size;
+                long lastAccess;
+                int checksum;
+                try {
+                    type = in.readByte();
+                    in.readFully(sha1Bytes);
+                    size = in.readLong();
+                    lastAccess = in.readLong();
+                    checksum = in.readInt();
+                } catch (EOFException e) {
+                    // End of the journal, or a torn record at the end of it
+                    break;
+                }
+                if (checksum != checksum(crc, type, sha1Bytes, size, lastAccess)) {
+                    log.warn("Found corrupted record in cache index journal '{}', ignoring the rest of it",
+                            journalFile.getAbsolutePath());
+                    clean = false;
+                    break;
+                }
+                clean = type == CLEAN_SHUTDOWN;
+                String sha1 = toHex(sha1Bytes);
+                if (type == ADD) {
+                    entries.put(sha1, new Entry(sha1, size, lastAccess));
+                } else if (type == REMOVE) {
+                    entries.remove(sha1);
+                }
+            }
+        }
+        List<Entry> sorted = Lists.newArrayList(entries.values());
+        // Most recently accessed first
+        Collections.sort(sorted, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry o1, Entry o2) {
+                return Long.compare(o2.lastAccess, o1.lastAccess);
+            }
+        });
+        return new ReplayResult(sorted, clean);
+    }
+
+    private static DataOutputStream openForWrite(File file, boolean append) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, append)));
+    }
+
+    private static void writeRecord(DataOutputStream out, byte type, @Nullable String sha1, long size,
+            long lastAccess) throws IOException {
+        byte[] sha1Bytes = sha1 == null ? new byte[SHA1_BYTES] : fromHex(sha1);
+        out.writeByte(type);
+        out.write(sha1Bytes);
+        out.writeLong(size);
+        out.writeLong(lastAccess);
+        out.writeInt(checksum(new CRC32(), type, sha1Bytes, size, lastAccess));
+    }
+
+    private static int checksum(CRC32 crc, byte type, byte[] sha1Bytes, long size, long lastAccess) {
+        crc.reset();
+        crc.update(type);
+        crc.update(sha1Bytes);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (size >>> shift));
+        }
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (lastAccess >>> shift));
+        }
+        return (int) crc.getValue();
+    }
+
+    private static byte[] fromHex(String sha1) {
+        byte[] bytes = new byte[SHA1_BYTES];
+        for (int i = 0; i < SHA1_BYTES; i++) {
+            bytes[i] = (byte) Integer.parseInt(sha1.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    private static class Record {
+        final byte type;
+        final String sha1;
+        final long size;
+        final long lastAccess;
+
+        Record(byte type, String sha1, long size, long lastAccess) {
+            this.type = type;
+            this.sha1 = sha1;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    public static class Entry {
+        private final String sha1;
+        private final long size;
+        private final long lastAccess;
+
+        public Entry(String sha1, long size, long lastAccess) {
+            this.sha1 = sha1;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+
+        public String getSha1() {
+            return sha1;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastAccess() {
+            return lastAccess;
+        }
+    }
+
+    public static class ReplayResult {
+        private final List<Entry> entries;
+        private final boolean clean;
+
+        ReplayResult(List<Entry> entries, boolean clean) {
+            this.entries = entries;
+            this.clean = clean;
+        }
+
+        /**
+         * @return The live entries, most recently accessed first
+         */
+        public List<Entry> getEntries() {
+            return entries;
+        }
+
+        /**
+         * @return True if the journal was closed properly, i.e. it is known to contain all the cache entries
+         */
+        public boolean isClean() {
+            return clean;
+        }
+    }
+}
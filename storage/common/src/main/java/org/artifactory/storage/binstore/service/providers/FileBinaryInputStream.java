@@ -0,0 +1,95 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.binstore.service.providers;
+
+import org.artifactory.io.FileRegionInputStream;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * A stream over a whole binary file, which can be read with positional reads as long as it was not read. Binaries that
+ * are never modified nor evicted can also be sent directly from the file.
+ */
+class FileBinaryInputStream extends FileInputStream implements FileRegionInputStream {
+    private final File file;
+    private final boolean sendable;
+    private final long length;
+    private boolean read;
+
+    /**
+     * @param sendable True if the file stays available after the stream is closed
+     */
+    FileBinaryInputStream(File file, boolean sendable) throws FileNotFoundException {
+        super(file);
+        this.file = file;
+        this.sendable = sendable;
+        this.length = file.length();
+    }
+
+    @Nullable
+    @Override
+    public File getRegionFile() {
+        return read || !sendable ? null : file;
+    }
+
+    @Nullable
+    @Override
+    public FileChannel getRegionChannel() {
+        return read ? null : getChannel();
+    }
+
+    @Override
+    public long getRegionStart() {
+        return 0;
+    }
+
+    @Override
+    public long getRegionLength() {
+        return length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        read = true;
+        return super.read();
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException {
+        read = true;
+        return super.read(b);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        read = true;
+        return super.read(b, off, len);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        read = true;
+        return super.skip(n);
+    }
+}
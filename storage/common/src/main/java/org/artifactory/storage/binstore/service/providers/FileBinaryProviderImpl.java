@@ -27,6 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashSet;
@@ -49,6 +50,14 @@ public class FileBinaryProviderImpl extends FileBinaryProviderBase {
         return saveStreamFileAndMove(in, this);
     }
 
+    /**
+     * Filestore files are never modified, so the stream may be sent directly from the file.
+     */
+    @Override
+    protected InputStream openStream(File file) throws FileNotFoundException {
+        return new FileBinaryInputStream(file, true);
+    }
+
     @Override
     protected void pruneFiles(BasicStatusHolder statusHolder, MovedCounter movedCounter, File first) {
         statusHolder.status("Starting checking if files in " + first.getAbsolutePath() + " are in DB!", log);
@@ -131,12 +131,19 @@ public abstract class FileBinaryProviderReadOnlyBase extends BinaryProviderBase
                 return next().getStream(sha1);
             }
             log.trace("File found: {}", file.getAbsolutePath());
-            return new FileInputStream(file);
+            return openStream(file);
         } catch (FileNotFoundException e) {
             throw new BinaryNotFoundException("Couldn't access file '" + file.getAbsolutePath() + "'", e);
         }
     }
 
+    /**
+     * @return A stream over an existing binary file of this provider
+     */
+    protected InputStream openStream(File file) throws FileNotFoundException {
+        return new FileInputStream(file);
+    }
+
     @Nonnull
     @Override
     public File createTempFile() {
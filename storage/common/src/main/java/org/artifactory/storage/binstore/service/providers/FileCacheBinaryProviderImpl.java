@@ -18,8 +18,6 @@
 
 package org.artifactory.storage.binstore.service.providers;
 
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.artifactory.api.common.BasicStatusHolder;
@@ -29,13 +27,15 @@ import org.artifactory.common.ArtifactoryHome;
 import org.artifactory.common.ConstantValues;
 import org.artifactory.storage.StorageException;
 import org.artifactory.storage.binstore.service.annotation.BinaryProviderClassInfo;
+import org.artifactory.storage.binstore.service.providers.eviction.CacheEvictionPolicy;
+import org.artifactory.storage.binstore.service.providers.eviction.CacheEvictionPolicyType;
+import org.artifactory.storage.binstore.service.providers.eviction.CacheEvictionStats;
 import org.artifactory.util.Files;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -45,12 +45,18 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A binary provider that manage low level checksum files on filesystem.
+ * <p/>
+ * The files kept in the cache are chosen by a pluggable {@link CacheEvictionPolicy} (see the {@code evictionPolicy}
+ * param). Eviction is incremental: each time the max size is exceeded at most {@code evictionBatchSize} entries are
+ * evicted by the thread that added the entry, so a big cache is never sorted or scanned as a whole.
+ * <p/>
+ * The cache entries are kept in a {@link CacheIndexJournal} replayed on startup (see the {@code indexJournal} param).
+ * The cache directory is scanned only if the journal is missing, corrupted or was not closed properly.
  *
  * @author Fred Simon
  */
@@ -58,21 +64,67 @@ import java.util.concurrent.atomic.AtomicLong;
 public class FileCacheBinaryProviderImpl extends FileBinaryProviderBase {
     private static final Logger log = LoggerFactory.getLogger(FileCacheBinaryProviderImpl.class);
 
+    private static final int DEFAULT_EVICTION_BATCH_SIZE = 1000;
+
     private long maxTotalSize;  // in bytes
+    private long maxEntrySize;  // in bytes, 0 means no limit
+    private int evictionBatchSize;
     private Semaphore cacheCleanerSemaphore;
     private AtomicLong totalSize; // in bytes
-    private ConcurrentMap<String, LruEntry> lruCache;
+    private CacheEvictionPolicyType evictionPolicyType;
+    private CacheEvictionPolicy evictionPolicy;
+    private CacheEvictionStats evictionStats;
+    private CacheIndexJournal journal;
 
     @Override
     public void initialize() {
         super.initialize();
-        lruCache = Maps.newConcurrentMap();
         totalSize = new AtomicLong(0);
         maxTotalSize = getLongParam("maxSize", getStorageProperties().getBinaryProviderCacheMaxSize());
+        maxEntrySize = getLongParam("maxEntrySize", 0);
+        evictionBatchSize = getIntParam("evictionBatchSize", DEFAULT_EVICTION_BATCH_SIZE);
+        evictionPolicyType = CacheEvictionPolicyType.fromName(
+                getParam("evictionPolicy", CacheEvictionPolicyType.lru.name()));
+        evictionPolicy = evictionPolicyType.create(maxTotalSize);
+        evictionStats = new CacheEvictionStats();
         cacheCleanerSemaphore = new Semaphore(1);
+        if (getBooleanParam("indexJournal", true)) {
+            journal = new CacheIndexJournal(new File(getBinariesDir().getParentFile(),
+                    getBinariesDir().getName() + ".journal"));
+        }
         syncCacheEntries();
     }
 
+    @Override
+    public void destroy() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    public CacheEvictionPolicyType getEvictionPolicyType() {
+        return evictionPolicyType;
+    }
+
+    public CacheEvictionStats getEvictionStats() {
+        return evictionStats;
+    }
+
+    /**
+     * @return The total size in bytes of the cached files
+     */
+    public long getCacheSize() {
+        return totalSize.get();
+    }
+
+    public long getMaxCacheSize() {
+        return maxTotalSize;
+    }
+
+    public int getCachedFilesCount() {
+        return evictionPolicy.size();
+    }
+
     @Override
     protected File getBaseDataDir() {
         // For cachedFS/fullDb we want the cache to be per node and not in the HA cluster
@@ -80,6 +132,22 @@ public class FileCacheBinaryProviderImpl extends FileBinaryProviderBase {
     }
 
     private void syncCacheEntries() {
+        if (journal != null) {
+            CacheIndexJournal.ReplayResult replayResult = journal.replay();
+            List<CacheIndexJournal.Entry> knownEntries = Collections.emptyList();
+            if (replayResult != null) {
+                knownEntries = replayResult.getEntries();
+                for (CacheIndexJournal.Entry entry : knownEntries) {
+                    initEntry(entry.getSha1(), entry.getSize());
+                }
+            }
+            journal.start(knownEntries);
+            if (replayResult != null && replayResult.isClean()) {
+                return;
+            }
+            log.info("Cache index journal is {} - scanning the cache directory",
+                    replayResult == null ? "not available" : "incomplete");
+        }
         Thread cacheSyncThread = new Thread(new CacheSyncRunnable(), "cachefs-sync");
         cacheSyncThread.setDaemon(true);
         cacheSyncThread.start();
@@ -92,7 +160,10 @@ public class FileCacheBinaryProviderImpl extends FileBinaryProviderBase {
             // Returns from cache if there
             if (cachedFile.exists()) {
                 entryAccessed(cachedFile);
-                return new FileInputStream(cachedFile);
+                // Not sendable since the file may be evicted before the container sends it
+                InputStream cachedStream = new FileBinaryInputStream(cachedFile, false);
+                evictionStats.hit();
+                return cachedStream;
             }
         } catch (FileNotFoundException e) {
             // This is an error but not blocking
@@ -101,6 +172,7 @@ public class FileCacheBinaryProviderImpl extends FileBinaryProviderBase {
                             "but failed to open it due to: " + e.getMessage(), e);
         }
 
+        evictionStats.miss();
         try {
             // Save to a temp file while the stream is being passed to the reader!
             return new SavedToFileOnReadInputStream(next().getStream(sha1), sha1);
@@ -140,6 +212,10 @@ public class FileCacheBinaryProviderImpl extends FileBinaryProviderBase {
                     return bi;
                 }
             }
+            if (!isAdmitted(bi.getSha1(), bi.getLength())) {
+                // Finally will delete the temp file
+                return bi;
+            }
             savedToFile.moveTempFileTo(cachedFile);
             return bi;
         } finally {
@@ -153,10 +229,11 @@ public class FileCacheBinaryProviderImpl extends FileBinaryProviderBase {
     @Override
     protected boolean deleteNoChain(String sha1) {
         if (super.deleteNoChain(sha1)) {
-            LruEntry lruEntry = lruCache.remove(sha1);
-            if (lruEntry != null) {
-                log.debug("Deleted entry {} saved {}", sha1, StorageUnit.toReadableString(lruEntry.fileSize));
-                totalSize.getAndAdd(-lruEntry.fileSize);
+            long size = evictionPolicy.remove(sha1);
+            if (size >= 0) {
+                log.debug("Deleted entry {} saved {}", sha1, StorageUnit.toReadableString(size));
+                totalSize.getAndAdd(-size);
+                journalRemoved(sha1);
             }
             return true;
         }
@@ -178,7 +255,11 @@ public class FileCacheBinaryProviderImpl extends FileBinaryProviderBase {
             if (getBinaryStoreServices().isActivelyUsed(sha1)) {
                 statusHolder.status("Skipping deletion for in-use artifact record: " + sha1, log);
             } else {
-                lruCache.remove(sha1);
+                long entrySize = evictionPolicy.remove(sha1);
+                if (entrySize >= 0) {
+                    totalSize.getAndAdd(-entrySize);
+                    journalRemoved(sha1);
+                }
                 long size = file.length();
                 Files.removeFile(file);
                 if (file.exists()) {
@@ -192,107 +273,100 @@ public class FileCacheBinaryProviderImpl extends FileBinaryProviderBase {
     }
 
     void entryAccessed(File cachedFile) {
-        LruEntry key = new LruEntry(cachedFile);
-        LruEntry oldEntry = lruCache.put(key.sha1, key);
-        if (oldEntry == null) { // a new entry was added
-            long newTotalSize = totalSize.addAndGet(key.fileSize);
+        String sha1 = cachedFile.getName();
+        long size = cachedFile.length();
+        if (evictionPolicy.recordAccess(sha1, size)) { // a new entry was added
+            if (journal != null) {
+                journal.recordAdded(sha1, size);
+            }
+            long newTotalSize = totalSize.addAndGet(size);
             if (newTotalSize > maxTotalSize) {
                 cleanFiles();
             }
+        } else if (journal != null) {
+            journal.recordAccessed(sha1, size);
+        }
+    }
+
+    void initEntryAccessed(File cachedFile) {
+        log.trace("Adding init entry '{}'", cachedFile);
+        String sha1 = cachedFile.getName();
+        long size = cachedFile.length();
+        if (initEntry(sha1, size) && journal != null) {
+            journal.recordAdded(sha1, size);
         }
     }
 
-    void initEntryAccessed(File cachedFile, long initTime) {
-        log.trace("Adding init entry '{}' with time '{}'", cachedFile, initTime);
-        LruEntry key = new LruEntry(cachedFile, initTime);
-        LruEntry oldEntry = lruCache.putIfAbsent(key.sha1, key);
-        if (oldEntry == null) { // a new entry was added
-            totalSize.addAndGet(key.fileSize);
+    private boolean initEntry(String sha1, long size) {
+        if (evictionPolicy.recordExisting(sha1, size)) { // a new entry was added
+            totalSize.addAndGet(size);
+            return true;
+        }
+        return false;
+    }
+
+    private void journalRemoved(String sha1) {
+        if (journal != null) {
+            journal.recordRemoved(sha1);
+        }
+    }
+
+    /**
+     * Size aware admission: binaries bigger than the max entry size are served but not kept in the cache.
+     */
+    private boolean isAdmitted(String sha1, long size) {
+        if (maxEntrySize > 0 && size > maxEntrySize) {
+            log.debug("Not caching entry {} of size {} which is bigger than the max entry size {}", sha1,
+                    StorageUnit.toReadableString(size), StorageUnit.toReadableString(maxEntrySize));
+            evictionStats.rejected();
+            return false;
         }
+        return true;
     }
 
+    /**
+     * Evicts entries chosen by the eviction policy until the cache is back under its max size, or until the eviction
+     * batch size is reached (the next added entry will resume the eviction).
+     */
     private void cleanFiles() {
         if (!cacheCleanerSemaphore.tryAcquire()) {
             return;
         }
+        long start = System.nanoTime();
         try {
             log.debug("Cleaning files cache entries since {} files have a total size {} which is bigger than {}",
-                    lruCache.size(),
+                    evictionPolicy.size(),
                     StorageUnit.toReadableString(totalSize.get()),
                     StorageUnit.toReadableString(maxTotalSize));
 
-            List<LruEntry> orderedEntries = Lists.newArrayList(lruCache.values());
-            // Sort ascending, means the first ones have smallest last access
-            // So first are oldest entries ready for deletion
-            Collections.sort(orderedEntries);
             int nbFilesRemoved = 0;
-            for (LruEntry orderedEntry : orderedEntries) {
+            for (int i = 0; i < evictionBatchSize && totalSize.get() > maxTotalSize; i++) {
+                CacheEvictionPolicy.CacheEntry victim = evictionPolicy.evict();
+                if (victim == null) {
+                    break;
+                }
                 if (log.isTraceEnabled()) {
-                    log.trace("Trying to delete file " + orderedEntry.sha1 +
-                            " of size " + StorageUnit.toReadableString(orderedEntry.fileSize) + " from cache.");
+                    log.trace("Trying to delete file " + victim.getSha1() +
+                            " of size " + StorageUnit.toReadableString(victim.getSize()) + " from cache.");
                 }
-                if (deleteNoChain(orderedEntry.sha1)) {
+                if (super.deleteNoChain(victim.getSha1())) {
+                    totalSize.getAndAdd(-victim.getSize());
+                    journalRemoved(victim.getSha1());
+                    evictionStats.evicted(victim.getSize());
                     nbFilesRemoved++;
-                }
-                long currentSize = totalSize.get();
-                if (currentSize < maxTotalSize) {
-                    // We are good now
-                    log.debug("Cleaned " + nbFilesRemoved + " from cache." +
-                            " Current size " + StorageUnit.toReadableString(currentSize));
-                    break;
+                } else {
+                    // Still in use or could not be deleted, keep tracking it without counting it as an access
+                    evictionPolicy.reinsert(victim.getSha1(), victim.getSize());
                 }
             }
+            log.debug("Cleaned " + nbFilesRemoved + " from cache." +
+                    " Current size " + StorageUnit.toReadableString(totalSize.get()));
         } finally {
+            evictionStats.evictionRun(System.nanoTime() - start);
             cacheCleanerSemaphore.release();
         }
     }
 
-    static class LruEntry implements Comparable<LruEntry> {
-        final String sha1;
-        final long fileSize;
-        final AtomicLong lastAccess;
-
-        LruEntry(File cachedFile) {
-            this.sha1 = cachedFile.getName();
-            this.fileSize = cachedFile.length();
-            this.lastAccess = new AtomicLong(System.nanoTime());
-        }
-
-        LruEntry(File cachedFile, long initTime) {
-            this.sha1 = cachedFile.getName();
-            this.fileSize = cachedFile.length();
-            this.lastAccess = new AtomicLong(initTime);
-        }
-
-        @Override
-        public int compareTo(LruEntry o) {
-            return Long.compare(lastAccess.get(), o.lastAccess.get());
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) {
-                return true;
-            }
-            if (o == null || getClass() != o.getClass()) {
-                return false;
-            }
-
-            LruEntry lruEntry = (LruEntry) o;
-
-            if (!sha1.equals(lruEntry.sha1)) {
-                return false;
-            }
-
-            return true;
-        }
-
-        @Override
-        public int hashCode() {
-            return sha1.hashCode();
-        }
-    }
-
     class SavedToFileOnReadInputStream extends SavedToFileInputStream {
         final String sha1;
 
@@ -323,6 +397,9 @@ public class FileCacheBinaryProviderImpl extends FileBinaryProviderBase {
                     return true;
                 }
             }
+            if (!isAdmitted(sha1, tempFile.length())) {
+                return true;
+            }
             moveTempFileTo(cachedFile);
             return true;
         }
@@ -366,7 +443,7 @@ public class FileCacheBinaryProviderImpl extends FileBinaryProviderBase {
             boolean active = true;
             while (active) {
                 try {
-                    addCacheEntries(System.nanoTime());
+                    addCacheEntries();
                     active = false;
                 } catch (IOException e) {
                     log.warn("Cache entries sync error: '{}'", e.getMessage());
@@ -376,7 +453,7 @@ public class FileCacheBinaryProviderImpl extends FileBinaryProviderBase {
             }
         }
 
-        private void addCacheEntries(final long started) throws IOException {
+        private void addCacheEntries() throws IOException {
             final Path binariesDirPath = getBinariesDir().toPath();
             java.nio.file.Files.walkFileTree(binariesDirPath, new SimpleFileVisitor<Path>() {
                 @Override
@@ -391,7 +468,7 @@ public class FileCacheBinaryProviderImpl extends FileBinaryProviderBase {
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
                     try {
-                        initEntryAccessed(file.toFile(), started);
+                        initEntryAccessed(file.toFile());
                     } catch (Exception e) {
                         log.error("Unable to add cache entry '{}'", file.toString());
                     }
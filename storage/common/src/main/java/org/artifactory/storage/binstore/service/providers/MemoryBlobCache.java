@@ -0,0 +1,195 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.binstore.service.providers;
+
+import com.google.common.collect.Maps;
+import org.artifactory.storage.binstore.service.providers.eviction.CacheEvictionPolicy;
+import org.artifactory.storage.binstore.service.providers.eviction.CacheEvictionPolicyType;
+import org.artifactory.storage.binstore.service.providers.eviction.CacheEvictionStats;
+
+import javax.annotation.Nullable;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * A size bounded cache of small binaries kept in direct (off-heap) byte buffers.
+ * <p/>
+ * The cached entries are chosen by a {@link CacheEvictionPolicy}, the same policies used by the cache-fs provider.
+ * Binaries bigger than the max entry size are never cached. The bytes are copied outside of the cache lock, only the
+ * bookkeeping is done while holding it.
+ *
+ * @see MemoryCacheBinaryProviderImpl
+ */
+public class MemoryBlobCache {
+    private final long maxSize;
+    private final int maxEntrySize;
+    private final CacheEvictionPolicyType evictionPolicyType;
+    private final CacheEvictionPolicy evictionPolicy;
+    private final CacheEvictionStats stats = new CacheEvictionStats();
+    private final Map<String, ByteBuffer> blobs = Maps.newHashMap();
+    private long totalSize;
+
+    public MemoryBlobCache(long maxSize, int maxEntrySize, CacheEvictionPolicyType evictionPolicyType) {
+        this.maxSize = maxSize;
+        this.maxEntrySize = maxEntrySize;
+        this.evictionPolicyType = evictionPolicyType;
+        this.evictionPolicy = evictionPolicyType.create(maxSize);
+    }
+
+    /**
+     * @return A stream over the cached bytes or null if the binary is not cached
+     */
+    @Nullable
+    public InputStream get(String sha1) {
+        ByteBuffer blob;
+        synchronized (this) {
+            blob = blobs.get(sha1);
+            if (blob != null) {
+                evictionPolicy.recordAccess(sha1, blob.capacity());
+            }
+        }
+        if (blob == null) {
+            stats.miss();
+            return null;
+        }
+        stats.hit();
+        return new ByteBufferInputStream(blob.duplicate());
+    }
+
+    public synchronized boolean contains(String sha1) {
+        return blobs.containsKey(sha1);
+    }
+
+    /**
+     * @return True if a binary of this size may be cached
+     */
+    public boolean isCacheable(long size) {
+        return size <= maxEntrySize && size <= maxSize;
+    }
+
+    /**
+     * Caches the first {@code length} bytes of the given array, evicting other entries if the cache gets full.
+     *
+     * @return True if the binary is now cached
+     */
+    public boolean put(String sha1, byte[] bytes, int length) {
+        if (!isCacheable(length)) {
+            stats.rejected();
+            return false;
+        }
+        synchronized (this) {
+            if (blobs.containsKey(sha1)) {
+                return true;
+            }
+        }
+        ByteBuffer blob = ByteBuffer.allocateDirect(length);
+        blob.put(bytes, 0, length);
+        blob.flip();
+        synchronized (this) {
+            if (blobs.containsKey(sha1)) {
+                return true;
+            }
+            blobs.put(sha1, blob.asReadOnlyBuffer());
+            evictionPolicy.recordAccess(sha1, length);
+            totalSize += length;
+            while (totalSize > maxSize) {
+                CacheEvictionPolicy.CacheEntry victim = evictionPolicy.evict();
+                if (victim == null) {
+                    break;
+                }
+                blobs.remove(victim.getSha1());
+                totalSize -= victim.getSize();
+                stats.evicted(victim.getSize());
+            }
+            return blobs.containsKey(sha1);
+        }
+    }
+
+    public synchronized void remove(String sha1) {
+        if (blobs.remove(sha1) != null) {
+            totalSize -= evictionPolicy.remove(sha1);
+        }
+    }
+
+    public CacheEvictionPolicyType getEvictionPolicyType() {
+        return evictionPolicyType;
+    }
+
+    public CacheEvictionStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return The total size in bytes of the cached binaries
+     */
+    public synchronized long getSize() {
+        return totalSize;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public int getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    public synchronized int getCount() {
+        return blobs.size();
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.binstore.service.providers;
+
+import org.artifactory.binstore.BinaryInfo;
+import org.artifactory.storage.binstore.service.BinaryNotFoundException;
+import org.artifactory.storage.binstore.service.annotation.BinaryProviderClassInfo;
+import org.artifactory.storage.binstore.service.base.BinaryProviderBase;
+import org.artifactory.storage.binstore.service.providers.eviction.CacheEvictionPolicyType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory hot tier for small binaries (poms, checksums, metadata files, npm package json...) placed in front of
+ * the rest of the chain. Binaries up to {@code maxEntrySize} bytes are kept off-heap in a {@link MemoryBlobCache} of
+ * at most {@code maxSize} bytes when they are read from or written to the next provider.
+ * <p/>
+ * Configured in the binarystore XML with a provider of type {@code memory}, for example:
+ * <pre>
+ * &lt;provider id="memory" type="memory"&gt;
+ *     &lt;maxSize&gt;67108864&lt;/maxSize&gt;
+ *     &lt;maxEntrySize&gt;65536&lt;/maxEntrySize&gt;
+ *     &lt;provider id="cache-fs" type="cache-fs"&gt;...&lt;/provider&gt;
+ * &lt;/provider&gt;
+ * </pre>
+ */
+@BinaryProviderClassInfo(nativeName = "memory")
+public class MemoryCacheBinaryProviderImpl extends BinaryProviderBase {
+    private static final Logger log = LoggerFactory.getLogger(MemoryCacheBinaryProviderImpl.class);
+
+    public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+    public static final int DEFAULT_MAX_ENTRY_SIZE = 64 * 1024;
+
+    private MemoryBlobCache cache;
+    /**
+     * Promoted on each delete, a binary read or added before a delete is not cached after it
+     */
+    private final AtomicLong deletions = new AtomicLong();
+
+    @Override
+    public void initialize() {
+        long maxSize = getLongParam("maxSize", DEFAULT_MAX_SIZE);
+        int maxEntrySize = getIntParam("maxEntrySize", DEFAULT_MAX_ENTRY_SIZE);
+        CacheEvictionPolicyType evictionPolicyType = CacheEvictionPolicyType.fromName(
+                getParam("evictionPolicy", CacheEvictionPolicyType.lru.name()));
+        cache = new MemoryBlobCache(maxSize, maxEntrySize, evictionPolicyType);
+        log.debug("Initialized memory binary provider of {} bytes for binaries up to {} bytes", maxSize,
+                maxEntrySize);
+    }
+
+    public MemoryBlobCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public boolean exists(String sha1) {
+        return cache.contains(sha1) || next().exists(sha1);
+    }
+
+    @Nonnull
+    @Override
+    public InputStream getStream(String sha1) throws BinaryNotFoundException {
+        InputStream cached = cache.get(sha1);
+        if (cached != null) {
+            return cached;
+        }
+        long deletionsOnStart = deletions.get();
+        return new CachingOnReadInputStream(next().getStream(sha1), sha1, deletionsOnStart);
+    }
+
+    @Override
+    public BinaryInfo addStream(InputStream in) throws IOException {
+        long deletionsOnStart = deletions.get();
+        CapturingInputStream capturing = new CapturingInputStream(in);
+        BinaryInfo bi = next().addStream(capturing);
+        if (capturing.isCaptured() && capturing.length == bi.getLength()) {
+            putUnlessDeleted(bi.getSha1(), capturing.bytes, capturing.length, deletionsOnStart);
+        }
+        return bi;
+    }
+
+    @Override
+    public boolean delete(String sha1) {
+        deletions.incrementAndGet();
+        cache.remove(sha1);
+        return next().delete(sha1);
+    }
+
+    /**
+     * Caches the binary unless a binary was deleted since the binary was read. The check is done after the put: a
+     * delete promoting the deletions after the check removes the entry itself.
+     */
+    private void putUnlessDeleted(String sha1, byte[] bytes, int length, long deletionsOnStart) {
+        cache.put(sha1, bytes, length);
+        if (deletions.get() != deletionsOnStart) {
+            log.debug("Binary {} was read before a delete, not caching it", sha1);
+            cache.remove(sha1);
+        }
+    }
+
+    /**
+     * Keeps a copy of the bytes read from the delegate as long as they fit in the max entry size
+     */
+    private class CapturingInputStream extends FilterInputStream {
+        byte[] bytes = new byte[1024];
+        int length;
+        boolean overflow;
+        boolean eof;
+
+        CapturingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                endOfStream();
+            } else {
+                capture(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count == -1) {
+                endOfStream();
+            } else {
+                capture(b, off, count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes cannot be cached
+            overflow = true;
+            bytes = null;
+            return super.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        boolean isCaptured() {
+            return eof && !overflow;
+        }
+
+        void endOfStream() {
+            eof = true;
+        }
+
+        private void capture(byte[] b, int off, int count) {
+            if (overflow || count <= 0) {
+                return;
+            }
+            if (!cache.isCacheable(length + count)) {
+                overflow = true;
+                bytes = null;
+                return;
+            }
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+            }
+            System.arraycopy(b, off, bytes, length, count);
+            length += count;
+        }
+    }
+
+    /**
+     * Caches the binary read from the next provider once it was fully read
+     */
+    private class CachingOnReadInputStream extends CapturingInputStream {
+        private final String sha1;
+        private final long deletionsOnStart;
+
+        CachingOnReadInputStream(InputStream in, String sha1, long deletionsOnStart) {
+            super(in);
+            this.sha1 = sha1;
+            this.deletionsOnStart = deletionsOnStart;
+        }
+
+        @Override
+        void endOfStream() {
+            if (!eof) {
+                super.endOfStream();
+                if (isCaptured()) {
+                    putUnlessDeleted(sha1, bytes, length, deletionsOnStart);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.binstore.service.providers.eviction;
+
+import javax.annotation.Nullable;
+
+/**
+ * Decides which entries of the cache-fs binary provider are evicted when the cache exceeds its max size.
+ * <p/>
+ * The policy only keeps the cache metadata (sha1 and size), the cache provider is responsible for the actual file
+ * deletion and for the total size accounting. All the operations are expected to be O(1) so they can be called on
+ * the request threads.
+ *
+ * @see CacheEvictionPolicyType
+ */
+public interface CacheEvictionPolicy {
+
+    /**
+     * Records an access (read or write) to a cached entry, adding it if it's not known yet.
+     *
+     * @return True if the entry was added, false if it was already known
+     */
+    boolean recordAccess(String sha1, long size);
+
+    /**
+     * Records an entry found on the disk without an actual access (e.g. after a restart). The entry is added with the
+     * lowest priority if it's not known yet.
+     *
+     * @return True if the entry was added, false if it was already known
+     */
+    boolean recordExisting(String sha1, long size);
+
+    /**
+     * Puts back an entry returned by {@link #evict()} that could not be deleted (e.g. still read or an I/O error). The
+     * entry is added as the newest entry of the lowest priority segment and, unlike {@link #recordAccess}, it doesn't
+     * count as an access.
+     *
+     * @return True if the entry was added, false if it was already known
+     */
+    boolean reinsert(String sha1, long size);
+
+    /**
+     * Removes the entry from the policy.
+     *
+     * @return The size of the removed entry or -1 if the entry was not known
+     */
+    long remove(String sha1);
+
+    /**
+     * Selects the next entry to evict and removes it from the policy.
+     *
+     * @return The evicted entry or null if the policy is empty
+     */
+    @Nullable
+    CacheEntry evict();
+
+    /**
+     * @return The number of entries tracked by the policy
+     */
+    int size();
+
+    /**
+     * A cached entry selected for eviction
+     */
+    class CacheEntry {
+        private final String sha1;
+        private final long size;
+
+        public CacheEntry(String sha1, long size) {
+            this.sha1 = sha1;
+            this.size = size;
+        }
+
+        public String getSha1() {
+            return sha1;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.binstore.service.providers.eviction;
+
+/**
+ * The eviction policies supported by the cache-fs binary provider. Configured with the {@code evictionPolicy}
+ * parameter of the provider in the binarystore XML.
+ */
+public enum CacheEvictionPolicyType {
+    /**
+     * Evicts the least recently accessed entry
+     */
+    lru {
+        @Override
+        public CacheEvictionPolicy create(long maxSize) {
+            return new LruEvictionPolicy();
+        }
+    },
+    /**
+     * Segmented LRU - entries accessed more than once are protected from a scan of entries accessed only once
+     */
+    slru {
+        @Override
+        public CacheEvictionPolicy create(long maxSize) {
+            return new SegmentedLruEvictionPolicy(maxSize);
+        }
+    },
+    /**
+     * Window TinyLFU - new entries are admitted to the main cache only if they are accessed more frequently than the
+     * entries they would replace
+     */
+    tinylfu {
+        @Override
+        public CacheEvictionPolicy create(long maxSize) {
+            return new TinyLfuEvictionPolicy(maxSize);
+        }
+    };
+
+    /**
+     * @param maxSize The max size in bytes of the cache
+     * @return A new empty policy
+     */
+    public abstract CacheEvictionPolicy create(long maxSize);
+
+    public static CacheEvictionPolicyType fromName(String name) {
+        for (CacheEvictionPolicyType type : values()) {
+            if (type.name().equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown cache eviction policy '" + name + "'");
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.binstore.service.providers.eviction;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hit ratio and eviction counters of the cache-fs binary provider.
+ */
+public class CacheEvictionStats {
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong evictedFiles = new AtomicLong();
+    private final AtomicLong evictedBytes = new AtomicLong();
+    private final AtomicLong evictionRuns = new AtomicLong();
+    private final AtomicLong evictionTimeNanos = new AtomicLong();
+    private final AtomicLong maxEvictionTimeNanos = new AtomicLong();
+
+    public void hit() {
+        hits.incrementAndGet();
+    }
+
+    public void miss() {
+        misses.incrementAndGet();
+    }
+
+    public void rejected() {
+        rejected.incrementAndGet();
+    }
+
+    public void evicted(long size) {
+        evictedFiles.incrementAndGet();
+        evictedBytes.addAndGet(size);
+    }
+
+    public void evictionRun(long durationNanos) {
+        evictionRuns.incrementAndGet();
+        evictionTimeNanos.addAndGet(durationNanos);
+        long max;
+        do {
+            max = maxEvictionTimeNanos.get();
+        } while (durationNanos > max && !maxEvictionTimeNanos.compareAndSet(max, durationNanos));
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The ratio of reads served from the cache, between 0 and 1
+     */
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return The number of binaries not kept in the cache because they exceed the max entry size
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getEvictedFiles() {
+        return evictedFiles.get();
+    }
+
+    public long getEvictedBytes() {
+        return evictedBytes.get();
+    }
+
+    public long getEvictionRuns() {
+        return evictionRuns.get();
+    }
+
+    public long getEvictionTimeMillis() {
+        return evictionTimeNanos.get() / 1000000;
+    }
+
+    public long getMaxEvictionTimeMillis() {
+        return maxEvictionTimeNanos.get() / 1000000;
+    }
+}
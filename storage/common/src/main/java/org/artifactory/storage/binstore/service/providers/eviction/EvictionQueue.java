@@ -0,0 +1,112 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.binstore.service.providers.eviction;
+
+/**
+ * An intrusive doubly linked list of cache entries ordered from the eldest (head) to the newest (tail), keeping the
+ * total size of its entries. Not thread safe, guarded by the owning policy.
+ */
+class EvictionQueue {
+    private Node head;
+    private Node tail;
+    private long bytes;
+    private int count;
+
+    void addNewest(Node node) {
+        node.queue = this;
+        node.prev = tail;
+        node.next = null;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        bytes += node.size;
+        count++;
+    }
+
+    void addEldest(Node node) {
+        node.queue = this;
+        node.prev = null;
+        node.next = head;
+        if (head == null) {
+            tail = node;
+        } else {
+            head.prev = node;
+        }
+        head = node;
+        bytes += node.size;
+        count++;
+    }
+
+    void remove(Node node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.queue = null;
+        bytes -= node.size;
+        count--;
+    }
+
+    void moveToNewest(Node node) {
+        if (node != tail) {
+            remove(node);
+            addNewest(node);
+        }
+    }
+
+    Node eldest() {
+        return head;
+    }
+
+    Node newest() {
+        return tail;
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    int count() {
+        return count;
+    }
+
+    static class Node {
+        final String sha1;
+        final long size;
+        EvictionQueue queue;
+        Node prev;
+        Node next;
+
+        Node(String sha1, long size) {
+            this.sha1 = sha1;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.binstore.service.providers.eviction;
+
+/**
+ * A Count-Min sketch estimating the access frequency of cache entries, used by the TinyLFU admission.
+ * <p/>
+ * Each long of the table holds 16 counters of 4 bits (max frequency of 15). Every key is mapped to 4 counters and its
+ * frequency is the minimum of them. When the number of increments reaches 10 times the table width all the counters
+ * are halved, so old popularity fades away. Not thread safe, guarded by the owning policy.
+ */
+class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MIN_CAPACITY = 1024;
+
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int additions;
+
+    FrequencySketch() {
+        ensureCapacity(MIN_CAPACITY);
+    }
+
+    /**
+     * Grows the sketch to track at least the given number of entries. Growing resets the collected frequencies.
+     */
+    void ensureCapacity(int entries) {
+        int capacity = Integer.highestOneBit(Math.max(entries, MIN_CAPACITY) - 1) << 1;
+        if (table != null && table.length >= capacity) {
+            return;
+        }
+        table = new long[capacity];
+        tableMask = capacity - 1;
+        sampleSize = 10 * capacity;
+        additions = 0;
+    }
+
+    int frequency(String key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(String key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions = (additions >>> 1) - (odd >>> 2);
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.binstore.service.providers.eviction;
+
+import com.google.common.collect.Maps;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * Segmented LRU eviction policy.
+ * <p/>
+ * New entries enter the probation segment and are promoted to the protected segment when accessed again. Entries
+ * are evicted from the probation segment first, so a scan of entries accessed only once (e.g. a crawler) cannot
+ * flush the hot entries. When the protected segment exceeds its share of the cache, its least recently used entries
+ * are demoted back to probation.
+ */
+public class SegmentedLruEvictionPolicy implements CacheEvictionPolicy {
+    static final double PROTECTED_RATIO = 0.8;
+
+    private final Map<String, EvictionQueue.Node> entries = Maps.newHashMap();
+    private final EvictionQueue probation = new EvictionQueue();
+    private final EvictionQueue protectedQueue = new EvictionQueue();
+    private final long maxProtectedSize;
+
+    public SegmentedLruEvictionPolicy(long maxSize) {
+        this.maxProtectedSize = (long) (maxSize * PROTECTED_RATIO);
+    }
+
+    @Override
+    public synchronized boolean recordAccess(String sha1, long size) {
+        EvictionQueue.Node node = entries.get(sha1);
+        if (node != null) {
+            onHit(node);
+            return false;
+        }
+        node = new EvictionQueue.Node(sha1, size);
+        entries.put(sha1, node);
+        probation.addNewest(node);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean recordExisting(String sha1, long size) {
+        if (entries.containsKey(sha1)) {
+            return false;
+        }
+        EvictionQueue.Node node = new EvictionQueue.Node(sha1, size);
+        entries.put(sha1, node);
+        probation.addEldest(node);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean reinsert(String sha1, long size) {
+        if (entries.containsKey(sha1)) {
+            return false;
+        }
+        EvictionQueue.Node node = new EvictionQueue.Node(sha1, size);
+        entries.put(sha1, node);
+        probation.addNewest(node);
+        return true;
+    }
+
+    @Override
+    public synchronized long remove(String sha1) {
+        EvictionQueue.Node node = entries.remove(sha1);
+        if (node == null) {
+            return -1;
+        }
+        node.queue.remove(node);
+        return node.size;
+    }
+
+    @Nullable
+    @Override
+    public synchronized CacheEntry evict() {
+        EvictionQueue.Node victim = probation.eldest();
+        if (victim == null) {
+            victim = protectedQueue.eldest();
+        }
+        if (victim == null) {
+            return null;
+        }
+        victim.queue.remove(victim);
+        entries.remove(victim.sha1);
+        return new CacheEntry(victim.sha1, victim.size);
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void onHit(EvictionQueue.Node node) {
+        if (node.queue == protectedQueue) {
+            protectedQueue.moveToNewest(node);
+            return;
+        }
+        probation.remove(node);
+        protectedQueue.addNewest(node);
+        while (protectedQueue.bytes() > maxProtectedSize && protectedQueue.count() > 1) {
+            EvictionQueue.Node demoted = protectedQueue.eldest();
+            protectedQueue.remove(demoted);
+            probation.addNewest(demoted);
+        }
+    }
+}
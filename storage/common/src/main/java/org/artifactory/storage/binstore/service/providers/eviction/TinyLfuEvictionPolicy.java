@@ -0,0 +1,173 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.binstore.service.providers.eviction;
+
+import com.google.common.collect.Maps;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * Window TinyLFU eviction policy.
+ * <p/>
+ * New entries go to a small LRU admission window (1% of the cache). Entries leaving the window become candidates in
+ * the probation segment of a {@link SegmentedLruEvictionPolicy segmented LRU} main area. On eviction the newest
+ * candidate competes with the eldest probation entry and the one with the lowest estimated access frequency is
+ * evicted, so one-hit wonders do not replace popular entries. Frequencies are estimated with a {@link FrequencySketch}
+ * updated on every access.
+ */
+public class TinyLfuEvictionPolicy implements CacheEvictionPolicy {
+    static final double WINDOW_RATIO = 0.01;
+
+    private final Map<String, EvictionQueue.Node> entries = Maps.newHashMap();
+    private final FrequencySketch sketch = new FrequencySketch();
+    private final EvictionQueue window = new EvictionQueue();
+    private final EvictionQueue probation = new EvictionQueue();
+    private final EvictionQueue protectedQueue = new EvictionQueue();
+    private final long maxWindowSize;
+    private final long maxProtectedSize;
+
+    /**
+     * The newest entry moved from the window to probation, competing with the eldest probation entry on eviction
+     */
+    private EvictionQueue.Node candidate;
+
+    public TinyLfuEvictionPolicy(long maxSize) {
+        this.maxWindowSize = (long) (maxSize * WINDOW_RATIO);
+        this.maxProtectedSize = (long) ((maxSize - maxWindowSize) * SegmentedLruEvictionPolicy.PROTECTED_RATIO);
+    }
+
+    @Override
+    public synchronized boolean recordAccess(String sha1, long size) {
+        sketch.increment(sha1);
+        EvictionQueue.Node node = entries.get(sha1);
+        if (node != null) {
+            onHit(node);
+            return false;
+        }
+        node = new EvictionQueue.Node(sha1, size);
+        entries.put(sha1, node);
+        sketch.ensureCapacity(entries.size());
+        window.addNewest(node);
+        while (window.bytes() > maxWindowSize && window.count() > 1) {
+            EvictionQueue.Node overflow = window.eldest();
+            window.remove(overflow);
+            probation.addNewest(overflow);
+            candidate = overflow;
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean recordExisting(String sha1, long size) {
+        if (entries.containsKey(sha1)) {
+            return false;
+        }
+        EvictionQueue.Node node = new EvictionQueue.Node(sha1, size);
+        entries.put(sha1, node);
+        sketch.ensureCapacity(entries.size());
+        probation.addEldest(node);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean reinsert(String sha1, long size) {
+        if (entries.containsKey(sha1)) {
+            return false;
+        }
+        EvictionQueue.Node node = new EvictionQueue.Node(sha1, size);
+        entries.put(sha1, node);
+        sketch.ensureCapacity(entries.size());
+        probation.addNewest(node);
+        return true;
+    }
+
+    @Override
+    public synchronized long remove(String sha1) {
+        EvictionQueue.Node node = entries.remove(sha1);
+        if (node == null) {
+            return -1;
+        }
+        unlink(node);
+        return node.size;
+    }
+
+    @Nullable
+    @Override
+    public synchronized CacheEntry evict() {
+        EvictionQueue.Node victim = selectVictim();
+        if (victim == null) {
+            return null;
+        }
+        entries.remove(victim.sha1);
+        unlink(victim);
+        return new CacheEntry(victim.sha1, victim.size);
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private EvictionQueue.Node selectVictim() {
+        EvictionQueue.Node eldest = probation.eldest();
+        if (eldest == null) {
+            eldest = protectedQueue.eldest();
+        }
+        if (eldest == null) {
+            return window.eldest();
+        }
+        if (candidate == null || candidate == eldest || candidate.queue != probation) {
+            return eldest;
+        }
+        // Admission: the candidate replaces the eldest entry only if it is more popular. On a tie the bigger of the
+        // two is evicted, to free more space with the same loss in hit ratio
+        int candidateFrequency = sketch.frequency(candidate.sha1);
+        int eldestFrequency = sketch.frequency(eldest.sha1);
+        if (candidateFrequency > eldestFrequency ||
+                (candidateFrequency == eldestFrequency && eldest.size > candidate.size)) {
+            return eldest;
+        }
+        return candidate;
+    }
+
+    private void onHit(EvictionQueue.Node node) {
+        if (node.queue == window || node.queue == protectedQueue) {
+            node.queue.moveToNewest(node);
+            return;
+        }
+        if (node == candidate) {
+            candidate = null;
+        }
+        probation.remove(node);
+        protectedQueue.addNewest(node);
+        while (protectedQueue.bytes() > maxProtectedSize && protectedQueue.count() > 1) {
+            EvictionQueue.Node demoted = protectedQueue.eldest();
+            protectedQueue.remove(demoted);
+            probation.addNewest(demoted);
+        }
+    }
+
+    private void unlink(EvictionQueue.Node node) {
+        if (node == candidate) {
+            candidate = null;
+        }
+        node.queue.remove(node);
+    }
+}
@@ -22,6 +22,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Debug logger for vfs locking issues.
@@ -31,6 +33,52 @@ import java.util.Collection;
 public class LockingDebugUtils {
     private static final Logger log = LoggerFactory.getLogger(LockingDebugUtils.class);
 
+    /**
+     * Upper bounds (exclusive) of the lock wait histogram buckets, the last bucket counts all the longer waits
+     */
+    private static final long[] LOCK_WAIT_BUCKETS_MILLIS = {1, 10, 100, 1000, 10000};
+    private static final AtomicLongArray lockWaits = new AtomicLongArray(LOCK_WAIT_BUCKETS_MILLIS.length + 1);
+
+    /**
+     * Records the time a thread spent acquiring (or failing to acquire) an fs item lock
+     */
+    public static void recordLockWait(long waitNanos) {
+        long waitMillis = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        int bucket = 0;
+        while (bucket < LOCK_WAIT_BUCKETS_MILLIS.length && waitMillis >= LOCK_WAIT_BUCKETS_MILLIS[bucket]) {
+            bucket++;
+        }
+        lockWaits.incrementAndGet(bucket);
+    }
+
+    /**
+     * @return Number of lock acquisitions per wait time bucket
+     */
+    public static long[] getLockWaitHistogram() {
+        long[] histogram = new long[lockWaits.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = lockWaits.get(i);
+        }
+        return histogram;
+    }
+
+    public static String formatLockWaitHistogram() {
+        long[] histogram = getLockWaitHistogram();
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < histogram.length; i++) {
+            if (i > 0) {
+                message.append(", ");
+            }
+            if (i < LOCK_WAIT_BUCKETS_MILLIS.length) {
+                message.append("<").append(LOCK_WAIT_BUCKETS_MILLIS[i]);
+            } else {
+                message.append(">=").append(LOCK_WAIT_BUCKETS_MILLIS[i - 1]);
+            }
+            message.append("ms: ").append(histogram[i]);
+        }
+        return message.toString();
+    }
+
     public static synchronized void debugLocking(LockEntryId entry, StringBuilder message) {
         message.append("\nCurrent thread: ").append(Thread.currentThread().getName());
         Collection<Thread> queuedWriters = entry.getLock().getQueuedThreads();
@@ -38,6 +86,7 @@ public class LockingDebugUtils {
         for (Thread queuedWriter : queuedWriters) {
             message.append(queuedWriter.getName()).append(' ');
         }
+        message.append("\nLock wait histogram: ").append(formatLockWaitHistogram());
         ThreadDumpUtils.dumpThreads(message);
 
         log.trace(message.toString());
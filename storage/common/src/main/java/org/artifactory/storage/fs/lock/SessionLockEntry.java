@@ -88,7 +88,9 @@ public class SessionLockEntry implements FsItemLockEntry {
     private void acquire() {
         LockWrapper lock = lockEntryId.getLock();
         try {
+            long start = System.nanoTime();
             boolean success = lock.tryLock(ConstantValues.locksTimeoutSecs.getLong(), TimeUnit.SECONDS);
+            LockingDebugUtils.recordLockWait(System.nanoTime() - start);
             if (!success) {
                 StringBuilder messageBuilder =
                         new StringBuilder().append("Lock on ").append(lockEntryId)
@@ -0,0 +1,186 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.fs.lock;
+
+import com.google.common.collect.Maps;
+import org.artifactory.repo.RepoPath;
+import org.artifactory.storage.fs.lock.provider.LockWrapper;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A lock vault that keeps the fs item locks in a striped lock table instead of a cache.
+ * <p/>
+ * The repo path hash selects a stripe, and each stripe guards its own small map with its own monitor, so there is no
+ * global monitor and no cache bookkeeping on the hot path. A path lock exists in the table only while it is held or
+ * waited on, and is dropped as soon as the last holder releases it.
+ * <p/>
+ * Each path still gets its own reentrant lock (the fine-grained write path): the stripe monitor is only held for the
+ * short table operations, never while waiting for a lock. Sharing one lock per stripe would let a thread holding one
+ * path wrongly believe it holds every other path of the same stripe (see {@link SessionLockEntry#isWriteLockedByMe()}),
+ * and would introduce lock ordering deadlocks between unrelated paths.
+ */
+public class StripedFsItemsVault implements FsItemsVault {
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripesCount Number of stripes, rounded up to the next power of two
+     */
+    public StripedFsItemsVault(int stripesCount) {
+        int count = stripesCount <= 1 ? 1 : Integer.highestOneBit(stripesCount - 1) << 1;
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        mask = count - 1;
+    }
+
+    @Override
+    @Nonnull
+    public LockEntryId getLock(RepoPath repoPath) {
+        return new LockEntryId(new PathLock(repoPath, stripeFor(repoPath)), repoPath);
+    }
+
+    int getStripesCount() {
+        return stripes.length;
+    }
+
+    /**
+     * @return Number of path locks currently held or waited on
+     */
+    int getActiveLocksCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.entries.size();
+            }
+        }
+        return count;
+    }
+
+    private Stripe stripeFor(RepoPath repoPath) {
+        int hash = repoPath.hashCode();
+        // spread the high bits since the table is a power of two
+        hash ^= (hash >>> 16);
+        return stripes[hash & mask];
+    }
+
+    private static class Stripe {
+        private final Map<RepoPath, Entry> entries = Maps.newHashMap();
+
+        synchronized Entry reference(RepoPath repoPath) {
+            Entry entry = entries.get(repoPath);
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(repoPath, entry);
+            }
+            entry.references++;
+            return entry;
+        }
+
+        synchronized Entry get(RepoPath repoPath) {
+            return entries.get(repoPath);
+        }
+
+        synchronized void release(RepoPath repoPath, Entry entry) {
+            entry.references--;
+            if (entry.references == 0) {
+                entries.remove(repoPath);
+            }
+        }
+    }
+
+    private static class Entry {
+        private final MonitoringReentrantLock lock = new MonitoringReentrantLock();
+        /**
+         * Number of holds and pending acquisitions, guarded by the stripe
+         */
+        private int references;
+    }
+
+    private static class PathLock implements LockWrapper {
+        private final RepoPath repoPath;
+        private final Stripe stripe;
+
+        private PathLock(RepoPath repoPath, Stripe stripe) {
+            this.repoPath = repoPath;
+            this.stripe = stripe;
+        }
+
+        @Override
+        public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+            Entry entry = stripe.reference(repoPath);
+            boolean locked = false;
+            try {
+                locked = entry.lock.tryLock(timeout, unit);
+                return locked;
+            } finally {
+                if (!locked) {
+                    stripe.release(repoPath, entry);
+                }
+            }
+        }
+
+        @Override
+        public void unlock() {
+            Entry entry = stripe.get(repoPath);
+            if (entry == null) {
+                throw new IllegalMonitorStateException("Lock on " + repoPath + " is not held");
+            }
+            // throws if not held by the current thread, before touching the references
+            entry.lock.unlock();
+            stripe.release(repoPath, entry);
+        }
+
+        @Override
+        public boolean isLocked() {
+            Entry entry = stripe.get(repoPath);
+            return entry != null && entry.lock.isLocked();
+        }
+
+        @Override
+        public boolean isHeldByCurrentThread() {
+            Entry entry = stripe.get(repoPath);
+            return entry != null && entry.lock.isHeldByCurrentThread();
+        }
+
+        @Override
+        public Collection<Thread> getQueuedThreads() {
+            Entry entry = stripe.get(repoPath);
+            return entry != null ? entry.lock.getQueuedThreads() : Collections.<Thread>emptyList();
+        }
+
+        @Override
+        public void destroy() {
+            //noop
+        }
+
+        @Override
+        public String toString() {
+            Entry entry = stripe.get(repoPath);
+            return entry != null ? entry.lock.toString() : "Unlocked " + repoPath;
+        }
+    }
+}
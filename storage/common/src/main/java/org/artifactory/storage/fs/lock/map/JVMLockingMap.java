@@ -1,46 +1,53 @@
 package org.artifactory.storage.fs.lock.map;
 
 
-import java.util.HashMap;
-import java.util.Map;
+import org.artifactory.common.ConstantValues;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * A locking map guarded by striped monitors (by path hash) instead of a single global monitor, so that waiting on or
+ * releasing a path only contends with paths of the same stripe.
+ *
  * @author Shay Yaakov
  */
 public class JVMLockingMap implements LockingMap {
 
-    private final Map<String, String> locks = new HashMap<>();
+    private final ConcurrentMap<String, String> locks = new ConcurrentHashMap<>();
+    private final Object[] monitors;
+
+    public JVMLockingMap() {
+        int stripes = Math.max(1, ConstantValues.locksStripes.getInt());
+        monitors = new Object[stripes];
+        for (int i = 0; i < stripes; i++) {
+            monitors[i] = new Object();
+        }
+    }
 
     @Override
     public boolean tryAddAndLock(String path, long timeout, TimeUnit timeUnit) throws InterruptedException {
-        long startTime = System.currentTimeMillis();
-        while (true) {
-            synchronized (locks) {
-                if (locks.containsKey(path)) {
-                    long userTimeout = timeUnit.toMillis(timeout);
-                    locks.wait(userTimeout);
-                    long endTime = System.currentTimeMillis();
-                    if (endTime - startTime >= userTimeout) {
-                        return false;
-                    }
-                } else {
-                    locks.put(path, path);
-                    return true;
+        long deadline = System.currentTimeMillis() + timeUnit.toMillis(timeout);
+        Object monitor = monitorFor(path);
+        synchronized (monitor) {
+            while (locks.putIfAbsent(path, path) != null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
                 }
+                monitor.wait(remaining);
             }
+            return true;
         }
     }
 
-    public static void main(String[] args) {
-        long l = TimeUnit.MILLISECONDS.toMillis(5000);
-        System.out.println(l);
-    }
     @Override
     public void removeAndUnlock(String path) {
-        synchronized (locks) {
+        Object monitor = monitorFor(path);
+        synchronized (monitor) {
             locks.remove(path);
-            locks.notifyAll();
+            monitor.notifyAll();
         }
     }
 
@@ -51,8 +58,10 @@ public class JVMLockingMap implements LockingMap {
 
     @Override
     public boolean isLocked(String path) {
-        synchronized (locks) {
-            return locks.containsKey(path);
-        }
+        return locks.containsKey(path);
+    }
+
+    private Object monitorFor(String path) {
+        return monitors[(path.hashCode() & Integer.MAX_VALUE) % monitors.length];
     }
 }
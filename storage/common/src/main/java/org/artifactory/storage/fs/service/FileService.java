@@ -55,6 +55,16 @@ public interface FileService {
 
     List<ItemInfo> loadChildren(RepoPath repoPath) throws VfsException;
 
+    /**
+     * Loads the next children of a folder of the given type ordered by name, to list large folders page by page
+     *
+     * @param folders   True to load the child folders, false to load the child files
+     * @param afterName Loads only the children with a greater name, null to start with the first child
+     * @param limit     The maximum number of children to load
+     */
+    List<ItemInfo> loadChildren(RepoPath repoPath, boolean folders, @Nullable String afterName, int limit)
+            throws VfsException;
+
     VfsItem loadVfsItem(StoringRepo storingRepo, RepoPath repoPath) throws VfsItemNotFoundException, VfsException;
 
     long createFolder(FolderInfo folder) throws VfsException;
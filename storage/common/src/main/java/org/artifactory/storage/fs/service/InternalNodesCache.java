@@ -0,0 +1,16 @@
+package org.artifactory.storage.fs.service;
+
+import org.artifactory.repo.RepoPath;
+
+import java.util.Collection;
+
+/**
+ * Internal operations of the nodes cache, called when another cluster member changed nodes.
+ */
+public interface InternalNodesCache {
+
+    /**
+     * Invalidates the cached nodes of the given paths without notifying the other cluster members
+     */
+    void internalInvalidate(Collection<RepoPath> repoPaths);
+}
@@ -22,6 +22,8 @@ import org.artifactory.md.Properties;
 import org.artifactory.repo.RepoPath;
 
 import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * A business service to interact with the node properties table.
@@ -38,6 +40,16 @@ public interface PropertiesService {
     @Nonnull
     Properties loadProperties(long nodeId);
 
+    /**
+     * Loads the properties of many children of the same folder in batched queries
+     *
+     * @param parentRepoPath The repo path of the parent folder
+     * @param childNames     The names of the children
+     * @return The properties of the children by name, the children without properties are omitted
+     */
+    @Nonnull
+    Map<String, Properties> getChildrenProperties(RepoPath parentRepoPath, Collection<String> childNames);
+
     boolean hasProperties(RepoPath repoPath);
 
     /**
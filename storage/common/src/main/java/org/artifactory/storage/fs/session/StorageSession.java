@@ -72,5 +72,11 @@ public interface StorageSession {
 
     <T extends SessionResource> T getOrCreateResource(Class<T> resourceClass);
 
+    /**
+     * @return The resource of the given class if already created in this session, null otherwise
+     */
+    @Nullable
+    <T extends SessionResource> T getResource(Class<T> resourceClass);
+
     void afterCompletion(boolean success);
 }
@@ -20,6 +20,7 @@ package org.artifactory.storage.fs.tree;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
+import org.apache.commons.lang.StringUtils;
 import org.artifactory.api.context.ContextHelper;
 import org.artifactory.api.repo.RootNodesFilterResult;
 import org.artifactory.fs.FileInfo;
@@ -30,6 +31,7 @@ import org.artifactory.storage.fs.tree.file.NodeItemFilterHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.List;
 
@@ -59,6 +61,60 @@ public class FolderNode extends ItemNode{
         return getChildrenItemNode(updateRootNodesFilterFlag,rootNodesFilterResult);
     }
 
+    /**
+     * Returns a page of the accepted children: the folders first and then the files, each ordered by name by the
+     * database. Unlike {@link #getChildren()} only the children up to the end of the page are loaded, so large folders
+     * can be listed page by page. The children are neither sorted by the criteria comparator nor cached.
+     *
+     * @param continueAfter         The {@link #getContinuation continuation} of the last child of the previous page,
+     *                              null for the first page
+     * @param limit                 The maximum number of children to return
+     * @param rootNodesFilterResult If not null, updated when the page is empty because the children can't be read
+     * @return The children of the page, less than the limit only for the last page
+     */
+    public List<ItemNode> getChildren(@Nullable String continueAfter, int limit,
+            @Nullable RootNodesFilterResult rootNodesFilterResult) {
+        List<ItemNode> childrenNodes = Lists.newArrayList();
+        boolean folders = continueAfter == null || continueAfter.endsWith("/");
+        String afterName = continueAfter == null ? null : StringUtils.removeEnd(continueAfter, "/");
+        boolean localAcceptanceFlag = true;
+        while (childrenNodes.size() < limit) {
+            List<ItemInfo> children = getFileService().loadChildren(itemInfo.getRepoPath(), folders, afterName, limit);
+            for (ItemInfo child : children) {
+                if (childrenNodes.size() == limit) {
+                    break;
+                }
+                NodeItemFilterHolder nodeItemFilterHolder = accepts(child);
+                if (nodeItemFilterHolder.isAccepted()) {
+                    addChildToList(childrenNodes, child);
+                } else {
+                    localAcceptanceFlag = updateAcceptedLocalFlag(localAcceptanceFlag, nodeItemFilterHolder);
+                }
+                afterName = child.getName();
+            }
+            if (children.size() < limit) {
+                if (!folders) {
+                    break;
+                }
+                // no more folders, continue with the files
+                folders = false;
+                afterName = null;
+            }
+        }
+        updateBrowsableItemAcceptedHolderCanReadFlag(rootNodesFilterResult != null, rootNodesFilterResult,
+                childrenNodes, localAcceptanceFlag);
+        return childrenNodes;
+    }
+
+    /**
+     * @return The continuation to get the children following the given child: its name, followed by a slash for a
+     * folder
+     * @see #getChildren(String, int, RootNodesFilterResult)
+     */
+    public static String getContinuation(ItemNode child) {
+        return child.isFolder() ? child.getName() + "/" : child.getName();
+    }
+
     /**
      * if nodes accepted by filters (include/exclude , canRead and etc) , node is added to list
      * @param updateRootNodesFilterFlag - if true , filter acceptance flag will be monitored
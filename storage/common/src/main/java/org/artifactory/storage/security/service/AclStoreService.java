@@ -39,6 +39,13 @@ public interface AclStoreService {
      */
     Collection<AclInfo> getAllAcls();
 
+    /**
+     * @return The version of the ACLs loaded from the DB, changed each time the ACLs are reloaded after a change (see
+     * {@link #promoteAclsDbVersion()}). When read before {@link #getAllAcls()} the returned ACLs are of this version
+     * or newer, so it may be used as the version of caches derived from the ACLs.
+     */
+    int getAclsVersion();
+
     @Lock
     void createAcl(AclInfo entity);
 
@@ -33,6 +33,11 @@ public interface SessionResourceManager extends SessionResource {
      */
     <T extends SessionResource> T getOrCreateResource(Class<T> resourceClass);
 
+    /**
+     * @return The resource of the given class if already created, null otherwise
+     */
+    <T extends SessionResource> T getResource(Class<T> resourceClass);
+
     /**
      * @return A list of {@link SessionResource} with pending job. Useful for debugging.
      */
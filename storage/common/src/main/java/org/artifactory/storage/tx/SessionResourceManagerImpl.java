@@ -54,6 +54,12 @@ public class SessionResourceManagerImpl implements SessionResourceManager {
         return result;
     }
 
+    @Override
+    @SuppressWarnings({"unchecked"})
+    public <T extends SessionResource> T getResource(Class<T> resourceClass) {
+        return (T) resources.get(resourceClass);
+    }
+
     @Override
     public void onSessionSave() {
         for (SessionResource resource : resources.values()) {
@@ -0,0 +1,177 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.binstore.service.providers;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the {@link CacheIndexJournal}.
+ */
+@Test
+public class CacheIndexJournalTest {
+    private static final String SHA1_A = "da39a3ee5e6b4b0d3255bfef95601890afd80709";
+    private static final String SHA1_B = "a94a8fe5ccb19ba61c4c0873d391e987982fbbd3";
+    private static final String SHA1_C = "356a192b7913b04c54574d18c28d46e6395428ab";
+
+    private File dir;
+    private File journalFile;
+
+    @BeforeMethod
+    public void createDir() throws Exception {
+        dir = File.createTempFile("cachefs", "journal");
+        assertTrue(dir.delete() && dir.mkdirs());
+        journalFile = new File(dir, "cache.journal");
+    }
+
+    @AfterMethod
+    public void deleteDir() throws Exception {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    public void missingJournal() {
+        assertNull(new CacheIndexJournal(journalFile).replay());
+    }
+
+    public void replayAfterCleanShutdown() throws Exception {
+        CacheIndexJournal journal = new CacheIndexJournal(journalFile);
+        journal.start(Collections.<CacheIndexJournal.Entry>emptyList());
+        journal.recordAdded(SHA1_A, 10);
+        journal.recordAdded(SHA1_B, 20);
+        journal.recordAdded(SHA1_C, 30);
+        journal.recordRemoved(SHA1_B);
+        Thread.sleep(5);
+        journal.recordAccessed(SHA1_A, 10);
+        journal.close();
+
+        CacheIndexJournal.ReplayResult result = new CacheIndexJournal(journalFile).replay();
+        assertNotNull(result);
+        assertTrue(result.isClean());
+        List<CacheIndexJournal.Entry> entries = result.getEntries();
+        assertEquals(entries.size(), 2);
+        // Most recently accessed first
+        assertEquals(entries.get(0).getSha1(), SHA1_A);
+        assertEquals(entries.get(0).getSize(), 10);
+        assertEquals(entries.get(1).getSha1(), SHA1_C);
+        assertEquals(entries.get(1).getSize(), 30);
+    }
+
+    public void accessesAreCoalesced() throws Exception {
+        CacheIndexJournal journal = new CacheIndexJournal(journalFile);
+        journal.start(Collections.<CacheIndexJournal.Entry>emptyList());
+        journal.recordAdded(SHA1_A, 10);
+        for (int i = 0; i < 1000; i++) {
+            journal.recordAccessed(SHA1_A, 10);
+        }
+        journal.close();
+
+        // header, the added entry, its last access and the clean shutdown marker
+        assertEquals(journalFile.length(), 4 + 3 * 41);
+        CacheIndexJournal.ReplayResult result = new CacheIndexJournal(journalFile).replay();
+        assertNotNull(result);
+        assertTrue(result.isClean());
+        assertEquals(result.getEntries().size(), 1);
+    }
+
+    public void accessOfRemovedEntryIsDropped() throws Exception {
+        CacheIndexJournal journal = new CacheIndexJournal(journalFile);
+        journal.start(Collections.<CacheIndexJournal.Entry>emptyList());
+        journal.recordAdded(SHA1_A, 10);
+        journal.recordAccessed(SHA1_A, 10);
+        journal.recordRemoved(SHA1_A);
+        journal.close();
+
+        CacheIndexJournal.ReplayResult result = new CacheIndexJournal(journalFile).replay();
+        assertNotNull(result);
+        assertTrue(result.getEntries().isEmpty());
+    }
+
+    public void startRewritesKnownEntries() throws Exception {
+        CacheIndexJournal journal = new CacheIndexJournal(journalFile);
+        journal.start(Lists.newArrayList(new CacheIndexJournal.Entry(SHA1_B, 20, 1000)));
+        journal.close();
+
+        CacheIndexJournal.ReplayResult result = new CacheIndexJournal(journalFile).replay();
+        assertNotNull(result);
+        assertTrue(result.isClean());
+        assertEquals(result.getEntries().size(), 1);
+        assertEquals(result.getEntries().get(0).getLastAccess(), 1000);
+    }
+
+    public void tornRecordIsIgnored() throws Exception {
+        CacheIndexJournal journal = new CacheIndexJournal(journalFile);
+        journal.start(Collections.<CacheIndexJournal.Entry>emptyList());
+        journal.recordAdded(SHA1_A, 10);
+        journal.recordAdded(SHA1_B, 20);
+        journal.close();
+        // Cut the clean shutdown marker and half of the last record
+        try (RandomAccessFile raf = new RandomAccessFile(journalFile, "rw")) {
+            raf.setLength(raf.length() - 41 - 20);
+        }
+
+        CacheIndexJournal.ReplayResult result = new CacheIndexJournal(journalFile).replay();
+        assertNotNull(result);
+        assertFalse(result.isClean());
+        assertEquals(result.getEntries().size(), 1);
+        assertEquals(result.getEntries().get(0).getSha1(), SHA1_A);
+    }
+
+    public void corruptedRecordStopsReplay() throws Exception {
+        CacheIndexJournal journal = new CacheIndexJournal(journalFile);
+        journal.start(Collections.<CacheIndexJournal.Entry>emptyList());
+        journal.recordAdded(SHA1_A, 10);
+        journal.recordAdded(SHA1_B, 20);
+        journal.close();
+        try (RandomAccessFile raf = new RandomAccessFile(journalFile, "rw")) {
+            // Flip a byte in the size of the second record
+            raf.seek(4 + 41 + 1 + 20 + 7);
+            raf.write(0x7f);
+        }
+
+        CacheIndexJournal.ReplayResult result = new CacheIndexJournal(journalFile).replay();
+        assertNotNull(result);
+        assertFalse(result.isClean());
+        assertEquals(result.getEntries().size(), 1);
+    }
+
+    public void badHeader() throws Exception {
+        FileUtils.writeStringToFile(journalFile, "not a journal");
+        assertNull(new CacheIndexJournal(journalFile).replay());
+    }
+
+    public void invalidSha1IsNotJournaled() throws Exception {
+        CacheIndexJournal journal = new CacheIndexJournal(journalFile);
+        journal.start(Collections.<CacheIndexJournal.Entry>emptyList());
+        journal.recordAdded("not-a-sha1", 10);
+        journal.close();
+        CacheIndexJournal.ReplayResult result = new CacheIndexJournal(journalFile).replay();
+        assertNotNull(result);
+        assertTrue(result.getEntries().isEmpty());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.binstore.service.providers;
+
+import org.apache.commons.io.IOUtils;
+import org.artifactory.storage.binstore.service.providers.eviction.CacheEvictionPolicyType;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the {@link MemoryBlobCache} of the memory binary provider.
+ */
+@Test
+public class MemoryBlobCacheTest {
+
+    public void cachedBytesAreServed() throws IOException {
+        MemoryBlobCache cache = new MemoryBlobCache(100, 10, CacheEvictionPolicyType.lru);
+        assertNull(cache.get("a"));
+        assertTrue(cache.put("a", new byte[]{1, 2, 3, 4}, 3));
+        assertTrue(cache.contains("a"));
+        assertEquals(read(cache.get("a")), new byte[]{1, 2, 3});
+        // Every reader gets its own position
+        assertEquals(read(cache.get("a")), new byte[]{1, 2, 3});
+        assertEquals(cache.getSize(), 3);
+        assertEquals(cache.getStats().getHits(), 2);
+        assertEquals(cache.getStats().getMisses(), 1);
+    }
+
+    public void bigEntriesAreRejected() {
+        MemoryBlobCache cache = new MemoryBlobCache(100, 10, CacheEvictionPolicyType.lru);
+        assertFalse(cache.isCacheable(11));
+        assertFalse(cache.put("a", new byte[11], 11));
+        assertFalse(cache.contains("a"));
+        assertEquals(cache.getStats().getRejected(), 1);
+        assertEquals(cache.getSize(), 0);
+    }
+
+    public void leastRecentlyReadIsEvicted() {
+        MemoryBlobCache cache = new MemoryBlobCache(25, 10, CacheEvictionPolicyType.lru);
+        cache.put("a", new byte[10], 10);
+        cache.put("b", new byte[10], 10);
+        cache.get("a");
+        assertTrue(cache.put("c", new byte[10], 10));
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertEquals(cache.getSize(), 20);
+        assertEquals(cache.getCount(), 2);
+        assertEquals(cache.getStats().getEvictedFiles(), 1);
+        assertEquals(cache.getStats().getEvictedBytes(), 10);
+    }
+
+    public void removeReleasesSize() {
+        MemoryBlobCache cache = new MemoryBlobCache(100, 10, CacheEvictionPolicyType.slru);
+        cache.put("a", new byte[5], 5);
+        cache.remove("a");
+        cache.remove("a");
+        assertFalse(cache.contains("a"));
+        assertEquals(cache.getSize(), 0);
+        assertEquals(cache.getCount(), 0);
+    }
+
+    private byte[] read(InputStream stream) throws IOException {
+        try (InputStream in = stream) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+}
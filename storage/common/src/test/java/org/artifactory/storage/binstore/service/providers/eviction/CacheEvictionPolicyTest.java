@@ -0,0 +1,150 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.binstore.service.providers.eviction;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the cache-fs {@link CacheEvictionPolicy} implementations.
+ */
+@Test
+public class CacheEvictionPolicyTest {
+
+    public void lruEvictsLeastRecentlyAccessed() {
+        CacheEvictionPolicy policy = CacheEvictionPolicyType.lru.create(100);
+        assertTrue(policy.recordAccess("a", 10));
+        assertTrue(policy.recordAccess("b", 10));
+        assertTrue(policy.recordAccess("c", 10));
+        assertFalse(policy.recordAccess("a", 10));
+        assertEquals(policy.evict().getSha1(), "b");
+        assertEquals(policy.evict().getSha1(), "c");
+        assertEquals(policy.evict().getSha1(), "a");
+        assertNull(policy.evict());
+    }
+
+    public void existingEntriesAreEvictedFirst() {
+        for (CacheEvictionPolicyType type : CacheEvictionPolicyType.values()) {
+            CacheEvictionPolicy policy = type.create(1000);
+            policy.recordAccess("accessed", 10);
+            assertTrue(policy.recordExisting("existing", 10));
+            assertFalse(policy.recordExisting("accessed", 10));
+            assertEquals(policy.evict().getSha1(), "existing", "Wrong victim for " + type);
+        }
+    }
+
+    public void removeReturnsEntrySize() {
+        for (CacheEvictionPolicyType type : CacheEvictionPolicyType.values()) {
+            CacheEvictionPolicy policy = type.create(1000);
+            policy.recordAccess("a", 42);
+            policy.recordAccess("a", 42);
+            assertEquals(policy.remove("a"), 42);
+            assertEquals(policy.remove("a"), -1);
+            assertEquals(policy.size(), 0);
+            assertNull(policy.evict());
+        }
+    }
+
+    public void segmentedLruSurvivesScan() {
+        CacheEvictionPolicy policy = CacheEvictionPolicyType.slru.create(100);
+        policy.recordAccess("hot", 10);
+        policy.recordAccess("hot", 10);
+        for (int i = 0; i < 50; i++) {
+            policy.recordAccess("scan" + i, 10);
+        }
+        for (int i = 0; i < 50; i++) {
+            assertNotEquals(policy.evict().getSha1(), "hot");
+        }
+        assertEquals(policy.evict().getSha1(), "hot");
+    }
+
+    public void segmentedLruDemotesProtectedOverflow() {
+        CacheEvictionPolicy policy = CacheEvictionPolicyType.slru.create(100);
+        // Protected segment holds 80 bytes, the eldest protected entries are demoted to probation
+        for (int i = 0; i < 10; i++) {
+            policy.recordAccess("e" + i, 10);
+            policy.recordAccess("e" + i, 10);
+        }
+        assertEquals(policy.evict().getSha1(), "e0");
+        assertEquals(policy.evict().getSha1(), "e1");
+    }
+
+    public void tinyLfuRejectsLessFrequentCandidate() {
+        CacheEvictionPolicy policy = CacheEvictionPolicyType.tinylfu.create(1000);
+        policy.recordAccess("popular", 10);
+        for (int i = 0; i < 5; i++) {
+            policy.recordAccess("popular", 10);
+        }
+        // Push the popular entry out of the window, then bring a one-hit candidate
+        for (int i = 0; i < 3; i++) {
+            policy.recordAccess("once" + i, 10);
+        }
+        CacheEvictionPolicy.CacheEntry victim = policy.evict();
+        assertNotNull(victim);
+        assertNotEquals(victim.getSha1(), "popular");
+    }
+
+    public void tinyLfuAdmitsMoreFrequentCandidate() {
+        CacheEvictionPolicy policy = CacheEvictionPolicyType.tinylfu.create(1000);
+        policy.recordExisting("cold", 10);
+        for (int i = 0; i < 5; i++) {
+            policy.recordAccess("candidate", 10);
+        }
+        // The window holds 10 bytes, adding a new entry moves the candidate to probation
+        policy.recordAccess("new", 10);
+        assertEquals(policy.evict().getSha1(), "cold");
+    }
+
+    public void reinsertedEntryIsEvictedAfterOthers() {
+        for (CacheEvictionPolicyType type : CacheEvictionPolicyType.values()) {
+            CacheEvictionPolicy policy = type.create(1000);
+            policy.recordExisting("a", 10);
+            policy.recordExisting("b", 10);
+            CacheEvictionPolicy.CacheEntry victim = policy.evict();
+            assertEquals(victim.getSha1(), "b", "Wrong victim for " + type);
+            assertTrue(policy.reinsert(victim.getSha1(), victim.getSize()));
+            assertFalse(policy.reinsert("b", 10));
+            assertEquals(policy.evict().getSha1(), "a", "Wrong victim for " + type);
+            assertEquals(policy.evict().getSha1(), "b", "Wrong victim for " + type);
+        }
+    }
+
+    public void tinyLfuReinsertIsNotAnAccess() {
+        CacheEvictionPolicy policy = CacheEvictionPolicyType.tinylfu.create(1000);
+        policy.recordExisting("stuck", 10);
+        for (int i = 0; i < 3; i++) {
+            policy.reinsert(policy.evict().getSha1(), 10);
+        }
+        policy.recordAccess("candidate", 10);
+        policy.recordAccess("candidate", 10);
+        // The window holds 10 bytes, adding a new entry moves the candidate to probation
+        policy.recordAccess("new", 10);
+        assertEquals(policy.evict().getSha1(), "stuck", "Failed evictions should not make the entry more popular");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void unknownPolicyName() {
+        CacheEvictionPolicyType.fromName("fifo");
+    }
+
+    public void policyNameIsCaseInsensitive() {
+        assertEquals(CacheEvictionPolicyType.fromName("TinyLFU"), CacheEvictionPolicyType.tinylfu);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.fs.lock;
+
+import com.google.common.collect.Lists;
+import org.artifactory.model.common.RepoPathImpl;
+import org.artifactory.repo.RepoPath;
+import org.artifactory.storage.fs.lock.provider.JVMLockProvider;
+import org.artifactory.storage.fs.lock.provider.LockWrapper;
+import org.artifactory.test.ArtifactoryHomeBoundTest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the {@link StripedFsItemsVault}.
+ */
+@Test
+public class StripedFsItemsVaultTest extends ArtifactoryHomeBoundTest {
+    private static final Logger log = LoggerFactory.getLogger(StripedFsItemsVaultTest.class);
+
+    public void stripesRoundedToPowerOfTwo() {
+        assertEquals(new StripedFsItemsVault(1).getStripesCount(), 1);
+        assertEquals(new StripedFsItemsVault(64).getStripesCount(), 64);
+        assertEquals(new StripedFsItemsVault(100).getStripesCount(), 128);
+    }
+
+    public void samePathSharesLock() throws Exception {
+        StripedFsItemsVault vault = new StripedFsItemsVault(16);
+        RepoPath repoPath = new RepoPathImpl("libs", "a/b/c.jar");
+        LockWrapper first = vault.getLock(repoPath).getLock();
+        LockWrapper second = vault.getLock(new RepoPathImpl("libs", "a/b/c.jar")).getLock();
+        assertTrue(first.tryLock(1, TimeUnit.SECONDS));
+        assertTrue(second.isLocked());
+        assertTrue(second.isHeldByCurrentThread());
+        assertFalse(lockFromOtherThread(vault, repoPath));
+        first.unlock();
+        assertFalse(second.isLocked());
+        assertEquals(vault.getActiveLocksCount(), 0);
+    }
+
+    public void pathsOfSameStripeAreIndependent() throws Exception {
+        // a single stripe holds all the paths
+        StripedFsItemsVault vault = new StripedFsItemsVault(1);
+        RepoPath first = new RepoPathImpl("libs", "a");
+        RepoPath second = new RepoPathImpl("libs", "b");
+        LockWrapper firstLock = vault.getLock(first).getLock();
+        assertTrue(firstLock.tryLock(1, TimeUnit.SECONDS));
+        assertFalse(vault.getLock(second).getLock().isHeldByCurrentThread());
+        assertTrue(lockFromOtherThread(vault, second));
+        firstLock.unlock();
+        assertEquals(vault.getActiveLocksCount(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalMonitorStateException.class)
+    public void unlockNotHeld() {
+        new StripedFsItemsVault(4).getLock(new RepoPathImpl("libs", "a")).getLock().unlock();
+    }
+
+    /**
+     * Not a strict benchmark - compares the vaults under contention and verifies mutual exclusion
+     */
+    public void concurrentThroughputComparedToCacheVault() throws Exception {
+        long cacheVaultNanos = runConcurrentLocking(new FsItemsVaultCacheImpl(new JVMLockProvider()));
+        StripedFsItemsVault stripedVault = new StripedFsItemsVault(64);
+        long stripedVaultNanos = runConcurrentLocking(stripedVault);
+        assertEquals(stripedVault.getActiveLocksCount(), 0);
+        log.info("Cache vault: {}ms, striped vault: {}ms", TimeUnit.NANOSECONDS.toMillis(cacheVaultNanos),
+                TimeUnit.NANOSECONDS.toMillis(stripedVaultNanos));
+    }
+
+    private long runConcurrentLocking(final FsItemsVault vault) throws Exception {
+        final int threads = 8;
+        final int iterations = 20000;
+        final int paths = 100;
+        final int[] counters = new int[paths];
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = Lists.newArrayList();
+            for (int t = 0; t < threads; t++) {
+                final int seed = t;
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int i = 0; i < iterations; i++) {
+                            int index = (i * 31 + seed) % paths;
+                            LockWrapper lock = vault.getLock(new RepoPathImpl("libs", "path/" + index)).getLock();
+                            assertTrue(lock.tryLock(10, TimeUnit.SECONDS));
+                            try {
+                                counters[index]++;
+                            } finally {
+                                lock.unlock();
+                            }
+                        }
+                        return null;
+                    }
+                });
+            }
+            long start = System.nanoTime();
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+            long duration = System.nanoTime() - start;
+            int total = 0;
+            for (int counter : counters) {
+                total += counter;
+            }
+            assertEquals(total, threads * iterations, "Lost updates mean the lock is not exclusive");
+            return duration;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean lockFromOtherThread(final StripedFsItemsVault vault, final RepoPath repoPath) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    LockWrapper lock = vault.getLock(repoPath).getLock();
+                    boolean locked = lock.tryLock(50, TimeUnit.MILLISECONDS);
+                    if (locked) {
+                        lock.unlock();
+                    }
+                    return locked;
+                }
+            }).get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
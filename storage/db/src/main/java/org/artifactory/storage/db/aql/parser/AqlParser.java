@@ -40,6 +40,7 @@ public class AqlParser {
     public static final SortTypeElement sortType = new SortTypeElement();
     public static final LimitValueElement limitValue = new LimitValueElement();
     public static final OffsetValueElement offsetValue = new OffsetValueElement();
+    public static final CursorValueElement cursorValue = new CursorValueElement();
 
     public static final StatisticsDomainsElement statisticsDomains = new StatisticsDomainsElement();
     public static final BuildDomainsElement buildDomains = new BuildDomainsElement();
@@ -91,6 +92,7 @@ public class AqlParser {
 
     public static final OffsetElement offset = new OffsetElement();
     public static final LimitElement limit = new LimitElement();
+    public static final CursorElement cursor = new CursorElement();
     public static final RootElement root = new RootElement();
 
     /**
@@ -0,0 +1,22 @@
+package org.artifactory.storage.db.aql.parser.elements.high.level.basic.language;
+
+import org.artifactory.storage.db.aql.parser.elements.ParserElement;
+import org.artifactory.storage.db.aql.parser.elements.low.level.InternalNameElement;
+import org.artifactory.storage.db.aql.parser.elements.low.level.LazyParserElement;
+
+import static org.artifactory.storage.db.aql.parser.AqlParser.*;
+
+/**
+ * Continues a query from the opaque cursor returned with the previous page (empty for the first page)
+ */
+public class CursorElement extends LazyParserElement {
+    @Override
+    protected ParserElement init() {
+        return forward(new InternalNameElement("cursor"), openBrackets, quotes, cursorValue, quotes, closeBrackets);
+    }
+
+    @Override
+    public boolean isVisibleInResult() {
+        return false;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,20 @@
+package org.artifactory.storage.db.aql.parser.elements.high.level.basic.language;
+
+import org.artifactory.storage.db.aql.parser.elements.ParserElement;
+import org.artifactory.storage.db.aql.parser.elements.low.level.InternalValueElement;
+import org.artifactory.storage.db.aql.parser.elements.low.level.LazyParserElement;
+
+/**
+ * The opaque cursor of a query continuation
+ */
+public class CursorValueElement extends LazyParserElement {
+    @Override
+    protected ParserElement init() {
+        return forward(new InternalValueElement());
+    }
+
+    @Override
+    public boolean isVisibleInResult() {
+        return true;
+    }
+}
\ No newline at end of file
@@ -1,11 +1,23 @@
 package org.artifactory.storage.db.aql.service;
 
+import com.google.common.collect.Sets;
 import org.artifactory.addon.AddonsManager;
 import org.artifactory.addon.OssAddonsManager;
 import org.artifactory.api.context.ContextHelper;
+import org.artifactory.api.repo.RepositoryService;
+import org.artifactory.api.security.AclService;
 import org.artifactory.api.security.AuthorizationService;
 import org.artifactory.aql.model.AqlPermissionProvider;
+import org.artifactory.aql.model.AqlRepoReadPermissions;
+import org.artifactory.descriptor.repo.LocalRepoDescriptor;
 import org.artifactory.repo.RepoPath;
+import org.artifactory.repo.trash.TrashService;
+import org.artifactory.security.ArtifactoryPermission;
+import org.artifactory.security.PermissionTargetInfo;
+import org.artifactory.util.CollectionUtils;
+
+import java.util.List;
+import java.util.Set;
 
 /**
  * @author Gidi Shabat
@@ -14,6 +26,8 @@ public class AqlPermissionProviderImpl implements AqlPermissionProvider {
 
     private AuthorizationService authorizationService;
     private AddonsManager addonsManager;
+    private AclService aclService;
+    private RepositoryService repositoryService;
 
     public AuthorizationService getAuthorizationProvider() {
         if (authorizationService == null) {
@@ -43,4 +57,59 @@ public class AqlPermissionProviderImpl implements AqlPermissionProvider {
     public boolean isOss() {
         return getAddonsManager() instanceof OssAddonsManager;
     }
+
+    @Override
+    public AqlRepoReadPermissions getRepoReadPermissions() {
+        Set<String> allPathsRepoKeys = Sets.newHashSet();
+        Set<String> somePathsRepoKeys = Sets.newHashSet();
+        AuthorizationService authorizationService = getAuthorizationProvider();
+        // Anonymous users may read only if anonymous access is enabled
+        if (authorizationService.isAnonymous() && !authorizationService.isAnonAccessEnabled()) {
+            return new AqlRepoReadPermissions(allPathsRepoKeys, somePathsRepoKeys);
+        }
+        List<PermissionTargetInfo> readTargets = getAclService().getPermissionTargets(ArtifactoryPermission.READ);
+        for (LocalRepoDescriptor repo : getRepositoryService().getLocalAndCachedRepoDescriptors()) {
+            if (TrashService.TRASH_KEY.equals(repo.getKey())) {
+                continue;
+            }
+            for (PermissionTargetInfo target : readTargets) {
+                if (isTargetOfRepo(target, repo)) {
+                    if (isTargetOfAllPaths(target)) {
+                        allPathsRepoKeys.add(repo.getKey());
+                        somePathsRepoKeys.remove(repo.getKey());
+                        break;
+                    }
+                    somePathsRepoKeys.add(repo.getKey());
+                }
+            }
+        }
+        return new AqlRepoReadPermissions(allPathsRepoKeys, somePathsRepoKeys);
+    }
+
+    private boolean isTargetOfRepo(PermissionTargetInfo target, LocalRepoDescriptor repo) {
+        List<String> repoKeys = target.getRepoKeys();
+        return repoKeys.contains(repo.getKey()) || repoKeys.contains(PermissionTargetInfo.ANY_REPO)
+                || repoKeys.contains(repo.isCache() ? PermissionTargetInfo.ANY_REMOTE_REPO :
+                PermissionTargetInfo.ANY_LOCAL_REPO);
+    }
+
+    private boolean isTargetOfAllPaths(PermissionTargetInfo target) {
+        List<String> includes = target.getIncludes();
+        return CollectionUtils.isNullOrEmpty(target.getExcludes()) && (CollectionUtils.isNullOrEmpty(includes)
+                || includes.contains(PermissionTargetInfo.ANY_PATH) || includes.contains("**/*"));
+    }
+
+    private AclService getAclService() {
+        if (aclService == null) {
+            aclService = ContextHelper.get().beanForType(AclService.class);
+        }
+        return aclService;
+    }
+
+    private RepositoryService getRepositoryService() {
+        if (repositoryService == null) {
+            repositoryService = ContextHelper.get().getRepositoryService();
+        }
+        return repositoryService;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,318 @@
+package org.artifactory.storage.db.aql.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import org.artifactory.storage.db.aql.sql.builder.query.sql.SqlQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of the SQL queries generated for textual AQL queries, so queries of the same shape that differ only
+ * by their values are not parsed, converted, optimized, decorated and translated to SQL again.
+ * <p/>
+ * The quoted values of a query are normalized into parameters (see {@link NormalizedQuery}). When a shape is first
+ * met its values are replaced by markers and the query is planned again: a value becomes a parameter only if its
+ * marker ends up as a SQL parameter while the rest of the SQL query stays the same. Values which are converted or
+ * which change the SQL query (item types, dates, numbers, cursors, include fields...) stay part of the cache key.
+ * <p/>
+ * The plans are cached per permission class, the part of the user permissions the generated SQL query depends on.
+ * A cache belongs to a single {@link AqlServiceImpl}, hence to a single database type.
+ */
+public class AqlQueryPlanCache {
+    private static final Logger log = LoggerFactory.getLogger(AqlQueryPlanCache.class);
+
+    private static final String MARKER_PREFIX = "@@aql-param-";
+    private static final String MARKER_SUFFIX = "@@";
+
+    // The parameter values of each query shape, by permission class and shape
+    private final Cache<String, boolean[]> shapes;
+    // The plans by permission class and shape with the values which are not parameters
+    private final Cache<String, Plan> plans;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public AqlQueryPlanCache(long maxSize) {
+        shapes = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+        plans = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    }
+
+    /**
+     * @param query           The textual AQL query
+     * @param permissionClass The permissions of the current user the SQL query depends on
+     * @param planner         Converts a textual AQL query into SQL query
+     * @return The SQL query of the textual query
+     */
+    public SqlQuery getSqlQuery(String query, String permissionClass, Function<String, SqlQuery> planner) {
+        NormalizedQuery normalized = NormalizedQuery.normalize(query);
+        if (normalized == null) {
+            return planner.apply(query);
+        }
+        String shapeKey = permissionClass + '\n' + normalized.getShape(null);
+        boolean[] parameters = shapes.getIfPresent(shapeKey);
+        if (parameters != null) {
+            Plan plan = plans.getIfPresent(permissionClass + '\n' + normalized.getShape(parameters));
+            if (plan != null) {
+                if (plan.isCacheable()) {
+                    hits.incrementAndGet();
+                    return plan.bind(normalized.literals);
+                }
+                misses.incrementAndGet();
+                return planner.apply(query);
+            }
+        }
+        misses.incrementAndGet();
+        SqlQuery sqlQuery = planner.apply(query);
+        Plan plan = null;
+        if (parameters == null) {
+            // Most of the values are parameters, try them all at once before checking them one by one
+            parameters = new boolean[normalized.literals.size()];
+            Arrays.fill(parameters, true);
+            plan = createPlan(normalized, parameters, sqlQuery, planner);
+            if (!plan.isCacheable()) {
+                for (int i = 0; i < parameters.length; i++) {
+                    boolean[] single = new boolean[parameters.length];
+                    single[i] = true;
+                    parameters[i] = createPlan(normalized, single, sqlQuery, planner).isCacheable();
+                }
+                plan = null;
+            }
+            shapes.put(shapeKey, parameters);
+        }
+        if (plan == null) {
+            plan = createPlan(normalized, parameters, sqlQuery, planner);
+        }
+        plans.put(permissionClass + '\n' + normalized.getShape(parameters), plan);
+        return sqlQuery;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Plans the query with markers instead of the parameter values and compares it to the SQL query of the real values
+     */
+    private Plan createPlan(NormalizedQuery normalized, boolean[] parameters, SqlQuery sqlQuery,
+            Function<String, SqlQuery> planner) {
+        int[] bindings = new int[sqlQuery.getQueryParams().length];
+        Arrays.fill(bindings, -1);
+        if (!contains(parameters, true)) {
+            return new Plan(sqlQuery, bindings);
+        }
+        SqlQuery markedQuery;
+        try {
+            markedQuery = planner.apply(normalized.toQuery(parameters));
+        } catch (RuntimeException e) {
+            log.trace("Could not plan AQL query with parameters {}: {}", Arrays.toString(parameters), e.getMessage());
+            return Plan.UNCACHEABLE;
+        }
+        if (!isSameQuery(sqlQuery, markedQuery)) {
+            return Plan.UNCACHEABLE;
+        }
+        Object[] params = sqlQuery.getQueryParams();
+        Object[] markedParams = markedQuery.getQueryParams();
+        if (params.length != markedParams.length) {
+            return Plan.UNCACHEABLE;
+        }
+        boolean[] bound = new boolean[parameters.length];
+        for (int i = 0; i < params.length; i++) {
+            int literal = getMarkerIndex(markedParams[i]);
+            if (literal >= 0 && literal < parameters.length && parameters[literal]
+                    && normalized.literals.get(literal).equals(params[i])) {
+                bindings[i] = literal;
+                bound[literal] = true;
+            } else if (literal >= 0 || !Objects.equals(params[i], markedParams[i])) {
+                return Plan.UNCACHEABLE;
+            }
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i] && !bound[i]) {
+                // The value was not passed as is to the SQL query
+                return Plan.UNCACHEABLE;
+            }
+        }
+        return new Plan(sqlQuery, bindings);
+    }
+
+    private boolean isSameQuery(SqlQuery sqlQuery, SqlQuery markedQuery) {
+        return sqlQuery.getQueryString().equals(markedQuery.getQueryString())
+                && !markedQuery.getQueryString().contains(MARKER_PREFIX)
+                && sqlQuery.getDomain() == markedQuery.getDomain()
+                && sqlQuery.getLimit() == markedQuery.getLimit()
+                && sqlQuery.getOffset() == markedQuery.getOffset()
+                && sqlQuery.isReadPermissionsFiltered() == markedQuery.isReadPermissionsFiltered()
+                && sqlQuery.isCursorPagination() == markedQuery.isCursorPagination()
+                && Objects.equals(sqlQuery.getResultFields(), markedQuery.getResultFields());
+    }
+
+    private static boolean contains(boolean[] values, boolean value) {
+        for (boolean current : values) {
+            if (current == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getMarker(int literal) {
+        return MARKER_PREFIX + literal + MARKER_SUFFIX;
+    }
+
+    private static int getMarkerIndex(Object param) {
+        if (param instanceof String) {
+            String value = (String) param;
+            if (value.startsWith(MARKER_PREFIX) && value.endsWith(MARKER_SUFFIX)) {
+                try {
+                    return Integer.parseInt(
+                            value.substring(MARKER_PREFIX.length(), value.length() - MARKER_SUFFIX.length()));
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A textual query split into its quoted values and the text between them.
+     * Quoted strings followed by a colon are keys (fields, comparators, operators or property keys) and values with
+     * wildcards change the SQL query, both stay part of the text.
+     */
+    static class NormalizedQuery {
+        private final List<String> parts;
+        private final List<String> literals;
+
+        private NormalizedQuery(List<String> parts, List<String> literals) {
+            this.parts = parts;
+            this.literals = literals;
+        }
+
+        /**
+         * @return The normalized query or null if the query cannot be normalized
+         */
+        @Nullable
+        static NormalizedQuery normalize(String query) {
+            List<String> parts = Lists.newArrayList();
+            List<String> literals = Lists.newArrayList();
+            StringBuilder part = new StringBuilder();
+            int i = 0;
+            while (i < query.length()) {
+                char c = query.charAt(i);
+                if (c == '?') {
+                    // The parameter placeholder is never valid outside of quotes
+                    return null;
+                }
+                if (c != '"') {
+                    part.append(c);
+                    i++;
+                    continue;
+                }
+                int end = query.indexOf('"', i + 1);
+                if (end < 0) {
+                    return null;
+                }
+                String literal = query.substring(i + 1, end);
+                if (isKey(query, end + 1) || literal.indexOf('*') >= 0 || literal.indexOf('?') >= 0) {
+                    part.append(query, i, end + 1);
+                } else {
+                    parts.add(part.toString());
+                    part.setLength(0);
+                    literals.add(literal);
+                }
+                i = end + 1;
+            }
+            parts.add(part.toString());
+            return new NormalizedQuery(parts, literals);
+        }
+
+        private static boolean isKey(String query, int index) {
+            while (index < query.length() && Character.isWhitespace(query.charAt(index))) {
+                index++;
+            }
+            return index < query.length() && query.charAt(index) == ':';
+        }
+
+        List<String> getLiterals() {
+            return literals;
+        }
+
+        /**
+         * @param parameters The values which are parameters or null if all the values are parameters
+         * @return The query with a placeholder instead of each parameter value
+         */
+        String getShape(@Nullable boolean[] parameters) {
+            StringBuilder builder = new StringBuilder(parts.get(0));
+            for (int i = 0; i < literals.size(); i++) {
+                if (parameters == null || parameters[i]) {
+                    builder.append('?');
+                } else {
+                    builder.append('"').append(literals.get(i)).append('"');
+                }
+                builder.append(parts.get(i + 1));
+            }
+            return builder.toString();
+        }
+
+        /**
+         * @return The query with a marker instead of each parameter value
+         */
+        String toQuery(boolean[] parameters) {
+            StringBuilder builder = new StringBuilder(parts.get(0));
+            for (int i = 0; i < literals.size(); i++) {
+                builder.append('"').append(parameters[i] ? getMarker(i) : literals.get(i)).append('"');
+                builder.append(parts.get(i + 1));
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * The SQL query of a query shape and the value bound to each of its parameters
+     */
+    private static class Plan {
+        private static final Plan UNCACHEABLE = new Plan(null, null);
+
+        private final SqlQuery sqlQuery;
+        // The index of the value bound to each SQL parameter, -1 for parameters which are not values of the query
+        private final int[] bindings;
+
+        private Plan(SqlQuery sqlQuery, int[] bindings) {
+            this.sqlQuery = sqlQuery;
+            this.bindings = bindings;
+        }
+
+        private boolean isCacheable() {
+            return sqlQuery != null;
+        }
+
+        private SqlQuery bind(List<String> literals) {
+            Object[] params = sqlQuery.getQueryParams();
+            for (int i = 0; i < bindings.length; i++) {
+                if (bindings[i] >= 0) {
+                    params[i] = literals.get(bindings[i]);
+                }
+            }
+            SqlQuery result = new SqlQuery(sqlQuery.getDomain());
+            result.setQuery(sqlQuery.getQueryString());
+            result.setParams(Lists.newArrayList(params));
+            result.setResultFields(sqlQuery.getResultFields());
+            result.setLimit(sqlQuery.getLimit());
+            result.setOffset(sqlQuery.getOffset());
+            result.setReadPermissionsFiltered(sqlQuery.isReadPermissionsFiltered());
+            result.setCursorPagination(sqlQuery.isCursorPagination());
+            return result;
+        }
+    }
+}
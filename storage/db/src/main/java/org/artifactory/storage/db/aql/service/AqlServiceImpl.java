@@ -1,16 +1,22 @@
 package org.artifactory.storage.db.aql.service;
 
+import com.google.common.base.Joiner;
+import com.google.common.collect.Ordering;
 import org.artifactory.aql.AqlService;
 import org.artifactory.aql.api.internal.AqlBase;
 import org.artifactory.aql.model.AqlPermissionProvider;
+import org.artifactory.aql.model.AqlRepoReadPermissions;
 import org.artifactory.aql.result.AqlEagerResult;
 import org.artifactory.aql.result.AqlLazyResult;
 import org.artifactory.aql.result.rows.AqlRowResult;
+import org.artifactory.common.ConstantValues;
 import org.artifactory.storage.StorageProperties;
 import org.artifactory.storage.db.aql.dao.AqlDao;
 import org.artifactory.storage.db.aql.parser.AqlParser;
 import org.artifactory.storage.db.aql.parser.ParserElementResultContainer;
+import org.artifactory.storage.db.aql.service.decorator.CursorDecorator;
 import org.artifactory.storage.db.aql.service.decorator.DefaultSortDecorator;
+import org.artifactory.storage.db.aql.service.decorator.ReadPermissionsDecorator;
 import org.artifactory.storage.db.aql.service.decorator.TrashcanDecorator;
 import org.artifactory.storage.db.aql.sql.builder.query.aql.AqlApiToAqlAdapter;
 import org.artifactory.storage.db.aql.sql.builder.query.aql.AqlQuery;
@@ -23,7 +29,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Execute the Aql queries by processing the three Aql steps one after the other:
@@ -50,6 +58,7 @@ public class AqlServiceImpl implements AqlService {
     private AqlQueryValidator validator;
     private AqlQueryDecorator externalDecorator; //Decorator used for user queries
     private AqlQueryDecorator internalDecorator; //Decorator used for internal api queries
+    private AqlQueryPlanCache planCache; //SQL queries of the textual queries, null if disabled
     private AqlPermissionProvider permissionProvider=new AqlPermissionProviderImpl();
 
     @PostConstruct
@@ -63,8 +72,11 @@ public class AqlServiceImpl implements AqlService {
         aqlApiToAqlAdapter = new AqlApiToAqlAdapter();
         optimizer = new AqlQueryOptimizer(storageProperties.getDbType());
         validator = new AqlQueryValidator();
-        externalDecorator = new AqlQueryDecorator(new DefaultSortDecorator(), new TrashcanDecorator());
-        internalDecorator = new AqlQueryDecorator(new TrashcanDecorator());
+        externalDecorator = new AqlQueryDecorator(new CursorDecorator(), new DefaultSortDecorator(),
+                new TrashcanDecorator());
+        internalDecorator = new AqlQueryDecorator(new CursorDecorator(), new TrashcanDecorator());
+        int planCacheSize = ConstantValues.aqlPlanCacheSize.getInt();
+        planCache = planCacheSize > 0 ? new AqlQueryPlanCache(planCacheSize) : null;
     }
 
     /**
@@ -73,8 +85,11 @@ public class AqlServiceImpl implements AqlService {
     @Override
     public AqlEagerResult executeQueryEager(String query) {
         log.debug("Processing textual AqlApi query: {}", query);
-        ParserElementResultContainer parserResult = parser.parse(query);
-        return executeQueryEager(parserResult);
+        QueryTimer timer = new QueryTimer();
+        SqlQuery sqlQuery = toSqlQuery(query, false, timer);
+        AqlEagerResult aqlQueryResult = executeSqlQueryEager(sqlQuery);
+        timer.executed();
+        return aqlQueryResult;
     }
 
     /**
@@ -83,8 +98,11 @@ public class AqlServiceImpl implements AqlService {
     @Override
     public AqlLazyResult executeQueryLazy(String query) {
         log.debug("Processing textual AqlApi query: {}", query);
-        ParserElementResultContainer parserResult = parser.parse(query);
-        return executeQueryLazy(parserResult);
+        QueryTimer timer = new QueryTimer();
+        SqlQuery sqlQuery = toSqlQuery(query, true, timer);
+        AqlLazyResult aqlQueryStreamResult = executeSqlQueryLazy(sqlQuery);
+        timer.executed();
+        return aqlQueryStreamResult;
     }
 
     /**
@@ -109,52 +127,118 @@ public class AqlServiceImpl implements AqlService {
     }
 
     /**
-     * Converts the parser elements into AqlApi query, convert the AqlApi query to sql and executes the query eagerly
+     * Converts the textual query into SQL query, using the plan cache if enabled
      */
-    private AqlEagerResult executeQueryEager(ParserElementResultContainer parserResult) {
-        log.trace("Converting the parser result into AqlApi query");
-        AqlQuery aqlQuery = parserToAqlAdapter.toAqlModel(parserResult);
-        optimizer.optimize(aqlQuery);
-        validator.validate(aqlQuery,permissionProvider);
-        externalDecorator.decorate(aqlQuery);
-        log.trace("Successfully finished to convert the parser result into AqlApi query");
-        return getAqlQueryResult(aqlQuery);
+    private SqlQuery toSqlQuery(String query, boolean lazy, QueryTimer timer) {
+        // Only the lazy queries are filtered by the readable repositories in the database
+        AqlRepoReadPermissions readPermissions = lazy && !permissionProvider.isAdmin() ?
+                permissionProvider.getRepoReadPermissions() : null;
+        SqlQuery sqlQuery;
+        if (planCache == null) {
+            sqlQuery = planQuery(query, readPermissions, timer);
+        } else {
+            sqlQuery = planCache.getSqlQuery(query, getPermissionClass(readPermissions),
+                    textualQuery -> planQuery(textualQuery, readPermissions, timer));
+        }
+        timer.planned();
+        return sqlQuery;
     }
 
     /**
-     * Converts the parser elements into AqlApi query and executes the query lazy
+     * Parses the textual query, converts the parser elements into AqlApi query and then into SQL query
      */
-    private AqlLazyResult executeQueryLazy(ParserElementResultContainer parserResult) {
+    private SqlQuery planQuery(String query, @Nullable AqlRepoReadPermissions readPermissions, QueryTimer timer) {
+        long start = System.nanoTime();
+        ParserElementResultContainer parserResult = parser.parse(query);
+        timer.parsed(System.nanoTime() - start);
         log.trace("Converting the parser result into AqlApi query");
         AqlQuery aqlQuery = parserToAqlAdapter.toAqlModel(parserResult);
         optimizer.optimize(aqlQuery);
         validator.validate(aqlQuery,permissionProvider);
         externalDecorator.decorate(aqlQuery);
+        // Filter the items the user may not read in the database
+        new ReadPermissionsDecorator(readPermissions).decorate(aqlQuery);
         log.trace("Successfully finished to convert the parser result into AqlApi query");
-        return getAqlQueryStreamResult(aqlQuery);
+        return buildSqlQuery(aqlQuery);
+    }
+
+    /**
+     * The permissions the SQL query of a textual query depends on
+     */
+    private String getPermissionClass(@Nullable AqlRepoReadPermissions readPermissions) {
+        StringBuilder permissionClass = new StringBuilder(permissionProvider.isAdmin() ? "admin" : "user");
+        if (permissionProvider.isOss()) {
+            permissionClass.append(":oss");
+        }
+        if (readPermissions != null) {
+            Joiner joiner = Joiner.on(',');
+            permissionClass.append(":read=")
+                    .append(joiner.join(Ordering.natural().sortedCopy(readPermissions.getAllPathsRepoKeys())))
+                    .append(":some=")
+                    .append(joiner.join(Ordering.natural().sortedCopy(readPermissions.getSomePathsRepoKeys())));
+        }
+        return permissionClass.toString();
     }
 
     /**
      * Converts the AqlApi query into SQL query and executes the query eagerly
      */
     private AqlEagerResult getAqlQueryResult(AqlQuery aqlQuery) {
+        return executeSqlQueryEager(buildSqlQuery(aqlQuery));
+    }
+
+    private AqlLazyResult getAqlQueryStreamResult(AqlQuery aqlQuery) {
+        return executeSqlQueryLazy(buildSqlQuery(aqlQuery));
+    }
+
+    private SqlQuery buildSqlQuery(AqlQuery aqlQuery) {
         log.trace("Converting the AqlApi query into SQL query: {}", aqlQuery);
         SqlQuery sqlQuery = sqlQueryBuilder.buildQuery(aqlQuery);
         log.trace("Successfully finished to convert the parser result into the following SQL query '{}'", sqlQuery);
+        return sqlQuery;
+    }
+
+    private AqlEagerResult executeSqlQueryEager(SqlQuery sqlQuery) {
         log.trace("processing the following SQL query: {}", sqlQuery);
         AqlEagerResultImpl aqlQueryResult = aqlDao.executeQueryEager(sqlQuery);
         log.debug("Successfully finished to process SQL query with the following size: {}", aqlQueryResult.getSize());
         return aqlQueryResult;
     }
 
-    private AqlLazyResult getAqlQueryStreamResult(AqlQuery aqlQuery) {
-        log.trace("Converting the AqlApi query into SQL qury: {}", aqlQuery);
-        SqlQuery sqlQuery = sqlQueryBuilder.buildQuery(aqlQuery);
-        log.trace("Successfully finished to convert the parser result into the following SQL query '{}'", sqlQuery);
+    private AqlLazyResult executeSqlQueryLazy(SqlQuery sqlQuery) {
         log.trace("processing the following SQL query: {}", sqlQuery);
         AqlLazyResult aqlQueryStreamResult = aqlDao.executeQueryLazy(sqlQuery, permissionProvider);
         log.debug("Successfully finished to process SQL query (lazy)");
         return aqlQueryStreamResult;
     }
 
+    /**
+     * Measures the parse, plan and execute times of a textual query. The parse time includes the parsing of the
+     * queries the plan cache plans when it meets a new query shape, the execute time of lazy queries does not include
+     * reading the results.
+     */
+    private static class QueryTimer {
+        private final long start = System.nanoTime();
+        private long parseNanos;
+        private long plannedAt;
+
+        private void parsed(long nanos) {
+            parseNanos += nanos;
+        }
+
+        private void planned() {
+            plannedAt = System.nanoTime();
+        }
+
+        private void executed() {
+            if (log.isDebugEnabled()) {
+                long executedAt = System.nanoTime();
+                log.debug("Finished AQL query in {} ms: parse {} ms, plan {} ms, execute {} ms",
+                        TimeUnit.NANOSECONDS.toMillis(executedAt - start), TimeUnit.NANOSECONDS.toMillis(parseNanos),
+                        TimeUnit.NANOSECONDS.toMillis(plannedAt - start - parseNanos),
+                        TimeUnit.NANOSECONDS.toMillis(executedAt - plannedAt));
+            }
+        }
+    }
+
 }
\ No newline at end of file
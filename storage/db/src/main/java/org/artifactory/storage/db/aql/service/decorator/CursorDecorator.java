@@ -0,0 +1,86 @@
+package org.artifactory.storage.db.aql.service.decorator;
+
+import com.google.common.collect.Lists;
+import org.artifactory.aql.AqlFieldResolver;
+import org.artifactory.aql.model.*;
+import org.artifactory.aql.util.AqlCursor;
+import org.artifactory.storage.db.aql.sql.builder.links.TableLink;
+import org.artifactory.storage.db.aql.sql.builder.query.aql.*;
+import org.artifactory.storage.db.aql.sql.builder.query.sql.AqlToSqlQueryBuilderException;
+import org.artifactory.storage.db.aql.sql.builder.query.sql.type.AqlTableGraph;
+import org.artifactory.storage.db.aql.sql.model.SqlTableEnum;
+
+import java.util.List;
+
+/**
+ * Pages items queries by cursor (keyset pagination): the items are ordered by id and the query continues after the
+ * id encoded in the cursor of the previous page, so the database seeks to the next page instead of skipping the rows
+ * of the previous pages like offset does.
+ */
+public class CursorDecorator implements DecorationStrategy {
+
+    @Override
+    public void decorate(AqlQuery aqlQuery) {
+        String cursor = aqlQuery.getCursor();
+        if (cursor == null) {
+            return;
+        }
+        assertCursorSupported(aqlQuery);
+
+        // Order by the item id which must be in the result to create the next cursor
+        SortDetails sort = new SortDetails();
+        sort.setSortType(AqlSortTypeEnum.asc);
+        sort.addField(AqlFieldEnum.itemId);
+        aqlQuery.setSort(sort);
+        if (!hasItemIdResultField(aqlQuery)) {
+            aqlQuery.getResultFields().add(new DomainSensitiveField(AqlFieldEnum.itemId,
+                    Lists.newArrayList(AqlDomainEnum.items)));
+        }
+
+        if (!cursor.isEmpty()) {
+            // (query)AND(id > "last item id")
+            AqlField itemId = AqlFieldResolver.resolve(AqlFieldEnum.itemId);
+            AqlVariable lastItemId = AqlFieldResolver.resolve(String.valueOf(AqlCursor.decode(cursor)),
+                    AqlVariableTypeEnum.longInt);
+            TableLink nodesTable = AqlTableGraph.tablesLinksMap.get(SqlTableEnum.nodes);
+            SimpleCriteria criteria = new SimpleCriteria(Lists.newArrayList(AqlDomainEnum.items), itemId,
+                    nodesTable.getTable(), AqlComparatorEnum.greater.signature, lastItemId, nodesTable.getTable());
+
+            List<AqlQueryElement> aqlElements = aqlQuery.getAqlElements();
+            if (!aqlElements.isEmpty()) {
+                aqlElements.add(0, AqlAdapter.open);
+                aqlElements.add(AqlAdapter.close);
+                aqlElements.add(AqlAdapter.and);
+            }
+            aqlElements.add(criteria);
+        }
+    }
+
+    private void assertCursorSupported(AqlQuery aqlQuery) {
+        if (!AqlDomainEnum.items.equals(aqlQuery.getDomain())) {
+            throw new AqlToSqlQueryBuilderException("Cursor pagination is supported only by items queries.");
+        }
+        if (aqlQuery.getSort() != null && !aqlQuery.getSort().getFields().isEmpty()) {
+            throw new AqlToSqlQueryBuilderException(
+                    "Cursor pagination cannot be combined with sort, the items are ordered by their id.");
+        }
+        if (aqlQuery.getOffset() > 0) {
+            throw new AqlToSqlQueryBuilderException("Cursor pagination cannot be combined with offset.");
+        }
+        for (DomainSensitiveField field : aqlQuery.getResultFields()) {
+            if (!AqlFieldEnum.itemId.domainName.equals(field.getField().domainName)) {
+                throw new AqlToSqlQueryBuilderException(
+                        "Cursor pagination supports only items fields, other domains cannot be included.");
+            }
+        }
+    }
+
+    private boolean hasItemIdResultField(AqlQuery aqlQuery) {
+        for (DomainSensitiveField field : aqlQuery.getResultFields()) {
+            if (AqlFieldEnum.itemId == field.getField()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
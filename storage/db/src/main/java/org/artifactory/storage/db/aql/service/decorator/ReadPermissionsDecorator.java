@@ -0,0 +1,69 @@
+package org.artifactory.storage.db.aql.service.decorator;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+import org.artifactory.aql.AqlFieldResolver;
+import org.artifactory.aql.model.*;
+import org.artifactory.storage.db.aql.sql.builder.links.TableLink;
+import org.artifactory.storage.db.aql.sql.builder.query.aql.*;
+import org.artifactory.storage.db.aql.sql.builder.query.sql.type.AqlTableGraph;
+import org.artifactory.storage.db.aql.sql.model.SqlTableEnum;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Limits the items queries of non admin users to the repositories they may read, so the database does the filtering
+ * and the limit and offset apply to readable items only.
+ * The read permission of each item is still checked by the result streamer when some of the repositories are readable
+ * only in some paths (include/exclude patterns that cannot be expressed in SQL).
+ */
+public class ReadPermissionsDecorator implements DecorationStrategy {
+
+    private final AqlRepoReadPermissions readPermissions;
+
+    /**
+     * @param readPermissions The repositories the user may read or null if the query should not be filtered (admin)
+     */
+    public ReadPermissionsDecorator(@Nullable AqlRepoReadPermissions readPermissions) {
+        this.readPermissions = readPermissions;
+    }
+
+    @Override
+    public void decorate(AqlQuery aqlQuery) {
+        if (!AqlDomainEnum.items.equals(aqlQuery.getDomain()) || readPermissions == null) {
+            return;
+        }
+
+        // (query)AND(repo = "repo1" OR repo = "repo2" ...)
+        List<String> repoKeys = Lists.newArrayList(
+                Ordering.natural().sortedCopy(readPermissions.getReadableRepoKeys()));
+        if (repoKeys.isEmpty()) {
+            // no readable repository, no repository has an empty key
+            repoKeys.add("");
+        }
+        List<AqlQueryElement> aqlElements = aqlQuery.getAqlElements();
+        if (!aqlElements.isEmpty()) {
+            aqlElements.add(0, AqlAdapter.open);
+            aqlElements.add(AqlAdapter.close);
+            aqlElements.add(AqlAdapter.and);
+        }
+        aqlElements.add(AqlAdapter.open);
+        for (int i = 0; i < repoKeys.size(); i++) {
+            if (i > 0) {
+                aqlElements.add(AqlAdapter.or);
+            }
+            aqlElements.add(createRepoEqualsCriteria(repoKeys.get(i)));
+        }
+        aqlElements.add(AqlAdapter.close);
+        aqlQuery.setReadPermissionsFiltered(!readPermissions.isPathCheckNeeded());
+    }
+
+    private SimpleCriteria createRepoEqualsCriteria(String repoKey) {
+        AqlField itemRepo = AqlFieldResolver.resolve(AqlFieldEnum.itemRepo);
+        AqlVariable repo = AqlFieldResolver.resolve(repoKey, AqlVariableTypeEnum.string);
+        TableLink nodesTable = AqlTableGraph.tablesLinksMap.get(SqlTableEnum.nodes);
+        return new SimpleCriteria(Lists.newArrayList(AqlDomainEnum.items), itemRepo, nodesTable.getTable(),
+                AqlComparatorEnum.equals.signature, repo, nodesTable.getTable());
+    }
+}
@@ -78,4 +78,8 @@ public class AdapterContext {
     public void setOffset(long offset) {
         aqlQuery.setOffset(offset);
     }
+
+    public void setCursor(String cursor) {
+        aqlQuery.setCursor(cursor);
+    }
 }
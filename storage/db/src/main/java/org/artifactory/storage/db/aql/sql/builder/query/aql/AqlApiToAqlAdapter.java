@@ -70,6 +70,9 @@ public class AqlApiToAqlAdapter extends AqlAdapter {
             if (element instanceof AqlBase.OffsetApiElement) {
                 handleOffset((AqlBase.OffsetApiElement) element, context);
             }
+            if (element instanceof AqlBase.CursorApiElement) {
+                handleCursor((AqlBase.CursorApiElement) element, context);
+            }
             if (element instanceof AqlBase.FilterApiElement) {
                 visitElements(element, context);
             }
@@ -100,6 +103,11 @@ public class AqlApiToAqlAdapter extends AqlAdapter {
         context.setOffset(element.getOffset());
     }
 
+    private void handleCursor(AqlBase.CursorApiElement element, AdapterContext context) {
+        //Read the cursor value from the AqlBase CursorApiElement and put it in the context (AqlQuery)
+        context.setCursor(element.getCursor());
+    }
+
     private void handlePropertyCriteria(AqlBase.PropertyCriteriaClause element, AdapterContext context) {
         // Converts AqlBase propertyCriteriaClause into real PropertyCriteria
         AqlVariable variable1 = AqlFieldResolver.resolve(element.getString1(), AqlVariableTypeEnum.string);
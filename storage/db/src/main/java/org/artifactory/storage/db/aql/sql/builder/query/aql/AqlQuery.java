@@ -18,6 +18,8 @@ public class AqlQuery {
     private AqlDomainEnum domain;
     private long limit = Long.MAX_VALUE;
     private long offset = 0;
+    private String cursor;
+    private boolean readPermissionsFiltered;
 
     public List<DomainSensitiveField> getResultFields() {
         return resultFields;
@@ -58,4 +60,24 @@ public class AqlQuery {
     public void setOffset(long offset) {
         this.offset = offset;
     }
+
+    /**
+     * @return The cursor to continue the query from (empty for the first page) or null if the query is not paged by
+     * cursor
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isReadPermissionsFiltered() {
+        return readPermissionsFiltered;
+    }
+
+    public void setReadPermissionsFiltered(boolean readPermissionsFiltered) {
+        this.readPermissionsFiltered = readPermissionsFiltered;
+    }
 }
@@ -48,6 +48,8 @@ public class ParserToAqlAdapter extends AqlAdapter {
         handleLimit(context);
         // Resolve offset info.
         handleOffset(context);
+        // Resolve cursor info.
+        handleCursor(context);
         // Resolve Filter info
         handleFilter(context);
         // Add default filters
@@ -238,6 +240,19 @@ public class ParserToAqlAdapter extends AqlAdapter {
         context.setOffset(offset);
     }
 
+    /**
+     * Allows to continue the query from the cursor returned with the previous page instead of skipping rows
+     */
+    private void handleCursor(ParserToAqlAdapterContext context) {
+        gotoElement(CursorValueElement.class, context);
+        if (!context.hasNext()) {
+            return;
+        }
+        // Get the cursor value from the element and set it in the context (AqlQuery)
+        Pair<ParserElement, String> element = context.getElement();
+        context.setCursor(element.getSecond());
+    }
+
     private void handleCloseParenthesis(ParserToAqlAdapterContext context) {
         // Pop operator from operator queue
         context.pop();
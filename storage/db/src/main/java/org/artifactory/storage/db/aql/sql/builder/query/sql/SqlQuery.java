@@ -17,6 +17,8 @@ public class SqlQuery {
     private List<DomainSensitiveField> resultFields;
     private long limit;
     private long offset;
+    private boolean readPermissionsFiltered;
+    private boolean cursorPagination;
     private AqlDomainEnum domain;
 
     public SqlQuery(AqlDomainEnum domain) {
@@ -64,6 +66,22 @@ public class SqlQuery {
         this.offset = offset;
     }
 
+    public boolean isReadPermissionsFiltered() {
+        return readPermissionsFiltered;
+    }
+
+    public void setReadPermissionsFiltered(boolean readPermissionsFiltered) {
+        this.readPermissionsFiltered = readPermissionsFiltered;
+    }
+
+    public boolean isCursorPagination() {
+        return cursorPagination;
+    }
+
+    public void setCursorPagination(boolean cursorPagination) {
+        this.cursorPagination = cursorPagination;
+    }
+
     public AqlDomainEnum getDomain() {
         return domain;
     }
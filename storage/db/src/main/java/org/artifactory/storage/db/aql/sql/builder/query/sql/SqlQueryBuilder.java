@@ -56,6 +56,8 @@ public class SqlQueryBuilder {
         sqlQuery.setResultFields(aqlQuery.getResultFields());
         sqlQuery.setLimit(aqlQuery.getLimit());
         sqlQuery.setOffset(aqlQuery.getOffset());
+        sqlQuery.setReadPermissionsFiltered(aqlQuery.isReadPermissionsFiltered());
+        sqlQuery.setCursorPagination(aqlQuery.getCursor() != null);
         return sqlQuery;
     }
 
@@ -24,6 +24,8 @@ public class AqlLazyResultImpl implements AqlLazyResult {
     private Map<AqlFieldEnum, String> dbFieldNames;
     private AqlDomainEnum domain;
     private AqlPermissionProvider aqlPermissionProvider;
+    private boolean readPermissionsFiltered;
+    private boolean cursorPagination;
 
     public AqlLazyResultImpl(ResultSet resultSet, SqlQuery sqlQuery, AqlPermissionProvider aqlPermissionProvider) {
         this.aqlPermissionProvider = aqlPermissionProvider;
@@ -33,6 +35,8 @@ public class AqlLazyResultImpl implements AqlLazyResult {
         this.resultSet = resultSet;
         dbFieldNames = Maps.newHashMap();
         this.domain=sqlQuery.getDomain();
+        this.readPermissionsFiltered = sqlQuery.isReadPermissionsFiltered();
+        this.cursorPagination = sqlQuery.isCursorPagination();
         for (DomainSensitiveField field : fields) {
             AqlFieldEnum fieldEnum = field.getField();
             dbFieldNames.put(fieldEnum, AqlFieldExtensionEnum.getExtensionFor(fieldEnum).tableField.name());
@@ -73,4 +77,14 @@ public class AqlLazyResultImpl implements AqlLazyResult {
     public AqlDomainEnum getDomain() {
         return domain;
     }
+
+    @Override
+    public boolean isReadPermissionsFiltered() {
+        return readPermissionsFiltered;
+    }
+
+    @Override
+    public boolean isCursorPagination() {
+        return cursorPagination;
+    }
 }
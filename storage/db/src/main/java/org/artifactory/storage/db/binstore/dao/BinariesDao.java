@@ -136,12 +136,48 @@ public class BinariesDao extends BaseDao {
         return results;
     }
 
+    /**
+     * @param sha1Prefix Prefix of the sha1 checksums to look for
+     * @return The binaries not referenced by any node whose sha1 checksum starts with the given prefix
+     */
+    public Collection<BinaryData> findPotentialDeletion(String sha1Prefix) throws SQLException {
+        Collection<BinaryData> results = Lists.newArrayList();
+        ResultSet resultSet = null;
+        try {
+            resultSet = jdbcHelper.executeSelect("SELECT b.sha1, b.md5, b.bin_length FROM binaries b" +
+                    " WHERE b.sha1 LIKE ? AND b.sha1 NOT LIKE '" + TEMP_SHA1_PREFIX + "%'" +
+                    " AND NOT EXISTS (SELECT n.node_id FROM nodes n WHERE n.sha1_actual = b.sha1)" +
+                    " ORDER BY b.bin_length DESC", sha1Prefix + "%");
+            while (resultSet.next()) {
+                results.add(binaryFromResultSet(resultSet));
+            }
+        } finally {
+            DbUtils.close(resultSet);
+        }
+        return results;
+    }
+
     public int deleteEntry(String sha1ToDelete) throws SQLException {
         return jdbcHelper.executeUpdate("DELETE FROM binaries WHERE binaries.sha1 = ?" +
                 " AND NOT EXISTS (SELECT n.node_id FROM nodes n WHERE n.sha1_actual = ?)"
                 , sha1ToDelete, sha1ToDelete);
     }
 
+    /**
+     * Deletes the given binaries entries (if not referenced by any node) in a single JDBC batch
+     *
+     * @return The update counts of the deletes, as returned by the driver (might be {@link
+     * java.sql.Statement#SUCCESS_NO_INFO})
+     */
+    public int[] deleteEntries(List<String> sha1sToDelete) throws SQLException {
+        List<Object[]> params = Lists.newArrayListWithCapacity(sha1sToDelete.size());
+        for (String sha1 : sha1sToDelete) {
+            params.add(new Object[]{sha1, sha1});
+        }
+        return jdbcHelper.executeBatch("DELETE FROM binaries WHERE binaries.sha1 = ?" +
+                " AND NOT EXISTS (SELECT n.node_id FROM nodes n WHERE n.sha1_actual = ?)", params);
+    }
+
     /**
      * @return A pair of long values where the first is the counts of the binaries table elements and the second is the
      * total binaries size.
@@ -20,10 +20,14 @@ package org.artifactory.storage.db.binstore.service;
 
 import com.google.common.base.Function;
 import com.google.common.collect.*;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.artifactory.addon.AddonsManager;
 import org.artifactory.addon.CoreAddons;
 import org.artifactory.addon.ha.HaCommonAddon;
 import org.artifactory.api.common.BasicStatusHolder;
+import org.artifactory.api.context.ArtifactoryContext;
+import org.artifactory.api.context.ArtifactoryContextThreadBinder;
 import org.artifactory.api.context.ContextHelper;
 import org.artifactory.api.mail.MailService;
 import org.artifactory.api.storage.BinariesInfo;
@@ -31,6 +35,7 @@ import org.artifactory.api.storage.StorageUnit;
 import org.artifactory.binstore.BinaryInfo;
 import org.artifactory.checksum.ChecksumType;
 import org.artifactory.common.ArtifactoryHome;
+import org.artifactory.common.ConstantValues;
 import org.artifactory.common.ha.HaNodeProperties;
 import org.artifactory.storage.BinaryInsertRetryException;
 import org.artifactory.storage.StorageException;
@@ -43,12 +48,14 @@ import org.artifactory.storage.binstore.service.base.Balanceable;
 import org.artifactory.storage.binstore.service.base.BinaryProviderBase;
 import org.artifactory.storage.binstore.service.base.BinaryProviderVisitor;
 import org.artifactory.storage.binstore.service.providers.ExternalWrapperBinaryProviderImpl;
+import org.artifactory.storage.binstore.service.providers.MemoryCacheBinaryProviderImpl;
 import org.artifactory.storage.config.model.ChainMetaData;
 import org.artifactory.storage.config.model.Param;
 import org.artifactory.storage.config.model.ProviderMetaData;
 import org.artifactory.storage.db.DbService;
 import org.artifactory.storage.db.binstore.dao.BinariesDao;
 import org.artifactory.storage.fs.service.ArchiveEntriesService;
+import org.artifactory.storage.spring.ArtifactoryStorageContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -65,10 +72,15 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -109,6 +121,7 @@ public class BinaryStoreImpl implements InternalBinaryStore {
     private ConcurrentMap<String, AtomicInteger> deleteProtectedBinaries;
     private Map<String, Class> binaryProvidersMap;
     private List<GarbageCollectorListener> garbageCollectorListeners;
+    private volatile GcResumePoint gcResumePoint;
 
     @PostConstruct
     public void initialize() {
@@ -145,6 +158,9 @@ public class BinaryStoreImpl implements InternalBinaryStore {
     @PreDestroy
     public void destroy() {
         notifyGCListenersOnDestroy();
+        if (firstBinaryProvider != null) {
+            firstBinaryProvider.visit(new DestroyVisitor());
+        }
     }
 
     @Override
@@ -328,6 +344,11 @@ public class BinaryStoreImpl implements InternalBinaryStore {
         return dirs;
     }
 
+    @Override
+    public List<MemoryCacheBinaryProviderImpl> getMemoryCacheProviders() {
+        return firstBinaryProvider.visit(new MemoryCacheBinaryProviderSearcher());
+    }
+
     @Override
     @Nullable
     public BinaryInfo addBinaryRecord(String sha1, String md5, long length) {
@@ -453,25 +474,43 @@ public class BinaryStoreImpl implements InternalBinaryStore {
     public GarbageCollectorInfo garbageCollect() {
         notifyGCListenersOnStart();
         final GarbageCollectorInfo result = new GarbageCollectorInfo();
-        Collection<BinaryData> binsToDelete;
         try {
             BinariesInfo countAndSize = binariesDao.getCountAndTotalSize();
             result.initialCount = countAndSize.getBinariesCount();
             result.initialSize = countAndSize.getBinariesSize();
-            binsToDelete = binariesDao.findPotentialDeletion();
         } catch (SQLException e) {
             throw new StorageException("Could not find potential Binaries to delete!", e);
         }
+        // The candidates are scanned and deleted in chunks of sha1 prefixes, resuming from the chunk a stopped
+        // collection did not complete
+        int prefixLength = Math.min(Math.max(ConstantValues.gcScanPrefixLength.getInt(), 0), 4);
+        int chunksCount = 1 << (4 * prefixLength);
+        GcResumePoint resumePoint = gcResumePoint;
+        int firstChunk = resumePoint != null && resumePoint.prefixLength == prefixLength ? resumePoint.chunk : 0;
+        gcResumePoint = null;
+        GcThrottle throttle = new GcThrottle(ConstantValues.gcMaxBytesPerSec.getLong(),
+                ConstantValues.gcMaxDbOpsPerSec.getLong());
+        ExecutorService deleteExecutor = Executors.newFixedThreadPool(
+                Math.max(ConstantValues.gcDeleteThreads.getInt(), 1),
+                new ThreadFactoryBuilder().setNameFormat("art-gc-delete-%s").setDaemon(true).build());
+        try {
+            for (int i = 0; i < chunksCount; i++) {
+                int chunk = (firstChunk + i) % chunksCount;
+                if (isGcStopRequested()) {
+                    log.info("Garbage collection stopped, the next collection will resume from chunk {}", chunk);
+                    gcResumePoint = new GcResumePoint(prefixLength, chunk);
+                    break;
+                }
+                String sha1Prefix = prefixLength == 0 ? "" : String.format("%0" + prefixLength + "x", chunk);
+                collectChunk(sha1Prefix, result, throttle, deleteExecutor);
+            }
+        } finally {
+            deleteExecutor.shutdown();
+        }
         result.stopScanTimestamp = System.currentTimeMillis();
-        result.candidatesForDeletion = binsToDelete.size();
-        notifyGCListenersOnDelete(binsToDelete);
         if (result.candidatesForDeletion > 0) {
             log.info("Found {} candidates for deletion", result.candidatesForDeletion);
         }
-        for (BinaryData bd : binsToDelete) {
-            log.trace("Candidate for deletion: {}", bd);
-            dbService.invokeInTransaction("BinaryCleaner#" + bd.getSha1(), new BinaryCleaner(bd, result));
-        }
 
         if (result.checksumsCleaned > 0) {
             result.archivePathsCleaned = getTransactionalMe().deleteUnusedArchivePaths();
@@ -490,6 +529,120 @@ public class BinaryStoreImpl implements InternalBinaryStore {
         return result;
     }
 
+    /**
+     * Deletes the unreferenced binaries with the given sha1 prefix, in batches of DB deletes each followed by the
+     * parallel deletion of the batch binaries from the binary providers
+     */
+    private void collectChunk(String sha1Prefix, GarbageCollectorInfo result, GcThrottle throttle,
+            ExecutorService deleteExecutor) {
+        Collection<BinaryData> binsToDelete;
+        try {
+            binsToDelete = binariesDao.findPotentialDeletion(sha1Prefix);
+        } catch (SQLException e) {
+            throw new StorageException("Could not find potential Binaries to delete!", e);
+        }
+        if (binsToDelete.isEmpty()) {
+            return;
+        }
+        log.debug("Found {} candidates for deletion with prefix '{}'", binsToDelete.size(), sha1Prefix);
+        result.candidatesForDeletion += binsToDelete.size();
+        notifyGCListenersOnDelete(binsToDelete);
+        for (List<BinaryData> batch : Iterables.partition(binsToDelete,
+                Math.max(ConstantValues.gcBatchSize.getInt(), 1))) {
+            collectBatch(batch, result, throttle, deleteExecutor);
+        }
+        notifyGCListenersOnProgress(result);
+    }
+
+    private void collectBatch(List<BinaryData> batch, GarbageCollectorInfo result, GcThrottle throttle,
+            ExecutorService deleteExecutor) {
+        List<BinaryData> protectedBins = Lists.newArrayListWithCapacity(batch.size());
+        for (BinaryData bd : batch) {
+            log.trace("Candidate for deletion: {}", bd);
+            String sha1 = bd.getSha1();
+            deleteProtectedBinaries.putIfAbsent(sha1, new AtomicInteger(0));
+            AtomicInteger usageCounter = deleteProtectedBinaries.get(sha1);
+            if (usageCounter.compareAndSet(0, -30)) {
+                protectedBins.add(bd);
+            } else {
+                log.info("Binary {} is being read! Not deleting.", sha1);
+            }
+        }
+        if (protectedBins.isEmpty()) {
+            return;
+        }
+        try {
+            throttle.acquireDbOps(protectedBins.size());
+            List<BinaryData> deletedEntries = deleteEntries(protectedBins);
+            result.checksumsCleaned += deletedEntries.size();
+            List<Future<Boolean>> deletions = Lists.newArrayListWithCapacity(deletedEntries.size());
+            for (BinaryData bd : deletedEntries) {
+                throttle.acquireBytes(bd.getLength());
+                deletions.add(deleteExecutor.submit(new BinaryDeleter(bd.getSha1())));
+            }
+            for (int i = 0; i < deletedEntries.size(); i++) {
+                BinaryData bd = deletedEntries.get(i);
+                if (waitForBinaryDelete(bd.getSha1(), deletions.get(i))) {
+                    log.trace("Deleted {} binary", bd.getSha1());
+                    result.binariesCleaned++;
+                    result.totalSizeCleaned += bd.getLength();
+                }
+            }
+        } finally {
+            // remove delete protection (even if delete was not successful)
+            for (BinaryData bd : protectedBins) {
+                deleteProtectedBinaries.remove(bd.getSha1());
+            }
+        }
+    }
+
+    /**
+     * Deletes the binaries rows and all dependent rows from the database in a single transaction, falling back to a
+     * transaction per binary if the batch failed
+     *
+     * @return The binaries whose rows were deleted
+     */
+    private List<BinaryData> deleteEntries(List<BinaryData> binsToDelete) {
+        try {
+            return dbService.invokeInTransaction("BinariesCleaner#" + binsToDelete.get(0).getSha1(),
+                    new BinariesEntriesCleaner(binsToDelete));
+        } catch (Exception e) {
+            log.warn("Could not delete a batch of {} binaries entries, deleting them one by one: {}",
+                    binsToDelete.size(), e.getMessage());
+            log.debug("Could not delete a batch of binaries entries", e);
+        }
+        List<BinaryData> deleted = Lists.newArrayList();
+        for (BinaryData bd : binsToDelete) {
+            String sha1 = bd.getSha1();
+            if (dbService.invokeInTransaction("BinaryCleaner#" + sha1, () -> deleteEntry(sha1))) {
+                log.trace("Deleted {} record from binaries table", sha1);
+                deleted.add(bd);
+            }
+        }
+        return deleted;
+    }
+
+    private boolean waitForBinaryDelete(String sha1, Future<Boolean> deletion) {
+        try {
+            if (deletion.get()) {
+                return true;
+            }
+            log.error("Could not delete binary '{}'", sha1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while deleting binary '{}'", sha1);
+        } catch (ExecutionException e) {
+            log.error("Could not delete binary '" + sha1 + "'", e.getCause());
+        }
+        return false;
+    }
+
+    private boolean isGcStopRequested() {
+        ArtifactoryContext context = ContextHelper.get();
+        return context instanceof ArtifactoryStorageContext &&
+                ((ArtifactoryStorageContext) context).getTaskService().pauseOrBreak();
+    }
+
     private void notifyGCListenersOnStart() {
         garbageCollectorListeners.forEach(org.artifactory.storage.binstore.service.GarbageCollectorListener::start);
     }
@@ -500,6 +653,12 @@ public class BinaryStoreImpl implements InternalBinaryStore {
         }
     }
 
+    private void notifyGCListenersOnProgress(GarbageCollectorInfo result) {
+        for (GarbageCollectorListener garbageCollectorListener : garbageCollectorListeners) {
+            garbageCollectorListener.progress(result);
+        }
+    }
+
     private void notifyGCListenersOnFinished(GarbageCollectorInfo result) {
         for (GarbageCollectorListener garbageCollectorListener : garbageCollectorListeners) {
             garbageCollectorListener.finished(result);
@@ -742,43 +901,112 @@ public class BinaryStoreImpl implements InternalBinaryStore {
     }
 
     /**
-     * Deletes a single binary from the database and filesystem if not in use.
+     * Deletes a batch of binaries rows and all their dependent rows from the database
      */
-    private class BinaryCleaner implements Callable<Void> {
-        private final GarbageCollectorInfo result;
-        private final BinaryData bd;
+    private class BinariesEntriesCleaner implements Callable<List<BinaryData>> {
+        private final List<BinaryData> binsToDelete;
 
-        public BinaryCleaner(BinaryData bd, GarbageCollectorInfo result) {
-            this.result = result;
-            this.bd = bd;
+        public BinariesEntriesCleaner(List<BinaryData> binsToDelete) {
+            this.binsToDelete = binsToDelete;
         }
 
         @Override
-        public Void call() throws Exception {
-            String sha1 = bd.getSha1();
-            deleteProtectedBinaries.putIfAbsent(sha1, new AtomicInteger(0));
-            AtomicInteger usageCounter = deleteProtectedBinaries.get(sha1);
-            if (usageCounter.compareAndSet(0, -30)) {
+        public List<BinaryData> call() throws Exception {
+            List<BinaryData> entries = Lists.newArrayListWithCapacity(binsToDelete.size());
+            Set<String> withArchiveEntries = Sets.newHashSet();
+            for (BinaryData bd : binsToDelete) {
                 try {
-                    if (deleteEntry(sha1)) {
-                        log.trace("Deleted {} record from binaries table", sha1);
-                        result.checksumsCleaned++;
-                        if (getFirstBinaryProvider().delete(sha1)) {
-                            log.trace("Deleted {} binary", sha1);
-                            result.binariesCleaned++;
-                            result.totalSizeCleaned += bd.getLength();
-                        } else {
-                            log.error("Could not delete binary '{}'", sha1);
-                        }
+                    if (archiveEntriesService.deleteArchiveEntries(bd.getSha1())) {
+                        withArchiveEntries.add(bd.getSha1());
                     }
-                } finally {
-                    // remove delete protection (even if delete was not successful)
-                    deleteProtectedBinaries.remove(sha1);
+                    entries.add(bd);
+                } catch (Exception e) {
+                    log.error("Failed to delete archive entries for " + bd.getSha1(), e);
                 }
-            } else {
-                log.info("Binary {} is being read! Not deleting.", sha1);
             }
-            return null;
+            List<String> sha1s = entries.stream().map(BinaryData::getSha1).collect(Collectors.toList());
+            int[] updateCounts = binariesDao.deleteEntries(sha1s);
+            List<BinaryData> deleted = Lists.newArrayListWithCapacity(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                String sha1 = sha1s.get(i);
+                boolean entryDeleted = updateCounts[i] == Statement.SUCCESS_NO_INFO ? !binariesDao.exists(sha1) :
+                        updateCounts[i] == 1;
+                if (entryDeleted) {
+                    log.trace("Deleted {} record from binaries table", sha1);
+                    deleted.add(entries.get(i));
+                } else if (withArchiveEntries.contains(sha1)) {
+                    log.error("Binary entry " + sha1 + " had archive entries that are deleted," +
+                            " but the binary line was not deleted! Re indexing of archive needed.");
+                }
+            }
+            return deleted;
+        }
+    }
+
+    /**
+     * Deletes a binary, whose row was already deleted, from the binary providers
+     */
+    private class BinaryDeleter implements Callable<Boolean> {
+        private final String sha1;
+        private final ArtifactoryContext context;
+        private final ArtifactoryHome artifactoryHome;
+
+        public BinaryDeleter(String sha1) {
+            this.sha1 = sha1;
+            this.context = ContextHelper.get();
+            this.artifactoryHome = ArtifactoryHome.isBound() ? ArtifactoryHome.get() : null;
+        }
+
+        @Override
+        public Boolean call() {
+            ArtifactoryContextThreadBinder.bind(context);
+            if (artifactoryHome != null) {
+                ArtifactoryHome.bind(artifactoryHome);
+            }
+            try {
+                return getFirstBinaryProvider().delete(sha1);
+            } finally {
+                ArtifactoryContextThreadBinder.unbind();
+                ArtifactoryHome.unbind();
+            }
+        }
+    }
+
+    /**
+     * Limits the rate of the garbage collection deletes (0 is unlimited)
+     */
+    private static class GcThrottle {
+        private final RateLimiter bytesLimiter;
+        private final RateLimiter dbOpsLimiter;
+
+        private GcThrottle(long maxBytesPerSec, long maxDbOpsPerSec) {
+            bytesLimiter = maxBytesPerSec > 0 ? RateLimiter.create(maxBytesPerSec) : null;
+            dbOpsLimiter = maxDbOpsPerSec > 0 ? RateLimiter.create(maxDbOpsPerSec) : null;
+        }
+
+        private void acquireBytes(long bytes) {
+            if (bytesLimiter != null && bytes > 0) {
+                bytesLimiter.acquire((int) Math.min(bytes, Integer.MAX_VALUE));
+            }
+        }
+
+        private void acquireDbOps(int ops) {
+            if (dbOpsLimiter != null && ops > 0) {
+                dbOpsLimiter.acquire(ops);
+            }
+        }
+    }
+
+    /**
+     * The chunk from which the next garbage collection resumes after a collection was stopped
+     */
+    private static class GcResumePoint {
+        private final int prefixLength;
+        private final int chunk;
+
+        private GcResumePoint(int prefixLength, int chunk) {
+            this.prefixLength = prefixLength;
+            this.chunk = chunk;
         }
     }
 
@@ -815,6 +1043,14 @@ public class BinaryStoreImpl implements InternalBinaryStore {
     }
 
 
+    private class DestroyVisitor implements BinaryProviderVisitor<Object> {
+        @Override
+        public List<Object> visit(BinaryProviderBase binaryProviderBase) {
+            binaryProviderBase.destroy();
+            return Lists.newArrayList();
+        }
+    }
+
     private class FileBinaryProviderSearcher implements BinaryProviderVisitor<FileBinaryProvider>{
         @Override
         public List<FileBinaryProvider> visit(BinaryProviderBase binaryProviderBase) {
@@ -825,4 +1061,15 @@ public class BinaryStoreImpl implements InternalBinaryStore {
             return result;
         }
     }
+
+    private class MemoryCacheBinaryProviderSearcher implements BinaryProviderVisitor<MemoryCacheBinaryProviderImpl> {
+        @Override
+        public List<MemoryCacheBinaryProviderImpl> visit(BinaryProviderBase binaryProviderBase) {
+            ArrayList<MemoryCacheBinaryProviderImpl> result = Lists.newArrayList();
+            if (binaryProviderBase instanceof MemoryCacheBinaryProviderImpl) {
+                result.add((MemoryCacheBinaryProviderImpl) binaryProviderBase);
+            }
+            return result;
+        }
+    }
 }
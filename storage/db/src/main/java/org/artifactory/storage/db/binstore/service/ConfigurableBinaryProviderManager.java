@@ -41,6 +41,24 @@ public class ConfigurableBinaryProviderManager {
      */
     public static ChainMetaData buildByStorageProperties(StorageProperties storageProperties) throws IOException {
         log.debug("Using the old generation binary provider config");
+        ChainMetaData chain = buildChainByStorageProperties(storageProperties);
+        long memoryMaxSize = storageProperties.getBinaryProviderMemoryMaxSize();
+        if (memoryMaxSize > 0) {
+            log.debug("Adding 'memory' provider in front of the '{}' chain", chain.getTemplate());
+            ProviderMetaData memoryProvider = new ProviderMetaData("memory", "memory");
+            overrideParam(memoryProvider, "maxSize", String.valueOf(memoryMaxSize));
+            overrideParam(memoryProvider, "maxEntrySize",
+                    String.valueOf(storageProperties.getBinaryProviderMemoryMaxEntrySize()));
+            // The usage tracking provider stays first in the chain
+            ProviderMetaData trackingProvider = chain.getProviderMetaData();
+            memoryProvider.setProviderMetaData(trackingProvider.getProviderMetaData());
+            trackingProvider.setProviderMetaData(memoryProvider);
+        }
+        return chain;
+    }
+
+    private static ChainMetaData buildChainByStorageProperties(StorageProperties storageProperties)
+            throws IOException {
         String defaultConfigPath = "/default-storage-config.xml";
         InputStream defaultConfigStream = ArtifactoryHome.class.getResource(defaultConfigPath).openStream();
         StorageProperties.BinaryProviderType binaryProviderName = storageProperties.getBinariesStorageType();
@@ -19,6 +19,7 @@
 package org.artifactory.storage.db.binstore.service;
 
 import org.artifactory.binstore.BinaryInfo;
+import org.artifactory.io.FileRegionInputStream;
 import org.artifactory.storage.binstore.BinaryStoreInputStream;
 import org.artifactory.storage.binstore.service.BinaryNotFoundException;
 import org.artifactory.storage.binstore.service.BinaryProvider;
@@ -30,9 +31,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 /**
  * This binary provider wraps binary streams to protect the underlying binary from deletion while the streams is still open.
@@ -66,7 +70,8 @@ public class UsageTrackingBinaryProvider extends BinaryProviderBase implements B
         return next().delete(sha1);
     }
 
-    static class ReaderTrackingStream extends BufferedInputStream implements BinaryStoreInputStream ,SkippableInputStream{
+    static class ReaderTrackingStream extends BufferedInputStream implements BinaryStoreInputStream ,SkippableInputStream,
+            FileRegionInputStream {
         private final String sha1;
         private final InputStream inputStream;
         private BinaryStoreServices binaryStoreServices;
@@ -113,6 +118,37 @@ public class UsageTrackingBinaryProvider extends BinaryProviderBase implements B
             }
             return true;
         }
+
+        @Nullable
+        @Override
+        public File getRegionFile() {
+            return isRegionUnread() ? ((FileRegionInputStream) inputStream).getRegionFile() : null;
+        }
+
+        @Nullable
+        @Override
+        public FileChannel getRegionChannel() {
+            return isRegionUnread() ? ((FileRegionInputStream) inputStream).getRegionChannel() : null;
+        }
+
+        /**
+         * The region of the underlying stream is available as long as nothing was buffered from it
+         */
+        private boolean isRegionUnread() {
+            return inputStream instanceof FileRegionInputStream && count == 0 && pos == 0 && !closed;
+        }
+
+        @Override
+        public long getRegionStart() {
+            return inputStream instanceof FileRegionInputStream ?
+                    ((FileRegionInputStream) inputStream).getRegionStart() : 0;
+        }
+
+        @Override
+        public long getRegionLength() {
+            return inputStream instanceof FileRegionInputStream ?
+                    ((FileRegionInputStream) inputStream).getRegionLength() : -1;
+        }
     }
 
 }
@@ -18,6 +18,7 @@
 
 package org.artifactory.storage.db.fs.dao;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.artifactory.storage.StorageProperties;
 import org.artifactory.storage.db.DbService;
@@ -31,6 +32,8 @@ import org.springframework.stereotype.Repository;
 import javax.annotation.Nonnull;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -159,6 +162,21 @@ public class ArchiveEntriesDao extends BaseDao {
         return updateCount > 0;
     }
 
+    /**
+     * Creates new records in the many-to-many table of archive to entries in a single JDBC batch.
+     *
+     * @param indexedArchiveId The indexed archive unique id
+     * @param entriesIds       Pairs of archive entry path unique id and archive entry name unique id
+     */
+    public void createIndexedArchivesEntries(long indexedArchiveId, Collection<long[]> entriesIds)
+            throws SQLException {
+        List<Object[]> params = Lists.newArrayListWithCapacity(entriesIds.size());
+        for (long[] entryIds : entriesIds) {
+            params.add(new Object[]{indexedArchiveId, entryIds[0], entryIds[1]});
+        }
+        jdbcHelper.executeBatch("INSERT INTO indexed_archives_entries VALUES (?, ?, ?)", params);
+    }
+
     /**
      * @return True if there's already an entry with the given ids
      */
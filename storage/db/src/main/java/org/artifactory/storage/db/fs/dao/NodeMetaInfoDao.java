@@ -18,6 +18,7 @@
 
 package org.artifactory.storage.db.fs.dao;
 
+import com.google.common.collect.Lists;
 import org.artifactory.storage.db.fs.entity.NodeMetaInfo;
 import org.artifactory.storage.db.util.BaseDao;
 import org.artifactory.storage.db.util.DbUtils;
@@ -30,6 +31,7 @@ import org.springframework.stereotype.Repository;
 import javax.annotation.Nullable;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * A data access table for the node meta infos table.
@@ -40,6 +42,8 @@ import java.sql.SQLException;
 public class NodeMetaInfoDao extends BaseDao {
     private static final Logger log = LoggerFactory.getLogger(NodeMetaInfoDao.class);
 
+    private static final String INSERT_META_INFO = "INSERT INTO node_meta_infos VALUES(?, ?, ?)";
+
     @Autowired
     public NodeMetaInfoDao(JdbcHelper jdbcHelper) {
         super(jdbcHelper);
@@ -69,10 +73,24 @@ public class NodeMetaInfoDao extends BaseDao {
     }
 
     public int create(NodeMetaInfo metaInfo) throws SQLException {
-        return jdbcHelper.executeUpdate("INSERT INTO node_meta_infos VALUES(?, ?, ?)",
+        return jdbcHelper.executeUpdate(INSERT_META_INFO,
                 metaInfo.getNodeId(), metaInfo.getPropsModified(), metaInfo.getPropsModifiedBy());
     }
 
+    /**
+     * Inserts the metadata info of multiple nodes with JDBC batches
+     *
+     * @param maxBatchSize The maximal number of metadata infos sent in one JDBC batch
+     * @return The update count of each metadata info insert
+     */
+    public int[] create(List<NodeMetaInfo> metaInfos, int maxBatchSize) throws SQLException {
+        List<Object[]> params = Lists.newArrayListWithCapacity(metaInfos.size());
+        for (NodeMetaInfo metaInfo : metaInfos) {
+            params.add(new Object[]{metaInfo.getNodeId(), metaInfo.getPropsModified(), metaInfo.getPropsModifiedBy()});
+        }
+        return jdbcHelper.executeBatch(INSERT_META_INFO, params, maxBatchSize);
+    }
+
     public int update(NodeMetaInfo metaInfo) throws SQLException {
         return jdbcHelper.executeUpdate("UPDATE node_meta_infos SET props_modified = ?, props_modified_by = ? " +
                 "WHERE node_id = ?", metaInfo.getPropsModified(), metaInfo.getPropsModifiedBy(), metaInfo.getNodeId());
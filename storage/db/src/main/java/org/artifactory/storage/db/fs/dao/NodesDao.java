@@ -53,6 +53,15 @@ import java.util.Set;
 public class NodesDao extends BaseDao {
     private static final Logger log = LoggerFactory.getLogger(NodesDao.class);
 
+    private static final String INSERT_NODE =
+            "INSERT INTO nodes VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_NODE = "UPDATE nodes " +
+            "SET repo = ?,  node_path = ?, node_name = ?, " +
+            "depth = ?, created = ?, created_by = ?, " +
+            "modified = ?, modified_by = ?, updated = ?, " +
+            "bin_length = ?, sha1_actual = ?, sha1_original = ?, md5_actual = ?, md5_original = ? " +
+            "WHERE node_id = ?";
+
     public static final String TABLE_NAME = "nodes";
     private static final String SELECT_NODE_QUERY = "SELECT * FROM nodes ";
 
@@ -142,27 +151,58 @@ public class NodesDao extends BaseDao {
     }
 
     public int create(Node node) throws SQLException {
-        return jdbcHelper.executeUpdate("INSERT INTO nodes VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
-                node.getNodeId(), booleanAsByte(node.isFile()), node.getRepo(),
+        return jdbcHelper.executeUpdate(INSERT_NODE, createParams(node));
+    }
+
+    /**
+     * Inserts multiple nodes with JDBC batches
+     *
+     * @param maxBatchSize The maximal number of nodes sent in one JDBC batch
+     * @return The update count of each node insert
+     */
+    public int[] create(List<Node> nodes, int maxBatchSize) throws SQLException {
+        log.debug("Creating {} nodes in batch", nodes.size());
+        List<Object[]> params = Lists.newArrayListWithCapacity(nodes.size());
+        for (Node node : nodes) {
+            params.add(createParams(node));
+        }
+        return jdbcHelper.executeBatch(INSERT_NODE, params, maxBatchSize);
+    }
+
+    public int update(Node node) throws SQLException {
+        return jdbcHelper.executeUpdate(UPDATE_NODE, updateParams(node));
+    }
+
+    /**
+     * Updates multiple nodes with JDBC batches
+     *
+     * @param maxBatchSize The maximal number of nodes sent in one JDBC batch
+     * @return The update count of each node update
+     */
+    public int[] update(List<Node> nodes, int maxBatchSize) throws SQLException {
+        log.debug("Updating {} nodes in batch", nodes.size());
+        List<Object[]> params = Lists.newArrayListWithCapacity(nodes.size());
+        for (Node node : nodes) {
+            params.add(updateParams(node));
+        }
+        return jdbcHelper.executeBatch(UPDATE_NODE, params, maxBatchSize);
+    }
+
+    private Object[] createParams(Node node) {
+        return new Object[]{node.getNodeId(), booleanAsByte(node.isFile()), node.getRepo(),
                 dotIfNullOrEmpty(node.getPath()), dotIfNullOrEmpty(node.getName()),
                 node.getDepth(), node.getCreated(), node.getCreatedBy(), node.getModified(), node.getModifiedBy(),
                 node.getUpdated(), node.getLength(), node.getSha1Actual(), node.getSha1Original(), node.getMd5Actual(),
-                node.getMd5Original());
+                node.getMd5Original()};
     }
 
-    public int update(Node node) throws SQLException {
+    private Object[] updateParams(Node node) {
         // node id and type are not updatable
-        return jdbcHelper.executeUpdate("UPDATE nodes " +
-                "SET repo = ?,  node_path = ?, node_name = ?, " +
-                "depth = ?, created = ?, created_by = ?, " +
-                "modified = ?, modified_by = ?, updated = ?, " +
-                "bin_length = ?, sha1_actual = ?, sha1_original = ?, md5_actual = ?, md5_original = ? " +
-                "WHERE node_id = ?",
-                node.getRepo(), dotIfNullOrEmpty(node.getPath()), dotIfNullOrEmpty(node.getName()),
+        return new Object[]{node.getRepo(), dotIfNullOrEmpty(node.getPath()), dotIfNullOrEmpty(node.getName()),
                 node.getDepth(), node.getCreated(), node.getCreatedBy(),
                 node.getModified(), node.getModifiedBy(), node.getUpdated(),
                 node.getLength(), node.getSha1Actual(), node.getSha1Original(), node.getMd5Actual(),
-                node.getMd5Original(), node.getNodeId());
+                node.getMd5Original(), node.getNodeId()};
     }
 
     public boolean exists(NodePath path) throws SQLException {
@@ -213,6 +253,40 @@ public class NodesDao extends BaseDao {
         }
     }
 
+    /**
+     * Returns the next children of the given type ordered by name, used to list large folders page by page
+     *
+     * @param folders   True to return the child folders, false to return the child files
+     * @param afterName Returns only the children with a greater name, null to start with the first child
+     * @param limit     The maximum number of children returned
+     */
+    public List<Node> getChildren(NodePath path, boolean folders, @Nullable String afterName, int limit)
+            throws SQLException {
+        ResultSet resultSet = null;
+        List<Node> results = Lists.newArrayList();
+        try {
+            // the child path must be the path+name of the parent
+            String childPath = path.getPathName();
+            String query = SELECT_NODE_QUERY + "WHERE repo = ? AND node_path = ? AND depth = ? AND node_type = ? ";
+            Object[] params;
+            if (afterName == null) {
+                params = new Object[]{path.getRepo(), dotIfNullOrEmpty(childPath), path.getDepth() + 1,
+                        booleanAsByte(!folders)};
+            } else {
+                query += "AND node_name > ? ";
+                params = new Object[]{path.getRepo(), dotIfNullOrEmpty(childPath), path.getDepth() + 1,
+                        booleanAsByte(!folders), afterName};
+            }
+            resultSet = jdbcHelper.executeLimitedSelect(query + "ORDER BY node_name", limit, params);
+            while (resultSet.next()) {
+                results.add(nodeFromResultSet(resultSet));
+            }
+            return results;
+        } finally {
+            DbUtils.close(resultSet);
+        }
+    }
+
     public boolean hasChildren(NodePath path) throws SQLException {
         ResultSet resultSet = null;
         try {
@@ -19,7 +19,9 @@
 package org.artifactory.storage.db.fs.dao;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.apache.commons.lang.StringUtils;
+import org.artifactory.storage.db.fs.entity.NodePath;
 import org.artifactory.storage.db.fs.entity.NodeProperty;
 import org.artifactory.storage.db.util.BaseDao;
 import org.artifactory.storage.db.util.DbUtils;
@@ -31,7 +33,9 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A data access object for the properties table.
@@ -42,6 +46,7 @@ import java.util.List;
 public class PropertiesDao extends BaseDao {
     private static final Logger log = LoggerFactory.getLogger(PropertiesDao.class);
     private static final int PROP_VALUE_MAX_SIZE = 4000;
+    private static final String INSERT_PROPERTY = "INSERT INTO node_props VALUES(?, ?, ?, ?)";
 
     @Autowired
     public PropertiesDao(JdbcHelper jdbcHelper) {
@@ -77,11 +82,65 @@ public class PropertiesDao extends BaseDao {
         }
     }
 
+    /**
+     * Returns the properties of the given children of a folder in one query
+     *
+     * @param parent     The path of the parent folder
+     * @param childNames The names of the children, should not exceed the maximum size of an IN list
+     * @return The properties of the children by name, the children without properties are omitted
+     */
+    public Map<String, List<NodeProperty>> getChildrenNodeProperties(NodePath parent, Collection<String> childNames)
+            throws SQLException {
+        Map<String, List<NodeProperty>> results = Maps.newHashMap();
+        if (childNames.isEmpty()) {
+            return results;
+        }
+        ResultSet resultSet = null;
+        try {
+            // the child path must be the path+name of the parent
+            resultSet = jdbcHelper.executeSelect("SELECT p.*, n.node_name FROM node_props p " +
+                    "JOIN nodes n ON p.node_id = n.node_id " +
+                    "WHERE n.repo = ? AND n.node_path = ? AND n.depth = ? AND n.node_name IN (#)",
+                    parent.getRepo(), dotIfNullOrEmpty(parent.getPathName()), parent.getDepth() + 1, childNames);
+            while (resultSet.next()) {
+                String childName = resultSet.getString(5);
+                List<NodeProperty> childProperties = results.get(childName);
+                if (childProperties == null) {
+                    childProperties = Lists.newArrayList();
+                    results.put(childName, childProperties);
+                }
+                childProperties.add(propertyFromResultSet(resultSet));
+            }
+            return results;
+        } finally {
+            DbUtils.close(resultSet);
+        }
+    }
+
     public int deleteNodeProperties(long nodeId) throws SQLException {
         return jdbcHelper.executeUpdate("DELETE FROM node_props WHERE node_id = ?", nodeId);
     }
 
     public int create(NodeProperty property) throws SQLException {
+        return jdbcHelper.executeUpdate(INSERT_PROPERTY, createParams(property));
+    }
+
+    /**
+     * Inserts multiple node properties with JDBC batches
+     *
+     * @param maxBatchSize The maximal number of properties sent in one JDBC batch
+     * @return The update count of each property insert
+     */
+    public int[] create(List<NodeProperty> properties, int maxBatchSize) throws SQLException {
+        log.debug("Creating {} node properties in batch", properties.size());
+        List<Object[]> params = Lists.newArrayListWithCapacity(properties.size());
+        for (NodeProperty property : properties) {
+            params.add(createParams(property));
+        }
+        return jdbcHelper.executeBatch(INSERT_PROPERTY, params, maxBatchSize);
+    }
+
+    private Object[] createParams(NodeProperty property) {
         String propValue = nullIfEmpty(property.getPropValue());
         if (propValue != null && propValue.length() > PROP_VALUE_MAX_SIZE) {
             log.info("Trimming property value to 4000 characters '{}'", property.getPropKey());
@@ -89,8 +148,7 @@ public class PropertiesDao extends BaseDao {
                     property.getPropValue());
             propValue = StringUtils.substring(propValue, 0, PROP_VALUE_MAX_SIZE);
         }
-        return jdbcHelper.executeUpdate("INSERT INTO node_props VALUES(?, ?, ?, ?)",
-                property.getPropId(), property.getNodeId(), property.getPropKey(), propValue);
+        return new Object[]{property.getPropId(), property.getNodeId(), property.getPropKey(), propValue};
     }
 
     private NodeProperty propertyFromResultSet(ResultSet resultSet) throws SQLException {
@@ -19,6 +19,8 @@
 package org.artifactory.storage.db.fs.dao;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.artifactory.storage.db.fs.entity.Stat;
 import org.artifactory.storage.db.util.BaseDao;
 import org.artifactory.storage.db.util.DbUtils;
@@ -31,6 +33,9 @@ import org.springframework.stereotype.Repository;
 import javax.annotation.Nullable;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A data access object for the stats table.
@@ -334,6 +339,57 @@ public class StatsDao extends BaseDao {
         return 0; // no change
     }
 
+    /**
+     * Fetches the local stats of the given nodes in a single query
+     *
+     * @param nodeIds Node ids to fetch stats for (the caller should keep the list size reasonable for an in-list)
+     * @return The local stats by node id, nodes without stats are not included
+     */
+    public Map<Long, Stat> getLocalStats(Collection<Long> nodeIds) throws SQLException {
+        Map<Long, Stat> stats = Maps.newHashMap();
+        if (nodeIds.isEmpty()) {
+            return stats;
+        }
+        ResultSet resultSet = null;
+        try {
+            resultSet = jdbcHelper.executeSelect("SELECT * FROM stats WHERE node_id IN (#)", nodeIds);
+            while (resultSet.next()) {
+                Stat stat = statFromLocalResultSet(resultSet);
+                stats.put(stat.getNodeId(), stat);
+            }
+        } finally {
+            DbUtils.close(resultSet);
+        }
+        return stats;
+    }
+
+    /**
+     * Inserts the local stats of multiple nodes with a single JDBC batch
+     */
+    public void createLocalStats(List<Stat> stats) throws SQLException {
+        log.debug("Creating {} stats in batch", stats.size());
+        List<Object[]> params = Lists.newArrayListWithCapacity(stats.size());
+        for (Stat stat : stats) {
+            params.add(new Object[]{stat.getNodeId(), stat.getLocalDownloadCount(), stat.getLocalLastDownloaded(),
+                    stat.getLocalLastDownloadedBy()});
+        }
+        jdbcHelper.executeBatch("INSERT INTO stats VALUES (?, ?, ?, ?)", params);
+    }
+
+    /**
+     * Updates the local stats of multiple nodes with a single JDBC batch
+     */
+    public void updateLocalStats(List<Stat> stats) throws SQLException {
+        log.debug("Updating {} stats in batch", stats.size());
+        List<Object[]> params = Lists.newArrayListWithCapacity(stats.size());
+        for (Stat stat : stats) {
+            params.add(new Object[]{stat.getLocalDownloadCount(), stat.getLocalLastDownloaded(),
+                    stat.getLocalLastDownloadedBy(), stat.getNodeId()});
+        }
+        jdbcHelper.executeBatch("UPDATE stats SET " +
+                "download_count = ?, last_downloaded = ?, last_downloaded_by = ? WHERE node_id = ?", params);
+    }
+
     public int deleteStats(long nodeId, boolean supportRemoteStats) throws SQLException {
         log.debug("Deleting stats of node {}", nodeId);
         int remoteStatsDeleted = 0;
@@ -32,6 +32,7 @@ import org.artifactory.fs.StatsInfo;
 import org.artifactory.sapi.fs.MutableVfsFile;
 import org.artifactory.storage.BinaryInsertRetryException;
 import org.artifactory.storage.binstore.service.InternalBinaryStore;
+import org.artifactory.storage.db.fs.service.ItemsWriteBatch;
 import org.artifactory.storage.fs.VfsException;
 import org.artifactory.storage.fs.repo.StoringRepo;
 import org.artifactory.storage.fs.service.StatsService;
@@ -196,6 +197,11 @@ public class DbMutableFile extends DbMutableItem<MutableFileInfo> implements Mut
         return nodeId;
     }
 
+    @Override
+    protected long doCreateNode(ItemsWriteBatch batch) {
+        return batch.createFile(mutableInfo, stats);
+    }
+
     private void releaseInsertedStreamLock() {
         if (placedBinaryDeleteProtectionLock) {
             getBinaryStore().decrementNoDeleteLock(getSha1());
@@ -208,6 +214,11 @@ public class DbMutableFile extends DbMutableItem<MutableFileInfo> implements Mut
         // stats are not updatable by mutable file
     }
 
+    @Override
+    protected void doUpdateNode(ItemsWriteBatch batch) {
+        batch.updateFile(id, mutableInfo);
+    }
+
     protected InternalBinaryStore getBinaryStore() {
         return ContextHelper.get().beanForType(InternalBinaryStore.class);
     }
@@ -25,6 +25,7 @@ import org.artifactory.fs.MutableFolderInfo;
 import org.artifactory.sapi.fs.MutableVfsFolder;
 import org.artifactory.sapi.fs.MutableVfsItem;
 import org.artifactory.sapi.fs.VfsItem;
+import org.artifactory.storage.db.fs.service.ItemsWriteBatch;
 import org.artifactory.storage.fs.repo.StoringRepo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -119,4 +120,14 @@ public class DbMutableFolder extends DbMutableItem<MutableFolderInfo> implements
     protected void doUpdateNode() {
         getFileService().updateFolder(id, mutableInfo);
     }
+
+    @Override
+    protected long doCreateNode(ItemsWriteBatch batch) {
+        return batch.createFolder(mutableInfo);
+    }
+
+    @Override
+    protected void doUpdateNode(ItemsWriteBatch batch) {
+        batch.updateFolder(id, mutableInfo);
+    }
 }
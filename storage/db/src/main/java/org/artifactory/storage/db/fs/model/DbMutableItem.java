@@ -32,6 +32,7 @@ import org.artifactory.repo.interceptor.StorageInterceptors;
 import org.artifactory.sapi.fs.MutableVfsItem;
 import org.artifactory.security.AccessLogger;
 import org.artifactory.storage.db.DbService;
+import org.artifactory.storage.db.fs.service.ItemsWriteBatch;
 import org.artifactory.storage.fs.repo.StoringRepo;
 import org.artifactory.storage.fs.service.ItemMetaInfo;
 import org.artifactory.storage.fs.service.NodeMetaInfoService;
@@ -238,6 +239,43 @@ public abstract class DbMutableItem<T extends MutableItemInfo> extends DbFsItem<
         resetAfterSave();
     }
 
+    /**
+     * @return True if the pending changes of this item can be saved to a {@link ItemsWriteBatch}: the creation of an
+     * item without watches or an update of the item info only
+     */
+    public boolean isBatchSavable() {
+        if (inError || markForDeletion || watchesToAdd != null) {
+            return false;
+        }
+        if (isNew()) {
+            return readyForPersistence();
+        }
+        return properties == null;
+    }
+
+    /**
+     * Saves the pending changes of this item to the given batch. The changes are written to the database when the
+     * batch is flushed.
+     *
+     * @see #isBatchSavable()
+     */
+    public void save(ItemsWriteBatch batch) {
+        if (!isBatchSavable()) {
+            throw new IllegalStateException("Attempt to batch save an item which is not batch savable: " + this);
+        }
+
+        if (isNew()) {
+            id = doCreateNode(batch);
+            if (properties != null && !properties.isEmpty()) { // no point to set empty props for new item
+                batch.createProperties(id, properties, createItemMetaInfo());
+            }
+        } else if (!mutableInfo.isIdentical(originalInfo)) {
+            doUpdateNode(batch);
+        }
+
+        resetAfterSave();
+    }
+
     protected void resetAfterSave() {
         markForDeletion = false;
         watchesToAdd = null;
@@ -253,6 +291,10 @@ public abstract class DbMutableItem<T extends MutableItemInfo> extends DbFsItem<
 
     protected abstract void doUpdateNode();
 
+    protected abstract long doCreateNode(ItemsWriteBatch batch);
+
+    protected abstract void doUpdateNode(ItemsWriteBatch batch);
+
     protected abstract boolean readyForPersistence();
 
     protected void fillInfo(ItemInfo source) {
@@ -264,8 +306,11 @@ public abstract class DbMutableItem<T extends MutableItemInfo> extends DbFsItem<
     }
 
     private void createOrUpdateNodeMetaInfo() {
-        getNodeMetaInfoService().createOrUpdateNodeMetaInfo(id,
-                new ItemMetaInfo(System.currentTimeMillis(), getAuthorizationService().currentUsername()));
+        getNodeMetaInfoService().createOrUpdateNodeMetaInfo(id, createItemMetaInfo());
+    }
+
+    private ItemMetaInfo createItemMetaInfo() {
+        return new ItemMetaInfo(System.currentTimeMillis(), getAuthorizationService().currentUsername());
     }
 
     private NodeMetaInfoService getNodeMetaInfoService() {
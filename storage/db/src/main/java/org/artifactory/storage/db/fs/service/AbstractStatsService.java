@@ -19,6 +19,7 @@
 package org.artifactory.storage.db.fs.service;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.artifactory.addon.AddonsManager;
 import org.artifactory.addon.ha.semaphore.SemaphoreWrapper;
@@ -45,12 +46,13 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.AbstractPlatformTransactionManager;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 
+import javax.annotation.Nullable;
 import java.sql.SQLException;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Provides basic statistic services
@@ -61,7 +63,19 @@ public abstract class AbstractStatsService {
 
     private static final Logger log = LoggerFactory.getLogger(AbstractStatsService.class);
     public static final int DEFAULT_NB_STATS_SAVED_PER_TX = 30;
+    private static final int EVENT_LOCK_STRIPES = 64;
     private ConcurrentMap<RepoPath, StatsEvent> statsEvents = Maps.newConcurrentMap();
+    private final Object[] eventLocks = new Object[EVENT_LOCK_STRIPES];
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong flushedEvents = new AtomicLong();
+    private volatile long lastFlushMillis;
+    private volatile long maxFlushMillis;
+
+    protected AbstractStatsService() {
+        for (int i = 0; i < eventLocks.length; i++) {
+            eventLocks[i] = new Object();
+        }
+    }
 
     @Autowired
     private StatsDao statsDao;
@@ -88,6 +102,70 @@ public abstract class AbstractStatsService {
         return statsEvents;
     }
 
+    /**
+     * Coalesces a download into the queued event of the path. Events are guarded by striped locks, so concurrent
+     * downloads of different paths don't contend, and an event is never updated after the flush took it.
+     *
+     * @param repoPath The key of the event
+     * @param origin   The origin of the event if it was created by this update
+     * @param update   The update to apply on the event
+     * @return False if the event was dropped since too many events are queued
+     */
+    protected boolean queueEvent(RepoPath repoPath, @Nullable String origin, Consumer<StatsEvent> update) {
+        synchronized (eventLockFor(repoPath)) {
+            StatsEvent statsEvent = statsEvents.get(repoPath);
+            if (statsEvent == null) {
+                if (statsEvents.size() >= ConstantValues.statsMaxQueuedEvents.getInt()) {
+                    long dropped = droppedEvents.incrementAndGet();
+                    if (dropped % 10000 == 1) {
+                        log.warn("Stats events queue is full, {} download events were dropped so far", dropped);
+                    }
+                    return false;
+                }
+                statsEvent = new StatsEvent(repoPath, origin);
+                statsEvents.put(repoPath, statsEvent);
+            }
+            update.accept(statsEvent);
+            return true;
+        }
+    }
+
+    private boolean removeEvent(StatsEvent event) {
+        synchronized (eventLockFor(event.getRepoPath())) {
+            return statsEvents.remove(event.getRepoPath(), event);
+        }
+    }
+
+    private Object eventLockFor(RepoPath repoPath) {
+        return eventLocks[(repoPath.hashCode() & Integer.MAX_VALUE) % eventLocks.length];
+    }
+
+    /**
+     * @return Number of events (distinct paths) waiting to be flushed
+     */
+    public int getQueuedEventsCount() {
+        return statsEvents.size();
+    }
+
+    /**
+     * @return Number of download events dropped since the queue was full
+     */
+    public long getDroppedEventsCount() {
+        return droppedEvents.get();
+    }
+
+    public long getFlushedEventsCount() {
+        return flushedEvents.get();
+    }
+
+    public long getLastFlushMillis() {
+        return lastFlushMillis;
+    }
+
+    public long getMaxFlushMillis() {
+        return maxFlushMillis;
+    }
+
     public void flushStats() {
         if (getStatsEvents().isEmpty()) {
             return;
@@ -103,7 +181,10 @@ public abstract class AbstractStatsService {
         }
 
         try {
+            long start = System.currentTimeMillis();
             doFlushStats();
+            lastFlushMillis = System.currentTimeMillis() - start;
+            maxFlushMillis = Math.max(maxFlushMillis, lastFlushMillis);
         } finally {
             getFlushingSemaphore().release();
         }
@@ -112,27 +193,73 @@ public abstract class AbstractStatsService {
     private void doFlushStats() {
         int sizeOnEntry = getStatsEvents().size();
         log.debug("Flushing {} statistics to storage", sizeOnEntry);
-        Iterator<Map.Entry<RepoPath, StatsEvent>> iterator = getStatsEvents().entrySet().iterator();
+        int batchSize = ConstantValues.statsFlushBatchSize.getInt();
+        boolean batch = batchSize > 1 && supportsBatchFlush();
+        int chunkSize = batch ? batchSize : DEFAULT_NB_STATS_SAVED_PER_TX;
+        List<StatsEvent> chunk = Lists.newArrayListWithCapacity(chunkSize);
         int processed = 0;
+        try {
+            onTraversingStart();
+            for (StatsEvent event : getStatsEvents().values()) {
+                if (isWriteLocked(event)) {
+                    log.debug("Attempting to update stats of write locked node at: {}", event.getRepoPath());
+                    continue;
+                }
+                //remove the object prior to sampling its value to avoid atomicity problems
+                if (removeEvent(event)) {
+                    chunk.add(event);
+                }
+                if (chunk.size() >= chunkSize) {
+                    processed += flushChunk(chunk, batch);
+                    chunk.clear();
+                    log.debug("Flushed {} statistics done, started with {}", processed, sizeOnEntry);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processed += flushChunk(chunk, batch);
+            }
+        } finally {
+            onTraversingEnd();
+        }
+        flushedEvents.addAndGet(processed);
+        log.debug("Successfully flushed {} statistics from total of {}", processed, sizeOnEntry);
+    }
+
+    /**
+     * Saves the events in a single batch if requested, falling back to saving them one by one if the batch fails
+     * (e.g., when one of the nodes was deleted in the meanwhile)
+     */
+    private int flushChunk(List<StatsEvent> events, boolean batch) {
+        if (batch) {
+            TransactionStatus txStatus = startTransaction();
+            try {
+                processStatsBatch(events);
+                commitOrRollback(txStatus);
+                return events.size();
+            } catch (SQLException | RuntimeException e) {
+                log.debug("Failed to flush a batch of {} statistics, saving them one by one: {}",
+                        events.size(), e.getMessage());
+                rollbackTransaction(txStatus);
+            }
+        }
+        saveOneByOne(events);
+        return events.size();
+    }
+
+    private void saveOneByOne(List<StatsEvent> events) {
         TransactionStatus txStatus = null;
         int savedPerTx = DEFAULT_NB_STATS_SAVED_PER_TX;
         if (getDbService().getDatabaseType() == DbType.POSTGRESQL) {
             // PostgreSQL does not support saving more data after a constraint failure (FK, PK, ...)
             savedPerTx = 1;
         }
+        int processed = 0;
         try {
-            onTraversingStart();
-            while (iterator.hasNext()) {
-                final StatsEvent event = iterator.next().getValue();
+            for (StatsEvent event : events) {
                 log.trace("Flushing statistics : {}", event);
                 if (txStatus == null) {
                     txStatus = startTransaction();
                 }
-                if (isWriteLocked(event)) {
-                    log.debug("Attempting to update stats of write locked node at: {}", event.getRepoPath());
-                    continue;
-                }
-                iterator.remove(); //remove the object prior to sampling its value to avoid atomicity problems
                 processed++;
                 StatsSaveResult saveResult = createOrUpdateStats(event);
                 switch (saveResult) {
@@ -142,7 +269,6 @@ public abstract class AbstractStatsService {
                         break;
                     case Updated:
                         if (processed % savedPerTx == 0) {
-                            log.debug("Flushed {} statistics done, started with {}", processed, sizeOnEntry);
                             try {
                                 commitOrRollback(txStatus);
                             } finally {
@@ -151,7 +277,6 @@ public abstract class AbstractStatsService {
                         }
                         break;
                     case Failed:
-                        log.debug("Flushed {} statistics done, started with {}", processed, sizeOnEntry);
                         try {
                             commitOrRollback(txStatus);
                         } finally {
@@ -162,9 +287,34 @@ public abstract class AbstractStatsService {
             }
         } finally {
             commitOrRollback(txStatus);
-            onTraversingEnd();
         }
-        log.debug("Successfully flushed {} statistics from total of {}", processed, sizeOnEntry);
+    }
+
+    /**
+     * @return True if {@link #processStatsBatch(java.util.List)} is supported. A failed batch is rolled back and saved
+     * again one by one, so only services saving the events in the database transaction may support it.
+     */
+    protected boolean supportsBatchFlush() {
+        return false;
+    }
+
+    /**
+     * Saves a chunk of events in the current transaction, using batched statements where possible. The default saves
+     * the events one after the other.
+     *
+     * @param events The events to save
+     * @throws SQLException If the batch failed, the transaction is then rolled back and the events are saved one by
+     *                      one
+     */
+    protected void processStatsBatch(List<StatsEvent> events) throws SQLException {
+        for (StatsEvent event : events) {
+            StatsSaveResult saveResult = createOrUpdateStats(event);
+            if (saveResult == StatsSaveResult.Failed) {
+                throw new SQLException("Failed to update stats for " + event.getRepoPath());
+            } else if (saveResult == StatsSaveResult.Ignored) {
+                log.debug("Attempting to update stats of non-existing or folder node at: {}", event.getRepoPath());
+            }
+        }
     }
 
     protected enum StatsSaveResult {
@@ -18,6 +18,7 @@
 
 package org.artifactory.storage.db.fs.service;
 
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.artifactory.fs.ZipEntryInfo;
 import org.artifactory.model.xstream.fs.ZipEntryImpl;
@@ -33,6 +34,7 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.Nonnull;
 import java.sql.SQLException;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -83,40 +85,62 @@ public class ArchiveEntriesServiceImpl implements ArchiveEntriesService {
                 throw new StorageException("Failed to insert indexed archive entry for " + archiveSha1);
             }
 
+            // the paths and names ids are looked up once per archive and the many to many rows are inserted in a
+            // single batch
+            Map<String, Long> archivePathIds = Maps.newHashMap();
+            Map<String, Long> archiveNameIds = Maps.newHashMap();
+            Map<String, long[]> entriesIds = Maps.newLinkedHashMap();
             for (ZipEntryInfo zipEntry : entries) {
                 // for each entry add one new row to the many to many and to the entries path
                 ArchiveEntry archiveEntry = zipEntryInfoToArchiveEntry(archiveSha1, zipEntry);
 
                 // select or create id from archive path
-                long archivePathId = archiveEntriesDao.findArchivePathId(archiveEntry.getEntryPath());
-                if (archivePathId == DbService.NO_DB_ID) {
-                    archivePathId = dbService.nextId();
-                    if (!archiveEntriesDao.createArchivePath(archivePathId, archiveEntry.getEntryPath())) {
-                        throw new StorageException("Failed to insert archive path: " + archiveEntry.getEntryPath());
-                    }
+                Long archivePathId = archivePathIds.get(archiveEntry.getEntryPath());
+                if (archivePathId == null) {
+                    archivePathId = findOrCreateArchivePathId(archiveEntry.getEntryPath());
+                    archivePathIds.put(archiveEntry.getEntryPath(), archivePathId);
                 }
 
                 // select or create id from archive name
-                long archiveNameId = archiveEntriesDao.findArchiveNameId(archiveEntry.getEntryName());
-                if (archiveNameId == DbService.NO_DB_ID) {
-                    archiveNameId = dbService.nextId();
-                    if (!archiveEntriesDao.createArchiveName(archiveNameId, archiveEntry.getEntryName())) {
-                        throw new StorageException("Failed to insert archive name: " + archiveEntry.getEntryName());
-                    }
+                Long archiveNameId = archiveNameIds.get(archiveEntry.getEntryName());
+                if (archiveNameId == null) {
+                    archiveNameId = findOrCreateArchiveNameId(archiveEntry.getEntryName());
+                    archiveNameIds.put(archiveEntry.getEntryName(), archiveNameId);
                 }
 
-                // before inserting to the many to many relation check that such entry doesn't entry doesn't exist
+                // make sure the same ids are not inserted twice to the many to many relation
                 // this might happen for example in case insensitive databases if the archive contains two entries
                 // with difference only is character casing
-                if (!archiveEntriesDao.hasIndexedArchivesEntries(indexedArchiveId, archivePathId, archiveNameId)) {
-                    archiveEntriesDao.createIndexedArchivesEntries(indexedArchiveId, archivePathId, archiveNameId);
-                }
+                entriesIds.put(archivePathId + ":" + archiveNameId, new long[]{archivePathId, archiveNameId});
             }
+            archiveEntriesDao.createIndexedArchivesEntries(indexedArchiveId, entriesIds.values());
         } catch (SQLException e) {
             throw new StorageException("Failed to insert archive entries: " + e.getMessage(), e);
         }
     }
 
+    private long findOrCreateArchivePathId(String entryPath) throws SQLException {
+        long archivePathId = archiveEntriesDao.findArchivePathId(entryPath);
+        if (archivePathId == DbService.NO_DB_ID) {
+            archivePathId = dbService.nextId();
+            if (!archiveEntriesDao.createArchivePath(archivePathId, entryPath)) {
+                throw new StorageException("Failed to insert archive path: " + entryPath);
+            }
+        }
+        return archivePathId;
+    }
+
+    private long findOrCreateArchiveNameId(String entryName) throws SQLException {
+        long archiveNameId = archiveEntriesDao.findArchiveNameId(entryName);
+        if (archiveNameId == DbService.NO_DB_ID) {
+            archiveNameId = dbService.nextId();
+            if (!archiveEntriesDao.createArchiveName(archiveNameId, entryName)) {
+                throw new StorageException("Failed to insert archive name: " + entryName);
+            }
+        }
+        return archiveNameId;
+    }
+
     private ArchiveEntry zipEntryInfoToArchiveEntry(String archiveSha1, ZipEntryInfo entry) {
         String path = PathUtils.getParent(entry.getPath());
         return new ArchiveEntry(archiveSha1, path, entry.getName());
@@ -18,12 +18,15 @@
 
 package org.artifactory.storage.db.fs.service;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import org.artifactory.md.Properties;
 import org.artifactory.model.xstream.fs.PropertiesImpl;
 import org.artifactory.repo.RepoPath;
 import org.artifactory.storage.StorageException;
 import org.artifactory.storage.db.DbService;
 import org.artifactory.storage.db.fs.dao.PropertiesDao;
+import org.artifactory.storage.db.fs.entity.NodePath;
 import org.artifactory.storage.db.fs.entity.NodeProperty;
 import org.artifactory.storage.fs.service.FileService;
 import org.artifactory.storage.fs.service.PropertiesService;
@@ -32,6 +35,7 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.Nonnull;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -40,6 +44,8 @@ import java.util.Map;
  */
 @Service
 public class DbPropertiesServiceImpl implements PropertiesService {
+    // below the IN list limit of all the supported databases
+    private static final int MAX_CHILDREN_PER_QUERY = 500;
 
     @Autowired
     private DbService dbService;
@@ -77,6 +83,29 @@ public class DbPropertiesServiceImpl implements PropertiesService {
         }
     }
 
+    @Override
+    @Nonnull
+    public Map<String, Properties> getChildrenProperties(RepoPath parentRepoPath, Collection<String> childNames) {
+        Map<String, Properties> childrenProperties = Maps.newHashMap();
+        NodePath parentPath = NodePath.fromRepoPath(parentRepoPath);
+        try {
+            for (List<String> names : Iterables.partition(childNames, MAX_CHILDREN_PER_QUERY)) {
+                Map<String, List<NodeProperty>> nodeProperties =
+                        propertiesDao.getChildrenNodeProperties(parentPath, names);
+                for (Map.Entry<String, List<NodeProperty>> entry : nodeProperties.entrySet()) {
+                    PropertiesImpl properties = new PropertiesImpl();
+                    for (NodeProperty nodeProperty : entry.getValue()) {
+                        properties.put(nodeProperty.getPropKey(), nodeProperty.getPropValue());
+                    }
+                    childrenProperties.put(entry.getKey(), properties);
+                }
+            }
+            return childrenProperties;
+        } catch (SQLException e) {
+            throw new StorageException("Failed to load children properties for " + parentRepoPath, e);
+        }
+    }
+
     @Override
     public boolean hasProperties(RepoPath repoPath) {
         long nodeId = fileService.getNodeId(repoPath);
@@ -53,6 +53,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Set;
@@ -71,10 +72,14 @@ public class FileServiceImpl implements FileService {
     @Autowired
     private NodesDao nodesDao;
 
+    @Autowired
+    private NodesCache nodesCache;
+
     @Override
     public boolean exists(RepoPath repoPath) throws VfsException {
         try {
-            return nodesDao.exists(NodePath.fromRepoPath(repoPath));
+            NodePath nodePath = NodePath.fromRepoPath(repoPath);
+            return nodesCache.get(nodePath) != null || nodesDao.exists(nodePath);
         } catch (SQLException e) {
             log.debug("Failed existence check of path '{}", repoPath, e);
             throw new VfsException("Failed existence check of path '" + repoPath + "'", e);
@@ -111,6 +116,8 @@ public class FileServiceImpl implements FileService {
             updateCount = nodesDao.create(node);
         } catch (SQLException e) {
             throw new VfsException(e);
+        } finally {
+            nodesCache.invalidateOnWrite(node.getNodePath());
         }
         if (updateCount != 1) {
             // Create new node should return with exactly 1 record updated
@@ -123,11 +130,14 @@ public class FileServiceImpl implements FileService {
     @Override
     public int updateFolder(long id, FolderInfo folder) {
         log.debug("Updating folder: {}", folder.getRepoPath());
+        Node node = folderInfoToNode(id, folder);
         try {
-            return nodesDao.update(folderInfoToNode(id, folder));
+            return nodesDao.update(node);
         } catch (SQLException e) {
             throw new VfsException("Failed to update folder: '" + folder.getRepoPath() + "' id: '" + id + "': " +
                     e.getMessage(), e);
+        } finally {
+            nodesCache.invalidateOnWrite(node.getNodePath());
         }
     }
 
@@ -143,6 +153,8 @@ public class FileServiceImpl implements FileService {
             updateCount = nodesDao.create(node);
         } catch (SQLException e) {
             throw new VfsException(e);
+        } finally {
+            nodesCache.invalidateOnWrite(node.getNodePath());
         }
         if (updateCount != 1) {
             // Create new node should return with exactly 1 record updated
@@ -155,18 +167,27 @@ public class FileServiceImpl implements FileService {
     @Override
     public int updateFile(long id, FileInfo file) {
         log.debug("Updating file: {}", file.getRepoPath());
+        Node node = fileInfoToNode(id, file);
         try {
-            return nodesDao.update(fileInfoToNode(id, file));
+            return nodesDao.update(node);
         } catch (SQLException e) {
             throw new VfsException("Failed to update file: '" + file.getRepoPath() + "' id: '" + id + "': " +
                     e.getMessage(), e);
+        } finally {
+            nodesCache.invalidateOnWrite(node.getNodePath());
         }
     }
 
     @Override
     public boolean deleteItem(long id) {
         try {
-            return nodesDao.delete(id);
+            // the cached nodes are keyed by path
+            Node node = nodesCache.isEnabled() ? nodesDao.get(id) : null;
+            boolean deleted = nodesDao.delete(id);
+            if (node != null) {
+                nodesCache.invalidateOnWrite(node.getNodePath());
+            }
+            return deleted;
         } catch (SQLException e) {
             throw new VfsException("Failed to delete item with id '" + id + "': " + e.getMessage(), e);
         }
@@ -203,9 +224,13 @@ public class FileServiceImpl implements FileService {
 
     @Override
     public long getNodeId(RepoPath repoPath) {
-        //TODO: [by YS] requires caching
         try {
-            return nodesDao.getNodeId(NodePath.fromRepoPath(repoPath));
+            NodePath nodePath = NodePath.fromRepoPath(repoPath);
+            Node node = nodesCache.get(nodePath);
+            if (node != null) {
+                return node.getNodeId();
+            }
+            return nodesDao.getNodeId(nodePath);
         } catch (SQLException e) {
             throw new VfsException("Couldn't get node id for: " + repoPath, e);
         }
@@ -213,9 +238,13 @@ public class FileServiceImpl implements FileService {
 
     @Override
     public long getFileNodeId(RepoPath repoPath) {
-        //TODO: [by YS] requires caching
         try {
-            return nodesDao.getFileNodeId(NodePath.fromRepoPath(repoPath));
+            NodePath nodePath = NodePath.fromRepoPath(repoPath);
+            Node node = nodesCache.get(nodePath);
+            if (node != null) {
+                return node.isFile() ? node.getNodeId() : DbService.NO_DB_ID;
+            }
+            return nodesDao.getFileNodeId(nodePath);
         } catch (SQLException e) {
             throw new VfsException("Couldn't get node id for: " + repoPath, e);
         }
@@ -224,7 +253,12 @@ public class FileServiceImpl implements FileService {
     @Override
     public String getNodeSha1(RepoPath repoPath) {
         try {
-            return nodesDao.getNodeSha1(NodePath.fromRepoPath(repoPath));
+            NodePath nodePath = NodePath.fromRepoPath(repoPath);
+            Node node = nodesCache.get(nodePath);
+            if (node != null) {
+                return node.getSha1Actual();
+            }
+            return nodesDao.getNodeSha1(nodePath);
         } catch (SQLException e) {
             throw new VfsException("Couldn't get node id for: " + repoPath, e);
         }
@@ -232,10 +266,20 @@ public class FileServiceImpl implements FileService {
 
     private Node loadNode(RepoPath repoPath) throws VfsItemNotFoundException, VfsException {
         try {
-            Node node = nodesDao.get(NodePath.fromRepoPath(repoPath));
+            NodePath nodePath = NodePath.fromRepoPath(repoPath);
+            Node node = nodesCache.get(nodePath);
+            if (node != null) {
+                return node;
+            }
+            long generation = nodesCache.getGeneration(nodePath);
+            node = nodesDao.get(nodePath);
             if (node == null) {
                 throw new VfsItemNotFoundException("Item not found: '" + repoPath + "'");
             }
+            if (nodePath.equals(node.getNodePath())) {
+                // the database might match a path with a different case, which is invalidated by its own path
+                nodesCache.put(nodePath, node, generation);
+            }
             return node;
         } catch (SQLException e) {
             throw new VfsException("Failed to load item '" + repoPath + "'", e);
@@ -270,6 +314,21 @@ public class FileServiceImpl implements FileService {
         }
     }
 
+    @Override
+    public List<ItemInfo> loadChildren(RepoPath repoPath, boolean folders, @Nullable String afterName, int limit)
+            throws VfsException {
+        try {
+            List<Node> childrenNode = nodesDao.getChildren(NodePath.fromRepoPath(repoPath), folders, afterName, limit);
+            List<ItemInfo> children = Lists.newArrayListWithCapacity(childrenNode.size());
+            for (Node child : childrenNode) {
+                children.add(itemInfoFromNode(child));
+            }
+            return children;
+        } catch (SQLException e) {
+            throw new VfsException("Failed to load children for node '" + repoPath + "'", e);
+        }
+    }
+
     @Override
     public int getFilesCount() throws VfsException {
         try {
@@ -391,11 +450,11 @@ public class FileServiceImpl implements FileService {
         }
     }
 
-    private Node folderInfoToNode(long nodeId, FolderInfo folder) {
+    static Node folderInfoToNode(long nodeId, FolderInfo folder) {
         return itemNodeBuilder(nodeId, folder).file(false).build();
     }
 
-    private Node fileInfoToNode(long nodeId, FileInfo file) {
+    static Node fileInfoToNode(long nodeId, FileInfo file) {
         NodeBuilder builder = itemNodeBuilder(nodeId, file).file(true);
 
         builder.length(file.getSize());
@@ -414,7 +473,7 @@ public class FileServiceImpl implements FileService {
         return builder.build();
     }
 
-    private NodeBuilder itemNodeBuilder(long nodeId, ItemInfo item) {
+    private static NodeBuilder itemNodeBuilder(long nodeId, ItemInfo item) {
         return new NodeBuilder().nodeId(nodeId).nodePath(item.getRepoPath())
                 .created(item.getCreated()).createdBy(item.getCreatedBy())
                 .modified(item.getLastModified()).modifiedBy(item.getModifiedBy())
@@ -0,0 +1,187 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.db.fs.service;
+
+import com.google.common.collect.Lists;
+import org.artifactory.fs.FileInfo;
+import org.artifactory.fs.FolderInfo;
+import org.artifactory.fs.StatsInfo;
+import org.artifactory.md.Properties;
+import org.artifactory.storage.db.DbService;
+import org.artifactory.storage.db.fs.dao.NodeMetaInfoDao;
+import org.artifactory.storage.db.fs.dao.NodesDao;
+import org.artifactory.storage.db.fs.dao.PropertiesDao;
+import org.artifactory.storage.db.fs.dao.StatsDao;
+import org.artifactory.storage.db.fs.entity.Node;
+import org.artifactory.storage.db.fs.entity.NodeMetaInfo;
+import org.artifactory.storage.db.fs.entity.NodeProperty;
+import org.artifactory.storage.db.fs.entity.Stat;
+import org.artifactory.storage.fs.VfsException;
+import org.artifactory.storage.fs.service.ItemMetaInfo;
+import org.artifactory.util.PathValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the rows written when saving the items of a storage session and writes them with grouped JDBC batches,
+ * one per table and statement, instead of one statement per row.
+ * <p/>
+ * Only new nodes (with their properties, metadata info and stats) and node updates are collected. The ids of new
+ * nodes are allocated when they are added, the rows are written on {@link #flush()}: nodes first, so the rows
+ * referencing them always find them. A batch is not thread safe and belongs to a single session save.
+ *
+ * @see org.artifactory.storage.db.fs.session.SqlStorageSession#save()
+ */
+public class ItemsWriteBatch {
+    private static final Logger log = LoggerFactory.getLogger(ItemsWriteBatch.class);
+
+    private final DbService dbService;
+    private final NodesDao nodesDao;
+    private final PropertiesDao propertiesDao;
+    private final StatsDao statsDao;
+    private final NodeMetaInfoDao nodeMetaInfoDao;
+    private final NodesCache nodesCache;
+    private final int maxBatchSize;
+
+    private final List<Node> createdNodes = Lists.newArrayList();
+    private final List<Node> updatedNodes = Lists.newArrayList();
+    private final List<NodeProperty> createdProperties = Lists.newArrayList();
+    private final List<NodeMetaInfo> createdMetaInfos = Lists.newArrayList();
+    private final List<Stat> createdStats = Lists.newArrayList();
+
+    public ItemsWriteBatch(DbService dbService, NodesDao nodesDao, PropertiesDao propertiesDao, StatsDao statsDao,
+            NodeMetaInfoDao nodeMetaInfoDao, NodesCache nodesCache, int maxBatchSize) {
+        this.dbService = dbService;
+        this.nodesDao = nodesDao;
+        this.propertiesDao = propertiesDao;
+        this.statsDao = statsDao;
+        this.nodeMetaInfoDao = nodeMetaInfoDao;
+        this.nodesCache = nodesCache;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return The id of the new folder node
+     */
+    public long createFolder(FolderInfo folder) {
+        PathValidator.validate(folder.getRepoPath().toPath());
+        long nodeId = dbService.nextId();
+        createdNodes.add(FileServiceImpl.folderInfoToNode(nodeId, folder));
+        return nodeId;
+    }
+
+    /**
+     * @param stats The local stats of the new file, null if none
+     * @return The id of the new file node
+     */
+    public long createFile(FileInfo file, @Nullable StatsInfo stats) {
+        PathValidator.validate(file.getRepoPath().toPath());
+        log.debug("Creating file {}", file.getRepoPath());
+        long nodeId = dbService.nextId();
+        createdNodes.add(FileServiceImpl.fileInfoToNode(nodeId, file));
+        if (stats != null) {
+            createdStats.add(new Stat(nodeId, stats.getDownloadCount(), stats.getLastDownloaded(),
+                    stats.getLastDownloadedBy()));
+        }
+        return nodeId;
+    }
+
+    public void updateFolder(long id, FolderInfo folder) {
+        log.debug("Updating folder: {}", folder.getRepoPath());
+        updatedNodes.add(FileServiceImpl.folderInfoToNode(id, folder));
+    }
+
+    public void updateFile(long id, FileInfo file) {
+        log.debug("Updating file: {}", file.getRepoPath());
+        updatedNodes.add(FileServiceImpl.fileInfoToNode(id, file));
+    }
+
+    /**
+     * Adds the properties and the metadata info of a node created by this batch. Existing nodes might already have
+     * properties which should be deleted first, so they are not supported.
+     */
+    public void createProperties(long nodeId, Properties properties, ItemMetaInfo metaInfo) {
+        for (Map.Entry<String, String> propEntry : properties.entries()) {
+            createdProperties.add(new NodeProperty(dbService.nextId(), nodeId, propEntry.getKey(),
+                    propEntry.getValue()));
+        }
+        createdMetaInfos.add(new NodeMetaInfo(nodeId, metaInfo.getPropsModified(), metaInfo.getPropsModifiedBy()));
+    }
+
+    /**
+     * @return The number of nodes created or updated by this batch and not flushed yet
+     */
+    public int size() {
+        return createdNodes.size() + updatedNodes.size();
+    }
+
+    /**
+     * Writes all the collected rows to the database. The batch is empty after this call, even if it failed.
+     */
+    public void flush() {
+        if (size() == 0) {
+            return;
+        }
+        log.debug("Flushing {} created and {} updated nodes", createdNodes.size(), updatedNodes.size());
+        try {
+            if (!createdNodes.isEmpty()) {
+                int[] updateCounts = nodesDao.create(createdNodes, maxBatchSize);
+                for (int i = 0; i < updateCounts.length; i++) {
+                    if (updateCounts[i] != 1 && updateCounts[i] != Statement.SUCCESS_NO_INFO) {
+                        // Create new node should return with exactly 1 record updated
+                        throw new IllegalStateException("Unexpected update count when creating new node: '" +
+                                createdNodes.get(i).getNodePath() + "'");
+                    }
+                }
+            }
+            if (!updatedNodes.isEmpty()) {
+                nodesDao.update(updatedNodes, maxBatchSize);
+            }
+            if (!createdProperties.isEmpty()) {
+                propertiesDao.create(createdProperties, maxBatchSize);
+            }
+            if (!createdMetaInfos.isEmpty()) {
+                nodeMetaInfoDao.create(createdMetaInfos, maxBatchSize);
+            }
+            if (!createdStats.isEmpty()) {
+                statsDao.createLocalStats(createdStats);
+            }
+        } catch (SQLException e) {
+            throw new VfsException("Failed to save a batch of " + size() + " items: " + e.getMessage(), e);
+        } finally {
+            for (Node node : createdNodes) {
+                nodesCache.invalidateOnWrite(node.getNodePath());
+            }
+            for (Node node : updatedNodes) {
+                nodesCache.invalidateOnWrite(node.getNodePath());
+            }
+            createdNodes.clear();
+            updatedNodes.clear();
+            createdProperties.clear();
+            createdMetaInfos.clear();
+            createdStats.clear();
+        }
+    }
+}
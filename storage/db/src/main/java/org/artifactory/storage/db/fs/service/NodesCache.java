@@ -0,0 +1,286 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.db.fs.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Sets;
+import org.artifactory.addon.AddonsManager;
+import org.artifactory.addon.ha.HaCommonAddon;
+import org.artifactory.addon.ha.message.HaMessageTopic;
+import org.artifactory.addon.ha.message.NodesCacheHaMessage;
+import org.artifactory.api.context.ContextHelper;
+import org.artifactory.common.ConstantValues;
+import org.artifactory.repo.RepoPath;
+import org.artifactory.storage.db.fs.entity.Node;
+import org.artifactory.storage.db.fs.entity.NodePath;
+import org.artifactory.storage.fs.service.InternalNodesCache;
+import org.artifactory.storage.fs.session.StorageSession;
+import org.artifactory.storage.fs.session.StorageSessionHolder;
+import org.artifactory.storage.tx.SessionResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded read-through cache of the nodes of the hot paths, used by the {@link FileServiceImpl} to avoid querying
+ * the nodes table for every item lookup. Only the immutable {@link Node} entities are cached, by node path.
+ * <p/>
+ * Every node write invalidates its path twice: when the row is written and after the transaction completed, since
+ * other threads might cache the committed row until then. Nodes are not cached while the current session has
+ * uncommitted node writes, the paths written by the current session are not served from the cache, and a node read is
+ * not cached if its path was written while it was read (each path maps to a generation which is incremented on write).
+ * <p/>
+ * Committed invalidations are sent to the other cluster members, the expiry bounds the staleness of nodes changed
+ * by any other means.
+ */
+@Service
+public class NodesCache implements InternalNodesCache {
+    private static final Logger log = LoggerFactory.getLogger(NodesCache.class);
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong clusterInvalidations = new AtomicLong();
+    // null if the cache is disabled
+    private Cache<NodePath, Node> nodes;
+    private long maxSize;
+
+    @PostConstruct
+    public void initCache() {
+        maxSize = ConstantValues.nodesCacheSize.getLong();
+        if (maxSize > 0) {
+            nodes = CacheBuilder.newBuilder().maximumSize(maxSize)
+                    .expireAfterWrite(ConstantValues.nodesCacheExpirySecs.getLong(), TimeUnit.SECONDS).build();
+        } else {
+            log.info("Nodes cache is disabled");
+        }
+    }
+
+    public boolean isEnabled() {
+        return nodes != null;
+    }
+
+    /**
+     * @return The cached node of the path or null if not cached or written by the current session, whose own write
+     * must be read from the database
+     */
+    @Nullable
+    public Node get(NodePath nodePath) {
+        if (nodes == null || isWrittenBySession(nodePath)) {
+            return null;
+        }
+        Node node = nodes.getIfPresent(nodePath);
+        if (node != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return node;
+    }
+
+    /**
+     * @return The current generation of the path, to take before reading its node from the database
+     * @see #put(NodePath, Node, long)
+     */
+    public long getGeneration(NodePath nodePath) {
+        return generations.get(stripe(nodePath));
+    }
+
+    /**
+     * Caches a node read from the database, unless the path was written since the given generation was taken or the
+     * current session has uncommitted node writes.
+     */
+    public void put(NodePath nodePath, Node node, long generation) {
+        if (nodes == null || hasUncommittedWrites()) {
+            return;
+        }
+        int stripe = stripe(nodePath);
+        if (generations.get(stripe) != generation) {
+            return;
+        }
+        nodes.put(nodePath, node);
+        if (generations.get(stripe) != generation) {
+            // written concurrently, the write might have invalidated the path before the put
+            nodes.invalidate(nodePath);
+        }
+    }
+
+    /**
+     * Invalidates the cached node of a path written (created, updated or deleted) by the current session. The path is
+     * invalidated again after the transaction completed.
+     */
+    public void invalidateOnWrite(NodePath nodePath) {
+        if (nodes == null) {
+            return;
+        }
+        invalidate(nodePath);
+        invalidations.incrementAndGet();
+        StorageSession session = StorageSessionHolder.getSession();
+        if (session != null) {
+            NodesCacheSessionResource resource = session.getOrCreateResource(NodesCacheSessionResource.class);
+            resource.setNodesCache(this);
+            resource.addPath(nodePath);
+        } else {
+            notifyCluster(Sets.newHashSet(nodePath.toRepoPath()));
+        }
+    }
+
+    @Override
+    public void internalInvalidate(Collection<RepoPath> repoPaths) {
+        if (nodes == null) {
+            return;
+        }
+        for (RepoPath repoPath : repoPaths) {
+            NodePath nodePath = NodePath.fromRepoPath(repoPath);
+            generations.incrementAndGet(stripe(nodePath));
+            nodes.invalidate(nodePath);
+        }
+        clusterInvalidations.addAndGet(repoPaths.size());
+    }
+
+    public void invalidateAll() {
+        if (nodes != null) {
+            for (int i = 0; i < GENERATION_STRIPES; i++) {
+                generations.incrementAndGet(i);
+            }
+            nodes.invalidateAll();
+        }
+    }
+
+    /**
+     * @return The number of cached nodes
+     */
+    public long getSize() {
+        return nodes != null ? nodes.size() : 0;
+    }
+
+    /**
+     * @return The maximum number of cached nodes, 0 if the cache is disabled
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The number of paths invalidated by local writes
+     */
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    /**
+     * @return The number of paths invalidated by writes of other cluster members
+     */
+    public long getClusterInvalidations() {
+        return clusterInvalidations.get();
+    }
+
+    private void invalidate(NodePath nodePath) {
+        generations.incrementAndGet(stripe(nodePath));
+        nodes.invalidate(nodePath);
+    }
+
+    private boolean hasUncommittedWrites() {
+        NodesCacheSessionResource resource = getSessionResource();
+        return resource != null && resource.hasPendingResources();
+    }
+
+    private boolean isWrittenBySession(NodePath nodePath) {
+        NodesCacheSessionResource resource = getSessionResource();
+        return resource != null && resource.paths.contains(nodePath);
+    }
+
+    @Nullable
+    private static NodesCacheSessionResource getSessionResource() {
+        StorageSession session = StorageSessionHolder.getSession();
+        return session != null ? session.getResource(NodesCacheSessionResource.class) : null;
+    }
+
+    private void notifyCluster(Set<RepoPath> repoPaths) {
+        HaCommonAddon haAddon = ContextHelper.get().beanForType(AddonsManager.class).addonByType(HaCommonAddon.class);
+        if (haAddon.isHaEnabled()) {
+            haAddon.notify(HaMessageTopic.NODES_CACHE_TOPIC, new NodesCacheHaMessage.Invalidate(repoPaths));
+        }
+    }
+
+    private static int stripe(NodePath nodePath) {
+        return nodePath.hashCode() & (GENERATION_STRIPES - 1);
+    }
+
+    /**
+     * Collects the paths written by a session to invalidate them after the transaction completed
+     */
+    public static class NodesCacheSessionResource implements SessionResource {
+        private final Set<NodePath> paths = Sets.newHashSet();
+        private NodesCache nodesCache;
+
+        public void setNodesCache(NodesCache nodesCache) {
+            this.nodesCache = nodesCache;
+        }
+
+        void addPath(NodePath nodePath) {
+            paths.add(nodePath);
+        }
+
+        @Override
+        public void afterCompletion(boolean commit) {
+            if (paths.isEmpty()) {
+                return;
+            }
+            Set<RepoPath> repoPaths = Sets.newHashSet();
+            for (NodePath path : paths) {
+                nodesCache.invalidate(path);
+                repoPaths.add(path.toRepoPath());
+            }
+            paths.clear();
+            if (commit) {
+                nodesCache.notifyCluster(repoPaths);
+            }
+        }
+
+        @Override
+        public boolean hasPendingResources() {
+            return !paths.isEmpty();
+        }
+
+        @Override
+        public void onSessionSave() {
+        }
+    }
+}
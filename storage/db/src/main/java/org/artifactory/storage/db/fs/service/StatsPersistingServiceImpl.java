@@ -19,6 +19,8 @@
 package org.artifactory.storage.db.fs.service;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.artifactory.addon.AddonsManager;
 import org.artifactory.addon.ha.HaCommonAddon;
 import org.artifactory.addon.ha.semaphore.SemaphoreWrapper;
@@ -29,6 +31,7 @@ import org.artifactory.model.xstream.fs.StatsImpl;
 import org.artifactory.repo.RemoteRepoPath;
 import org.artifactory.repo.RepoPath;
 import org.artifactory.storage.StorageException;
+import org.artifactory.storage.db.DbService;
 import org.artifactory.storage.db.fs.entity.Stat;
 import org.artifactory.storage.fs.VfsException;
 import org.slf4j.Logger;
@@ -36,6 +39,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -154,15 +158,11 @@ public class StatsPersistingServiceImpl extends AbstractStatsService implements
      * @param fromAnotherArtifactory specifying whether request comes fromAnotherArtifactory
      */
     @Override
-    public synchronized void fileDownloaded(RepoPath repoPath, String downloadedBy, long downloadedTime, boolean fromAnotherArtifactory) {
+    public void fileDownloaded(RepoPath repoPath, String downloadedBy, long downloadedTime, boolean fromAnotherArtifactory) {
         log.debug("Queuing downloaded resource '{}' by '{}' at '{}', fromAnotherArtifactory: '{}'",
                 repoPath, downloadedBy, downloadedTime, fromAnotherArtifactory);
 
-        StatsEvent statsEvent = getStatsEvents().get(repoPath);
-        if (statsEvent == null) {
-            getStatsEvents().put(repoPath, statsEvent = new StatsEvent(repoPath));
-        }
-        statsEvent.update(downloadedBy, downloadedTime);
+        queueEvent(repoPath, null, statsEvent -> statsEvent.update(downloadedBy, downloadedTime));
     }
 
     /**
@@ -176,17 +176,14 @@ public class StatsPersistingServiceImpl extends AbstractStatsService implements
      * @param count              Amount of performed downloads
      */
     @Override
-    public synchronized void fileDownloadedRemotely(String origin, String path, RepoPath repoPath,
+    public void fileDownloadedRemotely(String origin, String path, RepoPath repoPath,
             String downloadedBy, long downloadedTime, long count) {
 
         log.debug("Queuing resource '{}' downloaded remotely by '{}', at '{}', from {}, count: '{}'",
                 repoPath, downloadedBy, downloadedTime, origin, count);
 
-        StatsEvent statsEvent = getStatsEvents().get(repoPath);
-        if (statsEvent == null) {
-            getStatsEvents().put(repoPath, statsEvent = new StatsEvent(repoPath, origin));
-        }
-        statsEvent.update(downloadedBy, origin, path, downloadedTime, count);
+        queueEvent(repoPath, origin,
+                statsEvent -> statsEvent.update(downloadedBy, origin, path, downloadedTime, count));
     }
 
     @Override
@@ -275,6 +272,63 @@ public class StatsPersistingServiceImpl extends AbstractStatsService implements
         }
     }
 
+    @Override
+    protected boolean supportsBatchFlush() {
+        return true;
+    }
+
+    /**
+     * Persists local download events with one stats query and one insert and update batch. Remote (per origin)
+     * events are still persisted one by one.
+     */
+    @Override
+    protected void processStatsBatch(List<StatsEvent> events) throws SQLException {
+        Map<Long, StatsEvent> localEvents = Maps.newLinkedHashMap();
+        for (StatsEvent event : events) {
+            if (event.hasRemoteContent() || event.getRemoteEventCount().get() > 0) {
+                if (createOrUpdateStats(event) == StatsSaveResult.Failed) {
+                    throw new SQLException("Failed to update remote stats for " + event.getRepoPath());
+                }
+                continue;
+            }
+            long nodeId = getFileService().getFileNodeId(event.getRepoPath());
+            if (nodeId == DbService.NO_DB_ID) {
+                log.debug("Attempting to update stats of non-existing or folder node at: {}", event.getRepoPath());
+                continue;
+            }
+            localEvents.put(nodeId, event);
+        }
+        if (localEvents.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Stat> existingStats = getStatsDao().getLocalStats(localEvents.keySet());
+        List<Stat> toUpdate = Lists.newArrayList();
+        List<Stat> toCreate = Lists.newArrayList();
+        for (Map.Entry<Long, StatsEvent> entry : localEvents.entrySet()) {
+            long nodeId = entry.getKey();
+            StatsEvent event = entry.getValue();
+            Stat stats = existingStats.get(nodeId);
+            if (stats != null) {
+                long downloadedTime = event.getLocalDownloadedTime();
+                String downloadedBy = event.getLocalDownloadedBy();
+                toUpdate.add(new Stat(nodeId, stats.getLocalDownloadCount() + event.getLocalEventCount().get(),
+                        downloadedTime != 0 ? downloadedTime : stats.getLocalLastDownloaded(),
+                        !Strings.isNullOrEmpty(downloadedBy) ? downloadedBy : stats.getLocalLastDownloadedBy()));
+            } else {
+                toCreate.add(new Stat(nodeId, event.getLocalEventCount().get(), event.getLocalDownloadedTime(),
+                        event.getLocalDownloadedBy()));
+            }
+        }
+        log.debug("Flushing stats batch: {} updates, {} inserts", toUpdate.size(), toCreate.size());
+        if (!toUpdate.isEmpty()) {
+            getStatsDao().updateLocalStats(toUpdate);
+        }
+        if (!toCreate.isEmpty()) {
+            getStatsDao().createLocalStats(toCreate);
+        }
+    }
+
     @Override
     protected SemaphoreWrapper getFlushingSemaphore() {
         if (flushingSemaphore == null) {
@@ -18,11 +18,23 @@
 
 package org.artifactory.storage.db.fs.session;
 
+import org.artifactory.common.ConstantValues;
 import org.artifactory.repo.RepoPath;
+import org.artifactory.sapi.fs.MutableVfsItem;
+import org.artifactory.storage.db.DbService;
+import org.artifactory.storage.db.fs.dao.NodeMetaInfoDao;
+import org.artifactory.storage.db.fs.dao.NodesDao;
+import org.artifactory.storage.db.fs.dao.PropertiesDao;
+import org.artifactory.storage.db.fs.dao.StatsDao;
+import org.artifactory.storage.db.fs.model.DbMutableItem;
+import org.artifactory.storage.db.fs.service.ItemsWriteBatch;
+import org.artifactory.storage.db.fs.service.NodesCache;
 import org.artifactory.storage.fs.lock.FsItemLockEntry;
 import org.artifactory.storage.fs.lock.LockEntryId;
 import org.artifactory.storage.fs.lock.SessionLockEntry;
 import org.artifactory.storage.fs.session.StorageSession;
+import org.artifactory.storage.spring.ArtifactoryStorageContext;
+import org.artifactory.storage.spring.StorageContextHelper;
 import org.artifactory.storage.tx.SessionResource;
 import org.artifactory.storage.tx.SessionResourceManager;
 import org.artifactory.storage.tx.SessionResourceManagerImpl;
@@ -59,10 +71,25 @@ public class SqlStorageSession implements StorageSession {
 
         log.debug("Save called on session with {} locked items", locks.size());
 
+        int batchSize = ConstantValues.storageSessionBatchSize.getInt();
+        ItemsWriteBatch writeBatch = batchSize > 0 ? createWriteBatch(batchSize) : null;
         Iterator<Map.Entry<RepoPath, SessionLockEntry>> locksIter = locks.entrySet().iterator();
         while (locksIter.hasNext()) {
             SessionLockEntry lockEntry = locksIter.next().getValue();
             if (lockEntry.isWriteLockedByMe()) {
+                MutableVfsItem<?> mutableItem = lockEntry.getMutableFsItem();
+                if (writeBatch != null && isBatchSavable(mutableItem)) {
+                    log.debug("Saving item in batch: {}", mutableItem.getRepoPath());
+                    ((DbMutableItem<?>) mutableItem).save(writeBatch);
+                    if (writeBatch.size() >= batchSize) {
+                        writeBatch.flush();
+                    }
+                    continue;
+                }
+                if (writeBatch != null && mutableItem != null && mutableItem.hasPendingChanges()) {
+                    // write the batched items first to keep the order of the statements
+                    writeBatch.flush();
+                }
                 lockEntry.save();
                 if (lockEntry.isDeleted()) {
                     // deleted items are removed immediately from the session to support simpler override during move/copy
@@ -71,7 +98,21 @@ public class SqlStorageSession implements StorageSession {
                 }
             }
         }
+        if (writeBatch != null) {
+            writeBatch.flush();
+        }
+    }
 
+    private ItemsWriteBatch createWriteBatch(int batchSize) {
+        ArtifactoryStorageContext context = StorageContextHelper.get();
+        return new ItemsWriteBatch(context.beanForType(DbService.class), context.beanForType(NodesDao.class),
+                context.beanForType(PropertiesDao.class), context.beanForType(StatsDao.class),
+                context.beanForType(NodeMetaInfoDao.class), context.beanForType(NodesCache.class), batchSize);
+    }
+
+    private boolean isBatchSavable(@Nullable MutableVfsItem<?> mutableItem) {
+        return mutableItem instanceof DbMutableItem && mutableItem.hasPendingChanges()
+                && ((DbMutableItem<?>) mutableItem).isBatchSavable();
     }
 
     @Override
@@ -131,6 +172,11 @@ public class SqlStorageSession implements StorageSession {
         return getSessionResourceManager().getOrCreateResource(resourceClass);
     }
 
+    @Override
+    public <T extends SessionResource> T getResource(Class<T> resourceClass) {
+        return sessionResourceManager != null ? sessionResourceManager.getResource(resourceClass) : null;
+    }
+
     @Override
     public void afterCompletion(boolean success) {
         if (sessionResourceManager != null) {
@@ -96,6 +96,11 @@ public class AclServiceImpl implements AclStoreService {
         return getAclsMap().values();
     }
 
+    @Override
+    public int getAclsVersion() {
+        return aclsCache.getAclsMapVersion();
+    }
+
     @Override
     public void createAcl(AclInfo entity) {
         try {
@@ -347,6 +352,13 @@ public class AclServiceImpl implements AclStoreService {
             return aclsDbVersion.incrementAndGet();
         }
 
+        /**
+         * Returns the version of the permissions map, promoted after the map is reloaded.
+         */
+        public int getAclsMapVersion() {
+            return aclsMapVersion;
+        }
+
         /**
          * Returns permissions map.
          */
@@ -79,6 +79,22 @@ public class JdbcHelper {
 
     @Nonnull
     public ResultSet executeSelect(String query, boolean allowDirtyReads, Object... params) throws SQLException {
+        return doExecuteSelect(query, allowDirtyReads, 0, params);
+    }
+
+    /**
+     * Executes a select query returning at most the given number of rows. The limit is applied by the JDBC driver so
+     * it is supported by all the databases, the query should be ordered to select a meaningful subset of the rows.
+     *
+     * @param maxRows The maximum number of rows returned by the query, 0 for no limit
+     */
+    @Nonnull
+    public ResultSet executeLimitedSelect(String query, int maxRows, Object... params) throws SQLException {
+        return doExecuteSelect(query, false, maxRows, params);
+    }
+
+    private ResultSet doExecuteSelect(String query, boolean allowDirtyReads, int maxRows, Object... params)
+            throws SQLException {
         selectQueriesCounter.incrementAndGet();
         debugSql(query, params);
 
@@ -96,10 +112,12 @@ public class JdbcHelper {
             TxHelper.allowDirtyReads(allowDirtyReads, con);
             if (params == null || params.length == 0) {
                 stmt = con.createStatement();
+                stmt.setMaxRows(maxRows);
                 rs = stmt.executeQuery(query);
             } else {
                 PreparedStatement pstmt = con.prepareStatement(parseInListQuery(query, params));
                 stmt = pstmt;
+                stmt.setMaxRows(maxRows);
                 setParamsToStmt(pstmt, params);
                 rs = pstmt.executeQuery();
             }
@@ -170,6 +188,78 @@ public class JdbcHelper {
         }
     }
 
+    /**
+     * Executes the same update statement once per parameters set, sent to the database as a single JDBC batch.
+     * In-list parameters (#) are not supported.
+     *
+     * @param query      The update query to execute
+     * @param paramsList The parameters of each of the executions
+     * @return The update counts of the executions, as returned by the driver
+     */
+    public int[] executeBatch(String query, List<Object[]> paramsList) throws SQLException {
+        return executeBatch(query, paramsList, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Executes the same update statement once per parameters set, sent to the database as JDBC batches of at most
+     * {@code maxBatchSize} executions over the same connection and statement.
+     * In-list parameters (#) are not supported.
+     *
+     * @param query        The update query to execute
+     * @param paramsList   The parameters of each of the executions
+     * @param maxBatchSize The maximal number of executions sent in one JDBC batch
+     * @return The update counts of the executions, in the order of the parameters, as returned by the driver
+     */
+    public int[] executeBatch(String query, List<Object[]> paramsList, int maxBatchSize) throws SQLException {
+        if (paramsList.isEmpty()) {
+            return new int[0];
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+        }
+        updateQueriesCounter.addAndGet(paramsList.size());
+        if (log.isDebugEnabled()) {
+            log.debug("Executing SQL batch of {} statements: '{}'", paramsList.size(), query);
+        }
+
+        PerfTimer timer = null;
+        if (log.isDebugEnabled()) {
+            timer = new PerfTimer();
+        }
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        try {
+            con = getConnection();
+            pstmt = con.prepareStatement(query);
+            int[] results = new int[paramsList.size()];
+            int executed = 0;
+            int batched = 0;
+            for (Object[] params : paramsList) {
+                setParamsToStmt(pstmt, params);
+                pstmt.addBatch();
+                if (++batched == maxBatchSize) {
+                    executed = addBatchResults(pstmt.executeBatch(), results, executed, batched);
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                addBatchResults(pstmt.executeBatch(), results, executed, batched);
+            }
+            if (timer != null && log.isDebugEnabled()) {
+                timer.stop();
+                log.debug("Batch of {} statements returned in {} : '{}'", paramsList.size(), timer, query);
+            }
+            return results;
+        } finally {
+            DbUtils.close(con, pstmt, null, dataSource);
+        }
+    }
+
+    private int addBatchResults(int[] batchResults, int[] results, int offset, int batchSize) {
+        System.arraycopy(batchResults, 0, results, offset, Math.min(batchResults.length, batchSize));
+        return offset + batchSize;
+    }
+
     public int executeSelectCount(String query, Object... params) throws SQLException {
         try (ResultSet resultSet = executeSelect(query, params)) {
             int count = 0;
@@ -3,6 +3,7 @@ package org.artifactory.storage.db.aql.service;
 import org.apache.commons.lang.StringUtils;
 import org.artifactory.aql.model.AqlItemTypeEnum;
 import org.artifactory.aql.model.AqlPermissionProvider;
+import org.artifactory.aql.model.AqlRepoReadPermissions;
 import org.artifactory.aql.result.AqlEagerResult;
 import org.artifactory.aql.result.rows.AqlArchiveEntryItem;
 import org.artifactory.aql.result.rows.AqlBaseItem;
@@ -149,5 +150,10 @@ public class AqlAbstractServiceTest extends DbBaseTest {
         public boolean isOss() {
             return false;
         }
+
+        @Override
+        public AqlRepoReadPermissions getRepoReadPermissions() {
+            return null;
+        }
     }
 }
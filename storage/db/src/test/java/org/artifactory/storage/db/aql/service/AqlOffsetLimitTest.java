@@ -1,8 +1,13 @@
 package org.artifactory.storage.db.aql.service;
 
 import org.artifactory.aql.result.AqlEagerResult;
+import org.artifactory.aql.result.rows.AqlItem;
+import org.artifactory.aql.util.AqlCursor;
+import org.artifactory.storage.db.aql.sql.builder.query.sql.AqlToSqlQueryBuilderException;
 import org.testng.annotations.Test;
 
+import static org.testng.Assert.assertEquals;
+
 /**
  * @author Gidi Shabat
  */
@@ -73,4 +78,39 @@ public class AqlOffsetLimitTest extends AqlAbstractServiceTest {
                 "properties.find().offset(4)");
         assertSize(queryResult, 5);
     }
-}
\ No newline at end of file
+
+    /**
+     * cursor pagination test
+     */
+    @Test
+    public void cursorPagination() {
+        AqlEagerResult queryResult = aqlService.executeQueryEager(
+                "items.find({\"repo\" : \"repo2\"}).cursor(\"\").limit(4)");
+        assertSize(queryResult, 4);
+        assertLastNodeId(queryResult, 21);
+
+        queryResult = aqlService.executeQueryEager(
+                "items.find({\"repo\" : \"repo2\"}).cursor(\"" + AqlCursor.encode(21) + "\").limit(4)");
+        assertSize(queryResult, 4);
+        assertLastNodeId(queryResult, 25);
+
+        queryResult = aqlService.executeQueryEager(
+                "items.find({\"repo\" : \"repo2\"}).cursor(\"" + AqlCursor.encode(25) + "\").limit(4)");
+        assertSize(queryResult, 1);
+        assertLastNodeId(queryResult, 26);
+    }
+
+    /**
+     * cursor pagination is ordered by the item id, other sorts are not allowed
+     */
+    @Test(expectedExceptions = AqlToSqlQueryBuilderException.class)
+    public void cursorWithSort() {
+        aqlService.executeQueryEager(
+                "items.find().sort({\"$asc\":[\"name\"]}).cursor(\"\").limit(4)");
+    }
+
+    private void assertLastNodeId(AqlEagerResult queryResult, long nodeId) {
+        AqlItem item = (AqlItem) queryResult.getResult(queryResult.getSize() - 1);
+        assertEquals(item.getNodeId(), nodeId);
+    }
+}
@@ -1,7 +1,10 @@
 package org.artifactory.storage.db.aql.service;
 
+import com.google.common.collect.Sets;
+import org.apache.commons.lang.StringUtils;
 import org.artifactory.aql.AqlException;
 import org.artifactory.aql.model.AqlPermissionProvider;
+import org.artifactory.aql.model.AqlRepoReadPermissions;
 import org.artifactory.aql.result.AqlJsonStreamer;
 import org.artifactory.aql.result.AqlLazyResult;
 import org.artifactory.repo.RepoPath;
@@ -176,6 +179,71 @@ public class AqlPermissionsTest extends AqlAbstractServiceTest {
     }
 
 
+    /**
+     * Test user authorization filtered by the readable repositories in the database
+     */
+    @Test
+    public void testUserReadableRepos() throws IOException {
+        ReadableReposPermissions permissionProvider = new ReadableReposPermissions(
+                new AqlRepoReadPermissions(Sets.newHashSet("repo2"), Sets.<String>newHashSet()));
+        ReflectionTestUtils.setField(aqlService, "permissionProvider", permissionProvider);
+        String string = streamQuery("items.find({\"type\":\"any\"})");
+        Assert.assertTrue(string.contains("\"repo\" : \"repo2\""));
+        Assert.assertFalse(string.contains("\"repo\" : \"repo1\""));
+        Assert.assertEquals(permissionProvider.canReadCalls, 0, "Items should not be checked one by one");
+    }
+
+    /**
+     * Test the limit applies to the readable items only
+     */
+    @Test
+    public void testUserReadableReposLimit() throws IOException {
+        ReadableReposPermissions permissionProvider = new ReadableReposPermissions(
+                new AqlRepoReadPermissions(Sets.newHashSet("repo2"), Sets.<String>newHashSet()));
+        ReflectionTestUtils.setField(aqlService, "permissionProvider", permissionProvider);
+        String string = streamQuery("items.find({\"type\":\"any\"}).sort({\"$asc\":[\"repo\"]}).limit(3)");
+        Assert.assertEquals(StringUtils.countMatches(string, "\"repo\" : \"repo2\""), 3);
+        Assert.assertFalse(string.contains("\"repo\" : \"repo1\""));
+    }
+
+    /**
+     * Test items of repositories readable only in some paths are still checked one by one
+     */
+    @Test
+    public void testUserSomePathsReadableRepos() throws IOException {
+        ReadableReposPermissions permissionProvider = new ReadableReposPermissions(
+                new AqlRepoReadPermissions(Sets.<String>newHashSet(), Sets.newHashSet("repo2")));
+        ReflectionTestUtils.setField(aqlService, "permissionProvider", permissionProvider);
+        String string = streamQuery("items.find({\"type\":\"any\"})");
+        Assert.assertFalse(string.contains("\"repo\" : \"repo1\""));
+        Assert.assertTrue(permissionProvider.canReadCalls > 0, "Items should be checked one by one");
+    }
+
+    /**
+     * Test no items are returned when no repository is readable
+     */
+    @Test
+    public void testUserNoReadableRepos() throws IOException {
+        ReadableReposPermissions permissionProvider = new ReadableReposPermissions(
+                new AqlRepoReadPermissions(Sets.<String>newHashSet(), Sets.<String>newHashSet()));
+        ReflectionTestUtils.setField(aqlService, "permissionProvider", permissionProvider);
+        String string = streamQuery("items.find()");
+        Assert.assertFalse(string.contains("\"repo\" :"));
+    }
+
+    private String streamQuery(String query) throws IOException {
+        AqlLazyResult aqlLazyResult = aqlService.executeQueryLazy(query);
+        AqlJsonStreamer streamResult = new AqlJsonStreamer(aqlLazyResult);
+        StringBuilder builder = new StringBuilder();
+        byte[] read = streamResult.read();
+        while (read != null) {
+            builder.append(new String(read));
+            read = streamResult.read();
+        }
+        streamResult.close();
+        return builder.toString();
+    }
+
     private class AnonymousPermissions implements AqlPermissionProvider {
 
         @Override
@@ -192,6 +260,11 @@ public class AqlPermissionsTest extends AqlAbstractServiceTest {
         public boolean isOss() {
             return false;
         }
+
+        @Override
+        public AqlRepoReadPermissions getRepoReadPermissions() {
+            return null;
+        }
     }
 
     private class UserPermissions implements AqlPermissionProvider {
@@ -210,6 +283,40 @@ public class AqlPermissionsTest extends AqlAbstractServiceTest {
         public boolean isOss() {
             return false;
         }
+
+        @Override
+        public AqlRepoReadPermissions getRepoReadPermissions() {
+            return null;
+        }
     }
 
+    private class ReadableReposPermissions implements AqlPermissionProvider {
+        private final AqlRepoReadPermissions readPermissions;
+        private int canReadCalls;
+
+        private ReadableReposPermissions(AqlRepoReadPermissions readPermissions) {
+            this.readPermissions = readPermissions;
+        }
+
+        @Override
+        public boolean canRead(RepoPath repoPath) {
+            canReadCalls++;
+            return "repo2".equals(repoPath.getRepoKey());
+        }
+
+        @Override
+        public boolean isAdmin() {
+            return false;
+        }
+
+        @Override
+        public boolean isOss() {
+            return false;
+        }
+
+        @Override
+        public AqlRepoReadPermissions getRepoReadPermissions() {
+            return readPermissions;
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package org.artifactory.storage.db.aql.service;
+
+import com.google.common.collect.Lists;
+import org.artifactory.aql.model.AqlItemTypeEnum;
+import org.artifactory.aql.result.AqlEagerResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests the {@link AqlQueryPlanCache}.
+ */
+public class AqlQueryPlanCacheTest extends AqlAbstractServiceTest {
+
+    @Test
+    public void normalizeQuery() {
+        AqlQueryPlanCache.NormalizedQuery normalized = AqlQueryPlanCache.NormalizedQuery.normalize(
+                "items.find({\"repo\" : \"repo1\",\"type\":\"file\",\"name\":{\"$match\":\"*.jar\"}}).include(\"name\")");
+        assertEquals(normalized.getShape(null),
+                "items.find({\"repo\" : ?,\"type\":?,\"name\":{\"$match\":\"*.jar\"}}).include(?)");
+        assertEquals(normalized.getLiterals(), Lists.newArrayList("repo1", "file", "name"));
+        assertEquals(normalized.getShape(new boolean[]{true, false, false}),
+                "items.find({\"repo\" : ?,\"type\":\"file\",\"name\":{\"$match\":\"*.jar\"}}).include(\"name\")");
+    }
+
+    @Test
+    public void normalizeInvalidQuery() {
+        assertNull(AqlQueryPlanCache.NormalizedQuery.normalize("items.find({\"repo\":\"repo1})"));
+        assertNull(AqlQueryPlanCache.NormalizedQuery.normalize("items.find({\"repo\":?})"));
+    }
+
+    @Test
+    public void sameShapeWithOtherValues() {
+        AqlQueryPlanCache planCache = (AqlQueryPlanCache) ReflectionTestUtils.getField(aqlService, "planCache");
+        long hits = planCache.getHits();
+        AqlEagerResult queryResult = aqlService.executeQueryEager(
+                "items.find({\"repo\":\"repo1\",\"name\":\"ant-1.5.jar\"})");
+        assertSize(queryResult, 1);
+        assertItem(queryResult, "repo1", "ant/ant/1.5", "ant-1.5.jar", AqlItemTypeEnum.file);
+
+        queryResult = aqlService.executeQueryEager("items.find({\"repo\":\"repo2\",\"name\":\"ant-1.5.jar\"})");
+        assertSize(queryResult, 4);
+        assertItem(queryResult, "repo2", "aa/b", "ant-1.5.jar", AqlItemTypeEnum.file);
+        assertEquals(planCache.getHits(), hits + 1);
+    }
+
+    @Test
+    public void convertedValuesAreNotParameters() {
+        AqlEagerResult queryResult = aqlService.executeQueryEager(
+                "items.find({\"repo\":\"repo2\",\"type\":\"file\"})");
+        assertSize(queryResult, 4);
+        queryResult = aqlService.executeQueryEager("items.find({\"repo\":\"repo2\",\"type\":\"folder\"})");
+        assertSize(queryResult, 5);
+        queryResult = aqlService.executeQueryEager("items.find({\"repo\":\"repo1\",\"type\":\"file\"})");
+        assertSize(queryResult, 4);
+    }
+}
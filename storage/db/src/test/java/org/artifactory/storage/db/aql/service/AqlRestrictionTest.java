@@ -2,6 +2,7 @@ package org.artifactory.storage.db.aql.service;
 
 import org.artifactory.aql.AqlException;
 import org.artifactory.aql.model.AqlPermissionProvider;
+import org.artifactory.aql.model.AqlRepoReadPermissions;
 import org.artifactory.repo.RepoPath;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.testng.Assert;
@@ -69,6 +70,11 @@ public class AqlRestrictionTest extends AqlAbstractServiceTest {
         public boolean isOss() {
             return true;
         }
+
+        @Override
+        public AqlRepoReadPermissions getRepoReadPermissions() {
+            return null;
+        }
     }
 
     private class ProVersion implements AqlPermissionProvider {
@@ -87,6 +93,11 @@ public class AqlRestrictionTest extends AqlAbstractServiceTest {
         public boolean isOss() {
             return false;
         }
+
+        @Override
+        public AqlRepoReadPermissions getRepoReadPermissions() {
+            return null;
+        }
     }
 
 }
\ No newline at end of file
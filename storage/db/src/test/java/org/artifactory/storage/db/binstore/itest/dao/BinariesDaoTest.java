@@ -115,6 +115,15 @@ public class BinariesDaoTest extends DbBaseTest {
         assertTrue(nodes.contains("da39a3ee5e6b4b0d3255bfef95601890afd80709"));
     }
 
+    public void findPotentialDeletionByPrefix() throws SQLException {
+        Collection<BinaryData> potentialDeletion = binariesDao.findPotentialDeletion("35");
+        assertEquals(potentialDeletion.size(), 1);
+        assertEquals(potentialDeletion.iterator().next().getSha1(), "356a192b7913b04c54574d18c28d46e6395428ab");
+        // used binary
+        assertTrue(binariesDao.findPotentialDeletion("f0").isEmpty());
+        assertTrue(binariesDao.findPotentialDeletion("00").isEmpty());
+    }
+
     public void AssertPotentialDeletionOrder() throws SQLException {
         Collection<BinaryData> potentialDeletion = binariesDao.findPotentialDeletion();
         assertEquals(potentialDeletion.size(), 3);
@@ -159,6 +168,16 @@ public class BinariesDaoTest extends DbBaseTest {
         assertEquals(countAndTotalSize.getBinariesSize(), 3 + 2725 + 1 + 20);
     }
 
+    @Test(dependsOnMethods = "testDeleteEntries")
+    public void testDeleteEntriesBatch() throws SQLException {
+        int[] updateCounts = binariesDao.deleteEntries(ImmutableList.of(
+                "356a192b7913b04c54574d18c28d46e6395428ab",
+                "f0d381ab0e057d4f835d639f6330a7c3e81eb6af"
+        ));
+        assertEquals(updateCounts, new int[]{1, 0});
+        assertEquals(binariesDao.getCountAndTotalSize().getBinariesCount(), 3L);
+    }
+
     public void findChecksumsBySha1() throws SQLException {
         Collection<BinaryData> nodes = binariesDao.search(ChecksumType.sha1, ImmutableList.of(
                 "f0d381ab0e057d4f835d639f6330a7c3e81eb6af",
@@ -0,0 +1,277 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.db.binstore.itest.service;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.io.FileUtils;
+import org.artifactory.api.context.ArtifactoryContext;
+import org.artifactory.api.context.ArtifactoryContextThreadBinder;
+import org.artifactory.api.context.ContextHelper;
+import org.artifactory.binstore.BinaryInfo;
+import org.artifactory.common.ArtifactoryHome;
+import org.artifactory.common.ConstantValues;
+import org.artifactory.schedule.TaskService;
+import org.artifactory.storage.StorageProperties;
+import org.artifactory.storage.binstore.GarbageCollectorInfo;
+import org.artifactory.storage.binstore.service.BinaryData;
+import org.artifactory.storage.binstore.service.GarbageCollectorListener;
+import org.artifactory.storage.binstore.service.InternalBinaryStore;
+import org.artifactory.storage.db.binstore.service.BinaryStoreImpl;
+import org.artifactory.storage.db.fs.dao.NodesDao;
+import org.artifactory.storage.db.fs.entity.NodeBuilder;
+import org.artifactory.storage.db.itest.DbBaseTest;
+import org.artifactory.storage.spring.ArtifactoryStorageContext;
+import org.artifactory.test.ArtifactoryHomeBoundTest;
+import org.artifactory.test.ArtifactoryHomeStub;
+import org.artifactory.test.TestUtils;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the chunks, the batches and the resume of the binaries garbage collection.
+ */
+@Test
+public class BinaryStoreGarbageCollectionTest extends DbBaseTest {
+
+    @Autowired
+    private BinaryStoreImpl binaryStore;
+
+    @Autowired
+    private NodesDao nodesDao;
+
+    private final RecordingGcListener gcListener = new RecordingGcListener();
+    private int contentCounter;
+
+    @Override
+    protected ArtifactoryHomeBoundTest createArtifactoryHomeTest() throws IOException {
+        ArtifactoryHomeBoundTest artifactoryHomeTest = super.createArtifactoryHomeTest();
+        artifactoryHomeTest.bindArtifactoryHome();
+        ArtifactoryHome artifactoryHome = ArtifactoryHome.get();
+        File workDir = new File("target", "gctest").getAbsoluteFile();
+        TestUtils.setField(artifactoryHome, "homeDir", workDir);
+        TestUtils.setField(artifactoryHome, "dataDir", artifactoryHome.getOrCreateSubDir("data"));
+        FileUtils.deleteDirectory(new File(artifactoryHome.getDataDir(), "filestore_gc_test"));
+        return artifactoryHomeTest;
+    }
+
+    @BeforeClass
+    public void initBinaryStore() {
+        try {
+            bindDummyContext();
+            updateStorageProperty(StorageProperties.Key.binaryProviderType,
+                    StorageProperties.BinaryProviderType.filesystem.name());
+            updateStorageProperty(StorageProperties.Key.binaryProviderFilesystemDir, "filestore_gc_test");
+            binaryStore.initialize();
+            binaryStore.addGCListener(gcListener);
+        } finally {
+            unbindDummyContext();
+        }
+    }
+
+    @BeforeMethod
+    public void cleanBinaries() {
+        ArtifactoryHomeStub artifactoryHome = (ArtifactoryHomeStub) ArtifactoryHome.get();
+        artifactoryHome.setProperty(ConstantValues.gcScanPrefixLength, "1");
+        artifactoryHome.setProperty(ConstantValues.gcBatchSize, "2");
+        binaryStore.garbageCollect();
+        gcListener.reset();
+    }
+
+    public void chunkBoundaries() throws Exception {
+        String referenced = addBinary('a');
+        createNode(9001, referenced);
+        try {
+            List<String> orphans = Lists.newArrayList(addBinary('0'), addBinary('a'), addBinary('a'), addBinary('a'),
+                    addBinary('f'));
+
+            GarbageCollectorInfo result = binaryStore.garbageCollect();
+
+            assertEquals(result.candidatesForDeletion, 5);
+            assertEquals(result.checksumsCleaned, 5);
+            assertEquals(result.binariesCleaned, 5);
+            // one call per non empty chunk, the 3 candidates of the 'a' chunk are deleted in 2 batches
+            assertEquals(gcListener.chunkPrefixes(), Lists.newArrayList("0", "a", "f"));
+            assertEquals(gcListener.chunks.get(1).size(), 3);
+            assertEquals(gcListener.progressCount, 3);
+            for (String orphan : orphans) {
+                assertDeleted(orphan);
+            }
+            assertNotNull(binaryStore.findBinary(referenced));
+            assertTrue(binaryStore.getFileBinaryProvider().getFile(referenced).exists());
+        } finally {
+            nodesDao.delete(9001);
+        }
+    }
+
+    public void batchFailureFallsBackToSingleDeletes() throws Exception {
+        ((ArtifactoryHomeStub) ArtifactoryHome.get()).setProperty(ConstantValues.gcBatchSize, "10");
+        List<String> orphans = Lists.newArrayList(addBinary('b'), addBinary('b'), addBinary('b'));
+        String deployedMeanwhile = orphans.get(1);
+        // reference one of the candidates after the scan, its delete fails the batch
+        gcListener.onToDelete = binsToDelete -> createNode(9002, deployedMeanwhile);
+        try {
+            GarbageCollectorInfo result = binaryStore.garbageCollect();
+
+            assertEquals(result.candidatesForDeletion, 3);
+            assertEquals(result.checksumsCleaned, 2);
+            assertEquals(result.binariesCleaned, 2);
+            assertDeleted(orphans.get(0));
+            assertDeleted(orphans.get(2));
+            assertNotNull(binaryStore.findBinary(deployedMeanwhile));
+            assertTrue(binaryStore.getFileBinaryProvider().getFile(deployedMeanwhile).exists());
+        } finally {
+            nodesDao.delete(9002);
+        }
+    }
+
+    public void resumeFromStoppedChunk() throws Exception {
+        String firstChunkOrphan = addBinary('0');
+        String laterChunkOrphan = addBinary('5');
+        ArtifactoryContext dummyContext = ContextHelper.get();
+        InternalBinaryStore transactionalStore = dummyContext.beanForType(InternalBinaryStore.class);
+        TaskService taskService = Mockito.mock(TaskService.class);
+        // stop before the second chunk
+        Mockito.when(taskService.pauseOrBreak()).thenReturn(false, true);
+        ArtifactoryStorageContext stoppingContext = Mockito.mock(ArtifactoryStorageContext.class);
+        Mockito.when(stoppingContext.getTaskService()).thenReturn(taskService);
+        Mockito.when(stoppingContext.beanForType(InternalBinaryStore.class)).thenReturn(transactionalStore);
+        ArtifactoryContextThreadBinder.bind(stoppingContext);
+        GarbageCollectorInfo stopped;
+        try {
+            stopped = binaryStore.garbageCollect();
+        } finally {
+            ArtifactoryContextThreadBinder.bind(dummyContext);
+        }
+        assertEquals(stopped.checksumsCleaned, 1);
+        assertDeleted(firstChunkOrphan);
+        assertNotNull(binaryStore.findBinary(laterChunkOrphan));
+
+        String newFirstChunkOrphan = addBinary('0');
+        gcListener.reset();
+        GarbageCollectorInfo resumed = binaryStore.garbageCollect();
+
+        assertEquals(resumed.checksumsCleaned, 2);
+        // starts from the stopped chunk and wraps around to the first chunks
+        assertEquals(gcListener.chunkPrefixes(), Lists.newArrayList("5", "0"));
+        assertDeleted(laterChunkOrphan);
+        assertDeleted(newFirstChunkOrphan);
+    }
+
+    private void assertDeleted(String sha1) {
+        assertNull(binaryStore.findBinary(sha1), "Binary row " + sha1 + " should be deleted");
+        assertFalse(binaryStore.getFileBinaryProvider().getFile(sha1).exists(), "File " + sha1 + " should be deleted");
+    }
+
+    /**
+     * Adds an unreferenced binary whose sha1 starts with the given hex digit
+     */
+    private String addBinary(char sha1Prefix) throws Exception {
+        byte[] content;
+        do {
+            content = ("gc-test-" + contentCounter++).getBytes(StandardCharsets.UTF_8);
+        } while (sha1(content).charAt(0) != sha1Prefix);
+        byte[] binaryContent = content;
+        BinaryInfo binaryInfo = dbService.invokeInTransaction("addGcTestBinary",
+                () -> binaryStore.addBinary(new ByteArrayInputStream(binaryContent)));
+        assertEquals(binaryInfo.getSha1().charAt(0), sha1Prefix);
+        return binaryInfo.getSha1();
+    }
+
+    private void createNode(long nodeId, String sha1) {
+        BinaryInfo binaryInfo = binaryStore.findBinary(sha1);
+        try {
+            nodesDao.create(new NodeBuilder().nodeId(nodeId).repo("repo1").name("node-" + nodeId).file(true)
+                    .sha1Actual(sha1).md5Actual(binaryInfo.getMd5()).length(binaryInfo.getLength()).build());
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void updateStorageProperty(StorageProperties.Key key, String value) {
+        Object propsField = ReflectionTestUtils.getField(storageProperties, "props");
+        ReflectionTestUtils.invokeMethod(propsField, "setProperty", key.key(), value);
+    }
+
+    private static String sha1(byte[] content) throws NoSuchAlgorithmException {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-1").digest(content)) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    private static class RecordingGcListener implements GarbageCollectorListener {
+        private final List<List<String>> chunks = Lists.newCopyOnWriteArrayList();
+        private volatile int progressCount;
+        private volatile Consumer<Collection<BinaryData>> onToDelete;
+
+        private void reset() {
+            chunks.clear();
+            progressCount = 0;
+            onToDelete = null;
+        }
+
+        private List<String> chunkPrefixes() {
+            return chunks.stream().map(chunk -> chunk.get(0).substring(0, 1)).collect(Collectors.toList());
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void toDelete(Collection<BinaryData> binsToDelete) {
+            chunks.add(binsToDelete.stream().map(BinaryData::getSha1).collect(Collectors.toList()));
+            if (onToDelete != null) {
+                onToDelete.accept(binsToDelete);
+            }
+        }
+
+        @Override
+        public void progress(GarbageCollectorInfo result) {
+            progressCount++;
+        }
+
+        @Override
+        public void finished(GarbageCollectorInfo result) {
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
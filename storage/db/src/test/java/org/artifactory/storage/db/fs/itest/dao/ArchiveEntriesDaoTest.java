@@ -26,6 +26,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.testng.annotations.BeforeClass;
 
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Set;
 
 import static org.fest.assertions.Assertions.assertThat;
@@ -146,4 +147,17 @@ public class ArchiveEntriesDaoTest extends DbBaseTest {
         assertFalse(archiveEntriesDao.hasIndexedArchivesEntries(6000, 8002, 7894));
     }
 
+    public void createIndexedArchivesEntriesBatch() throws SQLException {
+        String sha1 = "eeee88fc2a043c2479a6de676a2f7179e9eaddac";
+        assertTrue(archiveEntriesDao.createIndexedArchive(sha1, 23000));
+        assertTrue(archiveEntriesDao.createArchivePath(23001, "batch/path"));
+        assertTrue(archiveEntriesDao.createArchiveName(23002, "first.txt"));
+        assertTrue(archiveEntriesDao.createArchiveName(23003, "second.txt"));
+        archiveEntriesDao.createIndexedArchivesEntries(23000,
+                Arrays.asList(new long[]{23001, 23002}, new long[]{23001, 23003}));
+        assertTrue(archiveEntriesDao.hasIndexedArchivesEntries(23000, 23001, 23002));
+        assertTrue(archiveEntriesDao.hasIndexedArchivesEntries(23000, 23001, 23003));
+        assertEquals(archiveEntriesDao.loadByChecksum(sha1).size(), 2);
+    }
+
 }
@@ -18,6 +18,7 @@
 
 package org.artifactory.storage.db.fs.itest.dao;
 
+import com.google.common.collect.Lists;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.artifactory.checksum.ChecksumType;
 import org.artifactory.storage.db.DbService;
@@ -145,6 +146,23 @@ public class NodesDaoTest extends DbBaseTest {
         assertFalse(nodesDao.hasChildren(fileNodePath));
     }
 
+    public void getChildrenPageOfFolders() throws SQLException {
+        NodePath path = new NodePath("repo1", "", "", false);
+        assertEquals(names(nodesDao.getChildren(path, true, null, 2)), Lists.newArrayList("a_1.2", "ab1.2"));
+        assertEquals(names(nodesDao.getChildren(path, true, "ab1.2", 10)),
+                Lists.newArrayList("ant", "ant-launcher", "org"));
+        assertTrue(nodesDao.getChildren(path, true, "org", 10).isEmpty());
+        assertTrue(nodesDao.getChildren(path, false, null, 10).isEmpty());
+    }
+
+    public void getChildrenPageOfFiles() throws SQLException {
+        NodePath path = new NodePath("repo1", "org/yossis", "tools", false);
+        assertEquals(names(nodesDao.getChildren(path, false, null, 10)),
+                Lists.newArrayList("file2.bin", "file3.bin", "test.bin"));
+        assertEquals(names(nodesDao.getChildren(path, false, "file2.bin", 1)), Lists.newArrayList("file3.bin"));
+        assertTrue(nodesDao.getChildren(path, true, null, 10).isEmpty());
+    }
+
     public void getChildrenOfFolderWithUnderscore() throws SQLException {
         NodePath path1 = new NodePath("repo1", "", "a_1.2", false);
         NodePath path2 = new NodePath("repo1", "", "ab1.2", false);
@@ -414,4 +432,12 @@ public class NodesDaoTest extends DbBaseTest {
         return null;
     }
 
+
+    private static List<String> names(List<Node> nodes) {
+        List<String> names = Lists.newArrayList();
+        for (Node node : nodes) {
+            names.add(node.getName());
+        }
+        return names;
+    }
 }
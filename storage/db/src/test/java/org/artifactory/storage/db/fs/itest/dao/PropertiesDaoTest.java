@@ -18,9 +18,11 @@
 
 package org.artifactory.storage.db.fs.itest.dao;
 
+import com.google.common.collect.Lists;
 import org.apache.commons.lang.RandomStringUtils;
 import org.artifactory.storage.db.DbType;
 import org.artifactory.storage.db.fs.dao.PropertiesDao;
+import org.artifactory.storage.db.fs.entity.NodePath;
 import org.artifactory.storage.db.fs.entity.NodeProperty;
 import org.artifactory.storage.db.itest.DbBaseTest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +30,7 @@ import org.testng.annotations.BeforeClass;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.testng.Assert.*;
@@ -76,6 +79,21 @@ public class PropertiesDaoTest extends DbBaseTest {
         assertEquals(buildName.getPropValue(), "ant");
     }
 
+    public void getChildrenProperties() throws SQLException {
+        NodePath parent = new NodePath("repo1", "ant/ant", "1.5", false);
+        Map<String, List<NodeProperty>> result =
+                propsDao.getChildrenNodeProperties(parent, Lists.newArrayList("ant-1.5.jar", "nosuchfile.jar"));
+        assertEquals(result.size(), 1, "Only the children with properties are expected");
+        List<NodeProperty> properties = result.get("ant-1.5.jar");
+        assertEquals(properties.size(), 2);
+        assertEquals(getById(1, properties).getPropValue(), "ant");
+    }
+
+    public void getChildrenPropertiesOfOtherFolder() throws SQLException {
+        NodePath parent = new NodePath("repo1", "org", "yossis", false);
+        assertTrue(propsDao.getChildrenNodeProperties(parent, Lists.newArrayList("ant-1.5.jar")).isEmpty());
+    }
+
     public void getPropertiesNodeWithEmptyProperties() throws SQLException {
         List<NodeProperty> result = propsDao.getNodeProperties(14);
         assertNotNull(result);
@@ -0,0 +1,159 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.db.fs.itest.service;
+
+import com.google.common.collect.Sets;
+import org.artifactory.checksum.ChecksumInfo;
+import org.artifactory.checksum.ChecksumType;
+import org.artifactory.fs.FileInfo;
+import org.artifactory.md.Properties;
+import org.artifactory.model.common.RepoPathImpl;
+import org.artifactory.model.xstream.fs.FileInfoImpl;
+import org.artifactory.model.xstream.fs.FolderInfoImpl;
+import org.artifactory.model.xstream.fs.PropertiesImpl;
+import org.artifactory.model.xstream.fs.StatsImpl;
+import org.artifactory.storage.db.DbService;
+import org.artifactory.storage.db.fs.dao.NodeMetaInfoDao;
+import org.artifactory.storage.db.fs.dao.NodesDao;
+import org.artifactory.storage.db.fs.dao.PropertiesDao;
+import org.artifactory.storage.db.fs.dao.StatsDao;
+import org.artifactory.storage.db.fs.entity.Stat;
+import org.artifactory.storage.db.fs.service.ItemsWriteBatch;
+import org.artifactory.storage.db.itest.DbBaseTest;
+import org.artifactory.storage.fs.VfsException;
+import org.artifactory.storage.fs.service.FileService;
+import org.artifactory.storage.fs.service.ItemMetaInfo;
+import org.artifactory.storage.fs.service.PropertiesService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link ItemsWriteBatch}.
+ */
+@Test
+public class ItemsWriteBatchTest extends DbBaseTest {
+    private static final String SHA1 = "dcab88fc2a043c2479a6de676a2f8179e9ea2167";
+    private static final String MD5 = "902a360ecad98a34b59863c1e65bcf71";
+
+    @Autowired
+    private DbService dbService;
+
+    @Autowired
+    private NodesDao nodesDao;
+
+    @Autowired
+    private PropertiesDao propertiesDao;
+
+    @Autowired
+    private StatsDao statsDao;
+
+    @Autowired
+    private NodeMetaInfoDao nodeMetaInfoDao;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private PropertiesService propertiesService;
+
+    @BeforeClass
+    public void setup() {
+        importSql("/sql/nodes-for-service.sql");
+    }
+
+    public void createItems() throws Exception {
+        ItemsWriteBatch batch = createBatch(1000);
+        long folderId = batch.createFolder(new FolderInfoImpl(new RepoPathImpl("repo1", "batch")));
+        StatsImpl stats = new StatsImpl();
+        stats.setDownloadCount(7);
+        long fileId = batch.createFile(createFileInfo("batch/file.jar"), stats);
+        Properties properties = new PropertiesImpl();
+        properties.put("key1", "1");
+        properties.put("key1", "2");
+        properties.put("key2", "2");
+        batch.createProperties(fileId, properties, new ItemMetaInfo(1000L, "me"));
+        assertEquals(batch.size(), 2);
+        assertFalse(fileService.exists(new RepoPathImpl("repo1", "batch")), "Items should be written on flush");
+
+        batch.flush();
+
+        assertEquals(batch.size(), 0);
+        assertEquals(fileService.getNodeId(new RepoPathImpl("repo1", "batch")), folderId);
+        FileInfo file = (FileInfo) fileService.loadItem(fileId);
+        assertEquals(file.getRepoPath(), new RepoPathImpl("repo1", "batch/file.jar"));
+        assertEquals(file.getSha1(), SHA1);
+        assertEquals(file.getMd5(), MD5);
+        assertEquals(propertiesService.loadProperties(fileId), properties);
+        assertEquals(nodeMetaInfoDao.getNodeMetadata(fileId).getPropsModifiedBy(), "me");
+        Stat stat = statsDao.getStats(fileId, false);
+        assertNotNull(stat);
+        assertEquals(stat.getLocalDownloadCount(), 7);
+    }
+
+    public void updateItems() {
+        ItemsWriteBatch batch = createBatch(1000);
+        FileInfoImpl file = new FileInfoImpl((FileInfoImpl) fileService.loadItem(505));
+        file.setModifiedBy("batch-updater");
+        batch.updateFile(505, file);
+        assertNotEquals(fileService.loadItem(505).getModifiedBy(), "batch-updater");
+        batch.flush();
+
+        FileInfo updated = (FileInfo) fileService.loadItem(505);
+        assertEquals(updated.getModifiedBy(), "batch-updater");
+        assertEquals(updated.getSha1(), file.getSha1());
+    }
+
+    public void flushInChunks() {
+        ItemsWriteBatch batch = createBatch(2);
+        for (int i = 0; i < 5; i++) {
+            batch.createFolder(new FolderInfoImpl(new RepoPathImpl("repo2", "chunks/" + i)));
+        }
+        batch.flush();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(fileService.exists(new RepoPathImpl("repo2", "chunks/" + i)), "Missing folder " + i);
+        }
+    }
+
+    public void duplicateNode() {
+        ItemsWriteBatch batch = createBatch(1000);
+        batch.createFolder(new FolderInfoImpl(new RepoPathImpl("repo1", "ant")));
+        try {
+            batch.flush();
+            fail("Creating an existing node should fail");
+        } catch (VfsException e) {
+            assertEquals(batch.size(), 0, "Batch should be cleared on failure");
+        }
+    }
+
+    private ItemsWriteBatch createBatch(int maxBatchSize) {
+        return new ItemsWriteBatch(dbService, nodesDao, propertiesDao, statsDao, nodeMetaInfoDao, nodesCache,
+                maxBatchSize);
+    }
+
+    private FileInfoImpl createFileInfo(String path) {
+        FileInfoImpl file = new FileInfoImpl(new RepoPathImpl("repo1", path));
+        file.setChecksums(Sets.newHashSet(new ChecksumInfo(ChecksumType.sha1, SHA1, SHA1),
+                new ChecksumInfo(ChecksumType.md5, MD5, MD5)));
+        file.setSize(3);
+        return file;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.db.fs.itest.service;
+
+import com.google.common.collect.Lists;
+import org.artifactory.fs.FileInfo;
+import org.artifactory.model.common.RepoPathImpl;
+import org.artifactory.model.xstream.fs.FileInfoImpl;
+import org.artifactory.model.xstream.fs.FolderInfoImpl;
+import org.artifactory.repo.RepoPath;
+import org.artifactory.storage.db.fs.entity.Node;
+import org.artifactory.storage.db.fs.entity.NodePath;
+import org.artifactory.storage.db.fs.service.NodesCache;
+import org.artifactory.storage.db.fs.session.SqlStorageSession;
+import org.artifactory.storage.db.itest.DbBaseTest;
+import org.artifactory.storage.fs.service.FileService;
+import org.artifactory.storage.fs.session.StorageSessionHolder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the nodes cache used by the file service.
+ */
+@Test
+public class NodesCacheTest extends DbBaseTest {
+
+    @Autowired
+    private FileService fileService;
+
+    @BeforeClass
+    public void setup() {
+        importSql("/sql/nodes-for-service.sql");
+    }
+
+    @AfterMethod
+    public void removeSession() {
+        StorageSessionHolder.removeSession();
+    }
+
+    public void loadedNodeIsCached() {
+        RepoPath repoPath = new RepoPathImpl("repo1", "ant/ant/1.5/ant-1.5.jar");
+        long hits = nodesCache.getHits();
+        long misses = nodesCache.getMisses();
+
+        FileInfo file = (FileInfo) fileService.loadItem(repoPath);
+        assertEquals(nodesCache.getMisses(), misses + 1);
+        assertEquals(fileService.loadItem(repoPath), file);
+        assertEquals(fileService.getNodeId(repoPath), 5);
+        assertEquals(fileService.getNodeSha1(repoPath), file.getSha1());
+        assertTrue(fileService.exists(repoPath));
+        assertEquals(nodesCache.getHits(), hits + 4);
+        assertEquals(nodesCache.getMisses(), misses + 1);
+    }
+
+    public void updateInvalidatesNode() {
+        RepoPath repoPath = new RepoPathImpl("repo2", "org/jfrog/test/test2.jar");
+        FileInfoImpl file = new FileInfoImpl((FileInfoImpl) fileService.loadItem(repoPath));
+        long invalidations = nodesCache.getInvalidations();
+
+        file.setModifiedBy("cache-updater");
+        fileService.updateFile(505, file);
+
+        assertEquals(nodesCache.getInvalidations(), invalidations + 1);
+        assertEquals(fileService.loadItem(repoPath).getModifiedBy(), "cache-updater");
+    }
+
+    public void deleteInvalidatesNode() {
+        RepoPath repoPath = new RepoPathImpl("repo1", "cached");
+        long id = fileService.createFolder(new FolderInfoImpl(repoPath));
+        assertEquals(fileService.loadItem(repoPath).getRepoPath(), repoPath);
+
+        assertTrue(fileService.deleteItem(id));
+        assertFalse(fileService.exists(repoPath), "Deleted node should not be cached");
+    }
+
+    public void clusterInvalidation() {
+        RepoPath repoPath = new RepoPathImpl("repo1", "ant");
+        fileService.loadItem(repoPath);
+        assertNotNull(nodesCache.get(NodePath.fromRepoPath(repoPath)));
+        long clusterInvalidations = nodesCache.getClusterInvalidations();
+
+        nodesCache.internalInvalidate(Lists.<RepoPath>newArrayList(repoPath));
+
+        assertNull(nodesCache.get(NodePath.fromRepoPath(repoPath)));
+        assertEquals(nodesCache.getClusterInvalidations(), clusterInvalidations + 1);
+    }
+
+    public void nodeWrittenWhileLoadedIsNotCached() {
+        NodePath nodePath = NodePath.fromRepoPath(new RepoPathImpl("repo1", "org/yossis"));
+        Node node = new Node(7, false, "repo1", "org", "yossis", (short) 2, 0, "me", 0, "me", 0, 0, null, null, null,
+                null);
+        long generation = nodesCache.getGeneration(nodePath);
+        nodesCache.invalidateOnWrite(nodePath);
+
+        nodesCache.put(nodePath, node, generation);
+        assertNull(nodesCache.get(nodePath), "Stale node should not be cached");
+
+        nodesCache.put(nodePath, node, nodesCache.getGeneration(nodePath));
+        assertEquals(nodesCache.get(nodePath), node);
+    }
+
+    public void nodeWrittenBySessionIsNotServedFromCache() throws Exception {
+        RepoPath repoPath = new RepoPathImpl("repo2", "org/jfrog/test/test.jar");
+        NodePath nodePath = NodePath.fromRepoPath(repoPath);
+        SqlStorageSession session = new SqlStorageSession();
+        StorageSessionHolder.setSession(session);
+        nodesCache.invalidateOnWrite(nodePath);
+
+        // another thread caches the committed node at the new generation before the session is completed
+        Thread reader = new Thread(() -> fileService.loadItem(repoPath));
+        reader.start();
+        reader.join();
+        StorageSessionHolder.removeSession();
+        assertNotNull(nodesCache.get(nodePath));
+
+        StorageSessionHolder.setSession(session);
+        assertNull(nodesCache.get(nodePath), "The node written by the session should be read from the database");
+
+        session.afterCompletion(false);
+        StorageSessionHolder.removeSession();
+        assertNull(nodesCache.get(nodePath), "The written node should be invalidated after completion");
+    }
+
+    public void readOnlySessionHasNoResource() {
+        SqlStorageSession session = new SqlStorageSession();
+        StorageSessionHolder.setSession(session);
+
+        fileService.loadItem(new RepoPathImpl("repo1", "ant/ant/1.5"));
+
+        assertNull(session.getResource(NodesCache.NodesCacheSessionResource.class));
+    }
+}
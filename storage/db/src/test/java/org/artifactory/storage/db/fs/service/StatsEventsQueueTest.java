@@ -0,0 +1,101 @@
+/*
+ * Artifactory is a binaries repository manager.
+ * Copyright (C) 2012 JFrog Ltd.
+ *
+ * Artifactory is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Artifactory is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Artifactory.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.artifactory.storage.db.fs.service;
+
+import org.artifactory.addon.ha.semaphore.SemaphoreWrapper;
+import org.artifactory.common.ConstantValues;
+import org.artifactory.repo.InternalRepoPathFactory;
+import org.artifactory.repo.RepoPath;
+import org.artifactory.storage.db.fs.entity.Stat;
+import org.artifactory.test.ArtifactoryHomeBoundTest;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the download events queueing of the {@link AbstractStatsService}.
+ */
+@Test
+public class StatsEventsQueueTest extends ArtifactoryHomeBoundTest {
+
+    public void concurrentDownloadsAreCoalesced() throws Exception {
+        TestStatsService service = new TestStatsService();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    RepoPath repoPath = InternalRepoPathFactory.create("repo", "path/" + (j % 10));
+                    service.queueEvent(repoPath, null, event -> event.update("user", System.currentTimeMillis()));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(service.getQueuedEventsCount(), 10);
+        long total = service.getStatsEvents().values().stream()
+                .mapToLong(event -> event.getLocalEventCount().get()).sum();
+        assertEquals(total, 8000);
+        assertEquals(service.getDroppedEventsCount(), 0);
+    }
+
+    public void eventsAreDroppedWhenQueueIsFull() {
+        getBound().setProperty(ConstantValues.statsMaxQueuedEvents, "2");
+        TestStatsService service = new TestStatsService();
+        assertTrue(queue(service, "a"));
+        assertTrue(queue(service, "b"));
+        assertFalse(queue(service, "c"));
+        // existing events are still updated
+        assertTrue(queue(service, "a"));
+        assertEquals(service.getQueuedEventsCount(), 2);
+        assertEquals(service.getDroppedEventsCount(), 1);
+        assertEquals(service.getStatsEvents().get(InternalRepoPathFactory.create("repo", "a"))
+                .getLocalEventCount().get(), 2);
+    }
+
+    private boolean queue(TestStatsService service, String path) {
+        return service.queueEvent(InternalRepoPathFactory.create("repo", path), null,
+                event -> event.update("user", 1L));
+    }
+
+    private static class TestStatsService extends AbstractStatsService {
+
+        @Override
+        protected SemaphoreWrapper getFlushingSemaphore() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void processStats(StatsEvent event, long nodeId, Stat stats) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void onTraversingStart() {
+        }
+
+        @Override
+        protected void onTraversingEnd() {
+        }
+    }
+}
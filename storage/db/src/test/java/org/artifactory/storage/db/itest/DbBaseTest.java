@@ -23,6 +23,7 @@ import org.apache.commons.lang.RandomStringUtils;
 import org.artifactory.api.context.ArtifactoryContextThreadBinder;
 import org.artifactory.storage.StorageProperties;
 import org.artifactory.storage.db.DbServiceImpl;
+import org.artifactory.storage.db.fs.service.NodesCache;
 import org.artifactory.storage.db.spring.ArtifactoryTomcatDataSource;
 import org.artifactory.storage.db.util.DbUtils;
 import org.artifactory.storage.db.util.JdbcHelper;
@@ -65,6 +66,9 @@ public abstract class DbBaseTest extends AbstractTestNGSpringContextTests {
     @Autowired
     protected DbServiceImpl dbService;
 
+    @Autowired
+    protected NodesCache nodesCache;
+
     @Autowired
     @Qualifier("storageProperties")
     protected StorageProperties storageProperties;
@@ -96,6 +100,7 @@ public abstract class DbBaseTest extends AbstractTestNGSpringContextTests {
             DbTestUtils.refreshOrRecreateSchema(connection, storageProperties.getDbType());
         }
         TestUtils.invokeMethodNoArgs(dbService, "initializeIdGenerator");
+        nodesCache.invalidateAll();
     }
 
     @AfterClass
@@ -149,6 +154,7 @@ public abstract class DbBaseTest extends AbstractTestNGSpringContextTests {
             DbUtils.executeSqlStream(con, resource);
             // update the id generator
             TestUtils.invokeMethodNoArgs(dbService, "initializeIdGenerator");
+            nodesCache.invalidateAll();
         } catch (Exception e) {
             throw new RuntimeException(e);
         } finally {
@@ -127,7 +127,7 @@ public class RepoFilter extends DelayedFilterBase {
         if (repoRequest) {
             ArtifactoryRequest artifactoryRequest = new HttpArtifactoryRequest(request);
             //Handle upload and download requests
-            ArtifactoryResponse artifactoryResponse = new HttpArtifactoryResponse(response);
+            ArtifactoryResponse artifactoryResponse = new HttpArtifactoryResponse(response, request);
 
             if (artifactoryRequest.isDirectoryRequest() && isGetOrHeadRequest(method)) {
                 //Check that this is not a recursive call
@@ -108,7 +108,8 @@ public class RequestFilter extends DelayedFilterBase {
     /**
      * A custom response wrapper the helps capture the return code and the content length
      */
-    private static class CapturingHttpServletResponseWrapper extends HttpServletResponseWrapper {
+    private static class CapturingHttpServletResponseWrapper extends HttpServletResponseWrapper
+            implements HttpArtifactoryResponse.BodyPassThroughWrapper {
         private int status;
         private long contentLength;
 
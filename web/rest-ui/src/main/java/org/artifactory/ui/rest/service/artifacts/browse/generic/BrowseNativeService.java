@@ -1,9 +1,11 @@
 package org.artifactory.ui.rest.service.artifacts.browse.generic;
 
 import com.google.common.collect.Lists;
+import com.google.common.net.UrlEscapers;
 import com.sun.jersey.api.NotFoundException;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.apache.http.HttpStatus;
 import org.artifactory.addon.AddonsManager;
 import org.artifactory.addon.CoreAddons;
@@ -54,9 +56,12 @@ public class BrowseNativeService implements RestService<String> {
     private List<? extends BaseBrowsableItem> items;
     private int columnSize;
     private boolean printParent;
+    private String nextPageQuery;
     public static final String REALM = "Artifactory Realm";
     public static final String ATTR_ARTIFACTORY_REPOSITORY_PATH = "artifactory.repository_path";
     public static final String ATTR_ARTIFACTORY_REQUEST_PROPERTIES = "artifactory.request_properties";
+    public static final String PARAM_LIMIT = "limit";
+    public static final String PARAM_CONTINUE_AFTER = "continueAfter";
     public String head;
     @Autowired
     private RepositoryService repositoryService;
@@ -99,7 +104,7 @@ public class BrowseNativeService implements RestService<String> {
             // fetch page props
             Properties requestProps = (Properties) httpServletRequest
                     .getAttribute(ATTR_ARTIFACTORY_REQUEST_PROPERTIES);
-            updatePageData(repoPath, requestProps, artifactoryResponse);
+            updatePageData(repoPath, requestProps, httpServletRequest, artifactoryResponse);
             // fetch page title
             String title = getPageTitle(repoPath);
             // fetch page body
@@ -154,13 +159,21 @@ public class BrowseNativeService implements RestService<String> {
      * update page related data
      * @param repoPath - repository path
      * @param requestProps - request related props
+     * @param request - http servlet request, with the optional pagination parameters
      * @param artifactoryResponse - encapsulate data related response
      * @throws IOException
      */
-    private void updatePageData(final RepoPath repoPath, Properties requestProps, RestResponse artifactoryResponse)
-            throws IOException {
+    private void updatePageData(final RepoPath repoPath, Properties requestProps, HttpServletRequest request,
+            RestResponse artifactoryResponse) throws IOException {
         RootNodesFilterResult rootNodesFilterResult = new RootNodesFilterResult();
-        final List<? extends BaseBrowsableItem> items = getItems(repoPath, requestProps, rootNodesFilterResult);
+        final List<? extends BaseBrowsableItem> items;
+        int limit = NumberUtils.toInt(request.getParameter(PARAM_LIMIT));
+        if (limit > 0 && repositoryService.localOrCachedRepoDescriptorByKey(repoPath.getRepoKey()) != null) {
+            items = getItemsPage(repoPath, requestProps, rootNodesFilterResult, limit,
+                    StringUtils.trimToNull(request.getParameter(PARAM_CONTINUE_AFTER)));
+        } else {
+            items = getItems(repoPath, requestProps, rootNodesFilterResult);
+        }
         sendChallengeMessage(repoPath, rootNodesFilterResult, items, artifactoryResponse.getServletResponse());
         // get max name length
         int maxLength = 4;
@@ -265,6 +278,42 @@ public class BrowseNativeService implements RestService<String> {
         return items;
     }
 
+    /**
+     * get a page of browsable items from a local or cache repository, in the order of the database: folders first and
+     * then files, each by name
+     *
+     * @param repoPath              - repository path
+     * @param requestProps          - request properties
+     * @param rootNodesFilterResult - object hold the List node acceptance status flag,if flagged to false meaning
+     *                              at least one node has read permission issue by user
+     * @param limit                 - max number of items in the page
+     * @param continueAfter         - continuation of the previous page, null for the first page
+     * @return list of browsable items of the page
+     */
+    private List<? extends BaseBrowsableItem> getItemsPage(RepoPath repoPath, Properties requestProps,
+            RootNodesFilterResult rootNodesFilterResult, int limit, String continueAfter) {
+        boolean updateRootNodesFilterFlag = authorizationService.isAnonymous();
+        boolean includeChecksums = !ConstantValues.uiHideChecksums.getBoolean();
+        BrowsableItemCriteria criteria = new BrowsableItemCriteria.Builder(repoPath).requestProperties(requestProps)
+                .includeChecksums(includeChecksums).continueAfter(continueAfter).limit(limit).build();
+        BrowsableItemsPage page;
+        try {
+            page = repoBrowsingService.getLocalRepoBrowsableChildrenPage(criteria,
+                    updateRootNodesFilterFlag ? rootNodesFilterResult : null);
+        } catch (Exception e) {
+            throw new RuntimeException("not found");
+        }
+        if (page.getContinueAfter() != null) {
+            nextPageQuery = "?" + PARAM_LIMIT + "=" + limit + "&" + PARAM_CONTINUE_AFTER + "=" +
+                    UrlEscapers.urlFormParameterEscaper().escape(page.getContinueAfter());
+        }
+        List<BaseBrowsableItem> pageItems = page.getItems();
+        if (!includeChecksums) {
+            pageItems = BrowseUtils.filterChecksums(pageItems);
+        }
+        return pageItems;
+    }
+
     /**
      * get Browsable Item from repositories (local/remote/virtual) based on search criteria
      *
@@ -349,6 +398,10 @@ public class BrowseNativeService implements RestService<String> {
             }
             bodyBuilder.append("\n");
         }
+        if (nextPageQuery != null) {
+            bodyBuilder.append("<a href=\"").append(StringEscapeUtils.escapeXml(nextPageQuery))
+                    .append("\">Next page</a>\n");
+        }
         return bodyBuilder.toString();
     }
 
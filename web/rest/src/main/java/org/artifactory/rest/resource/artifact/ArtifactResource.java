@@ -29,6 +29,9 @@ import org.artifactory.addon.rest.MissingRestAddonException;
 import org.artifactory.addon.rest.RestAddon;
 import org.artifactory.api.config.CentralConfigService;
 import org.artifactory.api.context.ContextHelper;
+import org.artifactory.api.repo.BaseBrowsableItem;
+import org.artifactory.api.repo.BrowsableItemCriteria;
+import org.artifactory.api.repo.BrowsableItemsPage;
 import org.artifactory.api.repo.RepositoryBrowsingService;
 import org.artifactory.api.repo.VirtualRepoItem;
 import org.artifactory.api.repo.exception.BlackedOutException;
@@ -103,6 +106,8 @@ public class ArtifactResource {
     private static final String LAST_MODIFIED_PARAM = "lastModified";
     private static final String PERMISSIONS_PARAM = "permissions";
     private static final String STATS_PARAM = "stats";
+    private static final String LIMIT_PARAM = "limit";
+    private static final String CONTINUE_AFTER_PARAM = "continueAfter";
 
     @Context
     private HttpServletRequest request;
@@ -581,7 +586,13 @@ public class ArtifactResource {
         folderInfo.children = new ArrayList<>();
 
         //if local or cache repo
-        if (isLocalRepo(repoKey)) {
+        if (isLocalRepo(repoKey) && queryParamsContainKey(LIMIT_PARAM)) {
+            BrowsableItemsPage page = getChildrenPage(folderRepoPath);
+            for (BaseBrowsableItem child : page.getItems()) {
+                folderInfo.children.add(new RestFolderInfo.DirItem("/" + child.getName(), child.isFolder()));
+            }
+            folderInfo.continueAfter = page.getContinueAfter();
+        } else if (isLocalRepo(repoKey)) {
             List<ItemInfo> children = repositoryService.getChildren(folderRepoPath);
             for (ItemInfo child : children) {
                 folderInfo.children.add(new RestFolderInfo.DirItem("/" + child.getName(), child.isFolder()));
@@ -596,6 +607,27 @@ public class ArtifactResource {
         return folderInfo;
     }
 
+    /**
+     * Returns a page of the children of a local folder, starting after the continueAfter parameter
+     */
+    private BrowsableItemsPage getChildrenPage(RepoPath folderRepoPath) {
+        int limit;
+        try {
+            limit = getQueryParameterAsInt(LIMIT_PARAM);
+        } catch (NumberFormatException e) {
+            limit = 0;
+        }
+        if (limit <= 0) {
+            throw new BadRequestException("The " + LIMIT_PARAM + " parameter must be a positive number.");
+        }
+        BrowsableItemCriteria criteria = new BrowsableItemCriteria.Builder(folderRepoPath)
+                .includeChecksums(false)
+                .continueAfter(StringUtils.trimToNull(queryParams().getFirst(CONTINUE_AFTER_PARAM)))
+                .limit(limit)
+                .build();
+        return repoBrowsingService.getLocalRepoBrowsableChildrenPage(criteria, null);
+    }
+
     private void setBaseStorageInfo(RestBaseStorageInfo storageInfoRest, ItemInfo itemInfo, String repoKey) {
         storageInfoRest.slf = RestUtils.buildStorageInfoUri(request, repoKey, itemInfo.getRelPath());
         storageInfoRest.path = "/" + itemInfo.getRelPath();
@@ -121,7 +121,9 @@ public class ImportResource {
             //Include metadata - default 1
             @QueryParam(RepositoriesRestConstants.INCLUDE_METADATA) String includeMetadata,
             //Verbose - default 0
-            @QueryParam(RepositoriesRestConstants.VERBOSE) String verbose) throws IOException {
+            @QueryParam(RepositoriesRestConstants.VERBOSE) String verbose,
+            //Dry run - default 0
+            @QueryParam(RepositoriesRestConstants.DRY_RUN) String dryRun) throws IOException {
 
         if (StringUtils.isBlank(path)) {
             throw new BadRequestException("You must provide a repository path to import from.");
@@ -153,6 +155,9 @@ public class ImportResource {
         if (StringUtils.isNotBlank(verbose)) {
             importSettings.setVerbose(Integer.parseInt(verbose) == 1);
         }
+        if (StringUtils.isNotBlank(dryRun)) {
+            importSettings.setDryRun(Integer.parseInt(dryRun) == 1);
+        }
         try {
             if (StringUtils.isBlank(targetRepo)) {
                 repositoryService.importAll(importSettings);